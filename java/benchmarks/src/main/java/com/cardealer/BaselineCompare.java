@@ -0,0 +1,64 @@
+package com.cardealer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares two JMH JSON result files, printing the primary score and normalized allocation of
+ * every benchmark present in both, with the change relative to the baseline.
+ *
+ * <p>Usage: {@code java -cp target/benchmarks.jar com.cardealer.BaselineCompare baseline.json current.json}
+ */
+public final class BaselineCompare {
+
+    private static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+
+    private BaselineCompare() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: BaselineCompare <baseline.json> <current.json>");
+            System.exit(2);
+        }
+        Map<String, JsonNode> baseline = load(new File(args[0]));
+        Map<String, JsonNode> current = load(new File(args[1]));
+
+        System.out.printf("%-70s %14s %14s %8s %12s %12s %8s%n",
+            "Benchmark", "Baseline", "Current", "Change", "Base B/op", "Cur B/op", "Change");
+        for (Map.Entry<String, JsonNode> entry : baseline.entrySet()) {
+            JsonNode after = current.get(entry.getKey());
+            if (after == null) {
+                continue;
+            }
+            JsonNode before = entry.getValue();
+            double scoreBefore = before.path("primaryMetric").path("score").asDouble();
+            double scoreAfter = after.path("primaryMetric").path("score").asDouble();
+            double allocBefore = before.path("secondaryMetrics").path(ALLOCATION_METRIC).path("score").asDouble(Double.NaN);
+            double allocAfter = after.path("secondaryMetrics").path(ALLOCATION_METRIC).path("score").asDouble(Double.NaN);
+            System.out.printf("%-70s %14.3f %14.3f %+7.1f%% %12.0f %12.0f %+7.1f%%%n",
+                entry.getKey(), scoreBefore, scoreAfter, change(scoreBefore, scoreAfter),
+                allocBefore, allocAfter, change(allocBefore, allocAfter));
+        }
+    }
+
+    private static double change(double before, double after) {
+        return before == 0 ? 0 : (after - before) / before * 100.0;
+    }
+
+    private static Map<String, JsonNode> load(File file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText());
+            result.path("params").fields().forEachRemaining(param ->
+                key.append(':').append(param.getKey()).append('=').append(param.getValue().asText()));
+            results.put(key.toString(), result);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,88 @@
+package com.cardealer;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Writing the ZIP package of a rendered deck under each {@link CompressionPolicy}. The parts of
+ * one deck are captured once and replayed into the archive stream exactly as POI writes them,
+ * so only compression and ZIP framing are measured, not XML serialization. The deck size for
+ * the policy is printed when the trial ends.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(3)
+@State(Scope.Thread)
+public class CompressionBenchmark {
+
+    @Param({"poi", "stored", "deflate:1", "deflate:6", "deflate:9", "parallel:1", "parallel:6"})
+    String policy;
+
+    private CompressionPolicy compression;
+    private final List<String> names = new ArrayList<>();
+    private final List<byte[]> contents = new ArrayList<>();
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(128 * 1024);
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        compression = CompressionPolicy.parse(policy);
+        ByteArrayOutputStream deck = new ByteArrayOutputStream();
+        try (XMLSlideShow pptx = new XMLSlideShow()) {
+            new PresentationBuilder().populateSlide(pptx.createSlide(), ListingCorpus.generate(1, 42L).listings().get(0));
+            pptx.write(deck);
+        }
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(deck.toByteArray()))) {
+            for (ZipEntry entry; (entry = zip.getNextEntry()) != null; ) {
+                names.add(entry.getName());
+                contents.add(zip.readAllBytes());
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.printf("%n%s deck size: %d bytes%n", policy, out.size());
+    }
+
+    @Benchmark
+    public int writePackage() throws IOException {
+        out.reset();
+        ZipArchiveOutputStream zip = compression.getStrategy() == CompressionPolicy.Strategy.POI
+            ? new ZipArchiveOutputStream(out)
+            : new PackagePartCollector(out, compression);
+        try (zip) {
+            for (int i = 0; i < names.size(); i++) {
+                zip.putArchiveEntry(new ZipArchiveEntry(names.get(i)));
+                zip.write(contents.get(i));
+                zip.closeArchiveEntry();
+            }
+            zip.finish();
+        }
+        return out.size();
+    }
+}
@@ -0,0 +1,79 @@
+package com.cardealer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Picking "ULEZ-compliant automatics up to £15,000, cheapest first" from a six-figure inventory:
+ * an {@link InventoryStore} query against filtering and sorting the listings with a stream.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(3)
+@State(Scope.Benchmark)
+public class InventoryStoreBenchmark {
+
+    @Param({"100000"})
+    public int listings;
+
+    private List<VehicleListing> inventory;
+    private InventoryStore store;
+
+    @Setup
+    public void setUp() {
+        inventory = ListingCorpus.generate(listings, 42L).listings();
+        store = InventoryStore.of(inventory);
+    }
+
+    @Benchmark
+    public List<VehicleListing> storeQuery() {
+        return store.query()
+            .ulez(UlezStatus.YES)
+            .gearbox(GearboxType.AUTOMATIC)
+            .price(0, 15_000)
+            .sortBy(CatalogSort.PRICE)
+            .list();
+    }
+
+    @Benchmark
+    public List<VehicleListing> storeQueryFirst50() {
+        return store.query()
+            .ulez(UlezStatus.YES)
+            .gearbox(GearboxType.AUTOMATIC)
+            .price(0, 15_000)
+            .sortBy(CatalogSort.PRICE)
+            .limit(50)
+            .list();
+    }
+
+    @Benchmark
+    public int storeCount() {
+        return store.query().fuelType(FuelType.HYBRID, FuelType.ELECTRIC).dealer("Dealer 7 Motors").count();
+    }
+
+    @Benchmark
+    public List<VehicleListing> streamFilter() {
+        return inventory.stream()
+            .filter(vehicle -> vehicle.getUlez() == UlezStatus.YES)
+            .filter(vehicle -> vehicle.getGearbox() == GearboxType.AUTOMATIC)
+            .filter(vehicle -> vehicle.getPricePence() != VehicleListing.NO_VALUE
+                && vehicle.getPricePence() <= 1_500_099)
+            .sorted(CatalogSort.PRICE.order())
+            .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,66 @@
+package com.cardealer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON bytes to {@link VehicleListing}: the original map path (with a new or a shared
+ * {@code ObjectMapper}) against the token-streaming {@link ListingJsonReader}.
+ * Each invocation decodes the whole corpus.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(3)
+@State(Scope.Benchmark)
+public class JsonReadBenchmark {
+
+    private final ObjectMapper sharedMapper = new ObjectMapper();
+    private List<byte[]> documents;
+
+    @Setup
+    public void setUp() {
+        documents = ListingCorpus.generate(1000, 42L).json();
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public void mapPathNewMapper(Blackhole blackhole) throws IOException {
+        for (byte[] json : documents) {
+            Map<String, Object> data = new ObjectMapper().readValue(json, Map.class);
+            blackhole.consume(VehicleListing.fromMap(data));
+        }
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public void mapPathSharedMapper(Blackhole blackhole) throws IOException {
+        for (byte[] json : documents) {
+            Map<String, Object> data = sharedMapper.readValue(json, Map.class);
+            blackhole.consume(VehicleListing.fromMap(data));
+        }
+    }
+
+    @Benchmark
+    public void streamingReader(Blackhole blackhole) throws IOException {
+        for (byte[] json : documents) {
+            blackhole.consume(ListingJsonReader.read(json));
+        }
+    }
+}
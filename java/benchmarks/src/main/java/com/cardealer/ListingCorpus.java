@@ -0,0 +1,144 @@
+package com.cardealer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic synthetic listing corpus shaped like a real forecourt feed: a mix of makes,
+ * price and mileage formats, variable spec lists, a few dozen dealers shared across listings,
+ * and a small share of missing fields and unrecognised enum values that exercise the fallbacks.
+ */
+final class ListingCorpus {
+
+    private static final String[] MODELS = {
+        "Ford Kuga ST-Line", "Ford Fiesta Titanium", "Vauxhall Corsa SE", "Volkswagen Golf GTD",
+        "BMW 320d M Sport", "Audi A3 Sportback S line", "Toyota Yaris Hybrid Icon", "Nissan Qashqai N-Connecta",
+        "Kia Sportage GT-Line", "Land Rover Discovery Sport HSE", "Mercedes-Benz A180 AMG Line",
+        "Tesla Model 3 Long Range", "Skoda Octavia Estate SE L", "Hyundai Tucson Premium", "MINI Cooper S"
+    };
+    private static final String[] FUEL_TYPES = {"Petrol", "Diesel", "Hybrid", "Electric", "petrol", "DIESEL", "LPG"};
+    private static final String[] GEARBOXES = {"Automatic", "Manual", "manual", "AUTOMATIC", "Semi-Auto"};
+    private static final String[] ULEZ = {"Yes", "No", "Unknown", "yes", "Exempt"};
+    private static final String[] SPECS = {
+        "Apple CarPlay", "Android Auto", "Navigation", "Parking Sensors", "Rear Camera", "Cruise Control",
+        "Heated Seats", "DAB Radio", "Bluetooth", "Panoramic Roof", "Keyless Entry", "Lane Assist",
+        "Adaptive Cruise", "LED Headlights", "Full Service History", "PX Welcome"
+    };
+    private static final String[] MONTHS = {"Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"};
+    private static final int DEALER_COUNT = 40;
+
+    private final List<Map<String, Object>> maps;
+    private final List<byte[]> json;
+
+    private ListingCorpus(List<Map<String, Object>> maps, List<byte[]> json) {
+        this.maps = maps;
+        this.json = json;
+    }
+
+    /**
+     * Generates a corpus.
+     *
+     * @param size number of listings
+     * @param seed random seed; the same seed always yields the same corpus
+     * @return the corpus
+     */
+    static ListingCorpus generate(int size, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        ObjectMapper mapper = new ObjectMapper();
+        List<Map<String, Object>> maps = new ArrayList<>(size);
+        List<byte[]> json = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Map<String, Object> listing = listing(random);
+            maps.add(listing);
+            try {
+                json.add(mapper.writeValueAsBytes(listing));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return new ListingCorpus(maps, json);
+    }
+
+    List<Map<String, Object>> maps() {
+        return maps;
+    }
+
+    List<byte[]> json() {
+        return json;
+    }
+
+    List<VehicleListing> listings() {
+        List<VehicleListing> listings = new ArrayList<>(maps.size());
+        for (Map<String, Object> map : maps) {
+            listings.add(VehicleListing.fromMap(map));
+        }
+        return listings;
+    }
+
+    @SuppressWarnings("unchecked")
+    List<Map<String, Object>> dealerMaps() {
+        List<Map<String, Object>> dealers = new ArrayList<>(maps.size());
+        for (Map<String, Object> map : maps) {
+            dealers.add((Map<String, Object>) map.get("dealer"));
+        }
+        return dealers;
+    }
+
+    private static Map<String, Object> listing(SplittableRandom random) {
+        Map<String, Object> listing = new LinkedHashMap<>();
+        int year = 2008 + random.nextInt(17);
+        int plate = year % 100 + (random.nextBoolean() ? 50 : 0);
+        listing.put("title", MODELS[random.nextInt(MODELS.length)]);
+        if (random.nextInt(20) != 0) {
+            listing.put("price", String.format(Locale.UK, "£%,d", 1_000 + random.nextInt(60) * 500));
+        }
+        listing.put("registration", registration(random, plate));
+        listing.put("year", String.format("%d (%02d reg)", year, plate));
+        listing.put("gearbox", GEARBOXES[random.nextInt(GEARBOXES.length)]);
+        listing.put("engine_size", String.format(Locale.UK, "%.1f L", 1.0 + random.nextInt(20) / 10.0));
+        listing.put("fuel_type", FUEL_TYPES[random.nextInt(FUEL_TYPES.length)]);
+        listing.put("mileage", String.format(Locale.UK, "%,d", random.nextInt(150_000)));
+        listing.put("ulez", ULEZ[random.nextInt(ULEZ.length)]);
+        if (random.nextInt(10) != 0) {
+            listing.put("mot_expiry", String.format("%d %s %d", 1 + random.nextInt(28),
+                MONTHS[random.nextInt(12)], 2025 + random.nextInt(2)));
+        }
+        listing.put("owners", String.valueOf(1 + random.nextInt(5)));
+
+        List<String> specs = new ArrayList<>();
+        int specCount = random.nextInt(13);
+        for (int s = 0; s < specCount; s++) {
+            specs.add(SPECS[random.nextInt(SPECS.length)]);
+        }
+        listing.put("specs", specs);
+        listing.put("dealer", dealer(random.nextInt(DEALER_COUNT)));
+        return listing;
+    }
+
+    private static String registration(SplittableRandom random, int plate) {
+        StringBuilder reg = new StringBuilder(8);
+        reg.append((char) ('A' + random.nextInt(26))).append((char) ('A' + random.nextInt(26)));
+        reg.append(String.format("%02d ", plate));
+        for (int i = 0; i < 3; i++) {
+            reg.append((char) ('A' + random.nextInt(26)));
+        }
+        return reg.toString();
+    }
+
+    private static Map<String, Object> dealer(int index) {
+        Map<String, Object> dealer = new LinkedHashMap<>();
+        dealer.put("name", "Dealer " + index + " Motors");
+        dealer.put("phone", String.format("0%04d %06d", 1000 + index, 100_000 + index));
+        dealer.put("email", "sales@dealer" + index + ".co.uk");
+        dealer.put("website", "www.dealer" + index + ".co.uk");
+        return dealer;
+    }
+}
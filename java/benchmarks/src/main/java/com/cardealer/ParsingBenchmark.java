@@ -0,0 +1,90 @@
+package com.cardealer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Model building from already-decoded JSON maps, and the enum lookups it relies on.
+ * Each invocation processes the whole corpus, so scores are per corpus pass.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(3)
+@State(Scope.Benchmark)
+public class ParsingBenchmark {
+
+    @Param({"1000"})
+    int corpusSize;
+
+    private List<Map<String, Object>> listingMaps;
+    private List<Map<String, Object>> dealerMaps;
+    private String[] fuelTypes;
+    private String[] gearboxes;
+    private String[] ulezStatuses;
+
+    @Setup
+    public void setUp() {
+        ListingCorpus corpus = ListingCorpus.generate(corpusSize, 42L);
+        listingMaps = corpus.maps();
+        dealerMaps = corpus.dealerMaps();
+        fuelTypes = new String[corpusSize];
+        gearboxes = new String[corpusSize];
+        ulezStatuses = new String[corpusSize];
+        for (int i = 0; i < corpusSize; i++) {
+            fuelTypes[i] = (String) listingMaps.get(i).get("fuel_type");
+            gearboxes[i] = (String) listingMaps.get(i).get("gearbox");
+            ulezStatuses[i] = (String) listingMaps.get(i).get("ulez");
+        }
+    }
+
+    @Benchmark
+    public void vehicleListingFromMap(Blackhole blackhole) {
+        for (Map<String, Object> map : listingMaps) {
+            blackhole.consume(VehicleListing.fromMap(map));
+        }
+    }
+
+    @Benchmark
+    public void dealerDetailsFromMap(Blackhole blackhole) {
+        for (Map<String, Object> map : dealerMaps) {
+            blackhole.consume(DealerDetails.fromMap(map));
+        }
+    }
+
+    @Benchmark
+    public void fuelTypeFromString(Blackhole blackhole) {
+        for (String value : fuelTypes) {
+            blackhole.consume(FuelType.fromString(value));
+        }
+    }
+
+    @Benchmark
+    public void gearboxTypeFromString(Blackhole blackhole) {
+        for (String value : gearboxes) {
+            blackhole.consume(GearboxType.fromString(value));
+        }
+    }
+
+    @Benchmark
+    public void ulezStatusFromString(Blackhole blackhole) {
+        for (String value : ulezStatuses) {
+            blackhole.consume(UlezStatus.fromString(value));
+        }
+    }
+}
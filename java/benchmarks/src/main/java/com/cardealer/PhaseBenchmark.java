@@ -0,0 +1,107 @@
+package com.cardealer;
+
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFSlide;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Individual {@link PresentationBuilder} phases: the three slide blocks on a fresh slide, the
+ * whole listing slide built directly or cloned from a {@link SlideTemplate}, and serializing an
+ * already-populated deck with {@code XMLSlideShow.write}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(3)
+@State(Scope.Thread)
+public class PhaseBenchmark {
+
+    private final PresentationBuilder builder = new PresentationBuilder();
+    private List<VehicleListing> listings;
+    private int cursor;
+
+    private XMLSlideShow pptx;
+    private XSLFSlide slide;
+    private XMLSlideShow populated;
+
+    @Setup(Level.Trial)
+    public void setUpCorpus() {
+        listings = ListingCorpus.generate(1000, 42L).listings();
+        populated = new XMLSlideShow();
+        builder.populateSlide(populated.createSlide(), listings.get(0));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownCorpus() throws IOException {
+        populated.close();
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpSlide() {
+        pptx = new XMLSlideShow();
+        slide = pptx.createSlide();
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDownSlide() throws IOException {
+        pptx.close();
+    }
+
+    private VehicleListing next() {
+        VehicleListing vehicle = listings.get(cursor);
+        cursor = (cursor + 1) % listings.size();
+        return vehicle;
+    }
+
+    @Benchmark
+    public XSLFSlide titleBlock() {
+        builder.addTitleBlock(slide, next());
+        return slide;
+    }
+
+    @Benchmark
+    public XSLFSlide specificationTable() {
+        builder.addSpecificationTable(slide, next());
+        return slide;
+    }
+
+    @Benchmark
+    public XSLFSlide contactBlock() {
+        builder.addContactBlock(slide, next().getDealer());
+        return slide;
+    }
+
+    @Benchmark
+    public XSLFSlide directSlide() {
+        builder.populateSlide(slide, next());
+        return slide;
+    }
+
+    @Benchmark
+    public XSLFSlide templateSlide() {
+        SlideTemplate.forCurrentThread().applyTo(slide, next());
+        return slide;
+    }
+
+    @Benchmark
+    public void write() throws IOException {
+        populated.write(OutputStream.nullOutputStream());
+    }
+}
@@ -0,0 +1,63 @@
+package com.cardealer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full deck rendering to a file, once per {@link RenderMode}. A deck takes tens of
+ * milliseconds, so warm-up and measurement iterations are longer than in the other benchmarks
+ * to cover enough renders per iteration.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10, time = 2)
+@Measurement(iterations = 5, time = 4)
+@Fork(3)
+@State(Scope.Thread)
+public class RenderModeBenchmark {
+
+    @Param({"DIRECT", "TEMPLATE", "STREAMING"})
+    RenderMode mode;
+
+    private PresentationBuilder builder;
+    private List<VehicleListing> listings;
+    private int cursor;
+    private Path output;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        builder = new PresentationBuilder(mode);
+        listings = ListingCorpus.generate(1000, 42L).listings();
+        output = Files.createTempFile("render-benchmark", ".pptx");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(output);
+    }
+
+    @Benchmark
+    public Path buildPresentation() throws IOException {
+        VehicleListing vehicle = listings.get(cursor);
+        cursor = (cursor + 1) % listings.size();
+        builder.buildPresentation(vehicle, output);
+        return output;
+    }
+}
@@ -0,0 +1,91 @@
+package com.cardealer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading an inventory from an {@link InventorySnapshot} against parsing every listing's JSON:
+ * opening the snapshot, decoding every listing, and reading one enum column without decoding.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(3)
+@State(Scope.Benchmark)
+public class SnapshotBenchmark {
+
+    @Param({"10000"})
+    public int listings;
+
+    private List<byte[]> documents;
+    private Path file;
+    private InventorySnapshot snapshot;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ListingCorpus corpus = ListingCorpus.generate(listings, 42L);
+        documents = corpus.json();
+        file = Files.createTempFile("inventory", ".snapshot");
+        try (InventorySnapshot.Writer writer = InventorySnapshot.create(file)) {
+            List<VehicleListing> vehicles = corpus.listings();
+            for (int i = 0; i < vehicles.size(); i++) {
+                writer.add("listing-" + i, vehicles.get(i));
+            }
+        }
+        snapshot = InventorySnapshot.open(file);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public InventorySnapshot open() throws IOException {
+        return InventorySnapshot.open(file);
+    }
+
+    @Benchmark
+    public void decodeAll(Blackhole blackhole) {
+        for (int i = 0; i < snapshot.size(); i++) {
+            blackhole.consume(snapshot.get(i));
+        }
+    }
+
+    @Benchmark
+    public int scanFuelType() {
+        int electric = 0;
+        for (int i = 0; i < snapshot.size(); i++) {
+            if (snapshot.fuelType(i) == FuelType.ELECTRIC) {
+                electric++;
+            }
+        }
+        return electric;
+    }
+
+    @Benchmark
+    public void parseJson(Blackhole blackhole) throws IOException {
+        for (byte[] json : documents) {
+            blackhole.consume(ListingJsonReader.read(json));
+        }
+    }
+}
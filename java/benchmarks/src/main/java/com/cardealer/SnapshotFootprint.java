@@ -0,0 +1,69 @@
+package com.cardealer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Loads a whole inventory the way a long-running process would keep it, either by parsing every
+ * listing file into a {@code List<VehicleListing>} or by opening an {@link InventorySnapshot},
+ * and reports the load time and the process's memory. Not a JMH benchmark: resident set size is
+ * per process, so run each mode in its own JVM.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar com.cardealer.SnapshotFootprint json &lt;dir|manifest&gt;
+ * java -cp target/benchmarks.jar com.cardealer.SnapshotFootprint snapshot &lt;file&gt;
+ * </pre>
+ */
+public final class SnapshotFootprint {
+
+    private SnapshotFootprint() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2 || !(args[0].equals("json") || args[0].equals("snapshot"))) {
+            System.err.println("Usage: SnapshotFootprint json <dir|manifest> | snapshot <file>");
+            System.exit(2);
+        }
+        long started = System.nanoTime();
+        List<VehicleListing> listings;
+        if (args[0].equals("json")) {
+            listings = new ArrayList<>();
+            for (Path input : BatchRenderer.resolveInputs(Path.of(args[1]))) {
+                listings.add(ListingJsonReader.read(input.toFile()));
+            }
+        } else {
+            listings = InventorySnapshot.open(Path.of(args[1])).listings();
+        }
+        long loaded = System.nanoTime() - started;
+
+        // Touch every listing once, as a query over the whole inventory would
+        int electric = 0;
+        for (VehicleListing vehicle : listings) {
+            if (vehicle.getFuelType() == FuelType.ELECTRIC) {
+                electric++;
+            }
+        }
+        long scanned = System.nanoTime() - started - loaded;
+
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        System.out.printf("%s: %d listings (%d electric), load %.1f ms, full scan %.1f ms%n",
+            args[0], listings.size(), electric, loaded / 1e6, scanned / 1e6);
+        System.out.printf("heap used after GC %d MB, %s, %s%n",
+            (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024), status("VmRSS"), status("VmHWM"));
+    }
+
+    /** Reads one line of /proc/self/status, e.g. {@code VmRSS: 120 MB}. */
+    private static String status(String field) throws IOException {
+        for (String line : Files.readAllLines(Path.of("/proc/self/status"))) {
+            if (line.startsWith(field + ":")) {
+                long kilobytes = Long.parseLong(line.replaceAll("\\D", ""));
+                return field + " " + kilobytes / 1024 + " MB";
+            }
+        }
+        return field + " n/a";
+    }
+}
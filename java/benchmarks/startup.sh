@@ -0,0 +1,61 @@
+#!/bin/sh
+# Startup benchmark for one-shot CLI runs: `--help` and a single render.
+#
+# Each command is run RUNS times (default 10) with a plain `java -jar` and through
+# bin/generate-ppt (AppCDS archive plus C1-only compilation). For a one-shot run the first
+# byte of output (help text, or the PPTX on disk) is written within milliseconds of exit,
+# so wall-clock time to exit is reported as time-to-first-byte. Build the archive first:
+#
+#   cd java && mvn -Pappcds package -DskipTests && benchmarks/startup.sh
+
+set -e
+
+JAVA_DIR=$(CDPATH= cd -- "$(dirname -- "$0")/.." && pwd)
+JAR=$JAVA_DIR/target/cardealerapp-1.0.0-jar-with-dependencies.jar
+LAUNCHER=$JAVA_DIR/bin/generate-ppt
+LISTING=$JAVA_DIR/appcds/training-listing.json
+OUTPUT=${TMPDIR:-/tmp}/startup-benchmark.pptx
+RUNS=${RUNS:-10}
+JAVA=${JAVA_HOME:+$JAVA_HOME/bin/}java
+
+if [ ! -f "$JAR" ]; then
+    echo "startup.sh: $JAR not found; run 'mvn -Pappcds package' first" >&2
+    exit 1
+fi
+if [ ! -f "${JAR%-jar-with-dependencies.jar}.jsa" ]; then
+    echo "startup.sh: no AppCDS archive; the launcher column will not use one" >&2
+fi
+
+now_ms() {
+    echo $(($(date +%s%N) / 1000000))
+}
+
+# Prints "median min" in milliseconds for RUNS executions of the given command
+measure() {
+    times=""
+    i=0
+    while [ "$i" -lt "$RUNS" ]; do
+        start=$(now_ms)
+        "$@" >/dev/null 2>&1
+        times="$times $(($(now_ms) - start))"
+        i=$((i + 1))
+    done
+    echo "$times" | tr ' ' '\n' | sed '/^$/d' | sort -n | awk '
+        { t[NR] = $1 }
+        END { printf "%d %d\n", (NR % 2 ? t[(NR + 1) / 2] : (t[NR / 2] + t[NR / 2 + 1]) / 2), t[1] }'
+}
+
+report() {
+    label=$1
+    shift
+    set -- $(measure "$JAVA" -jar "$JAR" "$@") $(measure "$LAUNCHER" "$@")
+    printf "%-16s %8s %8s %10s %10s %8s\n" "$label" "$1" "$2" "$3" "$4" \
+        "$(awk -v a="$1" -v b="$3" 'BEGIN { printf "%.2fx", a / b }')"
+}
+
+printf "%d runs per command, milliseconds to first byte\n\n" "$RUNS"
+printf "%-16s %8s %8s %10s %10s %8s\n" "" "java -jar" "" "launcher" "" ""
+printf "%-16s %8s %8s %10s %10s %8s\n" "command" "median" "min" "median" "min" "speedup"
+report "--help" --help
+report "single render" --input "$LISTING" --output "$OUTPUT"
+rm -f "$OUTPUT"
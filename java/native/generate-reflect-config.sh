@@ -0,0 +1,55 @@
+#!/bin/sh
+# Regenerates the reflection configuration for the native image from the classes the JVM build
+# actually loads.
+#
+# XMLBeans resolves schema types and their *Impl classes by name at runtime, and
+# commons-compress and log4j instantiate classes reflectively, so every class from those
+# libraries that a render touches must be registered, as must the PresentationConstants classes
+# whose fields build manifests hash. This script renders the training listing in each render mode,
+# as a grouped catalog, with the training photos and slide previews and as an incremental batch,
+# with class-load logging on, and writes one entry per such class loaded. picocli's configuration is generated
+# separately at compile time by picocli-codegen. Rerun after upgrading POI or adding a new rendering path:
+#
+#   cd java && mvn package -DskipTests && native/generate-reflect-config.sh
+
+set -e
+
+JAVA_DIR=$(CDPATH= cd -- "$(dirname -- "$0")/.." && pwd)
+JAR=$JAVA_DIR/target/cardealerapp-1.0.0-jar-with-dependencies.jar
+LISTING=$JAVA_DIR/appcds/training-listing.json
+CONFIG=$JAVA_DIR/src/main/resources/META-INF/native-image/com.cardealer/cardealerapp/reflect-config.json
+WORK=$(mktemp -d)
+JAVA=${JAVA_HOME:+$JAVA_HOME/bin/}java
+trap 'rm -rf "$WORK"' EXIT
+
+mkdir "$WORK/catalog" "$WORK/batch"
+cp "$LISTING" "$WORK/catalog/a.json"
+cp "$LISTING" "$WORK/catalog/b.json"
+for mode in direct template streaming; do
+    "$JAVA" -Xlog:class+load=info:file="$WORK/classes-$mode.log" -jar "$JAR" \
+        --input "$LISTING" --output "$WORK/$mode.pptx" --render-mode "$mode" >/dev/null 2>&1
+done
+"$JAVA" -Xlog:class+load=info:file="$WORK/classes-catalog.log" -jar "$JAR" \
+    --catalog "$WORK/catalog" --catalog-group fuel_type --output "$WORK/catalog.pptx" >/dev/null 2>&1
+"$JAVA" -Xlog:class+load=info:file="$WORK/classes-photos.log" -jar "$JAR" \
+    --input "$LISTING" --output "$WORK/photos.pptx" --preview-pdf \
+    --photos "$JAVA_DIR/native/training-photo.jpg" "$JAVA_DIR/native/training-photo.png" >/dev/null 2>&1
+"$JAVA" -Xlog:class+load=info:file="$WORK/classes-batch.log" -jar "$JAR" \
+    --batch "$WORK/catalog" --output-dir "$WORK/batch" --incremental >/dev/null 2>&1
+
+cat "$WORK"/classes-*.log \
+    | awk '$0 ~ /source: (jar:)?file:/ { print $2 }' \
+    | grep -E '^(org\.apache\.xmlbeans|org\.apache\.poi|org\.openxmlformats|com\.microsoft\.schemas|org\.etsi|org\.w3|org\.apache\.commons\.(compress|io|collections4|codec)|org\.apache\.logging\.log4j)\.|^com\.cardealer\.PresentationConstants' \
+    | grep -v '\$\$Lambda' \
+    | sort -u \
+    | awk '
+        BEGIN { print "[" }
+        {
+            if (NR > 1) print ","
+            printf "  {\n    \"name\": \"%s\",\n    \"allDeclaredConstructors\": true,\n    \"allPublicMethods\": true,\n    \"allPublicFields\": true", $1
+            if ($1 ~ /^com\.cardealer\./) printf ",\n    \"allPublicClasses\": true"
+            printf "\n  }"
+        }
+        END { print "" ; print "]" }' > "$CONFIG"
+
+echo "Wrote $(grep -c '"name"' "$CONFIG") classes to $CONFIG"
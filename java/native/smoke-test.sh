@@ -0,0 +1,72 @@
+#!/bin/sh
+# Checks that the native binary renders the same decks as the JVM build.
+#
+# Every sample listing is rendered in each render mode by both target/generate-ppt and the fat
+# jar. The package parts are unzipped and compared byte for byte; ZIP entry timestamps are the
+# only thing allowed to differ. Afterwards the wall time and peak RSS of one render are reported
+# for both. Build both artifacts first:
+#
+#   cd java && mvn -Pnative package && native/smoke-test.sh
+
+set -e
+
+JAVA_DIR=$(CDPATH= cd -- "$(dirname -- "$0")/.." && pwd)
+JAR=$JAVA_DIR/target/cardealerapp-1.0.0-jar-with-dependencies.jar
+NATIVE=$JAVA_DIR/target/generate-ppt
+JAVA=${JAVA_HOME:+$JAVA_HOME/bin/}java
+WORK=$(mktemp -d)
+trap 'rm -rf "$WORK"' EXIT
+
+for artifact in "$JAR" "$NATIVE"; do
+    if [ ! -f "$artifact" ]; then
+        echo "smoke-test: $artifact not found; run 'mvn -Pnative package' first" >&2
+        exit 1
+    fi
+done
+
+failures=0
+checked=0
+for listing in "$JAVA_DIR"/appcds/training-listing.json "$JAVA_DIR"/../python/data/*.json; do
+    [ -f "$listing" ] || continue
+    name=$(basename "$listing" .json)
+    for mode in direct template streaming; do
+        "$JAVA" -jar "$JAR" --input "$listing" --output "$WORK/jvm.pptx" --render-mode "$mode" >/dev/null 2>&1
+        if ! "$NATIVE" --input "$listing" --output "$WORK/native.pptx" --render-mode "$mode" >"$WORK/native.log" 2>&1; then
+            echo "FAIL $name ($mode): native binary exited with an error"
+            sed 's/^/    /' "$WORK/native.log"
+            failures=$((failures + 1))
+            continue
+        fi
+        rm -rf "$WORK/jvm" "$WORK/native"
+        mkdir "$WORK/jvm" "$WORK/native"
+        (cd "$WORK/jvm" && unzip -q ../jvm.pptx)
+        (cd "$WORK/native" && unzip -q ../native.pptx)
+        if diff -r "$WORK/jvm" "$WORK/native" >"$WORK/diff.txt"; then
+            echo "ok   $name ($mode)"
+        else
+            echo "FAIL $name ($mode): package parts differ"
+            sed 's/^/    /' "$WORK/diff.txt" | head -20
+            failures=$((failures + 1))
+        fi
+        checked=$((checked + 1))
+    done
+done
+
+# Wall time and peak RSS of one render, using GNU time when it is installed
+if [ -x /usr/bin/time ]; then
+    listing=$JAVA_DIR/appcds/training-listing.json
+    for label in jvm native; do
+        if [ "$label" = jvm ]; then
+            set -- "$JAVA" -jar "$JAR"
+        else
+            set -- "$NATIVE"
+        fi
+        /usr/bin/time -f "%e %M" -o "$WORK/time.txt" "$@" --input "$listing" --output "$WORK/perf.pptx" >/dev/null 2>&1
+        read -r seconds rss_kb <"$WORK/time.txt"
+        awk -v label="$label" -v s="$seconds" -v kb="$rss_kb" \
+            'BEGIN { printf "%-7s %6.0f ms  %6.1f MB peak RSS\n", label, s * 1000, kb / 1024 }'
+    done
+fi
+
+echo "$checked renders compared, $failures failed"
+[ "$failures" -eq 0 ]
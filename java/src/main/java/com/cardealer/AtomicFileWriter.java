@@ -0,0 +1,95 @@
+package com.cardealer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Writes whole files through a temporary sibling and a rename, so readers never see a partially
+ * written file and a failed write leaves any previous version in place.
+ */
+final class AtomicFileWriter {
+
+    private AtomicFileWriter() {
+    }
+
+    /**
+     * Replaces a file with the given content. The content is written with a {@link FileChannel}
+     * to a hidden temporary file in the same directory, which is then moved over the target,
+     * atomically where the file system supports it.
+     *
+     * @param target the file to create or replace
+     * @param content the bytes to write, from its position to its limit; consumed by the call
+     * @throws IOException if the file cannot be written or moved into place
+     */
+    static void write(Path target, ByteBuffer content) throws IOException {
+        Path temp = temporaryFor(target);
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                while (content.hasRemaining()) {
+                    channel.write(content);
+                }
+            }
+            commit(temp, target);
+        } catch (IOException | RuntimeException e) {
+            discard(temp, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Names a hidden temporary file next to the target, for callers that write a file
+     * incrementally and then {@link #commit(Path, Path)} it.
+     *
+     * @param target the file that will be created or replaced
+     * @return the temporary path, which does not exist yet
+     * @throws NoSuchFileException if the target's directory does not exist
+     */
+    static Path temporaryFor(Path target) throws NoSuchFileException {
+        Path absolute = target.toAbsolutePath();
+        if (!Files.isDirectory(absolute.getParent())) {
+            // Report the directory rather than the temporary file name
+            throw new NoSuchFileException(absolute.getParent().toString(), null, "directory does not exist");
+        }
+        // Named by hand rather than with createTempFile, which would make the file owner-only
+        return absolute.resolveSibling("." + absolute.getFileName() + "."
+            + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+    }
+
+    /**
+     * Moves a fully written temporary file over the target, atomically where the file system
+     * supports it.
+     *
+     * @param temp the temporary file from {@link #temporaryFor(Path)}
+     * @param target the file to create or replace
+     * @throws IOException if the file cannot be moved
+     */
+    static void commit(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target.toAbsolutePath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target.toAbsolutePath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Deletes a temporary file after a failed write, attaching any failure to the original one.
+     *
+     * @param temp the temporary file
+     * @param failure the error that ended the write
+     */
+    static void discard(Path temp, Throwable failure) {
+        try {
+            Files.deleteIfExists(temp);
+        } catch (IOException suppressed) {
+            failure.addSuppressed(suppressed);
+        }
+    }
+}
@@ -0,0 +1,645 @@
+package com.cardealer;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Renders many vehicle listings in a single JVM using a fixed pool of worker threads.
+ * Inputs are resolved from either a directory of JSON files or a manifest file that
+ * lists one JSON path per line, or streamed from the rows of a CSV stock feed.
+ */
+public class BatchRenderer {
+
+    private final PresentationBuilder builder;
+    private final int workers;
+    private final RenderCache cache;
+    private final SlidePreviewExporter previews;
+    private final BuildManifest manifest;
+
+    /**
+     * Creates a batch renderer.
+     *
+     * @param builder the presentation builder shared by all workers
+     * @param workers number of worker threads (must be positive)
+     * @throws IllegalArgumentException if workers is not positive
+     */
+    public BatchRenderer(PresentationBuilder builder, int workers) {
+        this(builder, workers, null);
+    }
+
+    /**
+     * Creates a batch renderer that looks decks up in a render cache before building them.
+     *
+     * @param builder the presentation builder shared by all workers
+     * @param workers number of worker threads (must be positive)
+     * @param cache the render cache, or null to always render
+     * @throws IllegalArgumentException if workers is not positive
+     */
+    public BatchRenderer(PresentationBuilder builder, int workers, RenderCache cache) {
+        this(builder, workers, cache, null);
+    }
+
+    /**
+     * Creates a batch renderer that also writes slide previews next to every deck. Each worker
+     * rasterizes the decks it renders, so previews are produced in parallel.
+     *
+     * @param builder the presentation builder shared by all workers
+     * @param workers number of worker threads (must be positive)
+     * @param cache the render cache, or null to always render
+     * @param previews the preview exporter, or null for no previews
+     * @throws IllegalArgumentException if workers is not positive, or if both a cache and
+     *         previews are given, as a cached deck has no slideshow to rasterize
+     */
+    public BatchRenderer(PresentationBuilder builder, int workers, RenderCache cache, SlidePreviewExporter previews) {
+        this(builder, workers, cache, previews, null);
+    }
+
+    /**
+     * Creates a batch renderer that skips listings whose deck is up to date in a build manifest
+     * and records every deck it renders there. Removing orphans and saving the manifest after
+     * the run are left to the caller.
+     *
+     * @param builder the presentation builder shared by all workers
+     * @param workers number of worker threads (must be positive)
+     * @param cache the render cache, or null to always render
+     * @param previews the preview exporter, or null for no previews
+     * @param manifest the build manifest of the output directory, or null to render everything
+     * @throws IllegalArgumentException if workers is not positive, or if both a cache and
+     *         previews are given
+     */
+    public BatchRenderer(PresentationBuilder builder, int workers, RenderCache cache, SlidePreviewExporter previews,
+                         BuildManifest manifest) {
+        this.builder = Objects.requireNonNull(builder, "Builder cannot be null");
+        if (workers < 1) {
+            throw new IllegalArgumentException("Worker count must be at least 1, got: " + workers);
+        }
+        this.workers = workers;
+        if (cache != null && previews != null) {
+            throw new IllegalArgumentException("Slide previews cannot be combined with the render cache");
+        }
+        this.cache = cache;
+        this.previews = previews;
+        this.manifest = manifest;
+    }
+
+    /**
+     * Resolves the listing files for a batch source. A directory yields every
+     * {@code *.json} file inside it (non-recursive, sorted by name); any other file is
+     * read as a manifest with one path per line, where blank lines and lines starting
+     * with {@code #} are ignored and relative paths resolve against the manifest's directory.
+     *
+     * @param source a directory or manifest file
+     * @return the listing files in render order
+     * @throws IOException if the source cannot be read
+     * @throws IllegalArgumentException if the source does not exist
+     */
+    public static List<Path> resolveInputs(Path source) throws IOException {
+        Objects.requireNonNull(source, "Batch source cannot be null");
+        if (!Files.exists(source)) {
+            throw new IllegalArgumentException("Batch source does not exist: " + source);
+        }
+
+        if (Files.isDirectory(source)) {
+            try (Stream<Path> files = Files.list(source)) {
+                return files
+                    .filter(Files::isRegularFile)
+                    .filter(path -> path.getFileName().toString().toLowerCase().endsWith(".json"))
+                    .sorted()
+                    .collect(Collectors.toList());
+            }
+        }
+
+        Path baseDir = source.toAbsolutePath().getParent();
+        List<Path> inputs = new ArrayList<>();
+        for (String line : Files.readAllLines(source)) {
+            String entry = line.trim();
+            if (entry.isEmpty() || entry.startsWith("#")) {
+                continue;
+            }
+            inputs.add(baseDir.resolve(entry).normalize());
+        }
+        return inputs;
+    }
+
+    /**
+     * Derives the PPTX output path for a listing file, replacing a trailing
+     * {@code .json} extension with {@code .pptx}.
+     *
+     * @param input the listing file
+     * @param outputDir the directory that receives the decks
+     * @return the output path
+     */
+    static Path outputPathFor(Path input, Path outputDir) {
+        String name = input.getFileName().toString();
+        if (name.toLowerCase().endsWith(".json")) {
+            name = name.substring(0, name.length() - ".json".length());
+        }
+        return outputDir.resolve(name + ".pptx");
+    }
+
+    /**
+     * Loads and renders every input, writing one PPTX per listing into the output directory.
+     * A failing listing is recorded in the summary and does not stop the batch. So is a listing
+     * whose deck path an earlier input already has, such as {@code b/kuga.json} after
+     * {@code a/kuga.json} in a manifest; it is not rendered.
+     *
+     * @param inputs listing JSON files
+     * @param outputDir directory for generated decks (created if missing)
+     * @param customizer hook applied to each listing after loading, e.g. CLI overrides
+     * @return a summary of the run
+     * @throws IOException if the output directory cannot be created
+     * @throws InterruptedException if interrupted while waiting for workers
+     */
+    public BatchSummary run(List<Path> inputs, Path outputDir, Consumer<VehicleListing> customizer)
+            throws IOException, InterruptedException {
+        Objects.requireNonNull(inputs, "Inputs cannot be null");
+        Objects.requireNonNull(outputDir, "Output directory cannot be null");
+        Objects.requireNonNull(customizer, "Customizer cannot be null");
+        Files.createDirectories(outputDir);
+
+        ExecutorService pool = Executors.newFixedThreadPool(workers, new WorkerThreadFactory());
+        CompletionService<RenderResult> completion = new ExecutorCompletionService<>(pool);
+        long started = System.nanoTime();
+        try {
+            DeckPaths decks = new DeckPaths(outputDir);
+            List<RenderResult> results = new ArrayList<>(inputs.size());
+            int submitted = 0;
+            for (Path input : inputs) {
+                Path output;
+                try {
+                    output = decks.claim(input);
+                } catch (IllegalArgumentException e) {
+                    results.add(new RenderResult(input, 0, e));
+                    continue;
+                }
+                completion.submit(() -> renderOne(input, output, customizer));
+                submitted++;
+            }
+
+            for (int i = 0; i < submitted; i++) {
+                try {
+                    results.add(completion.take().get());
+                } catch (ExecutionException e) {
+                    // renderOne never throws; treat anything escaping as a bug
+                    throw new IllegalStateException("Batch worker failed unexpectedly", e.getCause());
+                }
+            }
+            return BatchSummary.of(results, System.nanoTime() - started, workers);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Renders every row of a CSV stock feed, writing one PPTX per row into the output directory.
+     * Rows are read on the calling thread and handed to the workers as they free up, with at
+     * most two rows per worker waiting, so memory stays flat however long the feed is. Decks
+     * are named after the registration, or {@code row-<line>} when a row has none. Names are
+     * handed out as rows are read, so the first row with a registration gets its name and a
+     * later row with the same name gets {@code <name>-row-<line>}. A failing or malformed row is
+     * recorded in the summary, as the feed path with {@code #<line>} appended, and does not stop
+     * the batch.
+     *
+     * @param feed the CSV reader, positioned at the first row; not closed
+     * @param outputDir directory for generated decks (created if missing)
+     * @param customizer hook applied to each listing after loading, e.g. CLI overrides
+     * @return a summary of the run
+     * @throws IOException if the output directory cannot be created or the feed cannot be read
+     * @throws InterruptedException if interrupted while waiting for workers
+     */
+    public BatchSummary run(ListingCsvReader feed, Path outputDir, Consumer<VehicleListing> customizer)
+            throws IOException, InterruptedException {
+        Objects.requireNonNull(feed, "CSV feed cannot be null");
+        Objects.requireNonNull(outputDir, "Output directory cannot be null");
+        Objects.requireNonNull(customizer, "Customizer cannot be null");
+        Files.createDirectories(outputDir);
+
+        int maxInFlight = workers * 2;
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        ResultCollector results = new ResultCollector();
+        ExecutorService pool = Executors.newFixedThreadPool(workers, new WorkerThreadFactory());
+        long started = System.nanoTime();
+        try {
+            DeckPaths decks = new DeckPaths(outputDir);
+            while (true) {
+                inFlight.acquire();
+                long readStarted = System.nanoTime();
+                VehicleListing vehicle;
+                try {
+                    vehicle = feed.next();
+                } catch (IllegalArgumentException e) {
+                    inFlight.release();
+                    results.add(new RenderResult(rowPath(feed), System.nanoTime() - readStarted, e));
+                    continue;
+                }
+                if (vehicle == null) {
+                    inFlight.release();
+                    break;
+                }
+                Path row = rowPath(feed);
+                Path output;
+                try {
+                    output = decks.claim(vehicle.getRegistration(), feed.getLineNumber(), row);
+                } catch (IllegalArgumentException e) {
+                    inFlight.release();
+                    results.add(new RenderResult(row, System.nanoTime() - readStarted, e));
+                    continue;
+                }
+                pool.execute(() -> {
+                    try {
+                        results.add(renderOne(row, readStarted, () -> {
+                            customizer.accept(vehicle);
+                            return vehicle;
+                        }, output));
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+            // Every permit back means every submitted row has finished
+            inFlight.acquire(maxInFlight);
+            return results.summary(System.nanoTime() - started, workers);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Renders every listing of an inventory snapshot, writing one PPTX per listing, named after
+     * the name it was stored under, into the output directory. Listings are decoded by the
+     * workers, with at most two listings per worker waiting. A failing listing is recorded in
+     * the summary, as the snapshot path with {@code #<index>} appended, and does not stop the batch.
+     * So is a listing whose name cannot be read, is not a plain file name, such as one containing
+     * {@code /} or {@code ..}, or is the name of an earlier listing; it is not rendered.
+     *
+     * @param snapshot the inventory snapshot
+     * @param outputDir directory for generated decks (created if missing)
+     * @param customizer hook applied to each listing after decoding, e.g. CLI overrides
+     * @return a summary of the run
+     * @throws IOException if the output directory cannot be created
+     * @throws InterruptedException if interrupted while waiting for workers
+     */
+    public BatchSummary run(InventorySnapshot snapshot, Path outputDir, Consumer<VehicleListing> customizer)
+            throws IOException, InterruptedException {
+        Objects.requireNonNull(snapshot, "Snapshot cannot be null");
+        Objects.requireNonNull(outputDir, "Output directory cannot be null");
+        Objects.requireNonNull(customizer, "Customizer cannot be null");
+        Files.createDirectories(outputDir);
+
+        int maxInFlight = workers * 2;
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        ResultCollector results = new ResultCollector();
+        ExecutorService pool = Executors.newFixedThreadPool(workers, new WorkerThreadFactory());
+        long started = System.nanoTime();
+        try {
+            DeckPaths decks = new DeckPaths(outputDir);
+            for (int i = 0; i < snapshot.size(); i++) {
+                inFlight.acquire();
+                int index = i;
+                Path input = Path.of(snapshot.getFile() + "#" + index);
+                Path output;
+                try {
+                    String name = snapshot.name(index);
+                    output = decks.claim(name, Path.of(snapshot.getFile() + "#" + name));
+                } catch (RuntimeException e) {
+                    inFlight.release();
+                    results.add(new RenderResult(input, 0, e));
+                    continue;
+                }
+                pool.execute(() -> {
+                    try {
+                        results.add(renderOne(input, System.nanoTime(), () -> {
+                            VehicleListing vehicle = snapshot.get(index);
+                            customizer.accept(vehicle);
+                            return vehicle;
+                        }, output));
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+            // Every permit back means every submitted listing has finished
+            inFlight.acquire(maxInFlight);
+            return results.summary(System.nanoTime() - started, workers);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    static Path rowPath(ListingCsvReader feed) {
+        return Path.of(feed.getSource() + "#" + feed.getLineNumber());
+    }
+
+    /**
+     * Derives the PPTX output path for a CSV row from its registration. Spaces are dropped, so
+     * {@code "AB12 CDE"} and {@code "AB12CDE"} name the same deck; letters, digits, {@code -} and
+     * {@code _} are kept and anything else is replaced with {@code _}. Use {@link DeckPaths} to
+     * keep rows of one run from sharing a deck.
+     *
+     * @param registration the row's registration, or null
+     * @param line the line the row starts on, naming rows without a registration
+     * @param outputDir the directory that receives the decks
+     * @return the output path
+     */
+    static Path outputPathFor(String registration, long line, Path outputDir) {
+        if (registration == null || registration.isBlank()
+                || registration.equals(PresentationConstants.Defaults.REGISTRATION)) {
+            return outputDir.resolve("row-" + line + ".pptx");
+        }
+        StringBuilder name = new StringBuilder(registration.length() + ".pptx".length());
+        for (int i = 0; i < registration.length(); i++) {
+            char c = registration.charAt(i);
+            if (c == ' ') {
+                continue;
+            }
+            name.append(Character.isLetterOrDigit(c) || c == '-' || c == '_' ? c : '_');
+        }
+        return outputDir.resolve(name.append(".pptx").toString());
+    }
+
+    /**
+     * Hands out the deck paths of one run. Paths are claimed on the thread that reads the inputs,
+     * in input order, so which input gets a contested path never depends on worker timing.
+     */
+    static final class DeckPaths {
+        private final Path outputDir;
+        private final Map<Path, Path> owners = new HashMap<>();
+
+        DeckPaths(Path outputDir) {
+            this.outputDir = outputDir;
+        }
+
+        /**
+         * Claims the deck path of a listing file.
+         *
+         * @param input the listing file
+         * @return the deck path
+         * @throws IllegalArgumentException if an earlier input of the run has the same deck path
+         */
+        Path claim(Path input) {
+            Path output = outputPathFor(input, outputDir);
+            Path owner = owners.putIfAbsent(output, input);
+            if (owner != null) {
+                throw new IllegalArgumentException("Deck " + output.getFileName() + " is already written for " + owner);
+            }
+            return output;
+        }
+
+        /**
+         * Claims the deck path of a CSV row. A row whose name an earlier row of the run already has
+         * gets {@code <name>-row-<line>.pptx} instead.
+         *
+         * @param registration the row's registration, or null
+         * @param line the line the row starts on
+         * @param row the row, as reported in the summary
+         * @return the deck path
+         * @throws IllegalArgumentException if the fallback name is taken as well
+         */
+        Path claim(String registration, long line, Path row) {
+            Path output = outputPathFor(registration, line, outputDir);
+            if (owners.putIfAbsent(output, row) == null) {
+                return output;
+            }
+            String name = output.getFileName().toString();
+            output = outputDir.resolve(name.substring(0, name.length() - ".pptx".length()) + "-row-" + line + ".pptx");
+            Path owner = owners.putIfAbsent(output, row);
+            if (owner != null) {
+                throw new IllegalArgumentException("Deck " + output.getFileName() + " is already written for " + owner);
+            }
+            return output;
+        }
+
+        /**
+         * Claims the deck path of a listing stored under a name, as in an inventory snapshot. The
+         * name comes from a file and is checked to be a plain file name inside the output directory.
+         *
+         * @param name the listing's name, without {@code .pptx}
+         * @param input the listing, as reported in the summary
+         * @return the deck path
+         * @throws IllegalArgumentException if the name is not a plain file name or an earlier
+         *         listing of the run has it
+         */
+        Path claim(String name, Path input) {
+            if (name.isEmpty() || name.indexOf('/') >= 0 || name.indexOf('\\') >= 0 || name.contains("..")
+                    || name.indexOf('\0') >= 0) {
+                throw new IllegalArgumentException("Invalid deck name: '" + name + "'");
+            }
+            Path output = outputDir.resolve(name + ".pptx").normalize();
+            if (!outputDir.normalize().equals(output.getParent() == null ? Path.of("") : output.getParent())) {
+                throw new IllegalArgumentException("Invalid deck name: '" + name + "'");
+            }
+            Path owner = owners.putIfAbsent(output, input);
+            if (owner != null) {
+                throw new IllegalArgumentException("Deck " + output.getFileName() + " is already written for " + owner);
+            }
+            return output;
+        }
+    }
+
+    private RenderResult renderOne(Path input, Path output, Consumer<VehicleListing> customizer) {
+        return renderOne(input, System.nanoTime(), () -> {
+            VehicleListing vehicle = ListingJsonReader.read(input.toFile());
+            customizer.accept(vehicle);
+            return vehicle;
+        }, output);
+    }
+
+    private RenderResult renderOne(Path input, long start, ListingSource source, Path output) {
+        try {
+            VehicleListing vehicle = source.load();
+            long hash = 0;
+            if (manifest != null) {
+                hash = manifest.hash(vehicle);
+                if (manifest.skip(output, hash)) {
+                    return new RenderResult(input, System.nanoTime() - start, null,
+                        ListingNumbers.hasUnreadable(vehicle));
+                }
+            }
+            if (cache != null) {
+                cache.render(vehicle, output);
+            } else if (previews != null) {
+                builder.buildPresentation(vehicle, output, previews);
+            } else {
+                builder.buildPresentation(vehicle, output);
+            }
+            if (manifest != null) {
+                manifest.record(output, hash);
+            }
+            return new RenderResult(input, System.nanoTime() - start, null, ListingNumbers.hasUnreadable(vehicle));
+        } catch (Exception e) {
+            return new RenderResult(input, System.nanoTime() - start, e);
+        }
+    }
+
+    /**
+     * Loads one listing on a worker thread.
+     */
+    @FunctionalInterface
+    private interface ListingSource {
+        VehicleListing load() throws Exception;
+    }
+
+    /**
+     * Keeps the failures and successful latencies of a run whose results are not held as a list.
+     */
+    static final class ResultCollector {
+        private final List<RenderResult> failures = new ArrayList<>();
+        private long[] latencies = new long[1024];
+        private int succeeded;
+        private int unreadableNumbers;
+
+        synchronized void add(RenderResult result) {
+            if (result.unreadableNumbers()) {
+                unreadableNumbers++;
+            }
+            if (result.succeeded()) {
+                if (succeeded == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, succeeded * 2);
+                }
+                latencies[succeeded++] = result.nanos();
+            } else {
+                failures.add(result);
+            }
+        }
+
+        synchronized BatchSummary summary(long elapsedNanos, int workers) {
+            long[] sorted = Arrays.copyOf(latencies, succeeded);
+            Arrays.sort(sorted);
+            return new BatchSummary(succeeded + failures.size(), Collections.unmodifiableList(new ArrayList<>(failures)),
+                elapsedNanos, workers, sorted, unreadableNumbers);
+        }
+    }
+
+    /**
+     * Outcome of rendering a single listing.
+     *
+     * @param input the listing file
+     * @param nanos wall-clock time spent loading and rendering
+     * @param error the failure, or null on success
+     * @param unreadableNumbers whether the listing has a price, year, engine size or mileage
+     *        that could not be read as a number
+     */
+    public record RenderResult(Path input, long nanos, Exception error, boolean unreadableNumbers) {
+
+        public RenderResult(Path input, long nanos, Exception error) {
+            this(input, nanos, error, false);
+        }
+
+        public boolean succeeded() {
+            return error == null;
+        }
+    }
+
+    /**
+     * Aggregated statistics for a batch run.
+     *
+     * @param total number of listings attempted
+     * @param failures failed listings
+     * @param elapsedNanos wall-clock duration of the whole batch
+     * @param workers worker thread count used
+     * @param sortedLatencies per-file latencies of successful renders, ascending
+     * @param unreadableNumbers listings with a price, year, engine size or mileage that could
+     *        not be read as a number
+     */
+    public record BatchSummary(int total, List<RenderResult> failures, long elapsedNanos,
+                               int workers, long[] sortedLatencies, int unreadableNumbers) {
+
+        static BatchSummary of(List<RenderResult> results, long elapsedNanos, int workers) {
+            List<RenderResult> failures = results.stream()
+                .filter(result -> !result.succeeded())
+                .collect(Collectors.toList());
+            long[] latencies = results.stream()
+                .filter(RenderResult::succeeded)
+                .mapToLong(RenderResult::nanos)
+                .sorted()
+                .toArray();
+            int unreadableNumbers = (int) results.stream().filter(RenderResult::unreadableNumbers).count();
+            return new BatchSummary(results.size(), Collections.unmodifiableList(failures),
+                elapsedNanos, workers, latencies, unreadableNumbers);
+        }
+
+        public int succeeded() {
+            return total - failures.size();
+        }
+
+        /**
+         * Returns the decks rendered per second over the whole batch.
+         *
+         * @return throughput in decks per second
+         */
+        public double throughput() {
+            return elapsedNanos > 0 ? succeeded() / (elapsedNanos / 1e9) : 0.0;
+        }
+
+        /**
+         * Returns the latency at the given percentile using the nearest-rank method.
+         *
+         * @param percentile value in the range (0, 100]
+         * @return latency in milliseconds, or 0 if nothing succeeded
+         */
+        public double latencyMillis(double percentile) {
+            if (sortedLatencies.length == 0) {
+                return 0.0;
+            }
+            int rank = (int) Math.ceil(percentile / 100.0 * sortedLatencies.length);
+            int index = Math.min(Math.max(rank, 1), sortedLatencies.length) - 1;
+            return sortedLatencies[index] / 1e6;
+        }
+
+        /**
+         * Prints a human-readable summary.
+         *
+         * @param out the stream to print to
+         */
+        public void printTo(PrintStream out) {
+            out.printf("Rendered %d/%d listings in %.2f s with %d workers (%.1f decks/s)%n",
+                succeeded(), total, elapsedNanos / 1e9, workers, throughput());
+            out.printf("Latency ms: p50=%.1f  p95=%.1f  p99=%.1f  max=%.1f%n",
+                latencyMillis(50), latencyMillis(95), latencyMillis(99), latencyMillis(100));
+            if (unreadableNumbers > 0) {
+                out.printf("Unreadable numbers: %d listings have a price, year, engine size or mileage that is "
+                    + "not a number (run --validate-only to list them)%n", unreadableNumbers);
+            }
+            if (!failures.isEmpty()) {
+                out.printf("Failures (%d):%n", failures.size());
+                for (RenderResult failure : failures) {
+                    out.printf("  %s: %s%n", failure.input(), failure.error().getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Names worker threads so they are identifiable in thread dumps.
+     */
+    private static final class WorkerThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "batch-render-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
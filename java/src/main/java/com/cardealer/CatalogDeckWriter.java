@@ -0,0 +1,328 @@
+package com.cardealer;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Writes a multi-slide catalog deck with one slide per listing, streaming each slide straight
+ * into the PPTX package as it is produced. Only the ZIP central directory (a few dozen bytes per
+ * slide) is kept until the end, so memory stays flat regardless of the slide count.
+ *
+ * <p>Listing slides reuse the fragments of {@link StreamingPptxWriter}; the package parts whose
+ * content depends on the slide count ({@code [Content_Types].xml}, {@code presentation.xml} and
+ * its relationships) are generated from the same reference package after the last slide.
+ * When a sort or grouping is requested the listings themselves are buffered to order them, but
+ * slides are still never held in memory.
+ *
+ * <p>Each slide takes two ZIP entries and the package writer has no ZIP64 support, which caps a
+ * catalog at roughly 32,000 slides.
+ */
+public class CatalogDeckWriter {
+
+    /** Slides written between heap samples in the {@link CatalogReport}. */
+    public static final int MEMORY_SAMPLE_INTERVAL = 1_000;
+
+    private static final String CONTENT_TYPES_PART = "[Content_Types].xml";
+    private static final String PRESENTATION_PART = "ppt/presentation.xml";
+    private static final String PRESENTATION_RELS_PART = "ppt/_rels/presentation.xml.rels";
+    private static final String SLIDE_RELS_PART = "ppt/slides/_rels/slide1.xml.rels";
+    private static final Set<String> GENERATED_PARTS =
+        Set.of(CONTENT_TYPES_PART, PRESENTATION_PART, PRESENTATION_RELS_PART, SLIDE_RELS_PART);
+
+    private static final Pattern SLIDE_CONTENT_TYPE =
+        Pattern.compile("<Override [^>]*PartName=\"/ppt/slides/slide1\\.xml\"[^>]*/>");
+    private static final Pattern SLIDE_ID = Pattern.compile("<p:sldId [^>]*/>");
+    private static final Pattern SLIDE_RELATIONSHIP =
+        Pattern.compile("<Relationship [^>]*Target=\"slides/slide1\\.xml\"[^>]*/>");
+    private static final int FIRST_SLIDE_ID = 256;
+
+    private CatalogSort sort = CatalogSort.INPUT;
+    private CatalogGrouping grouping = CatalogGrouping.NONE;
+
+    /**
+     * Sets the ordering of listings within each group.
+     *
+     * @param sort the ordering
+     * @return this writer
+     */
+    public CatalogDeckWriter sortBy(CatalogSort sort) {
+        this.sort = Objects.requireNonNull(sort, "Sort cannot be null");
+        return this;
+    }
+
+    /**
+     * Sets how listings are grouped; each group starts with a divider slide.
+     *
+     * @param grouping the grouping
+     * @return this writer
+     */
+    public CatalogDeckWriter groupBy(CatalogGrouping grouping) {
+        this.grouping = Objects.requireNonNull(grouping, "Grouping cannot be null");
+        return this;
+    }
+
+    /**
+     * Writes the catalog to a file. The deck is written to a temporary sibling and moved into
+     * place once complete, so a listing that fails partway through leaves any previous file as
+     * it was.
+     *
+     * @param listings the listings, consumed once
+     * @param outputPath the PPTX file to create or replace
+     * @return statistics for the written deck
+     * @throws IOException if writing fails
+     */
+    public CatalogReport write(Stream<VehicleListing> listings, Path outputPath) throws IOException {
+        Objects.requireNonNull(outputPath, "Output path cannot be null");
+        Path temp = AtomicFileWriter.temporaryFor(outputPath);
+        try {
+            CatalogReport report;
+            try (OutputStream out = new BufferedOutputStream(
+                    Files.newOutputStream(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE))) {
+                report = write(listings, out);
+            }
+            AtomicFileWriter.commit(temp, outputPath);
+            return report;
+        } catch (IOException | RuntimeException e) {
+            AtomicFileWriter.discard(temp, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Writes the catalog to a stream.
+     *
+     * @param listings the listings, consumed once
+     * @param out destination stream; flushed but not closed
+     * @return statistics for the written deck
+     * @throws IOException if writing fails
+     */
+    public CatalogReport write(Stream<VehicleListing> listings, OutputStream out) throws IOException {
+        Objects.requireNonNull(listings, "Listings cannot be null");
+        Iterator<VehicleListing> iterator = listings.iterator();
+        return write(() -> iterator, out);
+    }
+
+    /**
+     * Writes the catalog to a stream.
+     *
+     * @param listings the listings, iterated once
+     * @param out destination stream; flushed but not closed
+     * @return statistics for the written deck
+     * @throws IOException if writing fails
+     */
+    public CatalogReport write(Iterable<VehicleListing> listings, OutputStream out) throws IOException {
+        Objects.requireNonNull(listings, "Listings cannot be null");
+        Objects.requireNonNull(out, "Output stream cannot be null");
+
+        StreamingPptxWriter reference = StreamingPptxWriter.shared();
+        ZipPackageWriter zip = new ZipPackageWriter(out, reference.modified());
+        for (ZipPackageWriter.PackedPart part : reference.invariantParts()) {
+            if (!GENERATED_PARTS.contains(part.name())) {
+                zip.writePacked(part);
+            }
+        }
+        ZipPackageWriter.PackedPart slideRels = reference.invariantParts().stream()
+            .filter(part -> part.name().equals(SLIDE_RELS_PART))
+            .findFirst()
+            .orElseThrow(() -> new IllegalStateException("Reference package has no " + SLIDE_RELS_PART));
+
+        long started = System.nanoTime();
+        List<MemorySample> samples = new ArrayList<>();
+        int slides = 0;
+        int listingCount = 0;
+        int groups = 0;
+        int unreadableNumbers = 0;
+        String currentGroup = null;
+        for (VehicleListing vehicle : ordered(listings)) {
+            String group = grouping.label(vehicle);
+            if (group != null && !group.equals(currentGroup)) {
+                currentGroup = group;
+                groups++;
+                slides++;
+                writeSlide(zip, slides, slideRels, slide ->
+                    StreamingPptxWriter.writeFragments(DividerFragments.FRAGMENTS, new String[] {group}, slide));
+                sampleMemory(slides, samples);
+            }
+            listingCount++;
+            if (ListingNumbers.hasUnreadable(vehicle)) {
+                unreadableNumbers++;
+            }
+            slides++;
+            String[] slots = SlideTemplate.slotTexts(vehicle);
+            writeSlide(zip, slides, slideRels, slide -> reference.writeSlide(slots, slide));
+            sampleMemory(slides, samples);
+        }
+
+        writeContentTypes(zip, reference, slides);
+        writePresentation(zip, reference, slides);
+        writePresentationRelationships(zip, reference, slides);
+        zip.finish();
+        return new CatalogReport(slides, listingCount, groups, unreadableNumbers, System.nanoTime() - started,
+            Collections.unmodifiableList(samples));
+    }
+
+    private Iterable<VehicleListing> ordered(Iterable<VehicleListing> listings) {
+        Comparator<VehicleListing> order = grouping.order();
+        if (sort.order() != null) {
+            order = order == null ? sort.order() : order.thenComparing(sort.order());
+        }
+        if (order == null) {
+            return listings;
+        }
+        List<VehicleListing> buffered = new ArrayList<>();
+        listings.forEach(buffered::add);
+        buffered.sort(order);
+        return buffered;
+    }
+
+    private static void writeSlide(ZipPackageWriter zip, int number, ZipPackageWriter.PackedPart slideRels,
+                                   SlideBody body) throws IOException {
+        try (OutputStream slide = zip.beginDeflated(slidePart(number), StreamingPptxWriter.threadDeflater())) {
+            body.writeTo(slide);
+        }
+        zip.writePacked(slideRels.withName("ppt/slides/_rels/slide" + number + ".xml.rels"));
+    }
+
+    private static void sampleMemory(int slides, List<MemorySample> samples) {
+        if (slides % MEMORY_SAMPLE_INTERVAL == 0) {
+            Runtime runtime = Runtime.getRuntime();
+            samples.add(new MemorySample(slides, runtime.totalMemory() - runtime.freeMemory()));
+        }
+    }
+
+    private static String slidePart(int number) {
+        return "ppt/slides/slide" + number + ".xml";
+    }
+
+    private static void writeContentTypes(ZipPackageWriter zip, StreamingPptxWriter reference, int slides)
+            throws IOException {
+        writeRepeated(zip, reference, CONTENT_TYPES_PART, SLIDE_CONTENT_TYPE, slides,
+            (element, n) -> element.replace("/ppt/slides/slide1.xml", "/" + slidePart(n)));
+    }
+
+    private static void writePresentation(ZipPackageWriter zip, StreamingPptxWriter reference, int slides)
+            throws IOException {
+        writeRepeated(zip, reference, PRESENTATION_PART, SLIDE_ID, slides,
+            (element, n) -> "<p:sldId id=\"" + (FIRST_SLIDE_ID + n - 1) + "\" r:id=\"" + relationshipId(n) + "\"/>");
+    }
+
+    private static void writePresentationRelationships(ZipPackageWriter zip, StreamingPptxWriter reference,
+                                                       int slides) throws IOException {
+        writeRepeated(zip, reference, PRESENTATION_RELS_PART, SLIDE_RELATIONSHIP, slides,
+            (element, n) -> element
+                .replaceFirst("Id=\"[^\"]*\"", "Id=\"" + relationshipId(n) + "\"")
+                .replace("slides/slide1.xml", "slides/slide" + n + ".xml"));
+    }
+
+    private static String relationshipId(int slideNumber) {
+        // Distinct prefix so slide relationships never collide with the reference rId1..rIdN
+        return "rIdSlide" + slideNumber;
+    }
+
+    /**
+     * Writes a reference part with the single-slide element replaced by one element per slide.
+     */
+    private static void writeRepeated(ZipPackageWriter zip, StreamingPptxWriter reference, String part,
+                                      Pattern slideElement, int slides, ElementRewriter rewriter)
+            throws IOException {
+        String xml = new String(reference.referenceContent(part), StandardCharsets.UTF_8);
+        Matcher matcher = slideElement.matcher(xml);
+        if (!matcher.find()) {
+            throw new IllegalStateException("Reference " + part + " has no slide entry");
+        }
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                zip.beginDeflated(part, StreamingPptxWriter.threadDeflater()), StandardCharsets.UTF_8))) {
+            writer.write(xml, 0, matcher.start());
+            for (int n = 1; n <= slides; n++) {
+                writer.write(rewriter.rewrite(matcher.group(), n));
+            }
+            writer.write(xml, matcher.end(), xml.length() - matcher.end());
+        }
+    }
+
+    @FunctionalInterface
+    private interface SlideBody {
+        void writeTo(OutputStream slide) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface ElementRewriter {
+        String rewrite(String element, int slideNumber);
+    }
+
+    /**
+     * Fixed XML fragments of the group divider slide, built through POI on first use.
+     */
+    private static final class DividerFragments {
+        private static final byte[][] FRAGMENTS = create();
+
+        private static byte[][] create() {
+            String sentinel = StreamingPptxWriter.sentinel(0);
+            byte[] slide = StreamingPptxWriter.renderReferencePackage(
+                    target -> new PresentationBuilder().addGroupHeaderBlock(target, sentinel))
+                .get(StreamingPptxWriter.SLIDE_PART);
+            return StreamingPptxWriter.splitAtSentinels(
+                new String(slide, StandardCharsets.UTF_8), new String[] {sentinel});
+        }
+    }
+
+    /**
+     * Heap in use after a given number of slides.
+     *
+     * @param slides slides written so far
+     * @param usedHeapBytes heap in use (total minus free) at that point
+     */
+    public record MemorySample(int slides, long usedHeapBytes) {
+    }
+
+    /**
+     * Statistics for a written catalog deck.
+     *
+     * @param slides total slides including dividers
+     * @param listings listing slides
+     * @param groups divider slides
+     * @param unreadableNumbers listings with a price, year, engine size or mileage that could not
+     *        be read as a number, which sort last on it
+     * @param elapsedNanos time spent writing slides and package parts
+     * @param memorySamples heap usage every {@value #MEMORY_SAMPLE_INTERVAL} slides
+     */
+    public record CatalogReport(int slides, int listings, int groups, int unreadableNumbers, long elapsedNanos,
+                                List<MemorySample> memorySamples) {
+
+        /**
+         * Prints a human-readable summary.
+         *
+         * @param out the stream to print to
+         */
+        public void printTo(PrintStream out) {
+            out.printf("Wrote %d slides (%d listings, %d groups) in %.2f s%n",
+                slides, listings, groups, elapsedNanos / 1e9);
+            if (unreadableNumbers > 0) {
+                out.printf("Unreadable numbers: %d listings have a price, year, engine size or mileage that is "
+                    + "not a number and sort last on it (run --validate-only to list them)%n", unreadableNumbers);
+            }
+            for (MemorySample sample : memorySamples) {
+                out.printf("  %,d slides: %.1f MB heap in use%n", sample.slides(), sample.usedHeapBytes() / 1e6);
+            }
+        }
+    }
+}
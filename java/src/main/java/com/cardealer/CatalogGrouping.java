@@ -0,0 +1,70 @@
+package com.cardealer;
+
+import java.util.Comparator;
+import java.util.Locale;
+
+/**
+ * Ways of grouping listings in a catalog deck. Each group is introduced by a divider slide.
+ */
+public enum CatalogGrouping {
+    /** A single run of listings with no divider slides. */
+    NONE,
+    FUEL_TYPE,
+    GEARBOX,
+    ULEZ,
+    DEALER,
+    /** Price bands of {@value #PRICE_BAND_WIDTH} pounds. */
+    PRICE_BAND;
+
+    static final long PRICE_BAND_WIDTH = 5_000;
+
+    /**
+     * Returns the comparator that brings listings of the same group together. Built on demand,
+     * like {@link CatalogSort#order()}, to keep lambdas off the CLI start path.
+     *
+     * @return the comparator, or null for {@link #NONE}
+     */
+    Comparator<VehicleListing> order() {
+        return switch (this) {
+            case NONE -> null;
+            case FUEL_TYPE -> Comparator.comparing(VehicleListing::getFuelType);
+            case GEARBOX -> Comparator.comparing(VehicleListing::getGearbox);
+            case ULEZ -> Comparator.comparing(VehicleListing::getUlez);
+            case DEALER -> Comparator.comparing(vehicle -> vehicle.getDealer().name());
+            case PRICE_BAND -> Comparator.comparingLong(CatalogGrouping::priceBand);
+        };
+    }
+
+    /**
+     * Returns the divider label for the group a listing belongs to.
+     *
+     * @param vehicle the vehicle listing
+     * @return the label, or null for {@link #NONE}
+     */
+    String label(VehicleListing vehicle) {
+        return switch (this) {
+            case NONE -> null;
+            case FUEL_TYPE -> vehicle.getFuelType().getDisplayName();
+            case GEARBOX -> vehicle.getGearbox().getDisplayName();
+            case ULEZ -> "ULEZ: " + vehicle.getUlez().getDisplayName();
+            case DEALER -> vehicle.getDealer().name();
+            case PRICE_BAND -> priceBandLabel(vehicle);
+        };
+    }
+
+    private static long priceBand(VehicleListing vehicle) {
+        long pence = vehicle.getPricePence();
+        return pence == VehicleListing.NO_VALUE ? Long.MAX_VALUE : pence / (PRICE_BAND_WIDTH * 100);
+    }
+
+    private static String priceBandLabel(VehicleListing vehicle) {
+        long band = priceBand(vehicle);
+        if (band == Long.MAX_VALUE) {
+            return PresentationConstants.Defaults.PRICE;
+        }
+        if (band == 0) {
+            return String.format(Locale.UK, "Under £%,d", PRICE_BAND_WIDTH);
+        }
+        return String.format(Locale.UK, "£%,d – £%,d", band * PRICE_BAND_WIDTH, (band + 1) * PRICE_BAND_WIDTH - 1);
+    }
+}
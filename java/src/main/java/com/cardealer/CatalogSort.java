@@ -0,0 +1,56 @@
+package com.cardealer;
+
+import java.util.Comparator;
+
+/**
+ * Orderings available for listings within a catalog deck.
+ */
+public enum CatalogSort {
+    /** Keeps listings in input order, which lets the catalog stream without buffering. */
+    INPUT,
+    /** Cheapest first; listings without a numeric price go last. */
+    PRICE,
+    /** Lowest mileage first; listings without a numeric mileage go last. */
+    MILEAGE,
+    /** Newest first; listings without a numeric year go last. */
+    YEAR,
+    /** Alphabetical by title, case-insensitive. */
+    TITLE;
+
+    /**
+     * Returns the comparator for this ordering. Comparators are built on demand rather than in
+     * the constants so that parsing the option does not bootstrap lambdas on the CLI start path.
+     *
+     * @return the comparator, or null for {@link #INPUT}
+     */
+    Comparator<VehicleListing> order() {
+        return switch (this) {
+            case INPUT -> null;
+            case PRICE -> Comparator.comparingLong(vehicle -> missingLast(vehicle.getPricePence()));
+            case MILEAGE -> Comparator.comparingLong(vehicle -> missingLast(vehicle.getMileageMiles()));
+            case YEAR -> Comparator.comparingLong(vehicle -> largestFirst(vehicle.getYearValue()));
+            case TITLE -> Comparator.comparing(VehicleListing::getTitle,
+                Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
+        };
+    }
+
+    /**
+     * Returns a sort key that orders a parsed number ascending with {@link VehicleListing#NO_VALUE} last.
+     *
+     * @param value the parsed number, or {@link VehicleListing#NO_VALUE}
+     * @return the sort key
+     */
+    static long missingLast(long value) {
+        return value == VehicleListing.NO_VALUE ? Long.MAX_VALUE : value;
+    }
+
+    /**
+     * Returns a sort key that orders a parsed number descending with {@link VehicleListing#NO_VALUE} last.
+     *
+     * @param value the parsed number, or {@link VehicleListing#NO_VALUE}
+     * @return the sort key
+     */
+    static long largestFirst(long value) {
+        return value == VehicleListing.NO_VALUE ? Long.MAX_VALUE : -value;
+    }
+}
@@ -0,0 +1,145 @@
+package com.cardealer;
+
+import java.util.Locale;
+import java.util.Objects;
+import java.util.zip.Deflater;
+
+/**
+ * Selects how {@link PresentationBuilder} compresses the parts of a PPTX package.
+ *
+ * <p>{@link #POI_DEFAULT} leaves compression to POI, which deflates every part at the default
+ * level on the calling thread. The other policies collect the uncompressed parts from POI and
+ * write the package themselves: {@link #STORED} skips compression entirely, which suits
+ * throwaway previews; {@link #deflate(int)} picks a level; {@link #parallel(int)} deflates the
+ * independent parts concurrently on the common fork-join pool. Every policy produces the same
+ * package parts; only their encoding in the ZIP differs.
+ *
+ * <p>In {@link RenderMode#STREAMING} mode the invariant parts are compressed once per process,
+ * so the policy applies to the slide part alone.
+ */
+public final class CompressionPolicy {
+
+    /** How the package parts are encoded. */
+    public enum Strategy {
+        /** POI's own ZIP writer at the default level. */
+        POI,
+        /** Parts stored without compression. */
+        STORED,
+        /** Parts deflated one after another at the policy level. */
+        DEFLATE,
+        /** Parts deflated concurrently at the policy level. */
+        PARALLEL
+    }
+
+    /** POI's behaviour; the default. */
+    public static final CompressionPolicy POI_DEFAULT = new CompressionPolicy(Strategy.POI, Deflater.DEFAULT_COMPRESSION);
+
+    /** No compression. */
+    public static final CompressionPolicy STORED = new CompressionPolicy(Strategy.STORED, Deflater.NO_COMPRESSION);
+
+    private final Strategy strategy;
+    private final int level;
+
+    private CompressionPolicy(Strategy strategy, int level) {
+        this.strategy = strategy;
+        this.level = level;
+    }
+
+    /**
+     * Returns a policy deflating parts one after another on the rendering thread.
+     *
+     * @param level deflate level from 1 (fastest) to 9 (smallest), or -1 for zlib's default
+     * @return the policy
+     * @throws IllegalArgumentException if the level is out of range
+     */
+    public static CompressionPolicy deflate(int level) {
+        return new CompressionPolicy(Strategy.DEFLATE, checkLevel(level));
+    }
+
+    /**
+     * Returns a policy deflating the package parts concurrently.
+     *
+     * @param level deflate level from 1 (fastest) to 9 (smallest), or -1 for zlib's default
+     * @return the policy
+     * @throws IllegalArgumentException if the level is out of range
+     */
+    public static CompressionPolicy parallel(int level) {
+        return new CompressionPolicy(Strategy.PARALLEL, checkLevel(level));
+    }
+
+    /**
+     * Parses a policy from its command-line form: {@code poi}, {@code stored},
+     * {@code deflate[:level]} or {@code parallel[:level]}, case-insensitive.
+     *
+     * @param spec the policy text
+     * @return the policy
+     * @throws IllegalArgumentException if the text is not a valid policy
+     */
+    public static CompressionPolicy parse(String spec) {
+        Objects.requireNonNull(spec, "Compression policy cannot be null");
+        String[] parts = spec.trim().toLowerCase(Locale.ROOT).split(":", 2);
+        int level = Deflater.DEFAULT_COMPRESSION;
+        if (parts.length == 2) {
+            try {
+                level = Integer.parseInt(parts[1]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid compression level in: " + spec);
+            }
+        }
+        switch (parts[0]) {
+            case "poi":
+            case "stored":
+                if (parts.length == 2) {
+                    throw new IllegalArgumentException("Compression policy '" + parts[0] + "' takes no level: " + spec);
+                }
+                return parts[0].equals("poi") ? POI_DEFAULT : STORED;
+            case "deflate":
+                return deflate(level);
+            case "parallel":
+                return parallel(level);
+            default:
+                throw new IllegalArgumentException(
+                    "Unknown compression policy: " + spec + " (expected poi, stored, deflate[:level] or parallel[:level])");
+        }
+    }
+
+    private static int checkLevel(int level) {
+        if (level != Deflater.DEFAULT_COMPRESSION && (level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION)) {
+            throw new IllegalArgumentException("Deflate level must be between 1 and 9, got: " + level);
+        }
+        return level;
+    }
+
+    public Strategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * Returns the deflate level.
+     *
+     * @return 1-9, -1 for zlib's default, or 0 when parts are stored
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof CompressionPolicy policy && strategy == policy.strategy && level == policy.level;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(strategy, level);
+    }
+
+    /**
+     * Returns the policy in the form accepted by {@link #parse(String)}.
+     */
+    @Override
+    public String toString() {
+        String name = strategy.name().toLowerCase(Locale.ROOT);
+        boolean levelled = strategy == Strategy.DEFLATE || strategy == Strategy.PARALLEL;
+        return levelled && level != Deflater.DEFAULT_COMPRESSION ? name + ":" + level : name;
+    }
+}
@@ -0,0 +1,103 @@
+package com.cardealer;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Dealer-keyed cache of the formatted "Call | Email | Web" contact line, shared by every listing
+ * of a dealer in all render modes.
+ *
+ * <p>The styled text boxes themselves are not cached: copying a pre-built shape's XML into a
+ * slide costs more than POI's few styling calls, so {@link PresentationBuilder} still creates them.
+ *
+ * <p>Entries are keyed by the complete {@link DealerDetails}, so a listing whose dealer details
+ * changed never picks up the old text; it simply gets a new entry. {@link #invalidate(String)}
+ * drops every entry for a dealer name, for example after a dealer record is edited, so the old
+ * text does not stay in memory. Past {@link #MAX_DEALERS} entries the cache starts over,
+ * which bounds memory when dealer details come from untrusted input.
+ *
+ * <p>Instances are safe to share between threads. Two threads that miss on the same dealer at
+ * once may both format it; the second result replaces the first.
+ */
+public final class DealerBrandingCache {
+
+    /** Entries kept before the cache is cleared. */
+    static final int MAX_DEALERS = 1024;
+
+    private static final DealerBrandingCache SHARED = new DealerBrandingCache();
+
+    private final Map<DealerDetails, String> entries = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder builds = new LongAdder();
+
+    private DealerBrandingCache() {
+    }
+
+    /**
+     * Returns the cache used by {@link PresentationBuilder}.
+     *
+     * @return the process-wide cache
+     */
+    public static DealerBrandingCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * Returns the contact line for a dealer, formatting it on first use.
+     *
+     * @param dealer the dealer details
+     * @return the contact line
+     */
+    String contactText(DealerDetails dealer) {
+        Objects.requireNonNull(dealer, "Dealer cannot be null");
+        String text = entries.get(dealer);
+        if (text != null) {
+            hits.increment();
+            return text;
+        }
+        text = PresentationBuilder.formatContactText(dealer);
+        if (entries.size() >= MAX_DEALERS) {
+            entries.clear();
+        }
+        entries.put(dealer, text);
+        builds.increment();
+        return text;
+    }
+
+    /**
+     * Drops every entry for a dealer name, whatever its other details.
+     *
+     * @param dealerName the dealer name
+     * @return the number of entries removed
+     */
+    public int invalidate(String dealerName) {
+        Objects.requireNonNull(dealerName, "Dealer name cannot be null");
+        int before = entries.size();
+        entries.keySet().removeIf(dealer -> dealer.name().equals(dealerName));
+        return before - entries.size();
+    }
+
+    /**
+     * Drops every entry.
+     */
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    /** @return dealers currently cached */
+    public int size() {
+        return entries.size();
+    }
+
+    /** @return lookups answered from the cache */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /** @return contact lines formatted on a miss */
+    public long getBuilds() {
+        return builds.sum();
+    }
+}
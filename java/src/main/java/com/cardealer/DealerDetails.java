@@ -32,17 +32,22 @@ public record DealerDetails(
     public DealerDetails {
         // Records don't allow reassignment in compact constructor
         // So we validate but defaults are handled in factory methods
-        if (name == null || name.isBlank()) {
-            throw new IllegalArgumentException("Dealer name cannot be null or blank");
-        }
-        if (phone == null || phone.isBlank()) {
-            throw new IllegalArgumentException("Dealer phone cannot be null or blank");
-        }
-        if (email == null || email.isBlank()) {
-            throw new IllegalArgumentException("Dealer email cannot be null or blank");
-        }
-        if (website == null || website.isBlank()) {
-            throw new IllegalArgumentException("Dealer website cannot be null or blank");
+        requireText(name, "name");
+        requireText(phone, "phone");
+        requireText(email, "email");
+        requireText(website, "website");
+    }
+
+    /**
+     * Applies the constructor's check to one field, so validation can report each bad field.
+     *
+     * @param value the field value
+     * @param field the field name, as in the JSON input
+     * @throws IllegalArgumentException if the value is null or blank
+     */
+    static void requireText(String value, String field) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Dealer " + field + " cannot be null or blank");
         }
     }
 
@@ -58,10 +63,29 @@ public record DealerDetails(
             return DEFAULT;
         }
         
-        String name = getString(data, "name", DEFAULT.name);
-        String phone = getString(data, "phone", DEFAULT.phone);
-        String email = getString(data, "email", DEFAULT.email);
-        String website = getString(data, "website", DEFAULT.website);
+        return fromFields(
+            getString(data, "name", null),
+            getString(data, "phone", null),
+            getString(data, "email", null),
+            getString(data, "website", null)
+        );
+    }
+
+    /**
+     * Creates a DealerDetails from individual field values, applying the same defaults as
+     * {@link #fromMap(Map)}: missing (null) or blank fields fall back to {@link #DEFAULT}.
+     * 
+     * @param name dealership name, or null if missing
+     * @param phone phone number, or null if missing
+     * @param email email address, or null if missing
+     * @param website website, or null if missing
+     * @return a new DealerDetails instance, or DEFAULT if every field resolves to its default
+     */
+    static DealerDetails fromFields(String name, String phone, String email, String website) {
+        name = name != null ? name : DEFAULT.name;
+        phone = phone != null ? phone : DEFAULT.phone;
+        email = email != null ? email : DEFAULT.email;
+        website = website != null ? website : DEFAULT.website;
         
         // If all values are defaults, return the default instance
         if (name.equals(DEFAULT.name) && phone.equals(DEFAULT.phone) 
@@ -1,14 +1,22 @@
 package com.cardealer;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Main CLI application for generating vehicle presentation PowerPoint files.
@@ -17,15 +25,123 @@ import java.util.concurrent.Callable;
 @Command(name = "generate-ppt", 
          description = "Generate an editable vehicle PPTX from JSON or CLI arguments",
          mixinStandardHelpOptions = true,
-         version = "1.0.0")
+         version = GeneratePpt.VERSION,
+         subcommands = {ServeCommand.class, WatchCommand.class})
 public class GeneratePpt implements Callable<Integer> {
 
+    /** Generator version, reported by {@code --version} and recorded in build manifests. */
+    static final String VERSION = "1.0.0";
+
     @Option(names = "--input", description = "Path to vehicle JSON data file")
     private File inputFile;
 
     @Option(names = "--output", description = "PPTX output file path", defaultValue = "vehicle.pptx")
     private File outputFile;
 
+    @Option(names = "--batch", paramLabel = "<dir|manifest>",
+            description = "Render every listing in a directory of JSON files or a manifest of paths")
+    private File batchSource;
+
+    @Option(names = "--csv", paramLabel = "<file>",
+            description = "Render every row of a CSV stock feed, one deck per row named after its registration")
+    private File csvFeed;
+
+    @Option(names = "--csv-delimiter", description = "CSV field separator, a single character or 'tab' (default: ${DEFAULT-VALUE})",
+            defaultValue = ",")
+    private String csvDelimiter;
+
+    @Option(names = "--csv-list-delimiter", description = "Separator between values in CSV specs and photos cells (default: ${DEFAULT-VALUE})",
+            defaultValue = ";")
+    private String csvListDelimiter;
+
+    @Option(names = "--validate-only",
+            description = "Check every listing of --input, --batch, --catalog or --csv and report all problems without rendering")
+    private boolean validateOnly;
+
+    @Option(names = "--snapshot-out", paramLabel = "<file>",
+            description = "Convert the listings of --batch or --csv into an inventory snapshot instead of rendering")
+    private File snapshotOut;
+
+    @Option(names = "--snapshot", paramLabel = "<file>",
+            description = "Render every listing of an inventory snapshot into --output-dir")
+    private File snapshotSource;
+
+    @Option(names = "--output-dir", description = "Directory for decks generated in batch mode", defaultValue = ".")
+    private File outputDir;
+
+    @Option(names = "--workers", description = "Worker threads used in batch mode (default: available processors)")
+    private Integer workers;
+
+    @Option(names = "--pipeline",
+            description = "Run batch and CSV renders as overlapping read, parse, render and write stages and report each stage")
+    private boolean pipeline;
+
+    @Option(names = "--stage-threads", paramLabel = "<stage=count,...>",
+            description = "Threads per pipeline stage, e.g. read=1,parse=1,render=6,write=1 (default: one each, render gets --workers)")
+    private String stageThreads;
+
+    @Option(names = "--queue-capacity", description = "Listings each queue between pipeline stages holds (default: ${DEFAULT-VALUE})",
+            defaultValue = "16")
+    private int queueCapacity;
+
+    @Option(names = "--incremental",
+            description = "Skip listings whose deck in --output-dir is up to date and delete decks of listings no longer in the batch")
+    private boolean incremental;
+
+    @Option(names = "--cache-dir", description = "Directory for the on-disk render cache used in batch mode")
+    private File cacheDir;
+
+    @Option(names = "--cache-mb", description = "Megabytes of rendered decks cached in memory in batch mode (default: ${DEFAULT-VALUE})",
+            defaultValue = "0")
+    private int cacheMegabytes;
+
+    @Option(names = "--catalog", paramLabel = "<dir|manifest>",
+            description = "Write every listing in a directory or manifest into one multi-slide deck at --output")
+    private File catalogSource;
+
+    @Option(names = "--catalog-sort", description = "Catalog ordering: ${COMPLETION-CANDIDATES} (default: ${DEFAULT-VALUE})",
+            defaultValue = "INPUT")
+    private CatalogSort catalogSort;
+
+    @Option(names = "--catalog-group", description = "Catalog grouping: ${COMPLETION-CANDIDATES} (default: ${DEFAULT-VALUE})",
+            defaultValue = "NONE")
+    private CatalogGrouping catalogGrouping;
+
+    @Option(names = "--catalog-filter", paramLabel = "<key=value,...>",
+            description = "Only put matching listings in the catalog, e.g. ulez=yes,gearbox=automatic,price=..15000")
+    private String catalogFilter;
+
+    @Option(names = "--render-mode", description = "Rendering strategy: ${COMPLETION-CANDIDATES} (default: ${DEFAULT-VALUE})",
+            defaultValue = "DIRECT")
+    private RenderMode renderMode;
+
+    @Option(names = "--compression", paramLabel = "<policy>",
+            description = "PPTX compression: poi, stored, deflate[:level] or parallel[:level] (default: ${DEFAULT-VALUE})",
+            defaultValue = "poi")
+    private String compression;
+
+    @Option(names = "--photo-heap-mb",
+            description = "Megabytes of heap photos may occupy while being decoded and resized (default: ${DEFAULT-VALUE})",
+            defaultValue = "128")
+    private int photoHeapMegabytes;
+
+    @Option(names = "--preview", description = "Also write PNG previews of the slides next to each deck")
+    private boolean preview;
+
+    @Option(names = "--preview-pdf", description = "Also write a PDF of the slide previews next to each deck")
+    private boolean previewPdf;
+
+    @Option(names = "--preview-dpi", description = "Resolution of slide previews (default: ${DEFAULT-VALUE})",
+            defaultValue = "96")
+    private int previewDpi;
+
+    @Option(names = "--metrics-out", description = "Write render counters and per-phase latencies to this file")
+    private File metricsOut;
+
+    @Option(names = "--metrics-format", description = "Metrics file format: ${COMPLETION-CANDIDATES} (default: ${DEFAULT-VALUE})",
+            defaultValue = "JSON")
+    private MetricsFormat metricsFormat;
+
     @Option(names = "--title", description = "Vehicle display title")
     private String title;
 
@@ -65,6 +181,9 @@ public class GeneratePpt implements Callable<Integer> {
     @Option(names = "--specs", description = "List of spec bullet points", arity = "0..*")
     private List<String> specs;
 
+    @Option(names = "--photos", description = "Photo files shown on photo slides after the listing slide", arity = "0..*")
+    private List<String> photos;
+
     @Option(names = "--dealer-name", description = "Dealership name")
     private String dealerName;
 
@@ -102,21 +221,15 @@ public class GeneratePpt implements Callable<Integer> {
         }
     }
 
+    /** Output formats for {@code --metrics-out}. */
+    enum MetricsFormat { JSON, PROMETHEUS }
+
     @Override
     public Integer call() {
         try {
-            // Load vehicle from JSON if provided
-            VehicleListing vehicle = loadVehicle(inputFile);
-            
-            // Override with CLI arguments
-            updateFromArgs(vehicle);
-            
-            // Build presentation
-            PresentationBuilder builder = new PresentationBuilder();
-            builder.buildPresentation(vehicle, outputFile.toPath());
-            
-            System.out.println("Saved editable PPTX to " + outputFile);
-            return CommandLine.ExitCode.OK;
+            Integer exitCode = run();
+            writeMetrics();
+            return exitCode;
         } catch (IllegalArgumentException e) {
             System.err.println("Validation error: " + e.getMessage());
             return CommandLine.ExitCode.USAGE;
@@ -129,6 +242,421 @@ public class GeneratePpt implements Callable<Integer> {
         }
     }
 
+    private Integer run() throws Exception {
+        if (validateOnly) {
+            return runValidation();
+        }
+        if (snapshotOut != null) {
+            return runSnapshotExport();
+        }
+        if (snapshotSource != null) {
+            return runSnapshot();
+        }
+        if (batchSource != null) {
+            return runBatch();
+        }
+        if (csvFeed != null) {
+            return runCsv();
+        }
+        if (catalogSource != null) {
+            return runCatalog();
+        }
+
+        // Load vehicle from JSON if provided
+        VehicleListing vehicle = loadVehicle(inputFile);
+        
+        // Override with CLI arguments
+        updateFromArgs(vehicle);
+        
+        // Build presentation
+        PresentationBuilder builder = newBuilder();
+        SlidePreviewExporter previews = newPreviewExporter();
+        if (previews != null) {
+            builder.buildPresentation(vehicle, outputFile.toPath(), previews);
+        } else {
+            builder.buildPresentation(vehicle, outputFile.toPath());
+        }
+        
+        System.out.println("Saved editable PPTX to " + outputFile);
+        return CommandLine.ExitCode.OK;
+    }
+
+    /**
+     * Creates the builder configured by the rendering options.
+     *
+     * @return the builder
+     * @throws IllegalArgumentException if an option value is invalid
+     */
+    private PresentationBuilder newBuilder() {
+        PhotoPipeline photoPipeline = new PhotoPipeline(photoHeapMegabytes * 1024L * 1024L,
+            Runtime.getRuntime().availableProcessors());
+        return new PresentationBuilder(renderMode, CompressionPolicy.parse(compression), photoPipeline);
+    }
+
+    /**
+     * Creates the preview exporter configured by the preview options.
+     *
+     * @return the exporter, or null if no previews were requested
+     * @throws IllegalArgumentException if the preview resolution is invalid
+     */
+    private SlidePreviewExporter newPreviewExporter() {
+        if (!preview && !previewPdf) {
+            return null;
+        }
+        return new SlidePreviewExporter(previewDpi, previewPdf);
+    }
+
+    /**
+     * Dumps the global render metrics to {@code --metrics-out}, if given.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    private void writeMetrics() throws IOException {
+        if (metricsOut == null) {
+            return;
+        }
+        try (Writer out = Files.newBufferedWriter(metricsOut.toPath(), StandardCharsets.UTF_8)) {
+            if (metricsFormat == MetricsFormat.PROMETHEUS) {
+                RenderMetrics.global().writePrometheus(out);
+            } else {
+                RenderMetrics.global().writeJson(out);
+            }
+        }
+        System.out.println("Saved render metrics to " + metricsOut);
+    }
+
+    /**
+     * Validates every listing of the configured source without rendering and reports each
+     * problem. CLI overrides are checked once, as they are the same for every listing.
+     *
+     * @return the process exit code
+     * @throws Exception if the source cannot be read
+     */
+    private Integer runValidation() throws Exception {
+        updateFromArgs(new VehicleListing());
+        ListingValidator validator = new ListingValidator(workerCount());
+        ListingValidator.ValidationReport report;
+        if (csvFeed != null) {
+            if (!csvFeed.isFile()) {
+                throw new IllegalArgumentException("CSV feed does not exist: " + csvFeed);
+            }
+            try (ListingCsvReader feed = ListingCsvReader.open(csvFeed.toPath(), parseDelimiter(csvDelimiter), csvListDelimiter)) {
+                report = validator.validate(feed);
+            }
+        } else if (batchSource != null || catalogSource != null) {
+            File source = batchSource != null ? batchSource : catalogSource;
+            report = validator.validate(BatchRenderer.resolveInputs(source.toPath()));
+        } else if (inputFile != null) {
+            report = validator.validate(List.of(inputFile.toPath()));
+        } else {
+            throw new IllegalArgumentException("--validate-only needs --input, --batch, --catalog or --csv");
+        }
+        report.printTo(System.out);
+        return report.issues().isEmpty() ? CommandLine.ExitCode.OK : CommandLine.ExitCode.SOFTWARE;
+    }
+
+    /**
+     * Renders every listing referenced by the batch source, applying CLI overrides to each.
+     *
+     * @return the process exit code
+     * @throws Exception if the batch source cannot be read
+     */
+    private Integer runBatch() throws Exception {
+        List<Path> inputs = BatchRenderer.resolveInputs(batchSource.toPath());
+        PresentationBuilder builder = newBuilder();
+        RenderCache cache = newCache(builder);
+        BuildManifest manifest = openManifest(builder);
+        if (pipeline) {
+            RenderPipeline.PipelineSummary summary = newPipeline(builder, cache, manifest)
+                .run(inputs, outputDir.toPath(), this::updateFromArgs);
+            finishManifest(manifest, summary.batch());
+            return printPipelineSummary(summary, cache, manifest);
+        }
+        BatchRenderer renderer = new BatchRenderer(builder, workerCount(), cache, newPreviewExporter(), manifest);
+
+        BatchRenderer.BatchSummary summary = renderer.run(inputs, outputDir.toPath(), this::updateFromArgs);
+        finishManifest(manifest, summary);
+        return printBatchSummary(summary, cache, manifest);
+    }
+
+    /**
+     * Renders every row of the CSV feed, applying CLI overrides to each.
+     *
+     * @return the process exit code
+     * @throws Exception if the feed cannot be read
+     */
+    private Integer runCsv() throws Exception {
+        if (!csvFeed.isFile()) {
+            throw new IllegalArgumentException("CSV feed does not exist: " + csvFeed);
+        }
+        PresentationBuilder builder = newBuilder();
+        RenderCache cache = newCache(builder);
+        BuildManifest manifest = openManifest(builder);
+        try (ListingCsvReader feed = ListingCsvReader.open(csvFeed.toPath(), parseDelimiter(csvDelimiter), csvListDelimiter)) {
+            if (pipeline) {
+                RenderPipeline.PipelineSummary summary = newPipeline(builder, cache, manifest)
+                    .run(feed, outputDir.toPath(), this::updateFromArgs);
+                finishManifest(manifest, summary.batch());
+                return printPipelineSummary(summary, cache, manifest);
+            }
+            BatchRenderer renderer = new BatchRenderer(builder, workerCount(), cache, newPreviewExporter(), manifest);
+            BatchRenderer.BatchSummary summary = renderer.run(feed, outputDir.toPath(), this::updateFromArgs);
+            finishManifest(manifest, summary);
+            return printBatchSummary(summary, cache, manifest);
+        }
+    }
+
+    /**
+     * Writes every listing of the batch source or CSV feed to an inventory snapshot. Listings
+     * are stored as read, without CLI overrides, under the name their deck would get. The first
+     * listing that cannot be read, or whose deck name an earlier listing has, stops the
+     * conversion and no snapshot is written.
+     *
+     * @return the process exit code
+     * @throws Exception if a listing cannot be read or the snapshot cannot be written
+     */
+    private Integer runSnapshotExport() throws Exception {
+        long started = System.nanoTime();
+        Path dir = Path.of("");
+        InventorySnapshot.Writer writer = InventorySnapshot.create(snapshotOut.toPath());
+        try {
+            if (batchSource != null) {
+                BatchRenderer.DeckPaths decks = new BatchRenderer.DeckPaths(dir);
+                for (Path input : BatchRenderer.resolveInputs(batchSource.toPath())) {
+                    VehicleListing vehicle;
+                    try {
+                        vehicle = ListingJsonReader.read(input.toFile());
+                    } catch (IllegalArgumentException e) {
+                        throw new IllegalArgumentException(input + ": " + e.getMessage(), e);
+                    } catch (IOException e) {
+                        throw new IllegalStateException("Failed to load " + input + ": " + e.getMessage(), e);
+                    }
+                    try {
+                        writer.add(deckName(decks.claim(input)), vehicle);
+                    } catch (IllegalArgumentException e) {
+                        throw new IllegalArgumentException(input + ": " + e.getMessage(), e);
+                    }
+                }
+            } else if (csvFeed != null) {
+                if (!csvFeed.isFile()) {
+                    throw new IllegalArgumentException("CSV feed does not exist: " + csvFeed);
+                }
+                try (ListingCsvReader feed = ListingCsvReader.open(csvFeed.toPath(), parseDelimiter(csvDelimiter), csvListDelimiter)) {
+                    BatchRenderer.DeckPaths decks = new BatchRenderer.DeckPaths(dir);
+                    VehicleListing vehicle;
+                    while (true) {
+                        try {
+                            vehicle = feed.next();
+                        } catch (IllegalArgumentException e) {
+                            throw new IllegalArgumentException(csvFeed + ": " + e.getMessage(), e);
+                        }
+                        if (vehicle == null) {
+                            break;
+                        }
+                        writer.add(deckName(decks.claim(vehicle.getRegistration(), feed.getLineNumber(),
+                            BatchRenderer.rowPath(feed))), vehicle);
+                    }
+                }
+            } else {
+                throw new IllegalArgumentException("--snapshot-out needs --batch or --csv");
+            }
+            writer.close();
+        } finally {
+            writer.abort();
+        }
+
+        InventorySnapshot snapshot = InventorySnapshot.open(snapshotOut.toPath());
+        System.out.printf("Wrote %d listings (%d dealers, %d distinct strings, %d KB) to %s in %.2f s%n",
+            snapshot.size(), snapshot.dealerCount(), snapshot.stringCount(), Files.size(snapshotOut.toPath()) / 1024,
+            snapshotOut, (System.nanoTime() - started) / 1e9);
+        return CommandLine.ExitCode.OK;
+    }
+
+    /** Returns a deck's file name without the {@code .pptx} extension. */
+    private static String deckName(Path deck) {
+        String name = deck.getFileName().toString();
+        return name.substring(0, name.length() - ".pptx".length());
+    }
+
+    /**
+     * Renders every listing of the inventory snapshot, applying CLI overrides to each.
+     *
+     * @return the process exit code
+     * @throws Exception if the snapshot cannot be opened
+     */
+    private Integer runSnapshot() throws Exception {
+        if (!snapshotSource.isFile()) {
+            throw new IllegalArgumentException("Snapshot does not exist: " + snapshotSource);
+        }
+        if (pipeline) {
+            throw new IllegalArgumentException("--pipeline applies to --batch and --csv only");
+        }
+        InventorySnapshot snapshot = InventorySnapshot.open(snapshotSource.toPath());
+        PresentationBuilder builder = newBuilder();
+        RenderCache cache = newCache(builder);
+        BuildManifest manifest = openManifest(builder);
+        BatchRenderer renderer = new BatchRenderer(builder, workerCount(), cache, newPreviewExporter(), manifest);
+        BatchRenderer.BatchSummary summary = renderer.run(snapshot, outputDir.toPath(), this::updateFromArgs);
+        finishManifest(manifest, summary);
+        return printBatchSummary(summary, cache, manifest);
+    }
+
+    /**
+     * Creates the staged pipeline configured by the pipeline options.
+     *
+     * @param builder the presentation builder
+     * @param cache the render cache, or null
+     * @param manifest the build manifest, or null
+     * @return the pipeline
+     * @throws IllegalArgumentException if an option value is invalid
+     */
+    private RenderPipeline newPipeline(PresentationBuilder builder, RenderCache cache, BuildManifest manifest) {
+        Map<RenderPipeline.Stage, Integer> threads = stageThreads != null
+            ? RenderPipeline.parseThreads(stageThreads)
+            : new EnumMap<>(RenderPipeline.Stage.class);
+        threads.putIfAbsent(RenderPipeline.Stage.RENDER, workerCount());
+        return new RenderPipeline(builder, threads, queueCapacity, cache, newPreviewExporter(), manifest);
+    }
+
+    private static Integer printPipelineSummary(RenderPipeline.PipelineSummary summary, RenderCache cache,
+                                                BuildManifest manifest) {
+        summary.printTo(System.out);
+        if (cache != null) {
+            cache.stats().printTo(System.out);
+        }
+        if (manifest != null) {
+            manifest.printTo(System.out);
+        }
+        return summary.batch().failures().isEmpty() ? CommandLine.ExitCode.OK : CommandLine.ExitCode.SOFTWARE;
+    }
+
+    /**
+     * Parses {@code --csv-delimiter}: one character, or {@code tab} or {@code \t} for a tab.
+     *
+     * @param text the option value
+     * @return the delimiter
+     * @throws IllegalArgumentException if the value is not a single character
+     */
+    private static char parseDelimiter(String text) {
+        if (text.equalsIgnoreCase("tab") || text.equals("\\t")) {
+            return '\t';
+        }
+        if (text.length() != 1) {
+            throw new IllegalArgumentException("CSV delimiter must be a single character or 'tab', got: " + text);
+        }
+        return text.charAt(0);
+    }
+
+    private int workerCount() {
+        return workers != null ? workers : Runtime.getRuntime().availableProcessors();
+    }
+
+    private RenderCache newCache(PresentationBuilder builder) throws IOException {
+        return cacheMegabytes > 0 || cacheDir != null
+            ? new RenderCache(builder, cacheMegabytes * 1024L * 1024L, cacheDir != null ? cacheDir.toPath() : null)
+            : null;
+    }
+
+    /**
+     * Opens the build manifest of the output directory when {@code --incremental} is set. A
+     * manifest that cannot be read is discarded, so every deck is rendered again.
+     *
+     * @param builder the presentation builder
+     * @return the manifest, or null when not incremental
+     * @throws IOException if an unreadable manifest cannot be deleted
+     */
+    private BuildManifest openManifest(PresentationBuilder builder) throws IOException {
+        if (!incremental) {
+            return null;
+        }
+        try {
+            return BuildManifest.open(outputDir.toPath(), builder, newPreviewExporter());
+        } catch (IOException e) {
+            System.err.println("Warning: " + e.getMessage() + "; rendering every listing");
+            Files.deleteIfExists(outputDir.toPath().resolve(BuildManifest.FILE_NAME));
+            return BuildManifest.open(outputDir.toPath(), builder, newPreviewExporter());
+        }
+    }
+
+    /**
+     * Deletes orphaned decks and saves the manifest. After a run with failures orphans are kept,
+     * as a listing that failed to load cannot be matched to its deck.
+     */
+    private static void finishManifest(BuildManifest manifest, BatchRenderer.BatchSummary summary) throws IOException {
+        if (manifest == null) {
+            return;
+        }
+        if (summary.failures().isEmpty()) {
+            manifest.removeOrphans();
+        }
+        manifest.save();
+    }
+
+    private static Integer printBatchSummary(BatchRenderer.BatchSummary summary, RenderCache cache,
+                                             BuildManifest manifest) {
+        summary.printTo(System.out);
+        if (cache != null) {
+            cache.stats().printTo(System.out);
+        }
+        if (manifest != null) {
+            manifest.printTo(System.out);
+        }
+        return summary.failures().isEmpty() ? CommandLine.ExitCode.OK : CommandLine.ExitCode.SOFTWARE;
+    }
+
+    /**
+     * Streams every listing referenced by the catalog source into a single deck.
+     *
+     * @return the process exit code
+     * @throws Exception if a listing cannot be loaded or the deck cannot be written
+     */
+    private Integer runCatalog() throws Exception {
+        if (preview || previewPdf) {
+            throw new IllegalArgumentException("Slide previews are not supported for catalogs");
+        }
+        if (incremental) {
+            throw new IllegalArgumentException("Incremental builds apply to --batch, --csv and --snapshot only");
+        }
+        List<Path> inputs = BatchRenderer.resolveInputs(catalogSource.toPath());
+        Stream<VehicleListing> listings = inputs.stream().map(input -> {
+            try {
+                VehicleListing vehicle = loadVehicle(input.toFile());
+                updateFromArgs(vehicle);
+                return vehicle;
+            } catch (IllegalArgumentException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException("Failed to load " + input + ": " + e.getMessage(), e);
+            }
+        });
+
+        CatalogSort sort = catalogSort;
+        if (catalogFilter != null) {
+            List<VehicleListing> all = listings.collect(Collectors.toList());
+            InventoryStore store = InventoryStore.of(all);
+            long started = System.nanoTime();
+            List<VehicleListing> matches = store.query().where(catalogFilter).sortBy(catalogSort).list();
+            System.out.printf("Filter matched %d of %d listings in %.2f ms%n", matches.size(), store.size(),
+                (System.nanoTime() - started) / 1e6);
+            long unreadable = all.stream().filter(ListingNumbers::hasUnreadable).count();
+            if (unreadable > 0) {
+                System.out.printf("Unreadable numbers: %d listings have a price, year, engine size or mileage that "
+                    + "is not a number and never match a range on it (run --validate-only to list them)%n", unreadable);
+            }
+            // Already in sort order; the writer only has to group
+            listings = matches.stream();
+            sort = CatalogSort.INPUT;
+        }
+
+        CatalogDeckWriter.CatalogReport report = new CatalogDeckWriter()
+            .sortBy(sort)
+            .groupBy(catalogGrouping)
+            .write(listings, outputFile.toPath());
+        report.printTo(System.out);
+        System.out.println("Saved catalog PPTX to " + outputFile);
+        return CommandLine.ExitCode.OK;
+    }
+
     /**
      * Loads a vehicle listing from a JSON file.
      * 
@@ -149,10 +677,7 @@ public class GeneratePpt implements Callable<Integer> {
             throw new IllegalArgumentException("Cannot read input file: " + inputFile);
         }
         
-        ObjectMapper mapper = new ObjectMapper();
-        @SuppressWarnings("unchecked")
-        java.util.Map<String, Object> data = mapper.readValue(inputFile, java.util.Map.class);
-        return VehicleListing.fromMap(data);
+        return ListingJsonReader.read(inputFile);
     }
 
     /**
@@ -198,6 +723,9 @@ public class GeneratePpt implements Callable<Integer> {
         if (specs != null && !specs.isEmpty()) {
             vehicle.setSpecs(specs);
         }
+        if (photos != null && !photos.isEmpty()) {
+            vehicle.setPhotos(photos);
+        }
         
         // Update dealer details
         DealerDetails currentDealer = vehicle.getDealer();
@@ -210,7 +738,13 @@ public class GeneratePpt implements Callable<Integer> {
     }
 
     public static void main(String[] args) {
-        int exitCode = new CommandLine(new GeneratePpt()).execute(args);
+        // Never needs a display; also keeps AWT from probing for one in the native image
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+        int exitCode = new CommandLine(new GeneratePpt())
+            .setCaseInsensitiveEnumValuesAllowed(true)
+            .execute(args);
         System.exit(exitCode);
     }
 }
@@ -0,0 +1,124 @@
+package com.cardealer;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes a PDF whose pages each show a single full-page RGB image.
+ *
+ * <p>Only the handful of objects such a document needs are produced: a catalog, a page tree, and
+ * per page a page, its content stream and a Flate-compressed image. That is enough for browsers
+ * and print tools and avoids a PDF library for what are raster previews anyway.
+ */
+final class ImagePdfWriter {
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final List<Integer> offsets = new ArrayList<>();
+    private final List<Integer> pageObjects = new ArrayList<>();
+
+    ImagePdfWriter() {
+        // Binary comment marks the file as binary for transfer tools
+        writeAscii("%PDF-1.4\n%âãÏÓ\n");
+        // Objects 1 and 2 are the catalog and page tree, written by finish()
+        offsets.add(0);
+        offsets.add(0);
+    }
+
+    /**
+     * Appends a page showing an image stretched over the whole page.
+     *
+     * @param image the page content
+     * @param widthPoints page width in points
+     * @param heightPoints page height in points
+     * @throws IOException if the image cannot be compressed
+     */
+    void addPage(BufferedImage image, double widthPoints, double heightPoints) throws IOException {
+        int imageObject = beginObject();
+        byte[] pixels = deflateRgb(image);
+        writeAscii(String.format(Locale.ROOT,
+            "<< /Type /XObject /Subtype /Image /Width %d /Height %d /ColorSpace /DeviceRGB"
+                + " /BitsPerComponent 8 /Filter /FlateDecode /Length %d >>\nstream\n",
+            image.getWidth(), image.getHeight(), pixels.length));
+        out.write(pixels, 0, pixels.length);
+        writeAscii("\nendstream\nendobj\n");
+
+        String content = String.format(Locale.ROOT, "q %.2f 0 0 %.2f 0 0 cm /Im0 Do Q", widthPoints, heightPoints);
+        int contentObject = beginObject();
+        writeAscii("<< /Length " + content.length() + " >>\nstream\n" + content + "\nendstream\nendobj\n");
+
+        int pageObject = beginObject();
+        writeAscii(String.format(Locale.ROOT,
+            "<< /Type /Page /Parent 2 0 R /MediaBox [0 0 %.2f %.2f] /Resources << /XObject << /Im0 %d 0 R >> >>"
+                + " /Contents %d 0 R >>\nendobj\n",
+            widthPoints, heightPoints, imageObject, contentObject));
+        pageObjects.add(pageObject);
+    }
+
+    /**
+     * Writes the page tree, catalog and cross-reference table and returns the document.
+     *
+     * @return the PDF bytes
+     */
+    ByteBuffer finish() {
+        StringBuilder kids = new StringBuilder();
+        for (int page : pageObjects) {
+            kids.append(page).append(" 0 R ");
+        }
+        offsets.set(0, out.size());
+        writeAscii("1 0 obj\n<< /Type /Catalog /Pages 2 0 R >>\nendobj\n");
+        offsets.set(1, out.size());
+        writeAscii("2 0 obj\n<< /Type /Pages /Kids [" + kids.toString().trim() + "] /Count " + pageObjects.size()
+            + " >>\nendobj\n");
+
+        int xref = out.size();
+        StringBuilder table = new StringBuilder();
+        table.append("xref\n0 ").append(offsets.size() + 1).append('\n');
+        table.append("0000000000 65535 f \n");
+        for (int offset : offsets) {
+            table.append(String.format(Locale.ROOT, "%010d 00000 n \n", offset));
+        }
+        table.append("trailer\n<< /Size ").append(offsets.size() + 1).append(" /Root 1 0 R >>\n");
+        table.append("startxref\n").append(xref).append("\n%%EOF\n");
+        writeAscii(table.toString());
+        return ByteBuffer.wrap(out.toByteArray());
+    }
+
+    private int beginObject() {
+        offsets.add(out.size());
+        int number = offsets.size();
+        writeAscii(number + " 0 obj\n");
+        return number;
+    }
+
+    private static byte[] deflateRgb(BufferedImage image) throws IOException {
+        int width = image.getWidth();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(width * image.getHeight() / 4);
+        try (OutputStream deflater = new DeflaterOutputStream(compressed)) {
+            int[] argb = new int[width];
+            byte[] rgb = new byte[width * 3];
+            for (int y = 0; y < image.getHeight(); y++) {
+                image.getRGB(0, y, width, 1, argb, 0, width);
+                for (int x = 0; x < width; x++) {
+                    rgb[x * 3] = (byte) (argb[x] >> 16);
+                    rgb[x * 3 + 1] = (byte) (argb[x] >> 8);
+                    rgb[x * 3 + 2] = (byte) argb[x];
+                }
+                deflater.write(rgb);
+            }
+        }
+        return compressed.toByteArray();
+    }
+
+    private void writeAscii(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.ISO_8859_1);
+        out.write(bytes, 0, bytes.length);
+    }
+}
@@ -0,0 +1,589 @@
+package com.cardealer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * A whole inventory of {@link VehicleListing}s in one binary file that opens by memory-mapping
+ * it, so a run can start from the snapshot instead of parsing every listing's JSON again.
+ *
+ * <p>Every listing is a fixed-size record, so listing {@code i} is found by multiplication, and
+ * opening reads nothing but the header. A listing is only decoded when {@link #get(int)} asks
+ * for it, and {@link #listings()} is a list view that decodes on access. The page cache holds
+ * the file, so several processes opening the same snapshot share its memory.
+ *
+ * <p>The file is big-endian and laid out as:
+ * <ol>
+ *   <li>a 64-byte header: magic, format version, record size, counts and section offsets;</li>
+ *   <li>one 52-byte record per listing. It holds the string ids of the deck name, title, price,
+ *       registration, year, engine size, mileage, MOT expiry and owners, a dealer index, the
+ *       positions of its specs and photos lists, and the gearbox, fuel type and ULEZ ordinals as
+ *       one byte each;</li>
+ *   <li>the lists: a count followed by that many string ids, with position 0 the empty list;</li>
+ *   <li>the dealers, each four string ids, shared by all their listings;</li>
+ *   <li>the string dictionary: a table of {@code count + 1} offsets into the UTF-8 data that
+ *       follows it. Each distinct string is stored once and id -1 is null.</li>
+ * </ol>
+ * Enum values are stored by ordinal, so reordering {@link GearboxType}, {@link FuelType} or
+ * {@link UlezStatus} needs a new {@link #FORMAT_VERSION}. A snapshot is limited to 2 GB.
+ *
+ * <p>Instances are immutable and safe to share between threads.
+ */
+public final class InventorySnapshot {
+
+    /** Version of the file layout; snapshots of another version are rejected. */
+    public static final int FORMAT_VERSION = 1;
+
+    private static final int MAGIC = 0x43444953; // "CDIS"
+    private static final int HEADER_SIZE = 64;
+    private static final int RECORD_SIZE = 52;
+    private static final int NULL_STRING = -1;
+
+    // Record layout
+    private static final int NAME = 0;
+    private static final int TITLE = 4;
+    private static final int PRICE = 8;
+    private static final int REGISTRATION = 12;
+    private static final int YEAR = 16;
+    private static final int ENGINE_SIZE = 20;
+    private static final int MILEAGE = 24;
+    private static final int MOT_EXPIRY = 28;
+    private static final int OWNERS = 32;
+    private static final int DEALER = 36;
+    private static final int SPECS = 40;
+    private static final int PHOTOS = 44;
+    private static final int GEARBOX = 48;
+    private static final int FUEL_TYPE = 49;
+    private static final int ULEZ = 50;
+
+    private static final GearboxType[] GEARBOXES = GearboxType.values();
+    private static final FuelType[] FUEL_TYPES = FuelType.values();
+    private static final UlezStatus[] ULEZ_STATUSES = UlezStatus.values();
+
+    private final Path file;
+    private final ByteBuffer buffer;
+    private final int size;
+    private final int dealerCount;
+    private final int stringCount;
+    private final int recordsOffset;
+    private final int listsOffset;
+    private final int dealersOffset;
+    private final int stringOffsetsOffset;
+    private final int stringDataOffset;
+    /** Decoded dealers; a racing thread at worst decodes one twice. */
+    private final DealerDetails[] dealers;
+
+    private InventorySnapshot(Path file, ByteBuffer buffer) throws IOException {
+        this.file = file;
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException(file + " is not an inventory snapshot");
+        }
+        int version = buffer.getShort(4);
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Inventory snapshot " + file + " has format version " + version
+                + ", expected " + FORMAT_VERSION);
+        }
+        if (buffer.getShort(6) != RECORD_SIZE) {
+            throw new IOException("Inventory snapshot " + file + " has an unexpected record size");
+        }
+        size = buffer.getInt(8);
+        dealerCount = buffer.getInt(12);
+        stringCount = buffer.getInt(16);
+        recordsOffset = section(24, (long) size * RECORD_SIZE);
+        listsOffset = section(32, 4);
+        dealersOffset = section(40, (long) dealerCount * 16);
+        stringOffsetsOffset = section(48, ((long) stringCount + 1) * 4);
+        stringDataOffset = section(56, buffer.getInt(stringOffsetsOffset + stringCount * 4));
+        dealers = new DealerDetails[dealerCount];
+    }
+
+    /** Reads a section offset from the header and checks the section fits in the file. */
+    private int section(int headerPosition, long length) throws IOException {
+        long offset = buffer.getLong(headerPosition);
+        if (offset < HEADER_SIZE || length < 0 || offset + length > buffer.capacity()) {
+            throw new IOException("Inventory snapshot " + file + " is truncated or corrupt");
+        }
+        return (int) offset;
+    }
+
+    /**
+     * Opens a snapshot by mapping it into memory. Only the header is read.
+     *
+     * @param file the snapshot file
+     * @return the snapshot
+     * @throws IOException if the file cannot be mapped or is not a snapshot of this version
+     */
+    public static InventorySnapshot open(Path file) throws IOException {
+        Objects.requireNonNull(file, "Snapshot file cannot be null");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("Inventory snapshot " + file + " is larger than 2 GB");
+            }
+            // The mapping stays valid after the channel closes
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            return new InventorySnapshot(file, mapped);
+        }
+    }
+
+    /**
+     * Starts writing a snapshot. The file is replaced atomically when the writer is closed.
+     *
+     * @param file the snapshot file to create or replace
+     * @return the writer
+     * @throws IOException if the file cannot be created
+     */
+    public static Writer create(Path file) throws IOException {
+        Objects.requireNonNull(file, "Snapshot file cannot be null");
+        return new Writer(file);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the number of listings.
+     *
+     * @return the listing count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of distinct dealers.
+     *
+     * @return the dealer count
+     */
+    public int dealerCount() {
+        return dealerCount;
+    }
+
+    /**
+     * Returns the number of distinct strings in the dictionary.
+     *
+     * @return the string count
+     */
+    public int stringCount() {
+        return stringCount;
+    }
+
+    /**
+     * Decodes one listing. Each call returns a new, mutable listing.
+     *
+     * @param index the listing's position, from 0
+     * @return the listing
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public VehicleListing get(int index) {
+        int record = record(index);
+        VehicleListing vehicle = new VehicleListing(
+            string(record + TITLE),
+            string(record + PRICE),
+            string(record + REGISTRATION),
+            string(record + YEAR),
+            GEARBOXES[ordinal(record + GEARBOX, GEARBOXES.length)],
+            string(record + ENGINE_SIZE),
+            FUEL_TYPES[ordinal(record + FUEL_TYPE, FUEL_TYPES.length)],
+            string(record + MILEAGE),
+            ULEZ_STATUSES[ordinal(record + ULEZ, ULEZ_STATUSES.length)],
+            string(record + MOT_EXPIRY),
+            string(record + OWNERS),
+            list(record + SPECS),
+            dealer(index)
+        );
+        vehicle.setPhotos(list(record + PHOTOS));
+        return vehicle;
+    }
+
+    /**
+     * Returns the name a listing was stored under, which names its deck: the JSON file name
+     * without {@code .json}, or for a CSV row the deck name {@code --csv} would give it.
+     *
+     * @param index the listing's position, from 0
+     * @return the name
+     */
+    public String name(int index) {
+        return string(record(index) + NAME);
+    }
+
+    /**
+     * Returns a listing's registration without decoding the rest of it.
+     *
+     * @param index the listing's position, from 0
+     * @return the registration
+     */
+    public String registration(int index) {
+        return string(record(index) + REGISTRATION);
+    }
+
+    /**
+     * Returns a listing's title without decoding the rest of it.
+     *
+     * @param index the listing's position, from 0
+     * @return the title
+     */
+    public String title(int index) {
+        return string(record(index) + TITLE);
+    }
+
+    /**
+     * Returns a listing's display price without decoding the rest of it.
+     *
+     * @param index the listing's position, from 0
+     * @return the price
+     */
+    public String price(int index) {
+        return string(record(index) + PRICE);
+    }
+
+    /**
+     * Returns a listing's display year without decoding the rest of it.
+     *
+     * @param index the listing's position, from 0
+     * @return the year
+     */
+    public String year(int index) {
+        return string(record(index) + YEAR);
+    }
+
+    /**
+     * Returns a listing's display mileage without decoding the rest of it.
+     *
+     * @param index the listing's position, from 0
+     * @return the mileage
+     */
+    public String mileage(int index) {
+        return string(record(index) + MILEAGE);
+    }
+
+    public GearboxType gearbox(int index) {
+        return GEARBOXES[ordinal(record(index) + GEARBOX, GEARBOXES.length)];
+    }
+
+    public FuelType fuelType(int index) {
+        return FUEL_TYPES[ordinal(record(index) + FUEL_TYPE, FUEL_TYPES.length)];
+    }
+
+    public UlezStatus ulez(int index) {
+        return ULEZ_STATUSES[ordinal(record(index) + ULEZ, ULEZ_STATUSES.length)];
+    }
+
+    /**
+     * Returns the position of a listing's dealer among {@link #dealerCount()} dealers, so
+     * listings can be grouped by dealer without decoding them.
+     *
+     * @param index the listing's position, from 0
+     * @return the dealer's position, from 0
+     */
+    public int dealerIndex(int index) {
+        return buffer.getInt(record(index) + DEALER);
+    }
+
+    /**
+     * Returns a listing's dealer. Listings of the same dealer share one instance.
+     *
+     * @param index the listing's position, from 0
+     * @return the dealer
+     */
+    public DealerDetails dealer(int index) {
+        int dealerIndex = dealerIndex(index);
+        DealerDetails dealer = dealers[dealerIndex];
+        if (dealer == null) {
+            int position = dealersOffset + dealerIndex * 16;
+            dealer = DealerDetails.fromFields(string(position), string(position + 4), string(position + 8),
+                string(position + 12));
+            dealers[dealerIndex] = dealer;
+        }
+        return dealer;
+    }
+
+    /**
+     * Returns a read-only list view that decodes each listing when it is read.
+     *
+     * @return the listings, in the order they were written
+     */
+    public List<VehicleListing> listings() {
+        return new Listings();
+    }
+
+    private final class Listings extends AbstractList<VehicleListing> implements RandomAccess {
+        @Override
+        public VehicleListing get(int index) {
+            return InventorySnapshot.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    private int record(int index) {
+        Objects.checkIndex(index, size);
+        return recordsOffset + index * RECORD_SIZE;
+    }
+
+    private int ordinal(int position, int count) {
+        int ordinal = buffer.get(position);
+        if (ordinal < 0 || ordinal >= count) {
+            throw new IllegalStateException("Inventory snapshot " + file + " has an invalid enum value at " + position);
+        }
+        return ordinal;
+    }
+
+    private String string(int position) {
+        int id = buffer.getInt(position);
+        if (id == NULL_STRING) {
+            return null;
+        }
+        Objects.checkIndex(id, stringCount);
+        int start = buffer.getInt(stringOffsetsOffset + id * 4);
+        int end = buffer.getInt(stringOffsetsOffset + id * 4 + 4);
+        byte[] bytes = new byte[end - start];
+        buffer.get(stringDataOffset + start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private List<String> list(int position) {
+        int listPosition = listsOffset + buffer.getInt(position) * 4;
+        int count = buffer.getInt(listPosition);
+        if (count == 0) {
+            return null;
+        }
+        List<String> values = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            values.add(string(listPosition + i * 4));
+        }
+        return values;
+    }
+
+    /**
+     * Writes listings to a new snapshot. Records are streamed to a temporary file as they are
+     * added; the dictionary, lists and dealers are kept in memory and written on
+     * {@link #close()}, which then moves the file into place. Not thread-safe.
+     */
+    public static final class Writer implements Closeable {
+        private static final int BUFFER_SIZE = 64 * 1024;
+
+        private final Path target;
+        private final Path temp;
+        private final FileChannel channel;
+        private final ByteBuffer records = ByteBuffer.allocate(BUFFER_SIZE);
+        private final Map<String, Integer> stringIds = new HashMap<>();
+        private ByteBuffer strings = ByteBuffer.allocate(BUFFER_SIZE);
+        private int[] stringOffsets = new int[1024];
+        private final Map<DealerDetails, Integer> dealerIds = new HashMap<>();
+        private final List<DealerDetails> dealers = new ArrayList<>();
+        private int[] lists = new int[1024];
+        private int listsSize = 1; // position 0 is the shared empty list
+        private int count;
+        private boolean closed;
+
+        private Writer(Path target) throws IOException {
+            this.target = target;
+            this.temp = AtomicFileWriter.temporaryFor(target);
+            this.channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            channel.position(HEADER_SIZE);
+        }
+
+        /**
+         * Appends a listing.
+         *
+         * @param name the name to store the listing under, see {@link InventorySnapshot#name(int)}
+         * @param vehicle the listing
+         * @throws IOException if the file cannot be written
+         * @throws IllegalStateException if the writer is closed or the snapshot would exceed 2 GB
+         */
+        public void add(String name, VehicleListing vehicle) throws IOException {
+            Objects.requireNonNull(vehicle, "Vehicle cannot be null");
+            if (closed) {
+                throw new IllegalStateException("Snapshot writer is closed");
+            }
+            if (records.remaining() < RECORD_SIZE) {
+                flush();
+            }
+            int record = records.position();
+            records.putInt(record + NAME, id(name));
+            records.putInt(record + TITLE, id(vehicle.getTitle()));
+            records.putInt(record + PRICE, id(vehicle.getPrice()));
+            records.putInt(record + REGISTRATION, id(vehicle.getRegistration()));
+            records.putInt(record + YEAR, id(vehicle.getYear()));
+            records.putInt(record + ENGINE_SIZE, id(vehicle.getEngineSize()));
+            records.putInt(record + MILEAGE, id(vehicle.getMileage()));
+            records.putInt(record + MOT_EXPIRY, id(vehicle.getMotExpiry()));
+            records.putInt(record + OWNERS, id(vehicle.getOwners()));
+            records.putInt(record + DEALER, dealerId(vehicle.getDealer()));
+            records.putInt(record + SPECS, listId(vehicle.getSpecs()));
+            records.putInt(record + PHOTOS, listId(vehicle.getPhotos()));
+            records.put(record + GEARBOX, (byte) vehicle.getGearbox().ordinal());
+            records.put(record + FUEL_TYPE, (byte) vehicle.getFuelType().ordinal());
+            records.put(record + ULEZ, (byte) vehicle.getUlez().ordinal());
+            records.put(record + ULEZ + 1, (byte) 0);
+            records.position(record + RECORD_SIZE);
+            count++;
+            if ((long) count * RECORD_SIZE + (long) listsSize * 4 + strings.position() > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Inventory snapshot would exceed 2 GB");
+            }
+        }
+
+        /**
+         * Returns the number of listings added so far.
+         *
+         * @return the count
+         */
+        public int size() {
+            return count;
+        }
+
+        /**
+         * Writes the remaining sections and the header and moves the file into place.
+         *
+         * @throws IOException if the file cannot be written
+         */
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                flush();
+                long listsOffset = channel.position();
+                ByteBuffer section = ByteBuffer.allocate(listsSize * 4);
+                section.asIntBuffer().put(lists, 0, listsSize);
+                writeFully(section);
+
+                long dealersOffset = channel.position();
+                section = ByteBuffer.allocate(dealers.size() * 16);
+                for (DealerDetails dealer : dealers) {
+                    section.putInt(id(dealer.name())).putInt(id(dealer.phone())).putInt(id(dealer.email()))
+                        .putInt(id(dealer.website()));
+                }
+                writeFully(section.flip());
+
+                long stringOffsetsOffset = channel.position();
+                int stringCount = stringIds.size();
+                stringOffsets[stringCount] = strings.position();
+                section = ByteBuffer.allocate((stringCount + 1) * 4);
+                section.asIntBuffer().put(stringOffsets, 0, stringCount + 1);
+                writeFully(section);
+                long stringDataOffset = channel.position();
+                writeFully(strings.flip());
+
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putShort((short) FORMAT_VERSION).putShort((short) RECORD_SIZE)
+                    .putInt(count).putInt(dealers.size()).putInt(stringCount).putInt(0)
+                    .putLong(HEADER_SIZE).putLong(listsOffset).putLong(dealersOffset)
+                    .putLong(stringOffsetsOffset).putLong(stringDataOffset);
+                header.flip();
+                while (header.hasRemaining()) {
+                    channel.write(header, header.position());
+                }
+                channel.close();
+                AtomicFileWriter.commit(temp, target);
+            } catch (IOException | RuntimeException e) {
+                try {
+                    channel.close();
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+                AtomicFileWriter.discard(temp, e);
+                throw e;
+            }
+        }
+
+        /**
+         * Abandons the snapshot, deleting the partial file. Use it instead of {@link #close()}
+         * when the listings could not all be added.
+         */
+        public void abort() {
+            if (!closed) {
+                closed = true;
+                try {
+                    channel.close();
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                    // Best effort: a leftover hidden temporary file is harmless
+                }
+            }
+        }
+
+        private void flush() throws IOException {
+            writeFully(records.flip());
+            records.clear();
+        }
+
+        private void writeFully(ByteBuffer content) throws IOException {
+            while (content.hasRemaining()) {
+                channel.write(content);
+            }
+        }
+
+        private int id(String value) {
+            if (value == null) {
+                return NULL_STRING;
+            }
+            Integer existing = stringIds.get(value);
+            if (existing != null) {
+                return existing;
+            }
+            int id = stringIds.size();
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (strings.remaining() < bytes.length) {
+                strings = ByteBuffer.allocate(Math.max(strings.capacity() * 2, strings.position() + bytes.length))
+                    .put(strings.flip());
+            }
+            if (id + 1 >= stringOffsets.length) {
+                stringOffsets = Arrays.copyOf(stringOffsets, stringOffsets.length * 2);
+            }
+            stringOffsets[id] = strings.position();
+            strings.put(bytes);
+            stringIds.put(value, id);
+            return id;
+        }
+
+        private int dealerId(DealerDetails dealer) {
+            Integer existing = dealerIds.get(dealer);
+            if (existing != null) {
+                return existing;
+            }
+            int id = dealers.size();
+            dealers.add(dealer);
+            dealerIds.put(dealer, id);
+            return id;
+        }
+
+        private int listId(List<String> values) {
+            if (values.isEmpty()) {
+                return 0;
+            }
+            int position = listsSize;
+            if (listsSize + values.size() + 1 > lists.length) {
+                lists = Arrays.copyOf(lists, Math.max(lists.length * 2, listsSize + values.size() + 1));
+            }
+            lists[listsSize++] = values.size();
+            for (String value : values) {
+                lists[listsSize++] = id(value);
+            }
+            return position;
+        }
+    }
+}
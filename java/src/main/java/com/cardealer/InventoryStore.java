@@ -0,0 +1,636 @@
+package com.cardealer;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * An indexed, read-only view of an inventory for picking the listings of a themed deck, such as
+ * "ULEZ-compliant automatics under £15,000, cheapest first", without scanning every listing.
+ *
+ * <p>Building the store reads each listing once. Fuel type, gearbox, ULEZ status and dealer name
+ * get a {@link BitSet} per value, so those filters are word-wide ANDs. The price, mileage and
+ * year each listing parsed at load time are copied into primitive columns, and every
+ * {@link CatalogSort} ordering is kept as a precomputed permutation, so a query never touches a
+ * display string or sorts. A query over a six-figure inventory takes well under a millisecond.
+ *
+ * <p>The store keeps the list it was built from and returns its elements. Built over an
+ * {@link InventorySnapshot}, it reads the snapshot's enum, dealer and string columns and parses
+ * the numbers itself, so it holds only the indexes, and a listing is decoded only when a query
+ * result asks for it.
+ *
+ * <p>Instances are immutable and safe to share between threads; {@link Query} is not.
+ */
+public final class InventoryStore {
+
+    private static final BitSet EMPTY = new BitSet();
+    private static final Pattern FILTER_SEPARATOR = Pattern.compile(",(?=\\s*\\w+\\s*=)");
+
+    private final List<VehicleListing> listings;
+    private final long[] prices;
+    private final long[] mileages;
+    private final long[] years;
+    private final Map<FuelType, BitSet> byFuelType;
+    private final Map<GearboxType, BitSet> byGearbox;
+    private final Map<UlezStatus, BitSet> byUlez;
+    private final Map<String, BitSet> byDealer;
+    private final Map<CatalogSort, int[]> orders;
+    private final BitSet all;
+
+    private InventoryStore(List<VehicleListing> listings, Columns columns) {
+        this.listings = listings;
+        int size = listings.size();
+        prices = new long[size];
+        mileages = new long[size];
+        years = new long[size];
+        byFuelType = indexes(FuelType.class);
+        byGearbox = indexes(GearboxType.class);
+        byUlez = indexes(UlezStatus.class);
+        byDealer = new HashMap<>();
+        String[] titles = new String[size];
+        for (int i = 0; i < size; i++) {
+            prices[i] = columns.pricePence(i);
+            mileages[i] = columns.mileageMiles(i);
+            years[i] = columns.yearValue(i);
+            titles[i] = columns.title(i);
+            byFuelType.get(columns.fuelType(i)).set(i);
+            byGearbox.get(columns.gearbox(i)).set(i);
+            byUlez.get(columns.ulez(i)).set(i);
+            byDealer.computeIfAbsent(columns.dealer(i), name -> new BitSet()).set(i);
+        }
+
+        // Same orderings as CatalogSort's comparators; the sorts are stable, so ties keep input order
+        orders = new EnumMap<>(CatalogSort.class);
+        orders.put(CatalogSort.PRICE, permutation(size,
+            Comparator.comparingLong(i -> CatalogSort.missingLast(prices[i]))));
+        orders.put(CatalogSort.MILEAGE, permutation(size,
+            Comparator.comparingLong(i -> CatalogSort.missingLast(mileages[i]))));
+        orders.put(CatalogSort.YEAR, permutation(size,
+            Comparator.comparingLong(i -> CatalogSort.largestFirst(years[i]))));
+        orders.put(CatalogSort.TITLE, permutation(size,
+            Comparator.comparing(i -> titles[i], Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))));
+        all = new BitSet(size);
+        all.set(0, size);
+    }
+
+    /**
+     * Builds a store over a list of listings. The list is kept, not copied, and must not change
+     * afterwards.
+     *
+     * @param listings the inventory
+     * @return the store
+     */
+    public static InventoryStore of(List<VehicleListing> listings) {
+        Objects.requireNonNull(listings, "Listings cannot be null");
+        List<VehicleListing> kept = listings instanceof RandomAccess ? listings : List.copyOf(listings);
+        return new InventoryStore(kept, new Columns() {
+            @Override
+            public String title(int index) {
+                return kept.get(index).getTitle();
+            }
+
+            @Override
+            public long pricePence(int index) {
+                return kept.get(index).getPricePence();
+            }
+
+            @Override
+            public int mileageMiles(int index) {
+                return kept.get(index).getMileageMiles();
+            }
+
+            @Override
+            public short yearValue(int index) {
+                return kept.get(index).getYearValue();
+            }
+
+            @Override
+            public FuelType fuelType(int index) {
+                return kept.get(index).getFuelType();
+            }
+
+            @Override
+            public GearboxType gearbox(int index) {
+                return kept.get(index).getGearbox();
+            }
+
+            @Override
+            public UlezStatus ulez(int index) {
+                return kept.get(index).getUlez();
+            }
+
+            @Override
+            public String dealer(int index) {
+                return kept.get(index).getDealer().name();
+            }
+        });
+    }
+
+    /**
+     * Builds a store over a snapshot from its enum, dealer and string columns, without decoding
+     * any listing. Query results decode their listings when read.
+     *
+     * @param snapshot the inventory snapshot
+     * @return the store
+     */
+    public static InventoryStore of(InventorySnapshot snapshot) {
+        Objects.requireNonNull(snapshot, "Snapshot cannot be null");
+        String[] dealerNames = new String[snapshot.dealerCount()];
+        return new InventoryStore(snapshot.listings(), new Columns() {
+            @Override
+            public String title(int index) {
+                return snapshot.title(index);
+            }
+
+            @Override
+            public long pricePence(int index) {
+                return ListingNumbers.pence(snapshot.price(index));
+            }
+
+            @Override
+            public int mileageMiles(int index) {
+                return ListingNumbers.miles(snapshot.mileage(index));
+            }
+
+            @Override
+            public short yearValue(int index) {
+                return ListingNumbers.year(snapshot.year(index));
+            }
+
+            @Override
+            public FuelType fuelType(int index) {
+                return snapshot.fuelType(index);
+            }
+
+            @Override
+            public GearboxType gearbox(int index) {
+                return snapshot.gearbox(index);
+            }
+
+            @Override
+            public UlezStatus ulez(int index) {
+                return snapshot.ulez(index);
+            }
+
+            @Override
+            public String dealer(int index) {
+                int dealer = snapshot.dealerIndex(index);
+                if (dealerNames[dealer] == null) {
+                    dealerNames[dealer] = snapshot.dealer(index).name();
+                }
+                return dealerNames[dealer];
+            }
+        });
+    }
+
+    /**
+     * The fields a store indexes, read one listing at a time while it is built.
+     */
+    private interface Columns {
+        String title(int index);
+
+        long pricePence(int index);
+
+        int mileageMiles(int index);
+
+        short yearValue(int index);
+
+        FuelType fuelType(int index);
+
+        GearboxType gearbox(int index);
+
+        UlezStatus ulez(int index);
+
+        String dealer(int index);
+    }
+
+    private static <E extends Enum<E>> Map<E, BitSet> indexes(Class<E> type) {
+        Map<E, BitSet> indexes = new EnumMap<>(type);
+        for (E value : type.getEnumConstants()) {
+            indexes.put(value, new BitSet());
+        }
+        return indexes;
+    }
+
+    private static int[] permutation(int size, Comparator<Integer> order) {
+        Integer[] boxed = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            boxed[i] = i;
+        }
+        Arrays.sort(boxed, order);
+        int[] permutation = new int[size];
+        for (int i = 0; i < size; i++) {
+            permutation[i] = boxed[i];
+        }
+        return permutation;
+    }
+
+    public int size() {
+        return listings.size();
+    }
+
+    public VehicleListing get(int index) {
+        return listings.get(index);
+    }
+
+    /**
+     * Returns the names of the dealers in the inventory, for {@link Query#dealer(String...)}.
+     *
+     * @return the dealer names, sorted
+     */
+    public Set<String> dealers() {
+        return Collections.unmodifiableSet(new TreeSet<>(byDealer.keySet()));
+    }
+
+    /**
+     * Returns a listing's price in pence, as {@link CatalogSort#PRICE} orders it.
+     *
+     * @param index the listing's position
+     * @return the price, or {@link VehicleListing#NO_VALUE}
+     */
+    public long price(int index) {
+        return prices[index];
+    }
+
+    /**
+     * Returns a listing's mileage, as {@link CatalogSort#MILEAGE} orders it.
+     *
+     * @param index the listing's position
+     * @return the mileage, or {@link VehicleListing#NO_VALUE}
+     */
+    public long mileage(int index) {
+        return mileages[index];
+    }
+
+    /**
+     * Returns a listing's year, as {@link CatalogSort#YEAR} orders it.
+     *
+     * @param index the listing's position
+     * @return the year, or {@link VehicleListing#NO_VALUE}
+     */
+    public long year(int index) {
+        return years[index];
+    }
+
+    /**
+     * Starts a query that matches every listing until filters are added.
+     *
+     * @return a new query
+     */
+    public Query query() {
+        return new Query();
+    }
+
+    /**
+     * A set of filters, an ordering and a limit. All filters must match; a filter given several
+     * values matches any of them. Range filters are inclusive and never match a listing whose
+     * value is missing. Setting a filter again replaces it.
+     */
+    public final class Query {
+        private Set<FuelType> fuelTypes;
+        private Set<GearboxType> gearboxes;
+        private Set<UlezStatus> ulezStatuses;
+        private Set<String> dealerNames;
+        private long[] priceRange;
+        private long[] mileageRange;
+        private long[] yearRange;
+        private CatalogSort sort = CatalogSort.INPUT;
+        private int limit = Integer.MAX_VALUE;
+
+        private Query() {
+        }
+
+        public Query fuelType(FuelType... values) {
+            fuelTypes = enumSet(FuelType.class, values);
+            return this;
+        }
+
+        public Query gearbox(GearboxType... values) {
+            gearboxes = enumSet(GearboxType.class, values);
+            return this;
+        }
+
+        public Query ulez(UlezStatus... values) {
+            ulezStatuses = enumSet(UlezStatus.class, values);
+            return this;
+        }
+
+        /**
+         * Keeps listings of the named dealers. Names must match exactly.
+         *
+         * @param names dealer names
+         * @return this query
+         */
+        public Query dealer(String... names) {
+            dealerNames = new HashSet<>();
+            for (String name : names) {
+                dealerNames.add(Objects.requireNonNull(name, "Filter value cannot be null").trim());
+            }
+            return this;
+        }
+
+        /**
+         * Keeps listings priced within a range of whole pounds; a price with pence is within the
+         * range if its whole pounds are.
+         *
+         * @param min lowest price in pounds, inclusive
+         * @param max highest price in pounds, inclusive
+         * @return this query
+         * @throws IllegalArgumentException if min exceeds max
+         */
+        public Query price(long min, long max) {
+            priceRange = pence(range("price", min, max));
+            return this;
+        }
+
+        /**
+         * Keeps listings whose mileage is within a range.
+         *
+         * @param min lowest mileage, inclusive
+         * @param max highest mileage, inclusive
+         * @return this query
+         * @throws IllegalArgumentException if min exceeds max
+         */
+        public Query mileage(long min, long max) {
+            mileageRange = range("mileage", min, max);
+            return this;
+        }
+
+        /**
+         * Keeps listings whose year is within a range.
+         *
+         * @param min earliest year, inclusive
+         * @param max latest year, inclusive
+         * @return this query
+         * @throws IllegalArgumentException if min exceeds max
+         */
+        public Query year(long min, long max) {
+            yearRange = range("year", min, max);
+            return this;
+        }
+
+        /**
+         * Orders the results. {@link CatalogSort#INPUT}, the default, keeps inventory order.
+         *
+         * @param sort the ordering
+         * @return this query
+         */
+        public Query sortBy(CatalogSort sort) {
+            this.sort = Objects.requireNonNull(sort, "Sort cannot be null");
+            return this;
+        }
+
+        /**
+         * Keeps only the first results, after ordering.
+         *
+         * @param limit maximum number of results (must be positive)
+         * @return this query
+         * @throws IllegalArgumentException if limit is not positive
+         */
+        public Query limit(int limit) {
+            if (limit < 1) {
+                throw new IllegalArgumentException("Limit must be at least 1, got: " + limit);
+            }
+            this.limit = limit;
+            return this;
+        }
+
+        /**
+         * Adds filters from their command-line form, for example
+         * {@code fuel_type=petrol|hybrid,gearbox=automatic,ulez=yes,price=..15000,year=2018..}.
+         * Keys are {@code fuel_type}, {@code gearbox}, {@code ulez} and {@code dealer}, whose
+         * values are separated by {@code |}, and {@code price}, {@code mileage} and
+         * {@code year}, which take a number or an inclusive range {@code min..max} with either
+         * end left open. Enum values are matched like the JSON fields; numbers may contain
+         * {@code £} and thousands separators, since only a comma followed by another
+         * {@code key=} starts a new filter.
+         *
+         * @param spec the comma-separated filters
+         * @return this query
+         * @throws IllegalArgumentException if the text is not valid
+         */
+        public Query where(String spec) {
+            Objects.requireNonNull(spec, "Filter cannot be null");
+            for (String filter : FILTER_SEPARATOR.split(spec)) {
+                String[] parts = filter.trim().split("=", 2);
+                if (parts.length != 2 || parts[1].isBlank()) {
+                    throw new IllegalArgumentException("Invalid filter '" + filter.trim()
+                        + "' (expected key=value with key fuel_type, gearbox, ulez, dealer, price, mileage or year)");
+                }
+                String key = parts[0].trim().toLowerCase(Locale.ROOT);
+                String value = parts[1].trim();
+                switch (key) {
+                    case "fuel_type" -> fuelTypes = choices(value, FuelType.class, FuelType::fromString);
+                    case "gearbox" -> gearboxes = choices(value, GearboxType.class, GearboxType::fromString);
+                    case "ulez" -> ulezStatuses = choices(value, UlezStatus.class, UlezStatus::fromString);
+                    case "dealer" -> dealer(value.split("\\|"));
+                    case "price" -> priceRange = pence(parseRange(key, value));
+                    case "mileage" -> mileageRange = parseRange(key, value);
+                    case "year" -> yearRange = parseRange(key, value);
+                    default -> throw new IllegalArgumentException("Unknown filter '" + parts[0].trim()
+                        + "' (expected fuel_type, gearbox, ulez, dealer, price, mileage or year)");
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Runs the query.
+         *
+         * @return the positions of the matching listings, in result order
+         */
+        public int[] indexes() {
+            long[] matches = matches().toLongArray();
+            int[] results = new int[Math.min(cardinality(matches), limit)];
+            int count = 0;
+            if (sort == CatalogSort.INPUT) {
+                for (int word = 0; word < matches.length && count < results.length; word++) {
+                    for (long bits = matches[word]; bits != 0 && count < results.length; bits &= bits - 1) {
+                        results[count++] = word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+                    }
+                }
+            } else {
+                int[] order = orders.get(sort);
+                for (int k = 0; k < order.length && count < results.length; k++) {
+                    int index = order[k];
+                    int word = index >>> 6;
+                    if (word < matches.length && (matches[word] & (1L << index)) != 0) {
+                        results[count++] = index;
+                    }
+                }
+            }
+            return results;
+        }
+
+        /**
+         * Runs the query and returns the matching listings.
+         *
+         * @return the listings, in result order
+         */
+        public List<VehicleListing> list() {
+            return new Results(indexes());
+        }
+
+        /**
+         * Runs the query and counts the matching listings, ignoring the limit.
+         *
+         * @return the number of matches
+         */
+        public int count() {
+            return matches().cardinality();
+        }
+
+        private BitSet matches() {
+            BitSet matches = (BitSet) all.clone();
+            if (fuelTypes != null) {
+                matches.and(union(byFuelType, fuelTypes));
+            }
+            if (gearboxes != null) {
+                matches.and(union(byGearbox, gearboxes));
+            }
+            if (ulezStatuses != null) {
+                matches.and(union(byUlez, ulezStatuses));
+            }
+            if (dealerNames != null) {
+                matches.and(union(byDealer, dealerNames));
+            }
+            if (priceRange != null) {
+                retainWithin(matches, prices, priceRange);
+            }
+            if (mileageRange != null) {
+                retainWithin(matches, mileages, mileageRange);
+            }
+            if (yearRange != null) {
+                retainWithin(matches, years, yearRange);
+            }
+            return matches;
+        }
+    }
+
+    private final class Results extends AbstractList<VehicleListing> implements RandomAccess {
+        private final int[] indexes;
+
+        private Results(int[] indexes) {
+            this.indexes = indexes;
+        }
+
+        @Override
+        public VehicleListing get(int index) {
+            return listings.get(indexes[index]);
+        }
+
+        @Override
+        public int size() {
+            return indexes.length;
+        }
+    }
+
+    private static <K> BitSet union(Map<K, BitSet> index, Set<K> keys) {
+        if (keys.size() == 1) {
+            return index.getOrDefault(keys.iterator().next(), EMPTY);
+        }
+        BitSet union = new BitSet();
+        for (K key : keys) {
+            union.or(index.getOrDefault(key, EMPTY));
+        }
+        return union;
+    }
+
+    @SafeVarargs
+    private static <E extends Enum<E>> Set<E> enumSet(Class<E> type, E... values) {
+        Set<E> set = EnumSet.noneOf(type);
+        for (E value : values) {
+            set.add(Objects.requireNonNull(value, "Filter value cannot be null"));
+        }
+        return set;
+    }
+
+    private static <E extends Enum<E>> Set<E> choices(String value, Class<E> type, Function<String, E> parser) {
+        Set<E> choices = EnumSet.noneOf(type);
+        for (String name : value.split("\\|")) {
+            E choice = parser.apply(name);
+            if (choice == null) {
+                throw new IllegalArgumentException("Invalid " + type.getSimpleName() + " filter value: "
+                    + name.trim() + ". Must be one of: " + Arrays.toString(type.getEnumConstants()));
+            }
+            choices.add(choice);
+        }
+        return choices;
+    }
+
+    private static long[] parseRange(String key, String value) {
+        int separator = value.indexOf("..");
+        String min = separator < 0 ? value : value.substring(0, separator);
+        String max = separator < 0 ? value : value.substring(separator + 2);
+        return range(key, min.isBlank() ? Long.MIN_VALUE : number(key, min),
+            max.isBlank() ? Long.MAX_VALUE : number(key, max));
+    }
+
+    private static long number(String key, String text) {
+        try {
+            return Long.parseLong(text.trim().replace("£", "").replace(",", ""));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + key + " filter bound: " + text.trim());
+        }
+    }
+
+    private static long[] range(String name, long min, long max) {
+        if (min > max) {
+            throw new IllegalArgumentException("Invalid " + name + " range: minimum " + min + " exceeds maximum " + max);
+        }
+        return new long[] {min, max};
+    }
+
+    /** Converts an inclusive range of whole pounds to pence, saturating at the open ends. */
+    private static long[] pence(long[] pounds) {
+        long min = pounds[0] <= Long.MIN_VALUE / 100 ? Long.MIN_VALUE : pounds[0] * 100;
+        long max = pounds[1] >= Long.MAX_VALUE / 100 ? Long.MAX_VALUE : pounds[1] * 100 + 99;
+        return new long[] {min, max};
+    }
+
+    /**
+     * Clears the listings whose column value is outside an inclusive range; a missing value is
+     * never within one. Walks the set bits a word at a time, which is several times faster than
+     * {@link BitSet#nextSetBit(int)}.
+     */
+    private static void retainWithin(BitSet matches, long[] column, long[] range) {
+        long min = range[0];
+        long max = range[1];
+        long[] words = matches.toLongArray();
+        for (int word = 0; word < words.length; word++) {
+            long kept = words[word];
+            for (long bits = kept; bits != 0; bits &= bits - 1) {
+                long value = column[word * Long.SIZE + Long.numberOfTrailingZeros(bits)];
+                if (value < min || value > max || value == VehicleListing.NO_VALUE) {
+                    kept &= ~Long.lowestOneBit(bits);
+                }
+            }
+            words[word] = kept;
+        }
+        matches.clear();
+        matches.or(BitSet.valueOf(words));
+    }
+
+    private static int cardinality(long[] words) {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,478 @@
+package com.cardealer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads vehicle listings from a stock CSV export one row at a time, so a feed of any size is read
+ * in constant memory.
+ *
+ * <p>The first row is a header naming each column by the key {@link VehicleListing#fromMap(java.util.Map)}
+ * understands: {@code title}, {@code price}, {@code registration}, {@code year}, {@code gearbox},
+ * {@code engine_size}, {@code fuel_type}, {@code mileage}, {@code ulez}, {@code mot_expiry},
+ * {@code owners}, {@code specs} and {@code photos}, plus {@code dealer_name}, {@code dealer_phone},
+ * {@code dealer_email} and {@code dealer_website} (or {@code dealer.name} and so on) for the
+ * dealer. Header names are case-insensitive and other columns are ignored. {@code specs} and
+ * {@code photos} hold several values separated by the list delimiter.
+ *
+ * <p>Each row gives the same listing as the equivalent JSON object through
+ * {@link ListingJsonReader}, with an empty cell standing for a missing field. Fields are parsed
+ * per RFC 4180: a field may be quoted, quotes inside it are doubled, and quoted fields may span
+ * lines. Blank lines, and lines holding nothing but whitespace, are skipped.
+ *
+ * <p>Instances are not thread-safe.
+ */
+public final class ListingCsvReader implements Closeable {
+
+    /** Field separator used when none is configured. */
+    public static final char DEFAULT_DELIMITER = ',';
+
+    /** Separator between the values of a {@code specs} or {@code photos} cell used when none is configured. */
+    public static final String DEFAULT_LIST_DELIMITER = ";";
+
+    /** Listing fields a column can map to. */
+    private enum Column {
+        TITLE, PRICE, REGISTRATION, YEAR, GEARBOX, ENGINE_SIZE, FUEL_TYPE, MILEAGE, ULEZ, MOT_EXPIRY,
+        OWNERS, SPECS, PHOTOS, DEALER_NAME, DEALER_PHONE, DEALER_EMAIL, DEALER_WEBSITE;
+
+        static Column forHeader(String header) {
+            String key = header.trim().toLowerCase(Locale.ROOT).replace('.', '_');
+            for (Column column : values()) {
+                if (column.name().toLowerCase(Locale.ROOT).equals(key)) {
+                    return column;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final Column[] COLUMNS = Column.values();
+    private static final char QUOTE = '"';
+
+    private final Reader in;
+    private final String source;
+    private final Path baseDirectory;
+    private final char delimiter;
+    private final String listDelimiter;
+    private final Column[] columns;
+
+    private final char[] buffer = new char[16 * 1024];
+    private int position;
+    private int limit;
+    private long line = 1;
+    private long rowLine;
+    private final StringBuilder field = new StringBuilder();
+    private final List<String> cells = new ArrayList<>();
+
+    /**
+     * Opens a CSV file and reads its header. Relative photo paths are resolved against the file's
+     * directory.
+     *
+     * @param file the CSV file, UTF-8 with an optional byte order mark
+     * @param delimiter the field separator
+     * @param listDelimiter the separator between values in {@code specs} and {@code photos} cells
+     * @return the reader, positioned at the first row
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the header is missing or maps no listing column
+     */
+    public static ListingCsvReader open(Path file, char delimiter, String listDelimiter) throws IOException {
+        Objects.requireNonNull(file, "CSV file cannot be null");
+        Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+        try {
+            return new ListingCsvReader(reader, file.toString(), file.toAbsolutePath().getParent(), delimiter, listDelimiter);
+        } catch (IOException | RuntimeException e) {
+            reader.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Creates a reader over CSV text and reads its header. Photo paths are used as given.
+     *
+     * @param in the CSV text; closed by {@link #close()}
+     * @param delimiter the field separator
+     * @param listDelimiter the separator between values in {@code specs} and {@code photos} cells
+     * @throws IOException if the header cannot be read
+     * @throws IllegalArgumentException if the header is missing or maps no listing column
+     */
+    public ListingCsvReader(Reader in, char delimiter, String listDelimiter) throws IOException {
+        this(in, "csv", null, delimiter, listDelimiter);
+    }
+
+    private ListingCsvReader(Reader in, String source, Path baseDirectory, char delimiter, String listDelimiter)
+            throws IOException {
+        this.in = Objects.requireNonNull(in, "CSV reader cannot be null");
+        Objects.requireNonNull(listDelimiter, "List delimiter cannot be null");
+        if (delimiter == QUOTE || delimiter == '\n' || delimiter == '\r') {
+            throw new IllegalArgumentException("Invalid CSV delimiter: " + printable(delimiter));
+        }
+        if (listDelimiter.isEmpty()) {
+            throw new IllegalArgumentException("List delimiter cannot be empty");
+        }
+        this.source = source;
+        this.baseDirectory = baseDirectory;
+        this.delimiter = delimiter;
+        this.listDelimiter = listDelimiter;
+        this.columns = readHeader();
+    }
+
+    private Column[] readHeader() throws IOException {
+        if (fill() && buffer[position] == '\uFEFF') {
+            position++;
+        }
+        if (!readRecord()) {
+            throw new IllegalArgumentException("CSV " + source + " has no header row");
+        }
+        Column[] mapped = new Column[cells.size()];
+        boolean[] seen = new boolean[COLUMNS.length];
+        boolean any = false;
+        for (int i = 0; i < mapped.length; i++) {
+            Column column = Column.forHeader(cells.get(i));
+            if (column != null) {
+                if (seen[column.ordinal()]) {
+                    throw new IllegalArgumentException("CSV " + source + " has a duplicate column: " + cells.get(i));
+                }
+                seen[column.ordinal()] = true;
+                any = true;
+            }
+            mapped[i] = column;
+        }
+        if (!any) {
+            throw new IllegalArgumentException("CSV " + source + " header has no listing columns: " + String.join(", ", cells));
+        }
+        return mapped;
+    }
+
+    /**
+     * Returns where rows come from in messages: the file path, or {@code csv} for a reader.
+     *
+     * @return the source name
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Returns the line on which the row last read, or last rejected, starts.
+     *
+     * @return the 1-based line number
+     */
+    public long getLineNumber() {
+        return rowLine;
+    }
+
+    /**
+     * Reads the next row. A malformed row is consumed before its exception is thrown, so the
+     * caller may report it and carry on with the next one.
+     *
+     * @return the listing, or null at the end of the file
+     * @throws IOException if the input cannot be read
+     * @throws IllegalArgumentException if the row has more fields than the header or an
+     *         unterminated quote
+     */
+    public VehicleListing next() throws IOException {
+        List<String> row = nextRow();
+        return row != null ? toListing(row, rowLine) : null;
+    }
+
+    /**
+     * Reads the fields of the next row without building a listing, so that rows can be turned
+     * into listings on other threads with {@link #toListing(List, long)}.
+     *
+     * @return the row's fields, or null at the end of the file
+     * @throws IOException if the input cannot be read
+     * @throws IllegalArgumentException if the row has an unterminated quote
+     */
+    List<String> nextRow() throws IOException {
+        return readRecord() ? List.copyOf(cells) : null;
+    }
+
+    /**
+     * Returns the registration of a row read by {@link #nextRow()} without building its listing,
+     * so that its deck can be named on the reading thread.
+     *
+     * @param row the row's fields
+     * @return the registration, or null if the row has none
+     */
+    String registration(List<String> row) {
+        String registration = null;
+        for (int i = 0; i < row.size() && i < columns.length; i++) {
+            if (columns[i] == Column.REGISTRATION && !row.get(i).isEmpty()) {
+                registration = row.get(i);
+            }
+        }
+        return registration;
+    }
+
+    /**
+     * Builds the listing for a row read by {@link #nextRow()}. Safe to call from any thread.
+     *
+     * @param row the row's fields
+     * @param line the line the row starts on, for messages
+     * @return the listing
+     * @throws IllegalArgumentException if the row has more fields than the header
+     */
+    VehicleListing toListing(List<String> row, long line) {
+        ParseEvent event = new ParseEvent();
+        event.begin();
+        long started = System.nanoTime();
+        try {
+            VehicleListing vehicle = buildListing(row, line, null);
+            event.registration = vehicle.getRegistration();
+            event.succeeded = true;
+            return vehicle;
+        } finally {
+            RenderMetrics.global().recordSince(RenderPhase.PARSE, started);
+            event.commit();
+        }
+    }
+
+    /**
+     * Builds the listing for a row as {@link #toListing(List, long)} does, reporting values that
+     * would otherwise be replaced with a default. Nothing is recorded in the render metrics.
+     * Safe to call from any thread.
+     *
+     * @param row the row's fields
+     * @param line the line the row starts on
+     * @param problems receives each problem found
+     * @return the listing as a render would see it
+     * @throws IllegalArgumentException if the row has more fields than the header
+     */
+    VehicleListing validate(List<String> row, long line, ListingValidator.Problems problems) {
+        return buildListing(row, line, Objects.requireNonNull(problems, "Problems cannot be null"));
+    }
+
+    /**
+     * Returns the remaining rows as a lazy sequential stream. Closing the stream closes the reader.
+     *
+     * @return the listings
+     * @throws UncheckedIOException from the stream if the input cannot be read
+     */
+    public Stream<VehicleListing> stream() {
+        Spliterator<VehicleListing> rows = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super VehicleListing> action) {
+                try {
+                    VehicleListing vehicle = next();
+                    if (vehicle == null) {
+                        return false;
+                    }
+                    action.accept(vehicle);
+                    return true;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+        return StreamSupport.stream(rows, false).onClose(() -> {
+            try {
+                close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private VehicleListing buildListing(List<String> row, long line, ListingValidator.Problems problems) {
+        if (row.size() > columns.length) {
+            throw new IllegalArgumentException("Row at line " + line + " has " + row.size()
+                + " fields but the header has " + columns.length);
+        }
+        String[] values = new String[COLUMNS.length];
+        for (int i = 0; i < row.size(); i++) {
+            Column column = columns[i];
+            String cell = row.get(i);
+            if (column != null && !cell.isEmpty()) {
+                values[column.ordinal()] = cell;
+            }
+        }
+        if (problems != null) {
+            ListingValidator.checkChoices(values[Column.GEARBOX.ordinal()], values[Column.FUEL_TYPE.ordinal()],
+                values[Column.ULEZ.ordinal()], problems);
+            ListingValidator.checkDealerField("name", values[Column.DEALER_NAME.ordinal()], problems);
+            ListingValidator.checkDealerField("phone", values[Column.DEALER_PHONE.ordinal()], problems);
+            ListingValidator.checkDealerField("email", values[Column.DEALER_EMAIL.ordinal()], problems);
+            ListingValidator.checkDealerField("website", values[Column.DEALER_WEBSITE.ordinal()], problems);
+        }
+
+        VehicleListing vehicle = new VehicleListing(
+            orDefault(values, Column.TITLE, PresentationConstants.Defaults.TITLE),
+            orDefault(values, Column.PRICE, PresentationConstants.Defaults.PRICE),
+            orDefault(values, Column.REGISTRATION, PresentationConstants.Defaults.REGISTRATION),
+            orDefault(values, Column.YEAR, PresentationConstants.Defaults.YEAR),
+            GearboxType.fromStringOrDefault(values[Column.GEARBOX.ordinal()], GearboxType.AUTOMATIC),
+            orDefault(values, Column.ENGINE_SIZE, PresentationConstants.Defaults.ENGINE_SIZE),
+            FuelType.fromStringOrDefault(values[Column.FUEL_TYPE.ordinal()], FuelType.DIESEL),
+            orDefault(values, Column.MILEAGE, PresentationConstants.Defaults.MILEAGE),
+            UlezStatus.fromStringOrDefault(values[Column.ULEZ.ordinal()], UlezStatus.UNKNOWN),
+            orDefault(values, Column.MOT_EXPIRY, PresentationConstants.Defaults.MOT_EXPIRY),
+            orDefault(values, Column.OWNERS, PresentationConstants.Defaults.OWNERS),
+            splitList(values[Column.SPECS.ordinal()]),
+            DealerDetails.fromFields(
+                values[Column.DEALER_NAME.ordinal()],
+                values[Column.DEALER_PHONE.ordinal()],
+                values[Column.DEALER_EMAIL.ordinal()],
+                values[Column.DEALER_WEBSITE.ordinal()])
+        );
+        List<String> photos = splitList(values[Column.PHOTOS.ordinal()]);
+        if (photos != null && baseDirectory != null) {
+            photos.replaceAll(photo -> baseDirectory.resolve(photo).toString());
+        }
+        vehicle.setPhotos(photos);
+        if (problems != null) {
+            ListingValidator.checkNumbers(values[Column.PRICE.ordinal()], values[Column.YEAR.ordinal()],
+                values[Column.ENGINE_SIZE.ordinal()], values[Column.MILEAGE.ordinal()], vehicle.getFuelType(), problems);
+        }
+        return vehicle;
+    }
+
+    private static String orDefault(String[] values, Column column, String defaultValue) {
+        String value = values[column.ordinal()];
+        return value != null ? value : defaultValue;
+    }
+
+    private List<String> splitList(String cell) {
+        if (cell == null) {
+            return null;
+        }
+        List<String> items = new ArrayList<>();
+        int start = 0;
+        while (start <= cell.length()) {
+            int end = cell.indexOf(listDelimiter, start);
+            if (end < 0) {
+                end = cell.length();
+            }
+            String item = cell.substring(start, end).trim();
+            if (!item.isEmpty()) {
+                items.add(item);
+            }
+            start = end + listDelimiter.length();
+        }
+        return items;
+    }
+
+    /**
+     * Reads one record into {@link #cells}, skipping blank lines.
+     *
+     * @return false at the end of the input
+     */
+    private boolean readRecord() throws IOException {
+        cells.clear();
+        while (fill()) {
+            rowLine = line;
+            if (readFields()) {
+                return true;
+            }
+            cells.clear();
+        }
+        return false;
+    }
+
+    /**
+     * Reads the fields of one line, or of several if a quoted field spans lines.
+     *
+     * @return false if the line was blank or held only whitespace
+     */
+    private boolean readFields() throws IOException {
+        boolean blank = true;
+        while (true) {
+            field.setLength(0);
+            boolean quoted = fill() && buffer[position] == QUOTE;
+            if (quoted) {
+                position++;
+                blank = false;
+                readQuoted();
+            }
+            // Unquoted text, or anything after the closing quote, up to the delimiter or line end
+            while (fill()) {
+                char c = buffer[position];
+                if (c == delimiter || c == '\n' || c == '\r') {
+                    break;
+                }
+                field.append(c);
+                position++;
+                blank &= Character.isWhitespace(c);
+            }
+            cells.add(field.toString());
+            if (!fill()) {
+                return !blank || cells.size() > 1;
+            }
+            char c = buffer[position++];
+            if (c == delimiter) {
+                blank = false;
+                continue;
+            }
+            if (c == '\r' && fill() && buffer[position] == '\n') {
+                position++;
+            }
+            line++;
+            return !blank || cells.size() > 1;
+        }
+    }
+
+    private void readQuoted() throws IOException {
+        while (true) {
+            if (!fill()) {
+                throw new IllegalArgumentException("Row at line " + rowLine + " has an unterminated quoted field");
+            }
+            char c = buffer[position++];
+            if (c == QUOTE) {
+                if (fill() && buffer[position] == QUOTE) {
+                    position++;
+                    field.append(QUOTE);
+                    continue;
+                }
+                return;
+            }
+            if (c == '\n' || (c == '\r' && !(fill() && buffer[position] == '\n'))) {
+                line++;
+            }
+            field.append(c);
+        }
+    }
+
+    /**
+     * Makes sure a character is buffered.
+     *
+     * @return false at the end of the input
+     */
+    private boolean fill() throws IOException {
+        while (position == limit) {
+            int read = in.read(buffer, 0, buffer.length);
+            if (read < 0) {
+                return false;
+            }
+            position = 0;
+            limit = read;
+        }
+        return true;
+    }
+
+    private static String printable(char c) {
+        return switch (c) {
+            case '\n' -> "\\n";
+            case '\r' -> "\\r";
+            default -> String.valueOf(c);
+        };
+    }
+}
@@ -0,0 +1,310 @@
+package com.cardealer;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads vehicle listing JSON by walking the token stream, building {@link VehicleListing} and
+ * {@link DealerDetails} directly without an intermediate {@code Map<String, Object>}.
+ *
+ * <p>The result is the same as decoding to a map and calling {@link VehicleListing#fromMap(java.util.Map)}:
+ * missing or null fields take the same defaults, unrecognised enum values fall back to the same
+ * enum constants, non-string scalars are converted with {@code toString()}, unknown fields are
+ * ignored and the last occurrence of a duplicated field wins.
+ */
+public final class ListingJsonReader {
+
+    /**
+     * Shared mapper for listing JSON. Mappers are thread-safe once configured and expensive to
+     * create, so every reader in the process uses this instance.
+     */
+    static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private ListingJsonReader() {
+    }
+
+    /**
+     * Reads a listing from a JSON file. Relative photo paths are resolved against the file's
+     * directory.
+     *
+     * @param file the JSON file
+     * @return the parsed listing
+     * @throws IOException if the file cannot be read or is not valid JSON
+     * @throws IllegalArgumentException if the document is not a listing object
+     */
+    public static VehicleListing read(File file) throws IOException {
+        VehicleListing vehicle;
+        try (JsonParser parser = MAPPER.getFactory().createParser(file)) {
+            vehicle = read(parser);
+        }
+        resolvePhotos(vehicle, file.toPath().toAbsolutePath().getParent());
+        return vehicle;
+    }
+
+    /**
+     * Resolves a listing's relative photo paths against the directory of the file it came from.
+     *
+     * @param vehicle the listing
+     * @param directory the listing file's directory
+     */
+    static void resolvePhotos(VehicleListing vehicle, Path directory) {
+        if (!vehicle.getPhotos().isEmpty()) {
+            List<String> resolved = new ArrayList<>(vehicle.getPhotos().size());
+            for (String photo : vehicle.getPhotos()) {
+                resolved.add(directory.resolve(photo).toString());
+            }
+            vehicle.setPhotos(resolved);
+        }
+    }
+
+    /**
+     * Reads a listing from a JSON stream. The stream is not closed.
+     *
+     * @param in the JSON input
+     * @return the parsed listing
+     * @throws IOException if the stream cannot be read or is not valid JSON
+     * @throws IllegalArgumentException if the document is not a listing object
+     */
+    public static VehicleListing read(InputStream in) throws IOException {
+        try (JsonParser parser = MAPPER.getFactory().createParser(in)) {
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            return read(parser);
+        }
+    }
+
+    /**
+     * Reads a listing from JSON bytes.
+     *
+     * @param json UTF-8 JSON content
+     * @return the parsed listing
+     * @throws IOException if the content is not valid JSON
+     * @throws IllegalArgumentException if the document is not a listing object
+     */
+    public static VehicleListing read(byte[] json) throws IOException {
+        try (JsonParser parser = MAPPER.getFactory().createParser(json)) {
+            return read(parser);
+        }
+    }
+
+    /**
+     * Reads a listing from JSON bytes, reporting values that the reader would otherwise replace
+     * with a default or reject, and carrying on past them where it can. Nothing is recorded in
+     * the render metrics.
+     *
+     * @param json UTF-8 JSON content
+     * @param problems receives each problem found
+     * @return the listing as a render would see it
+     * @throws IOException if the content is not valid JSON
+     * @throws IllegalArgumentException if the document is not an object
+     */
+    static VehicleListing read(byte[] json, ListingValidator.Problems problems) throws IOException {
+        try (JsonParser parser = MAPPER.getFactory().createParser(json)) {
+            return readListing(parser, problems);
+        }
+    }
+
+    /**
+     * Reads one listing object starting at the parser's next token.
+     *
+     * @param parser a parser positioned before the listing object
+     * @return the parsed listing
+     * @throws IOException if the content is not valid JSON
+     * @throws IllegalArgumentException if the next value is not an object
+     */
+    static VehicleListing read(JsonParser parser) throws IOException {
+        ParseEvent event = new ParseEvent();
+        event.begin();
+        long started = System.nanoTime();
+        try {
+            VehicleListing vehicle = readListing(parser, null);
+            event.registration = vehicle.getRegistration();
+            event.succeeded = true;
+            return vehicle;
+        } finally {
+            RenderMetrics.global().recordSince(RenderPhase.PARSE, started);
+            event.commit();
+        }
+    }
+
+    private static VehicleListing readListing(JsonParser parser, ListingValidator.Problems problems) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == null) {
+            // An empty file is usually one still being written; never render it as a default listing
+            throw new JsonParseException(parser, "No content: the listing JSON is empty");
+        }
+        if (token == JsonToken.VALUE_NULL) {
+            return new VehicleListing();
+        }
+        if (token != JsonToken.START_OBJECT) {
+            throw new IllegalArgumentException("Listing JSON must be an object, found: " + token);
+        }
+
+        String title = null;
+        String price = null;
+        String registration = null;
+        String year = null;
+        String gearbox = null;
+        String engineSize = null;
+        String fuelType = null;
+        String mileage = null;
+        String ulez = null;
+        String motExpiry = null;
+        String owners = null;
+        List<String> specs = null;
+        List<String> photos = null;
+        DealerDetails dealer = DealerDetails.DEFAULT;
+
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            parser.nextToken();
+            switch (field) {
+                case "title" -> title = scalarText(parser);
+                case "price" -> price = scalarText(parser);
+                case "registration" -> registration = scalarText(parser);
+                case "year" -> year = scalarText(parser);
+                case "gearbox" -> gearbox = scalarText(parser);
+                case "engine_size" -> engineSize = scalarText(parser);
+                case "fuel_type" -> fuelType = scalarText(parser);
+                case "mileage" -> mileage = scalarText(parser);
+                case "ulez" -> ulez = scalarText(parser);
+                case "mot_expiry" -> motExpiry = scalarText(parser);
+                case "owners" -> owners = scalarText(parser);
+                case "specs" -> specs = readStrings(parser, "specs", problems);
+                case "photos" -> photos = readStrings(parser, "photos", problems);
+                case "dealer" -> dealer = readDealer(parser, problems);
+                default -> parser.skipChildren();
+            }
+        }
+        if (problems != null) {
+            ListingValidator.checkChoices(gearbox, fuelType, ulez, problems);
+        }
+
+        VehicleListing vehicle = new VehicleListing(
+            orDefault(title, PresentationConstants.Defaults.TITLE),
+            orDefault(price, PresentationConstants.Defaults.PRICE),
+            orDefault(registration, PresentationConstants.Defaults.REGISTRATION),
+            orDefault(year, PresentationConstants.Defaults.YEAR),
+            GearboxType.fromStringOrDefault(gearbox, GearboxType.AUTOMATIC),
+            orDefault(engineSize, PresentationConstants.Defaults.ENGINE_SIZE),
+            FuelType.fromStringOrDefault(fuelType, FuelType.DIESEL),
+            orDefault(mileage, PresentationConstants.Defaults.MILEAGE),
+            UlezStatus.fromStringOrDefault(ulez, UlezStatus.UNKNOWN),
+            orDefault(motExpiry, PresentationConstants.Defaults.MOT_EXPIRY),
+            orDefault(owners, PresentationConstants.Defaults.OWNERS),
+            specs,
+            dealer
+        );
+        vehicle.setPhotos(photos);
+        if (problems != null) {
+            ListingValidator.checkNumbers(price, year, engineSize, mileage, vehicle.getFuelType(), problems);
+        }
+        return vehicle;
+    }
+
+    private static List<String> readStrings(JsonParser parser, String field, ListingValidator.Problems problems)
+            throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token != JsonToken.START_ARRAY) {
+            return mismatch(parser, field, "an array", problems);
+        }
+        List<String> values = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            String value = scalarText(parser);
+            if (value != null) {
+                values.add(value);
+            }
+        }
+        return values;
+    }
+
+    private static DealerDetails readDealer(JsonParser parser, ListingValidator.Problems problems) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return DealerDetails.DEFAULT;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            mismatch(parser, "dealer", "an object", problems);
+            return DealerDetails.DEFAULT;
+        }
+        String name = null;
+        String phone = null;
+        String email = null;
+        String website = null;
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            parser.nextToken();
+            switch (field) {
+                case "name" -> name = scalarText(parser);
+                case "phone" -> phone = scalarText(parser);
+                case "email" -> email = scalarText(parser);
+                case "website" -> website = scalarText(parser);
+                default -> parser.skipChildren();
+            }
+        }
+        if (problems != null) {
+            ListingValidator.checkDealerField("name", name, problems);
+            ListingValidator.checkDealerField("phone", phone, problems);
+            ListingValidator.checkDealerField("email", email, problems);
+            ListingValidator.checkDealerField("website", website, problems);
+        }
+        return DealerDetails.fromFields(name, phone, email, website);
+    }
+
+    /**
+     * Handles a field holding the wrong kind of JSON value: an error when rendering, a reported
+     * problem with the value skipped when validating.
+     */
+    private static <T> T mismatch(JsonParser parser, String field, String expected, ListingValidator.Problems problems)
+            throws IOException {
+        String message = "Field '" + field + "' must be " + expected + ", found: " + parser.currentToken();
+        if (problems == null) {
+            throw new IllegalArgumentException(message);
+        }
+        problems.report(field, message);
+        parser.skipChildren();
+        return null;
+    }
+
+    /**
+     * Returns the current value as the string {@code fromMap} would see after {@code toString()}.
+     * Strings are returned as-is; numbers, booleans and nested structures are bound the way the
+     * shared mapper binds them into a map and then converted with {@code toString()}.
+     *
+     * @param parser a parser positioned on a value token
+     * @return the text, or null for a JSON null
+     * @throws IOException if the value cannot be read
+     */
+    private static String scalarText(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_STRING) {
+            return parser.getText();
+        }
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+            return parser.getNumberValue().toString();
+        }
+        if (token == JsonToken.VALUE_TRUE || token == JsonToken.VALUE_FALSE) {
+            return parser.getText();
+        }
+        // Objects and arrays are rare here; bind them exactly as the map path would
+        return String.valueOf(MAPPER.readValue(parser, Object.class));
+    }
+
+    private static String orDefault(String value, String defaultValue) {
+        return value != null ? value : defaultValue;
+    }
+}
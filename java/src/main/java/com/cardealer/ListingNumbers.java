@@ -0,0 +1,207 @@
+package com.cardealer;
+
+import java.util.Locale;
+
+/**
+ * Parses the numbers out of a listing's free-form display strings, such as {@code "£12,000"},
+ * {@code "71,980 miles"}, {@code "2016 (16 reg)"} and {@code "2.0 L"}, so sorting, filtering
+ * and grouping work on primitives.
+ *
+ * <p>Each parser reads the first number in the string, skipping any text before it, and accepts
+ * thousands separators and a fraction. Whatever follows the number and its unit is ignored, so
+ * {@code "£8,995 ONO"} is 899,500 pence. A value without a usable number parses to
+ * {@link VehicleListing#NO_VALUE}.
+ */
+final class ListingNumbers {
+
+    /** Largest whole part read before the scaled value could overflow a long. */
+    private static final long MAX_WHOLE = Long.MAX_VALUE / 1_000_000;
+
+    private ListingNumbers() {
+    }
+
+    /**
+     * Parses a price into pence. A {@code k} straight after the number means thousands, so
+     * {@code "£12.5k"} is 1,250,000 pence.
+     *
+     * @param price the display price, or null
+     * @return the price in pence, or {@link VehicleListing#NO_VALUE}
+     */
+    static long pence(String price) {
+        long thousandths = thousandths(price, true);
+        return thousandths < 0 ? VehicleListing.NO_VALUE : thousandths / 10;
+    }
+
+    /**
+     * Returns whether a price deliberately has no amount, like {@code "POA"} or the default
+     * {@value PresentationConstants.Defaults#PRICE}, rather than an amount that cannot be read.
+     *
+     * @param price the display price
+     * @return true for a price on application
+     */
+    static boolean onApplication(String price) {
+        String trimmed = price.trim();
+        return trimmed.equalsIgnoreCase("POA") || trimmed.equalsIgnoreCase("P.O.A.")
+            || trimmed.equalsIgnoreCase(PresentationConstants.Defaults.PRICE);
+    }
+
+    /**
+     * Returns whether a listing has a price, year, engine size or mileage whose text holds no
+     * number that can be read, as {@code --validate-only} reports it. A price on application, the
+     * default {@value PresentationConstants.Defaults#YEAR} and the engine size of an electric car
+     * are deliberately missing and do not count.
+     *
+     * @param vehicle the listing
+     * @return true if a number could not be read
+     */
+    static boolean hasUnreadable(VehicleListing vehicle) {
+        return vehicle.getPricePence() == VehicleListing.NO_VALUE && vehicle.getPrice() != null
+                && !onApplication(vehicle.getPrice())
+            || vehicle.getYearValue() == VehicleListing.NO_VALUE && vehicle.getYear() != null
+                && !vehicle.getYear().equals(PresentationConstants.Defaults.YEAR)
+            || vehicle.getEngineCc() == VehicleListing.NO_VALUE && vehicle.getEngineSize() != null
+                && vehicle.getFuelType() != FuelType.ELECTRIC
+            || vehicle.getMileageMiles() == VehicleListing.NO_VALUE && vehicle.getMileage() != null;
+    }
+
+    /**
+     * Parses a mileage in whole miles. A {@code k} straight after the number means thousands, so
+     * {@code "45k miles"} is 45,000.
+     *
+     * @param mileage the display mileage, or null
+     * @return the miles, or {@link VehicleListing#NO_VALUE} if there is no number or it exceeds an int
+     */
+    static int miles(String mileage) {
+        long thousandths = thousandths(mileage, true);
+        return thousandths < 0 || thousandths / 1000 > Integer.MAX_VALUE
+            ? VehicleListing.NO_VALUE : (int) (thousandths / 1000);
+    }
+
+    /**
+     * Parses a year, which must be the first number and have four digits, so
+     * {@code "2016 (16 reg)"} is 2016 but {@code "16 reg"} has no year.
+     *
+     * @param year the display year, or null
+     * @return the year, or {@link VehicleListing#NO_VALUE}
+     */
+    static short year(String year) {
+        int start = firstDigit(year);
+        if (start < 0) {
+            return VehicleListing.NO_VALUE;
+        }
+        int end = start;
+        while (end < year.length() && isDigit(year.charAt(end))) {
+            end++;
+        }
+        if (end - start != 4 || year.charAt(start) == '0') {
+            return VehicleListing.NO_VALUE;
+        }
+        return (short) Integer.parseInt(year, start, end, 10);
+    }
+
+    /**
+     * Parses an engine size into cubic centimetres. A number followed by {@code cc}, or a whole
+     * number of 20 or more, is already in cc; anything else is in litres, so {@code "2.0 TDI"}
+     * and {@code "1.6L"} work. A number in {@code kW} or {@code kWh}, as given for electric cars,
+     * is not an engine size.
+     *
+     * @param engineSize the display engine size, or null
+     * @return the cc, or {@link VehicleListing#NO_VALUE}
+     */
+    static int cc(String engineSize) {
+        long thousandths = thousandths(engineSize, false);
+        if (thousandths < 0) {
+            return VehicleListing.NO_VALUE;
+        }
+        String unit = engineSize.substring(numberEnd(engineSize, firstDigit(engineSize))).trim()
+            .toLowerCase(Locale.ROOT);
+        if (unit.startsWith("kw")) {
+            return VehicleListing.NO_VALUE;
+        }
+        // Litres times 1,000 are cc, which is what thousandths already holds
+        long cc = unit.startsWith("cc") || (!unit.startsWith("l") && thousandths >= 20_000 && thousandths % 1000 == 0)
+            ? thousandths / 1000 : thousandths;
+        return cc > Integer.MAX_VALUE ? VehicleListing.NO_VALUE : (int) cc;
+    }
+
+    /**
+     * Reads the first number in a string in thousandths: digits, commas between digits, an
+     * optional fraction and, when allowed, a {@code k} multiplier that is not the start of a word.
+     *
+     * @return the value times 1,000, or -1 if there is no number or it is too large
+     */
+    private static long thousandths(String text, boolean allowThousands) {
+        int start = firstDigit(text);
+        if (start < 0) {
+            return -1;
+        }
+        int length = text.length();
+        int i = start;
+        long whole = 0;
+        for (; i < length; i++) {
+            char c = text.charAt(i);
+            if (isDigit(c)) {
+                whole = whole * 10 + (c - '0');
+                if (whole > MAX_WHOLE) {
+                    return -1;
+                }
+            } else if (c != ',' || i + 1 >= length || !isDigit(text.charAt(i + 1))) {
+                break;
+            }
+        }
+        long fraction = 0;
+        int digits = 0;
+        if (i + 1 < length && text.charAt(i) == '.' && isDigit(text.charAt(i + 1))) {
+            for (i++; i < length && isDigit(text.charAt(i)); i++) {
+                if (digits < 3) {
+                    fraction = fraction * 10 + (text.charAt(i) - '0');
+                    digits++;
+                }
+            }
+        }
+        for (; digits < 3; digits++) {
+            fraction *= 10;
+        }
+        long value = whole * 1000 + fraction;
+        if (allowThousands && i < length && (text.charAt(i) == 'k' || text.charAt(i) == 'K')
+                && (i + 1 == length || !Character.isLetter(text.charAt(i + 1)))) {
+            if (value > Long.MAX_VALUE / 1000) {
+                return -1;
+            }
+            value *= 1000;
+        }
+        return value;
+    }
+
+    /** Returns the index just past the number starting at {@code start}, as {@link #thousandths} reads it. */
+    private static int numberEnd(String text, int start) {
+        int length = text.length();
+        int i = start;
+        while (i < length && (isDigit(text.charAt(i))
+                || (text.charAt(i) == ',' && i + 1 < length && isDigit(text.charAt(i + 1))))) {
+            i++;
+        }
+        if (i + 1 < length && text.charAt(i) == '.' && isDigit(text.charAt(i + 1))) {
+            for (i++; i < length && isDigit(text.charAt(i)); i++) {
+                // Skip the fraction
+            }
+        }
+        return i;
+    }
+
+    private static int firstDigit(String text) {
+        if (text == null) {
+            return -1;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (isDigit(text.charAt(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
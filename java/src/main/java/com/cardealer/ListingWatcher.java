@@ -0,0 +1,241 @@
+package com.cardealer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a directory of PPTX decks in step with a folder of listing JSON files, re-rendering only
+ * the listings whose content changed.
+ *
+ * <p>File events are collected until the folder has been quiet for the debounce interval, so a
+ * burst of writes to one file (or to many) is handled as a single cycle. Each changed listing is
+ * parsed and its {@link RenderCache#key render key} compared with the one last rendered; saves
+ * that leave the listing's content as it was, such as a touch or a reformat, cost a parse but
+ * no render. Deleting a listing deletes its deck. If the event queue overflows, the whole folder
+ * is rescanned.
+ *
+ * <p>On start every listing is hashed and only those whose deck is missing or older than the
+ * JSON are rendered. Instances are not thread-safe; {@link #run()} owns the watcher thread.
+ */
+public class ListingWatcher {
+
+    /** Longest a cycle is postponed by a folder that never goes quiet, as a multiple of the debounce. */
+    static final int MAX_DEBOUNCE_FACTOR = 10;
+
+    private final PresentationBuilder builder;
+    private final Path watchDir;
+    private final Path outputDir;
+    private final long debounceMillis;
+    private final PrintStream log;
+    private final Map<Path, String> renderedKeys = new HashMap<>();
+
+    /**
+     * Creates a watcher.
+     *
+     * @param builder the presentation builder
+     * @param watchDir folder of listing JSON files
+     * @param outputDir directory that receives the decks
+     * @param debounceMillis quiet period before a cycle runs (must not be negative)
+     * @param log stream for per-cycle progress
+     * @throws IllegalArgumentException if the folder does not exist or the debounce is negative
+     */
+    public ListingWatcher(PresentationBuilder builder, Path watchDir, Path outputDir, long debounceMillis,
+                          PrintStream log) {
+        this.builder = Objects.requireNonNull(builder, "Builder cannot be null");
+        this.watchDir = Objects.requireNonNull(watchDir, "Watch directory cannot be null");
+        this.outputDir = Objects.requireNonNull(outputDir, "Output directory cannot be null");
+        this.log = Objects.requireNonNull(log, "Log cannot be null");
+        if (!Files.isDirectory(watchDir)) {
+            throw new IllegalArgumentException("Watch directory does not exist: " + watchDir);
+        }
+        if (debounceMillis < 0) {
+            throw new IllegalArgumentException("Debounce cannot be negative, got: " + debounceMillis);
+        }
+        this.debounceMillis = debounceMillis;
+    }
+
+    /**
+     * Brings the output directory up to date, then processes changes until the thread is
+     * interrupted.
+     *
+     * @throws IOException if the folder cannot be watched or listed
+     */
+    public void run() throws IOException {
+        Files.createDirectories(outputDir);
+        try (WatchService watcher = watchDir.getFileSystem().newWatchService()) {
+            // Register before the initial scan so nothing written during it is missed
+            watchDir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            initialSync().printTo(log, "Initial sync");
+
+            while (!Thread.currentThread().isInterrupted()) {
+                Set<Path> changed = new TreeSet<>();
+                if (!awaitChanges(watcher, changed)) {
+                    return;
+                }
+                processChanges(changed).printTo(log, "Changes");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // Closed while stopping
+        }
+    }
+
+    /**
+     * Blocks for the first event, then keeps collecting until the folder is quiet for the
+     * debounce interval or the cycle has been postponed for {@link #MAX_DEBOUNCE_FACTOR} intervals.
+     *
+     * @return false if the folder can no longer be watched
+     */
+    private boolean awaitChanges(WatchService watcher, Set<Path> changed) throws InterruptedException, IOException {
+        WatchKey key = watcher.take();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(debounceMillis * MAX_DEBOUNCE_FACTOR);
+        while (key != null) {
+            if (!drain(key, changed)) {
+                return false;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                break;
+            }
+            key = watcher.poll(Math.min(debounceMillis, TimeUnit.NANOSECONDS.toMillis(remaining)), TimeUnit.MILLISECONDS);
+        }
+        return true;
+    }
+
+    private boolean drain(WatchKey key, Set<Path> changed) throws IOException {
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // Events were lost; fall back to comparing the whole folder
+                changed.addAll(renderedKeys.keySet());
+                changed.addAll(BatchRenderer.resolveInputs(watchDir));
+                continue;
+            }
+            Path file = watchDir.resolve((Path) event.context());
+            if (isListing(file)) {
+                changed.add(file);
+            }
+        }
+        return key.reset();
+    }
+
+    private static boolean isListing(Path file) {
+        return file.getFileName().toString().toLowerCase().endsWith(".json");
+    }
+
+    /**
+     * Records the render key of every listing and renders those whose deck is missing or stale.
+     *
+     * @return counts for the scan
+     * @throws IOException if the folder cannot be listed
+     */
+    WatchCycle initialSync() throws IOException {
+        long started = System.nanoTime();
+        List<Path> inputs = BatchRenderer.resolveInputs(watchDir);
+        WatchCycle cycle = new WatchCycle();
+        for (Path input : inputs) {
+            Path output = BatchRenderer.outputPathFor(input, outputDir);
+            boolean current = Files.exists(output)
+                && Files.getLastModifiedTime(output).compareTo(Files.getLastModifiedTime(input)) >= 0;
+            update(input, output, current, cycle);
+        }
+        return cycle.finish(started);
+    }
+
+    /**
+     * Re-renders changed listings and removes decks whose listing was deleted.
+     *
+     * @param changed listing files reported by the watcher
+     * @return counts for the cycle
+     */
+    WatchCycle processChanges(Set<Path> changed) {
+        long started = System.nanoTime();
+        WatchCycle cycle = new WatchCycle();
+        for (Path input : changed) {
+            Path output = BatchRenderer.outputPathFor(input, outputDir);
+            if (Files.exists(input)) {
+                update(input, output, false, cycle);
+            } else {
+                remove(input, output, cycle);
+            }
+        }
+        return cycle.finish(started);
+    }
+
+    /**
+     * Parses a listing and renders it if its render key differs from the last one rendered.
+     *
+     * @param upToDate true if the existing deck is known to be current, so only the key is recorded
+     */
+    private void update(Path input, Path output, boolean upToDate, WatchCycle cycle) {
+        try {
+            VehicleListing vehicle = ListingJsonReader.read(input.toFile());
+            String key = RenderCache.key(vehicle, builder.getRenderMode(), builder.getCompression());
+            if (upToDate || key.equals(renderedKeys.get(input))) {
+                renderedKeys.put(input, key);
+                cycle.unchanged++;
+                return;
+            }
+            builder.buildPresentation(vehicle, output);
+            renderedKeys.put(input, key);
+            cycle.rendered++;
+            log.println("  rendered " + output.getFileName());
+        } catch (Exception e) {
+            // Usually a file caught mid-write; the completing write raises another event
+            cycle.failed++;
+            String message = e instanceof JsonProcessingException json ? json.getOriginalMessage() : e.getMessage();
+            log.println("  failed " + input.getFileName() + ": " + message);
+        }
+    }
+
+    private void remove(Path input, Path output, WatchCycle cycle) {
+        renderedKeys.remove(input);
+        try {
+            if (Files.deleteIfExists(output)) {
+                cycle.removed++;
+                log.println("  removed " + output.getFileName());
+            }
+        } catch (IOException e) {
+            cycle.failed++;
+            log.println("  failed to remove " + output.getFileName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Counts for one sync or change cycle.
+     */
+    static final class WatchCycle {
+        int rendered;
+        int unchanged;
+        int removed;
+        int failed;
+        long elapsedNanos;
+
+        WatchCycle finish(long startedNanos) {
+            elapsedNanos = System.nanoTime() - startedNanos;
+            return this;
+        }
+
+        void printTo(PrintStream out, String label) {
+            out.printf("%s: %d rendered, %d unchanged, %d removed, %d failed in %.0f ms%n",
+                label, rendered, unchanged, removed, failed, elapsedNanos / 1e6);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.cardealer;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.IntStream;
+import java.util.zip.Deflater;
+
+/**
+ * ZIP stream handed to POI's package writer that keeps each part uncompressed in memory and, once
+ * POI finishes the package, writes it through {@link ZipPackageWriter} under a
+ * {@link CompressionPolicy}. POI uses a {@link ZipArchiveOutputStream} it is given instead of
+ * creating its own, so the parts are never deflated twice.
+ *
+ * <p>Closing or finishing the collector writes the package; the destination stream is flushed but
+ * not closed. Instances are not thread-safe and hold one deck, so use one per render.
+ */
+final class PackagePartCollector extends ZipArchiveOutputStream {
+
+    private final OutputStream destination;
+    private final CompressionPolicy policy;
+    private final List<String> names = new ArrayList<>();
+    private final List<byte[]> contents = new ArrayList<>();
+    private ByteArrayOutputStream current;
+    private String currentName;
+    private boolean written;
+
+    /**
+     * Creates a collector.
+     *
+     * @param destination stream receiving the finished package
+     * @param policy how parts are compressed; must not be {@link CompressionPolicy#POI_DEFAULT}
+     */
+    PackagePartCollector(OutputStream destination, CompressionPolicy policy) {
+        // POI only ever writes through the overridden methods; the superclass sink stays empty
+        super(OutputStream.nullOutputStream());
+        this.destination = Objects.requireNonNull(destination, "Destination cannot be null");
+        this.policy = Objects.requireNonNull(policy, "Compression policy cannot be null");
+        if (policy.getStrategy() == CompressionPolicy.Strategy.POI) {
+            throw new IllegalArgumentException("POI_DEFAULT compression does not collect parts");
+        }
+    }
+
+    @Override
+    public void putArchiveEntry(ZipArchiveEntry entry) throws IOException {
+        if (current != null) {
+            closeArchiveEntry();
+        }
+        currentName = entry.getName();
+        current = new ByteArrayOutputStream(8192);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        entryStream().write(b);
+    }
+
+    @Override
+    public void write(byte[] bytes, int off, int len) throws IOException {
+        entryStream().write(bytes, off, len);
+    }
+
+    @Override
+    public void closeArchiveEntry() throws IOException {
+        if (current == null) {
+            throw new IOException("No package part is open");
+        }
+        names.add(currentName);
+        contents.add(current.toByteArray());
+        current = null;
+        currentName = null;
+    }
+
+    @Override
+    public void addRawArchiveEntry(ZipArchiveEntry entry, InputStream rawStream) {
+        throw new UnsupportedOperationException("Raw entries are not supported");
+    }
+
+    private ByteArrayOutputStream entryStream() throws IOException {
+        if (current == null) {
+            throw new IOException("No package part is open");
+        }
+        return current;
+    }
+
+    /**
+     * Compresses the collected parts and writes the package to the destination.
+     *
+     * @throws IOException if writing fails
+     */
+    @Override
+    public void finish() throws IOException {
+        if (written) {
+            return;
+        }
+        written = true;
+        if (current != null) {
+            closeArchiveEntry();
+        }
+        ZipPackageWriter zip = new ZipPackageWriter(destination, LocalDateTime.now());
+        for (ZipPackageWriter.PackedPart part : packParts()) {
+            zip.writePacked(part);
+        }
+        zip.finish();
+        // Releases the superclass deflater; its sink is the null stream
+        super.close();
+    }
+
+    @Override
+    public void close() throws IOException {
+        finish();
+    }
+
+    private List<ZipPackageWriter.PackedPart> packParts() {
+        List<ZipPackageWriter.PackedPart> parts = new ArrayList<>(names.size());
+        switch (policy.getStrategy()) {
+            case STORED:
+                for (int i = 0; i < names.size(); i++) {
+                    parts.add(ZipPackageWriter.PackedPart.stored(names.get(i), contents.get(i)));
+                }
+                return parts;
+            case PARALLEL:
+                return IntStream.range(0, names.size())
+                    .parallel()
+                    .mapToObj(i -> ZipPackageWriter.PackedPart.pack(names.get(i), contents.get(i), threadDeflater()))
+                    .toList();
+            default:
+                Deflater deflater = threadDeflater();
+                for (int i = 0; i < names.size(); i++) {
+                    parts.add(ZipPackageWriter.PackedPart.pack(names.get(i), contents.get(i), deflater));
+                }
+                return parts;
+        }
+    }
+
+    /**
+     * Returns the calling thread's deflater set to the policy level. Fork-join workers packing in
+     * parallel each get their own.
+     */
+    private Deflater threadDeflater() {
+        Deflater deflater = StreamingPptxWriter.threadDeflater();
+        deflater.reset();
+        deflater.setLevel(policy.getLevel());
+        return deflater;
+    }
+}
@@ -0,0 +1,26 @@
+package com.cardealer;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event spanning the parse of one listing JSON document.
+ */
+@Name("com.cardealer.Parse")
+@Label("Listing Parse")
+@Category({"Car Dealer", "Loading"})
+@Description("One listing JSON document read into a VehicleListing")
+@StackTrace(false)
+final class ParseEvent extends Event {
+
+    @Label("Registration")
+    @Description("Registration of the parsed listing, empty if parsing failed")
+    String registration;
+
+    @Label("Succeeded")
+    boolean succeeded;
+}
@@ -0,0 +1,424 @@
+package com.cardealer;
+
+import org.apache.poi.sl.usermodel.PictureData;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Turns listing photos into small images sized for their place on a slide.
+ *
+ * <p>Camera JPEGs are often 4000 pixels wide and take 50 MB of heap once decoded, while a photo
+ * slide shows them a few hundred pixels wide. Each photo is therefore decoded with source
+ * subsampling straight to about twice its placement size, scaled down the rest of the way in
+ * halving steps and re-encoded, so neither the deck nor the heap ever holds the full image.
+ * Photos are prepared concurrently on the pipeline's own daemon threads while the caller builds
+ * the rest of the deck.
+ *
+ * <p>Memory is bounded by a budget shared by every render using the pipeline. Before decoding, a
+ * task reserves the file size plus an estimate of its decoded and scaled rasters, read from the
+ * image header, and waits while the reservation would exceed the budget. A photo whose estimate
+ * is larger than the whole budget waits until it can run alone. Photos with the same content
+ * within one listing are decoded once.
+ *
+ * <p>Instances are safe to share between threads.
+ */
+public final class PhotoPipeline {
+
+    /** Heap budget used when none is configured. */
+    public static final long DEFAULT_MAX_HEAP_BYTES = 128L * 1024 * 1024;
+
+    /** Photos placed per listing; any beyond this are ignored. */
+    static final int MAX_PHOTOS = 24;
+
+    /** JPEG quality of prepared photos. */
+    static final float JPEG_QUALITY = 0.85f;
+
+    private static final int BYTES_PER_PIXEL = 4;
+    private static final int BUDGET_UNIT = 1024;
+
+    private final long maxHeapBytes;
+    private final int maxPermits;
+    private final Semaphore budget;
+    private final ExecutorService pool;
+    private final AtomicLong reservedBytes = new AtomicLong();
+    private final AtomicLong peakReservedBytes = new AtomicLong();
+
+    /**
+     * Creates a pipeline with the default budget and one thread per processor.
+     */
+    public PhotoPipeline() {
+        this(DEFAULT_MAX_HEAP_BYTES, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a pipeline.
+     *
+     * @param maxHeapBytes most heap that photos being prepared may occupy at once
+     * @param threads photos prepared concurrently
+     * @throws IllegalArgumentException if either value is not positive
+     */
+    public PhotoPipeline(long maxHeapBytes, int threads) {
+        if (maxHeapBytes <= 0) {
+            throw new IllegalArgumentException("Photo heap budget must be positive, got: " + maxHeapBytes);
+        }
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Photo threads must be positive, got: " + threads);
+        }
+        this.maxHeapBytes = maxHeapBytes;
+        this.maxPermits = (int) Math.min(Integer.MAX_VALUE, Math.max(1, maxHeapBytes / BUDGET_UNIT));
+        this.budget = new Semaphore(maxPermits, true);
+        this.pool = Executors.newFixedThreadPool(threads, new PhotoThreadFactory());
+    }
+
+    /**
+     * Returns the pipeline used by builders that were not given one.
+     *
+     * @return the process-wide pipeline
+     */
+    static PhotoPipeline shared() {
+        return Holder.INSTANCE;
+    }
+
+    private static final class Holder {
+        private static final PhotoPipeline INSTANCE = new PhotoPipeline();
+    }
+
+    public long getMaxHeapBytes() {
+        return maxHeapBytes;
+    }
+
+    /**
+     * Returns the largest amount of heap reserved at once since the pipeline was created.
+     *
+     * @return bytes, never above {@link #getMaxHeapBytes()} rounded up to a kilobyte
+     */
+    public long getPeakReservedBytes() {
+        return peakReservedBytes.get();
+    }
+
+    /**
+     * Starts preparing the photos of a listing. Each photo is scaled to fit within the given
+     * size without being enlarged.
+     *
+     * @param photos photo file paths, in display order; only the first {@link #MAX_PHOTOS} are used
+     * @param maxWidth largest width in pixels
+     * @param maxHeight largest height in pixels
+     * @return the prepared photos in display order; fails with an {@link IOException} if any
+     *         photo cannot be read or decoded
+     */
+    CompletableFuture<List<Photo>> prepare(List<String> photos, int maxWidth, int maxHeight) {
+        Objects.requireNonNull(photos, "Photos cannot be null");
+        Map<String, CompletableFuture<Photo>> byContent = new ConcurrentHashMap<>();
+        List<CompletableFuture<Photo>> tasks = new ArrayList<>();
+        for (String photo : photos.subList(0, Math.min(photos.size(), MAX_PHOTOS))) {
+            Path path = Path.of(photo);
+            tasks.add(CompletableFuture.supplyAsync(() -> prepareOne(path, maxWidth, maxHeight, byContent), pool));
+        }
+        return CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new))
+            .thenApply(done -> tasks.stream().map(CompletableFuture::join).toList());
+    }
+
+    /**
+     * Waits for prepared photos, unwrapping the failure of the first photo that could not be
+     * prepared.
+     *
+     * @param photos the result of {@link #prepare(List, int, int)}
+     * @return the prepared photos
+     * @throws IOException if a photo could not be read or decoded
+     */
+    static List<Photo> await(CompletableFuture<List<Photo>> photos) throws IOException {
+        try {
+            return photos.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            while (cause instanceof CompletionException nested && nested.getCause() != null) {
+                cause = nested.getCause();
+            }
+            if (cause instanceof UncheckedIOException unchecked) {
+                throw unchecked.getCause();
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw e;
+        }
+    }
+
+    private Photo prepareOne(Path path, int maxWidth, int maxHeight, Map<String, CompletableFuture<Photo>> byContent) {
+        CompletableFuture<Photo> result = new CompletableFuture<>();
+        CompletableFuture<Photo> earlier;
+        try {
+            earlier = decodeUnlessDuplicate(path, maxWidth, maxHeight, byContent, result);
+        } catch (NoSuchFileException e) {
+            throw failed(result, new NoSuchFileException(path.toString(), null, "photo does not exist"));
+        } catch (IOException | RuntimeException e) {
+            // ImageIO reports some corrupt files with runtime exceptions
+            throw failed(result, new IOException("Failed to load photo " + path + ": " + e.getMessage(), e));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw failed(result, new IOException("Interrupted while loading photo " + path, e));
+        } catch (Error e) {
+            // Never leave a duplicate of this photo waiting on the result
+            result.completeExceptionally(e);
+            throw e;
+        }
+        // A duplicate waits for the task that claimed its content, which is already running
+        return earlier != null ? earlier.join() : result.join();
+    }
+
+    /**
+     * Reserves heap for a photo, reads it and decodes it unless a photo with the same content
+     * was claimed first.
+     *
+     * @return the result of the earlier photo with the same content, or null if this task
+     *         completed {@code result} itself
+     */
+    private CompletableFuture<Photo> decodeUnlessDuplicate(Path path, int maxWidth, int maxHeight,
+                                                           Map<String, CompletableFuture<Photo>> byContent,
+                                                           CompletableFuture<Photo> result)
+            throws IOException, InterruptedException {
+        long fileSize = Files.size(path);
+        ImageHeader header = readHeader(path);
+        int subsampling = subsampling(header.width(), header.height(), maxWidth, maxHeight);
+        long decodedPixels = (long) ceilDiv(header.width(), subsampling) * ceilDiv(header.height(), subsampling);
+        long estimate = fileSize + (decodedPixels + 2L * maxWidth * maxHeight) * BYTES_PER_PIXEL;
+
+        int permits = reserve(estimate);
+        try {
+            byte[] source = Files.readAllBytes(path);
+            CompletableFuture<Photo> earlier = byContent.putIfAbsent(sha256(source), result);
+            if (earlier == null) {
+                result.complete(decodeAndScale(path, source, subsampling, maxWidth, maxHeight));
+            }
+            return earlier;
+        } finally {
+            release(permits);
+        }
+    }
+
+    private static UncheckedIOException failed(CompletableFuture<Photo> result, IOException e) {
+        UncheckedIOException unchecked = new UncheckedIOException(e);
+        result.completeExceptionally(unchecked);
+        return unchecked;
+    }
+
+    private int reserve(long bytes) throws InterruptedException {
+        int permits = (int) Math.min(maxPermits, Math.max(1, ceilDiv(bytes, BUDGET_UNIT)));
+        budget.acquire(permits);
+        long reserved = reservedBytes.addAndGet((long) permits * BUDGET_UNIT);
+        peakReservedBytes.accumulateAndGet(reserved, Math::max);
+        return permits;
+    }
+
+    private void release(int permits) {
+        reservedBytes.addAndGet(-(long) permits * BUDGET_UNIT);
+        budget.release(permits);
+    }
+
+    private static ImageHeader readHeader(Path path) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(path.toFile())) {
+            ImageReader reader = readerFor(in, path);
+            try {
+                reader.setInput(in, true, true);
+                return new ImageHeader(reader.getWidth(0), reader.getHeight(0));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static ImageReader readerFor(ImageInputStream in, Path path) throws IOException {
+        if (in == null) {
+            throw new IOException("cannot open " + path);
+        }
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+        if (!readers.hasNext()) {
+            throw new IOException("unsupported image format");
+        }
+        return readers.next();
+    }
+
+    /**
+     * Returns the largest source subsampling that still decodes the image to at least twice
+     * the size it is scaled to, leaving the last halvings to a smooth scale.
+     */
+    static int subsampling(int width, int height, int maxWidth, int maxHeight) {
+        double scale = fitScale(width, height, maxWidth, maxHeight);
+        return Math.max(1, (int) Math.floor(1 / (2 * scale)));
+    }
+
+    private static double fitScale(int width, int height, int maxWidth, int maxHeight) {
+        return Math.min(1.0, Math.min((double) maxWidth / width, (double) maxHeight / height));
+    }
+
+    private static Photo decodeAndScale(Path path, byte[] source, int subsampling, int maxWidth, int maxHeight)
+            throws IOException {
+        BufferedImage decoded;
+        try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(source))) {
+            ImageReader reader = readerFor(in, path);
+            try {
+                reader.setInput(in, true, true);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                decoded = reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+
+        // Scale from the original size so subsampling never changes the placed size
+        int sourceWidth = decoded.getWidth() * subsampling;
+        int sourceHeight = decoded.getHeight() * subsampling;
+        double scale = fitScale(sourceWidth, sourceHeight, maxWidth, maxHeight);
+        int width = Math.max(1, Math.min(decoded.getWidth(), (int) Math.round(sourceWidth * scale)));
+        int height = Math.max(1, Math.min(decoded.getHeight(), (int) Math.round(sourceHeight * scale)));
+
+        boolean alpha = decoded.getColorModel().hasAlpha();
+        BufferedImage scaled = scaleDown(decoded, width, height, alpha);
+        return alpha
+            ? new Photo(encode(scaled, "png"), PictureData.PictureType.PNG, width, height)
+            : new Photo(encodeJpeg(scaled), PictureData.PictureType.JPEG, width, height);
+    }
+
+    /**
+     * Scales an image down in bilinear halving steps, which keeps the quality of an area
+     * average at a fraction of its cost.
+     */
+    static BufferedImage scaleDown(BufferedImage image, int width, int height, boolean alpha) {
+        int type = alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage current = image;
+        int currentWidth = image.getWidth();
+        int currentHeight = image.getHeight();
+        do {
+            currentWidth = Math.max(width, currentWidth / 2);
+            currentHeight = Math.max(height, currentHeight / 2);
+            BufferedImage next = new BufferedImage(currentWidth, currentHeight, type);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (currentWidth != width || currentHeight != height);
+        return current;
+    }
+
+    private static byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(stream);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] encode(BufferedImage image, String format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+        ImageIO.write(image, format, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Returns a short description of a photo file's identity for render keys: its size and
+     * modification time, or a marker if it cannot be read.
+     *
+     * @param photo the photo path
+     * @return the fingerprint
+     */
+    static String fingerprint(String photo) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(Path.of(photo), BasicFileAttributes.class);
+            return attributes.size() + "@" + attributes.lastModifiedTime().toMillis();
+        } catch (IOException | RuntimeException e) {
+            return "unreadable";
+        }
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static int ceilDiv(int value, int divisor) {
+        return (value + divisor - 1) / divisor;
+    }
+
+    private static long ceilDiv(long value, long divisor) {
+        return (value + divisor - 1) / divisor;
+    }
+
+    private record ImageHeader(int width, int height) {
+    }
+
+    /**
+     * A photo prepared for a slide.
+     *
+     * @param data the encoded image
+     * @param type the image format
+     * @param width width in pixels
+     * @param height height in pixels
+     */
+    record Photo(byte[] data, PictureData.PictureType type, int width, int height) {
+    }
+
+    /**
+     * Names daemon threads so they are identifiable in thread dumps and never keep the
+     * process alive.
+     */
+    private static final class PhotoThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "photo-prepare-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
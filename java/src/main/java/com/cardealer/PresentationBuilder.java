@@ -4,19 +4,106 @@ import org.apache.poi.xslf.usermodel.*;
 
 import java.awt.*;
 import java.awt.geom.Rectangle2D;
-import java.io.FileOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Path;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Builds PowerPoint presentations from vehicle listings.
  * This class handles the creation and styling of PowerPoint slides with proper resource management.
+ * Instances are stateless apart from their configuration and may be shared between threads.
  */
 public class PresentationBuilder {
 
     /**
-     * Builds a complete PowerPoint presentation from a vehicle listing.
+     * Labels for the specification table rows, in display order.
+     */
+    static final String[] SPECIFICATION_LABELS = {
+        "Registration", "Year", "Gearbox", "Engine Size", "Fuel Type",
+        "Owners", "Mileage", "ULEZ", "MOT Expiry", "Specs"
+    };
+
+    /** Largest output buffer a thread keeps between renders; bigger ones are dropped after use. */
+    static final int MAX_RETAINED_BUFFER_BYTES = 1024 * 1024;
+
+    private static final ThreadLocal<DeckBuffer> BUFFERS = ThreadLocal.withInitial(DeckBuffer::new);
+
+    /** Receives the block timings of slides built outside a render; never exported. */
+    private static final RenderMetrics UNREPORTED_METRICS = new RenderMetrics();
+
+    private final RenderMode renderMode;
+    private final CompressionPolicy compression;
+    private final PhotoPipeline photoPipeline;
+
+    /**
+     * Creates a builder that styles every slide from scratch.
+     */
+    public PresentationBuilder() {
+        this(RenderMode.DIRECT);
+    }
+
+    /**
+     * Creates a builder using the given rendering strategy.
+     *
+     * @param renderMode how slides are produced
+     * @throws NullPointerException if renderMode is null
+     */
+    public PresentationBuilder(RenderMode renderMode) {
+        this(renderMode, CompressionPolicy.POI_DEFAULT);
+    }
+
+    /**
+     * Creates a builder using the given rendering strategy and package compression.
+     *
+     * @param renderMode how slides are produced
+     * @param compression how the PPTX package parts are compressed
+     * @throws NullPointerException if renderMode or compression is null
+     */
+    public PresentationBuilder(RenderMode renderMode, CompressionPolicy compression) {
+        this(renderMode, compression, PhotoPipeline.shared());
+    }
+
+    /**
+     * Creates a builder using the given rendering strategy, package compression and photo
+     * pipeline.
+     *
+     * @param renderMode how slides are produced
+     * @param compression how the PPTX package parts are compressed
+     * @param photoPipeline prepares listing photos, within its heap budget
+     * @throws NullPointerException if any argument is null
+     */
+    public PresentationBuilder(RenderMode renderMode, CompressionPolicy compression, PhotoPipeline photoPipeline) {
+        this.renderMode = Objects.requireNonNull(renderMode, "Render mode cannot be null");
+        this.compression = Objects.requireNonNull(compression, "Compression policy cannot be null");
+        this.photoPipeline = Objects.requireNonNull(photoPipeline, "Photo pipeline cannot be null");
+    }
+
+    public RenderMode getRenderMode() {
+        return renderMode;
+    }
+
+    public CompressionPolicy getCompression() {
+        return compression;
+    }
+
+    public PhotoPipeline getPhotoPipeline() {
+        return photoPipeline;
+    }
+
+    /**
+     * Builds a complete PowerPoint presentation from a vehicle listing: the listing slide,
+     * followed by photo slides if the listing has photos.
+     * The deck is rendered in memory and written with a {@link java.nio.channels.FileChannel} to
+     * a temporary file that is then renamed over {@code outputPath}, so the file is never seen
+     * half-written and a failed render leaves any existing file untouched.
      * 
      * @param vehicle the vehicle listing data
      * @param outputPath the path where the PPTX file will be saved
@@ -27,43 +114,290 @@ public class PresentationBuilder {
         Objects.requireNonNull(vehicle, "Vehicle cannot be null");
         Objects.requireNonNull(outputPath, "Output path cannot be null");
         
+        AtomicFileWriter.write(outputPath, renderToBuffer(vehicle));
+    }
+
+    /**
+     * Builds a presentation as {@link #buildPresentation(VehicleListing, Path)} does and also
+     * writes slide previews next to it, rasterized from the in-memory slideshow before it is
+     * discarded. In {@link RenderMode#STREAMING} mode, which never holds a slideshow, decks with
+     * previews are built on the template path instead.
+     * 
+     * @param vehicle the vehicle listing data
+     * @param outputPath the path where the PPTX file will be saved
+     * @param previews the preview exporter
+     * @throws IOException if there's an error writing the deck or its previews
+     * @throws NullPointerException if any argument is null
+     */
+    public void buildPresentation(VehicleListing vehicle, Path outputPath, SlidePreviewExporter previews)
+            throws IOException {
+        Objects.requireNonNull(vehicle, "Vehicle cannot be null");
+        Objects.requireNonNull(outputPath, "Output path cannot be null");
+        Objects.requireNonNull(previews, "Preview exporter cannot be null");
+        
+        DeckBuffer buffer = BUFFERS.get();
+        buffer.recycle();
+        build(vehicle, buffer, previews, outputPath);
+        AtomicFileWriter.write(outputPath, buffer.view());
+    }
+
+    /**
+     * Builds a complete PowerPoint presentation from a vehicle listing and writes the PPTX
+     * package to a channel.
+     * 
+     * @param vehicle the vehicle listing data
+     * @param channel destination channel; not closed
+     * @throws IOException if there's an error writing the package
+     * @throws NullPointerException if vehicle or channel is null
+     */
+    public void buildPresentation(VehicleListing vehicle, WritableByteChannel channel) throws IOException {
+        Objects.requireNonNull(vehicle, "Vehicle cannot be null");
+        Objects.requireNonNull(channel, "Channel cannot be null");
+        
+        ByteBuffer deck = renderToBuffer(vehicle);
+        while (deck.hasRemaining()) {
+            channel.write(deck);
+        }
+    }
+
+    /**
+     * Renders a deck into the calling thread's reusable output buffer, without copying it.
+     * The returned buffer is a read-only view that stays valid only until the same thread
+     * renders again, so consume it (or copy it) before the next render.
+     * 
+     * @param vehicle the vehicle listing data
+     * @return the PPTX bytes between position and limit
+     * @throws IOException if rendering fails
+     * @throws NullPointerException if vehicle is null
+     */
+    public ByteBuffer renderToBuffer(VehicleListing vehicle) throws IOException {
+        DeckBuffer buffer = BUFFERS.get();
+        buffer.recycle();
+        buildPresentation(vehicle, buffer);
+        return buffer.view();
+    }
+
+    /**
+     * Renders a deck into a new array of exactly its size.
+     * 
+     * @param vehicle the vehicle listing data
+     * @return the PPTX bytes
+     * @throws IOException if rendering fails
+     * @throws NullPointerException if vehicle is null
+     */
+    public byte[] renderToBytes(VehicleListing vehicle) throws IOException {
+        ByteBuffer deck = renderToBuffer(vehicle);
+        byte[] bytes = new byte[deck.remaining()];
+        deck.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Builds a complete PowerPoint presentation from a vehicle listing and writes the PPTX
+     * package to a stream.
+     * 
+     * @param vehicle the vehicle listing data
+     * @param out destination stream; flushed but not closed
+     * @throws IOException if there's an error writing the package
+     * @throws NullPointerException if vehicle or out is null
+     */
+    public void buildPresentation(VehicleListing vehicle, OutputStream out) throws IOException {
+        Objects.requireNonNull(vehicle, "Vehicle cannot be null");
+        Objects.requireNonNull(out, "Output stream cannot be null");
+        
+        build(vehicle, out, null, null);
+    }
+
+    private void build(VehicleListing vehicle, OutputStream out, SlidePreviewExporter previews, Path deckPath)
+            throws IOException {
+        RenderMetrics metrics = RenderMetrics.global();
+        RenderEvent event = new RenderEvent();
+        event.begin();
+        long started = System.nanoTime();
+        RenderMetrics.CountingOutputStream counted = metrics.countingStream(out);
+        try {
+            render(vehicle, counted, metrics, event, previews, deckPath);
+            event.succeeded = true;
+        } finally {
+            metrics.recordRender(started, event.succeeded);
+            if (event.shouldCommit()) {
+                event.registration = vehicle.getRegistration();
+                event.renderMode = renderMode.name();
+                event.bytesWritten = counted.getCount();
+                event.commit();
+            }
+        }
+    }
+
+    private void render(VehicleListing vehicle, RenderMetrics.CountingOutputStream out, RenderMetrics metrics,
+                        RenderEvent event, SlidePreviewExporter previews, Path deckPath) throws IOException {
+        List<String> photoPaths = vehicle.getPhotos();
+        if (renderMode == RenderMode.STREAMING && photoPaths.isEmpty() && previews == null) {
+            // Slide assembly and package writing are one pass in this mode
+            WriteEvent write = beginWrite();
+            long writeStarted = System.nanoTime();
+            StreamingPptxWriter.shared().write(vehicle, out, compression);
+            event.write = metrics.recordSince(RenderPhase.WRITE, writeStarted);
+            commitWrite(write, vehicle, out);
+            return;
+        }
+        
+        // Photos decode on the pipeline's threads while the listing slide is built
+        CompletableFuture<List<PhotoPipeline.Photo>> photos = photoPaths.isEmpty() ? null
+            : photoPipeline.prepare(photoPaths, photoPixels(PresentationConstants.Layout.PHOTO_CELL_WIDTH),
+                photoPixels(PresentationConstants.Layout.PHOTO_CELL_HEIGHT));
         XMLSlideShow pptx = new XMLSlideShow();
         try {
             // Create blank slide
             XSLFSlide slide = pptx.createSlide();
             
-            addTitleBlock(slide, vehicle);
-            addSpecificationTable(slide, vehicle);
-            addContactBlock(slide, vehicle.getDealer());
+            // The streaming writer only knows the single-slide package and never holds a slideshow,
+            // so listings with photos or previews use the template path instead
+            if (renderMode != RenderMode.DIRECT) {
+                long applyStarted = System.nanoTime();
+                SlideTemplate.forCurrentThread().applyTo(slide, vehicle);
+                event.templateApply = metrics.recordSince(RenderPhase.TEMPLATE_APPLY, applyStarted);
+            } else {
+                populateSlide(slide, vehicle, metrics, event);
+            }
+            
+            if (photos != null) {
+                long photosStarted = System.nanoTime();
+                addPhotoSlides(pptx, vehicle, PhotoPipeline.await(photos));
+                event.photoSlides = metrics.recordSince(RenderPhase.PHOTO_SLIDES, photosStarted);
+            }
             
-            // Save presentation
-            try (FileOutputStream out = new FileOutputStream(outputPath.toFile())) {
+            // Save presentation; POI leaves the stream open
+            WriteEvent write = beginWrite();
+            long writeStarted = System.nanoTime();
+            if (compression.getStrategy() == CompressionPolicy.Strategy.POI) {
                 pptx.write(out);
+            } else {
+                try (PackagePartCollector parts = new PackagePartCollector(out, compression)) {
+                    pptx.write(parts);
+                }
+            }
+            out.flush();
+            event.write = metrics.recordSince(RenderPhase.WRITE, writeStarted);
+            commitWrite(write, vehicle, out);
+            
+            if (previews != null) {
+                long previewStarted = System.nanoTime();
+                previews.export(pptx, deckPath);
+                event.preview = metrics.recordSince(RenderPhase.PREVIEW, previewStarted);
             }
         } finally {
             pptx.close();
         }
     }
 
+    private static WriteEvent beginWrite() {
+        WriteEvent write = new WriteEvent();
+        write.begin();
+        return write;
+    }
+
+    private static void commitWrite(WriteEvent write, VehicleListing vehicle, RenderMetrics.CountingOutputStream out) {
+        write.end();
+        if (write.shouldCommit()) {
+            write.registration = vehicle.getRegistration();
+            write.bytesWritten = out.getCount();
+            write.commit();
+        }
+    }
+
+    /**
+     * Adds every styled block for a listing to an empty slide. The block timings are not part of
+     * any render, such as the template skeleton, so they are kept out of {@link RenderMetrics#global()}.
+     * 
+     * @param slide the slide to populate
+     * @param vehicle the vehicle listing
+     */
+    void populateSlide(XSLFSlide slide, VehicleListing vehicle) {
+        populateSlide(slide, vehicle, UNREPORTED_METRICS, new RenderEvent());
+    }
+
+    /**
+     * Adds every styled block for a listing to an empty slide, recording the block timings in
+     * the metrics and noting them on the render event.
+     */
+    private void populateSlide(XSLFSlide slide, VehicleListing vehicle, RenderMetrics metrics, RenderEvent event) {
+        long started = System.nanoTime();
+        addTitleBlock(slide, vehicle);
+        event.titleBlock = metrics.recordSince(RenderPhase.TITLE_BLOCK, started);
+        
+        started = System.nanoTime();
+        addSpecificationTable(slide, vehicle);
+        event.specificationTable = metrics.recordSince(RenderPhase.SPECIFICATION_TABLE, started);
+        
+        started = System.nanoTime();
+        addContactBlock(slide, vehicle.getDealer());
+        event.contactBlock = metrics.recordSince(RenderPhase.CONTACT_BLOCK, started);
+    }
+
+    /**
+     * Returns the specification table values for a listing, aligned with
+     * {@link #SPECIFICATION_LABELS}.
+     * 
+     * @param vehicle the vehicle listing
+     * @return the value column text
+     */
+    static String[] specificationValues(VehicleListing vehicle) {
+        return new String[] {
+            vehicle.getRegistration(),
+            vehicle.getYear(),
+            vehicle.getGearbox().getDisplayName(),
+            vehicle.getEngineSize(),
+            vehicle.getFuelType().getDisplayName(),
+            vehicle.getOwners(),
+            vehicle.getMileage(),
+            vehicle.getUlez().getDisplayName(),
+            vehicle.getMotExpiry(),
+            String.join(", ", vehicle.getSpecs())
+        };
+    }
+
+    /**
+     * Returns the single-line contact text shown at the bottom of the slide, formatted once per
+     * dealer by the {@link DealerBrandingCache}.
+     * 
+     * @param dealer the dealer details
+     * @return the contact line
+     */
+    static String contactText(DealerDetails dealer) {
+        return DealerBrandingCache.shared().contactText(dealer);
+    }
+
+    /**
+     * Formats the single-line contact text without consulting the cache.
+     * 
+     * @param dealer the dealer details
+     * @return the contact line
+     */
+    static String formatContactText(DealerDetails dealer) {
+        return String.format("Call: %s  |  Email: %s  |  Web: %s",
+            dealer.phone(), dealer.email(), dealer.website());
+    }
+
     /**
      * Adds the title block (dealer name, price, vehicle title) to the slide.
      * 
      * @param slide the slide to add to
      * @param vehicle the vehicle listing
      */
-    private void addTitleBlock(XSLFSlide slide, VehicleListing vehicle) {
+    void addTitleBlock(XSLFSlide slide, VehicleListing vehicle) {
         // Dealer name - top left, large and bold
         XSLFTextBox dealerNameBox = slide.createTextBox();
         dealerNameBox.setAnchor(new Rectangle2D.Double(
-            inchesToEMU(PresentationConstants.Layout.DEALER_NAME_X),
-            inchesToEMU(PresentationConstants.Layout.DEALER_NAME_Y),
-            inchesToEMU(PresentationConstants.Layout.DEALER_NAME_WIDTH),
-            inchesToEMU(PresentationConstants.Layout.DEALER_NAME_HEIGHT)
+            inchesToPoints(PresentationConstants.Layout.DEALER_NAME_X),
+            inchesToPoints(PresentationConstants.Layout.DEALER_NAME_Y),
+            inchesToPoints(PresentationConstants.Layout.DEALER_NAME_WIDTH),
+            inchesToPoints(PresentationConstants.Layout.DEALER_NAME_HEIGHT)
         ));
         XSLFTextParagraph dealerPara = dealerNameBox.addNewTextParagraph();
         dealerPara.setTextAlign(org.apache.poi.sl.usermodel.TextParagraph.TextAlign.LEFT);
         XSLFTextRun dealerRun = dealerPara.addNewTextRun();
-        dealerRun.setText(vehicle.getDealer().name());
+        dealerRun.setText(Objects.toString(vehicle.getDealer().name(), ""));
         dealerRun.setFontSize(PresentationConstants.FontSize.DEALER_NAME);
         dealerRun.setBold(true);
         dealerRun.setFontColor(PresentationConstants.Colors.DEFAULT_TEXT);
@@ -71,10 +405,10 @@ public class PresentationBuilder {
         // Price pill (red rectangle) - top right
         XSLFAutoShape pricePill = slide.createAutoShape();
         pricePill.setAnchor(new Rectangle2D.Double(
-            inchesToEMU(PresentationConstants.Layout.PRICE_PILL_X),
-            inchesToEMU(PresentationConstants.Layout.PRICE_PILL_Y),
-            inchesToEMU(PresentationConstants.Layout.PRICE_PILL_WIDTH),
-            inchesToEMU(PresentationConstants.Layout.PRICE_PILL_HEIGHT)
+            inchesToPoints(PresentationConstants.Layout.PRICE_PILL_X),
+            inchesToPoints(PresentationConstants.Layout.PRICE_PILL_Y),
+            inchesToPoints(PresentationConstants.Layout.PRICE_PILL_WIDTH),
+            inchesToPoints(PresentationConstants.Layout.PRICE_PILL_HEIGHT)
         ));
         pricePill.setFillColor(PresentationConstants.Colors.PRICE_PILL_BACKGROUND);
         pricePill.setLineColor(PresentationConstants.Colors.PRICE_PILL_BACKGROUND);
@@ -83,7 +417,7 @@ public class PresentationBuilder {
         pricePara.setTextAlign(org.apache.poi.sl.usermodel.TextParagraph.TextAlign.CENTER);
         pricePara.setSpaceAfter(0.0);
         XSLFTextRun priceRun = pricePara.addNewTextRun();
-        priceRun.setText(vehicle.getPrice());
+        priceRun.setText(Objects.toString(vehicle.getPrice(), ""));
         priceRun.setFontSize(PresentationConstants.FontSize.PRICE);
         priceRun.setBold(true);
         priceRun.setFontColor(PresentationConstants.Colors.PRICE_PILL_TEXT);
@@ -91,15 +425,15 @@ public class PresentationBuilder {
         // Vehicle title - below dealer name
         XSLFTextBox titleBox = slide.createTextBox();
         titleBox.setAnchor(new Rectangle2D.Double(
-            inchesToEMU(PresentationConstants.Layout.VEHICLE_TITLE_X),
-            inchesToEMU(PresentationConstants.Layout.VEHICLE_TITLE_Y),
-            inchesToEMU(PresentationConstants.Layout.VEHICLE_TITLE_WIDTH),
-            inchesToEMU(PresentationConstants.Layout.VEHICLE_TITLE_HEIGHT)
+            inchesToPoints(PresentationConstants.Layout.VEHICLE_TITLE_X),
+            inchesToPoints(PresentationConstants.Layout.VEHICLE_TITLE_Y),
+            inchesToPoints(PresentationConstants.Layout.VEHICLE_TITLE_WIDTH),
+            inchesToPoints(PresentationConstants.Layout.VEHICLE_TITLE_HEIGHT)
         ));
         XSLFTextParagraph titlePara = titleBox.addNewTextParagraph();
         titlePara.setTextAlign(org.apache.poi.sl.usermodel.TextParagraph.TextAlign.LEFT);
         XSLFTextRun titleRun = titlePara.addNewTextRun();
-        titleRun.setText(vehicle.getTitle());
+        titleRun.setText(Objects.toString(vehicle.getTitle(), ""));
         titleRun.setFontSize(PresentationConstants.FontSize.VEHICLE_TITLE);
         titleRun.setBold(true);
         titleRun.setFontColor(PresentationConstants.Colors.DEFAULT_TEXT);
@@ -111,32 +445,17 @@ public class PresentationBuilder {
      * @param slide the slide to add to
      * @param vehicle the vehicle listing
      */
-    private void addSpecificationTable(XSLFSlide slide, VehicleListing vehicle) {
-        double left = inchesToEMU(PresentationConstants.Layout.TABLE_X);
-        double top = inchesToEMU(PresentationConstants.Layout.TABLE_Y);
-        double width = inchesToEMU(PresentationConstants.Layout.TABLE_WIDTH);
-        double height = inchesToEMU(PresentationConstants.Layout.TABLE_HEIGHT);
+    void addSpecificationTable(XSLFSlide slide, VehicleListing vehicle) {
+        double left = inchesToPoints(PresentationConstants.Layout.TABLE_X);
+        double top = inchesToPoints(PresentationConstants.Layout.TABLE_Y);
+        double width = inchesToPoints(PresentationConstants.Layout.TABLE_WIDTH);
+        double height = inchesToPoints(PresentationConstants.Layout.TABLE_HEIGHT);
         
-        String[] labels = {
-            "Registration", "Year", "Gearbox", "Engine Size", "Fuel Type",
-            "Owners", "Mileage", "ULEZ", "MOT Expiry", "Specs"
-        };
+        String[] labels = SPECIFICATION_LABELS;
+        String[] values = specificationValues(vehicle);
         
-        String[] values = {
-            vehicle.getRegistration(),
-            vehicle.getYear(),
-            vehicle.getGearbox().getDisplayName(),
-            vehicle.getEngineSize(),
-            vehicle.getFuelType().getDisplayName(),
-            vehicle.getOwners(),
-            vehicle.getMileage(),
-            vehicle.getUlez().getDisplayName(),
-            vehicle.getMotExpiry(),
-            String.join(", ", vehicle.getSpecs())
-        };
-        
-        // Create table with 10 rows and 2 columns
-        XSLFTable table = slide.createTable(10, 2);
+        // Create table with one row per label and 2 columns
+        XSLFTable table = slide.createTable(labels.length, 2);
         table.setAnchor(new Rectangle2D.Double(left, top, width, height));
         
         for (int i = 0; i < labels.length; i++) {
@@ -145,10 +464,10 @@ public class PresentationBuilder {
             // Label cell (blue background, white text)
             XSLFTableCell labelCell = row.getCells().get(0);
             labelCell.setFillColor(PresentationConstants.Colors.HEADER_FILL);
-            labelCell.setLeftInset(inchesToEMU(PresentationConstants.Layout.CELL_LEFT_INSET));
-            labelCell.setRightInset(inchesToEMU(PresentationConstants.Layout.CELL_RIGHT_INSET));
-            labelCell.setTopInset(inchesToEMU(PresentationConstants.Layout.CELL_TOP_INSET));
-            labelCell.setBottomInset(inchesToEMU(PresentationConstants.Layout.CELL_BOTTOM_INSET));
+            labelCell.setLeftInset(inchesToPoints(PresentationConstants.Layout.CELL_LEFT_INSET));
+            labelCell.setRightInset(inchesToPoints(PresentationConstants.Layout.CELL_RIGHT_INSET));
+            labelCell.setTopInset(inchesToPoints(PresentationConstants.Layout.CELL_TOP_INSET));
+            labelCell.setBottomInset(inchesToPoints(PresentationConstants.Layout.CELL_BOTTOM_INSET));
             
             XSLFTextParagraph labelPara = labelCell.addNewTextParagraph();
             labelPara.setTextAlign(org.apache.poi.sl.usermodel.TextParagraph.TextAlign.LEFT);
@@ -162,16 +481,16 @@ public class PresentationBuilder {
             // Value cell (gray background, black text)
             XSLFTableCell valueCell = row.getCells().get(1);
             valueCell.setFillColor(PresentationConstants.Colors.VALUE_FILL);
-            valueCell.setLeftInset(inchesToEMU(PresentationConstants.Layout.CELL_LEFT_INSET));
-            valueCell.setRightInset(inchesToEMU(PresentationConstants.Layout.CELL_RIGHT_INSET));
-            valueCell.setTopInset(inchesToEMU(PresentationConstants.Layout.CELL_TOP_INSET));
-            valueCell.setBottomInset(inchesToEMU(PresentationConstants.Layout.CELL_BOTTOM_INSET));
+            valueCell.setLeftInset(inchesToPoints(PresentationConstants.Layout.CELL_LEFT_INSET));
+            valueCell.setRightInset(inchesToPoints(PresentationConstants.Layout.CELL_RIGHT_INSET));
+            valueCell.setTopInset(inchesToPoints(PresentationConstants.Layout.CELL_TOP_INSET));
+            valueCell.setBottomInset(inchesToPoints(PresentationConstants.Layout.CELL_BOTTOM_INSET));
             
             XSLFTextParagraph valuePara = valueCell.addNewTextParagraph();
             valuePara.setTextAlign(org.apache.poi.sl.usermodel.TextParagraph.TextAlign.LEFT);
             valuePara.setSpaceAfter(0.0);
             XSLFTextRun valueRun = valuePara.addNewTextRun();
-            valueRun.setText(values[i]);
+            valueRun.setText(Objects.toString(values[i], ""));
             valueRun.setFontSize(PresentationConstants.FontSize.TABLE_TEXT);
             valueRun.setFontColor(PresentationConstants.Colors.VALUE_TEXT);
         }
@@ -183,31 +502,151 @@ public class PresentationBuilder {
      * @param slide the slide to add to
      * @param dealer the dealer details
      */
-    private void addContactBlock(XSLFSlide slide, DealerDetails dealer) {
+    void addContactBlock(XSLFSlide slide, DealerDetails dealer) {
         XSLFTextBox contactBox = slide.createTextBox();
         contactBox.setAnchor(new Rectangle2D.Double(
-            inchesToEMU(PresentationConstants.Layout.CONTACT_X),
-            inchesToEMU(PresentationConstants.Layout.CONTACT_Y),
-            inchesToEMU(PresentationConstants.Layout.CONTACT_WIDTH),
-            inchesToEMU(PresentationConstants.Layout.CONTACT_HEIGHT)
+            inchesToPoints(PresentationConstants.Layout.CONTACT_X),
+            inchesToPoints(PresentationConstants.Layout.CONTACT_Y),
+            inchesToPoints(PresentationConstants.Layout.CONTACT_WIDTH),
+            inchesToPoints(PresentationConstants.Layout.CONTACT_HEIGHT)
         ));
         XSLFTextParagraph contactPara = contactBox.addNewTextParagraph();
         contactPara.setTextAlign(org.apache.poi.sl.usermodel.TextParagraph.TextAlign.CENTER);
         contactPara.setSpaceAfter(0.0);
         XSLFTextRun contactRun = contactPara.addNewTextRun();
-        contactRun.setText(String.format("Call: %s  |  Email: %s  |  Web: %s",
-            dealer.phone(), dealer.email(), dealer.website()));
+        contactRun.setText(contactText(dealer));
         contactRun.setFontSize(PresentationConstants.FontSize.CONTACT);
         contactRun.setFontColor(PresentationConstants.Colors.DEFAULT_TEXT);
     }
 
     /**
-     * Converts inches to EMU (English Metric Units) used by PowerPoint.
+     * Adds the divider banner that introduces a group of listings in a catalog deck.
+     * 
+     * @param slide the slide to add to
+     * @param label the group label
+     */
+    void addGroupHeaderBlock(XSLFSlide slide, String label) {
+        XSLFAutoShape banner = slide.createAutoShape();
+        banner.setAnchor(new Rectangle2D.Double(
+            inchesToPoints(PresentationConstants.Layout.GROUP_HEADER_X),
+            inchesToPoints(PresentationConstants.Layout.GROUP_HEADER_Y),
+            inchesToPoints(PresentationConstants.Layout.GROUP_HEADER_WIDTH),
+            inchesToPoints(PresentationConstants.Layout.GROUP_HEADER_HEIGHT)
+        ));
+        banner.setFillColor(PresentationConstants.Colors.HEADER_FILL);
+        banner.setLineColor(PresentationConstants.Colors.HEADER_FILL);
+        
+        XSLFTextParagraph bannerPara = banner.addNewTextParagraph();
+        bannerPara.setTextAlign(org.apache.poi.sl.usermodel.TextParagraph.TextAlign.CENTER);
+        bannerPara.setSpaceAfter(0.0);
+        XSLFTextRun bannerRun = bannerPara.addNewTextRun();
+        bannerRun.setText(label);
+        bannerRun.setFontSize(PresentationConstants.FontSize.GROUP_HEADER);
+        bannerRun.setBold(true);
+        bannerRun.setFontColor(PresentationConstants.Colors.HEADER_TEXT);
+    }
+
+    /**
+     * Adds slides showing the prepared photos in a grid, in listing order, each slide headed by
+     * the vehicle title. A photo that appears more than once is stored in the package once.
+     * 
+     * @param pptx the presentation to add to
+     * @param vehicle the vehicle listing
+     * @param photos the prepared photos
+     */
+    void addPhotoSlides(XMLSlideShow pptx, VehicleListing vehicle, List<PhotoPipeline.Photo> photos) {
+        int perSlide = PresentationConstants.Layout.PHOTO_COLUMNS * PresentationConstants.Layout.PHOTO_ROWS;
+        // Photos with the same content are the same instance
+        Map<PhotoPipeline.Photo, XSLFPictureData> pictures = new IdentityHashMap<>();
+        for (int first = 0; first < photos.size(); first += perSlide) {
+            XSLFSlide slide = pptx.createSlide();
+            
+            XSLFTextBox titleBox = slide.createTextBox();
+            titleBox.setAnchor(new Rectangle2D.Double(
+                inchesToPoints(PresentationConstants.Layout.VEHICLE_TITLE_X),
+                inchesToPoints(PresentationConstants.Layout.DEALER_NAME_Y),
+                inchesToPoints(PresentationConstants.Layout.VEHICLE_TITLE_WIDTH),
+                inchesToPoints(PresentationConstants.Layout.VEHICLE_TITLE_HEIGHT)
+            ));
+            XSLFTextParagraph titlePara = titleBox.addNewTextParagraph();
+            titlePara.setTextAlign(org.apache.poi.sl.usermodel.TextParagraph.TextAlign.LEFT);
+            XSLFTextRun titleRun = titlePara.addNewTextRun();
+            titleRun.setText(Objects.toString(vehicle.getTitle(), ""));
+            titleRun.setFontSize(PresentationConstants.FontSize.VEHICLE_TITLE);
+            titleRun.setBold(true);
+            titleRun.setFontColor(PresentationConstants.Colors.DEFAULT_TEXT);
+            
+            for (int i = first; i < Math.min(first + perSlide, photos.size()); i++) {
+                PhotoPipeline.Photo photo = photos.get(i);
+                XSLFPictureData data = pictures.computeIfAbsent(photo, p -> pptx.addPicture(p.data(), p.type()));
+                int cell = i - first;
+                addPhoto(slide, data, photo, cell % PresentationConstants.Layout.PHOTO_COLUMNS,
+                    cell / PresentationConstants.Layout.PHOTO_COLUMNS);
+            }
+        }
+    }
+
+    /**
+     * Places a photo in a grid cell, scaled to fit and centred.
+     */
+    private void addPhoto(XSLFSlide slide, XSLFPictureData data, PhotoPipeline.Photo photo, int column, int row) {
+        double cellWidth = PresentationConstants.Layout.PHOTO_CELL_WIDTH;
+        double cellHeight = PresentationConstants.Layout.PHOTO_CELL_HEIGHT;
+        double scale = Math.min(cellWidth / photo.width(), cellHeight / photo.height());
+        double width = photo.width() * scale;
+        double height = photo.height() * scale;
+        double x = PresentationConstants.Layout.PHOTO_GRID_X
+            + column * (cellWidth + PresentationConstants.Layout.PHOTO_GAP) + (cellWidth - width) / 2;
+        double y = PresentationConstants.Layout.PHOTO_GRID_Y
+            + row * (cellHeight + PresentationConstants.Layout.PHOTO_GAP) + (cellHeight - height) / 2;
+        
+        XSLFPictureShape picture = slide.createPicture(data);
+        picture.setAnchor(new Rectangle2D.Double(inchesToPoints(x), inchesToPoints(y), inchesToPoints(width), inchesToPoints(height)));
+    }
+
+    /**
+     * Returns the pixel size photos are prepared at for a length on the slide.
+     * 
+     * @param inches the length in inches
+     * @return the length in pixels at {@link PresentationConstants.Layout#PHOTO_DPI}
+     */
+    static int photoPixels(double inches) {
+        return (int) Math.round(inches * PresentationConstants.Layout.PHOTO_DPI);
+    }
+
+    /**
+     * Converts inches to points, the unit of POI's shape geometry and insets. POI converts
+     * points to EMU (English Metric Units) when it writes the shape XML.
      * 
      * @param inches the measurement in inches
-     * @return the measurement in EMU
+     * @return the measurement in points
      */
-    private double inchesToEMU(double inches) {
-        return inches * PresentationConstants.INCH_TO_EMU;
+    private double inchesToPoints(double inches) {
+        return inches * PresentationConstants.INCH_TO_POINTS;
+    }
+
+    /**
+     * Growable per-thread output buffer whose contents can be exposed without a copy.
+     */
+    private static final class DeckBuffer extends ByteArrayOutputStream {
+
+        DeckBuffer() {
+            super(64 * 1024);
+        }
+
+        /**
+         * Empties the buffer for the next render, dropping the array if an unusually large deck
+         * grew it past {@link #MAX_RETAINED_BUFFER_BYTES}.
+         */
+        void recycle() {
+            if (buf.length > MAX_RETAINED_BUFFER_BYTES) {
+                buf = new byte[64 * 1024];
+            }
+            reset();
+        }
+
+        ByteBuffer view() {
+            return ByteBuffer.wrap(buf, 0, count).asReadOnlyBuffer();
+        }
     }
 }
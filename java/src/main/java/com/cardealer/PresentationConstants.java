@@ -13,6 +13,9 @@ public final class PresentationConstants {
     /** Number of EMUs per inch in the PowerPoint coordinate system. */
     public static final double INCH_TO_EMU = 914_400d;
 
+    /** Number of points per inch, the unit POI's shape API takes. */
+    public static final double INCH_TO_POINTS = 72d;
+
     /**
      * Default strings for vehicle data when fields are omitted in the JSON or CLI
      * input.
@@ -68,6 +71,23 @@ public final class PresentationConstants {
         public static final double CONTACT_Y = 8.7;
         public static final double CONTACT_WIDTH = 9.0;
         public static final double CONTACT_HEIGHT = 0.6;
+
+        public static final double GROUP_HEADER_X = 0.5;
+        public static final double GROUP_HEADER_Y = 3.0;
+        public static final double GROUP_HEADER_WIDTH = 9.0;
+        public static final double GROUP_HEADER_HEIGHT = 1.5;
+
+        /** Photo slides: a grid of equal 4:3 cells below the vehicle title. */
+        public static final double PHOTO_GRID_X = 0.5;
+        public static final double PHOTO_GRID_Y = 1.2;
+        public static final double PHOTO_CELL_WIDTH = 2.9;
+        public static final double PHOTO_CELL_HEIGHT = 2.175;
+        public static final double PHOTO_GAP = 0.15;
+        public static final int PHOTO_COLUMNS = 3;
+        public static final int PHOTO_ROWS = 2;
+
+        /** Resolution photos are prepared at for their cell. */
+        public static final int PHOTO_DPI = 150;
     }
 
     /** Centralized color palette. */
@@ -94,5 +114,6 @@ public final class PresentationConstants {
         public static final double VEHICLE_TITLE = 36.0;
         public static final double TABLE_TEXT = 20.0;
         public static final double CONTACT = 18.0;
+        public static final double GROUP_HEADER = 44.0;
     }
 }
@@ -0,0 +1,349 @@
+package com.cardealer;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Content-addressed cache of rendered decks in front of a {@link PresentationBuilder}.
+ *
+ * <p>Decks are keyed by the SHA-256 of every listing and dealer field that reaches the slide,
+ * the render mode and {@link #LAYOUT_VERSION}, so an unchanged listing maps to the same key
+ * across runs while any layout change invalidates every entry at once. The memory tier is an
+ * LRU bounded by the total size of the cached decks. The optional disk tier stores one file per
+ * key and survives restarts; disk hits are promoted into memory. Concurrent misses for the same
+ * key share a single render.
+ *
+ * <p>Instances are safe to share between threads.
+ */
+public class RenderCache {
+
+    /**
+     * Version of the slide layout, part of every cache key. Increment it whenever a change to
+     * {@link PresentationBuilder} or its constants alters the rendered output.
+     */
+    public static final int LAYOUT_VERSION = 2;
+
+    private static final String DISK_SUFFIX = ".pptx";
+
+    private final PresentationBuilder builder;
+    private final long maxMemoryBytes;
+    private final Path diskDir;
+    private final LinkedHashMap<String, byte[]> memory = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<String, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+    private long memoryBytes;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong diskErrors = new AtomicLong();
+
+    /**
+     * Creates a cache.
+     *
+     * @param builder the builder that renders on a miss
+     * @param maxMemoryBytes total deck bytes kept in memory; 0 disables the memory tier
+     * @param diskDir directory for the disk tier (created if missing), or null for memory only
+     * @throws IOException if the disk directory cannot be created
+     * @throws IllegalArgumentException if maxMemoryBytes is negative
+     */
+    public RenderCache(PresentationBuilder builder, long maxMemoryBytes, Path diskDir) throws IOException {
+        this.builder = Objects.requireNonNull(builder, "Builder cannot be null");
+        if (maxMemoryBytes < 0) {
+            throw new IllegalArgumentException("Memory limit cannot be negative, got: " + maxMemoryBytes);
+        }
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.diskDir = diskDir;
+        if (diskDir != null) {
+            Files.createDirectories(diskDir);
+        }
+    }
+
+    /**
+     * Returns the cache key for a listing rendered in the given mode and compressed with the given
+     * policy. Photos contribute their path, size and modification time rather than their content,
+     * so keys stay cheap.
+     *
+     * @param vehicle the vehicle listing
+     * @param mode the render mode
+     * @param compression the compression policy of the package
+     * @return 64 lowercase hex characters
+     */
+    static String key(VehicleListing vehicle, RenderMode mode, CompressionPolicy compression) {
+        return key(vehicle, mode, compression, LAYOUT_VERSION);
+    }
+
+    /**
+     * Returns the cache key a listing would have under another layout version.
+     */
+    static String key(VehicleListing vehicle, RenderMode mode, CompressionPolicy compression, int layoutVersion) {
+        MessageDigest digest = sha256();
+        update(digest, "layout-" + layoutVersion);
+        update(digest, mode.name());
+        update(digest, compression.toString());
+        update(digest, vehicle.getTitle());
+        update(digest, vehicle.getPrice());
+        update(digest, vehicle.getRegistration());
+        update(digest, vehicle.getYear());
+        update(digest, vehicle.getGearbox().name());
+        update(digest, vehicle.getEngineSize());
+        update(digest, vehicle.getFuelType().name());
+        update(digest, vehicle.getMileage());
+        update(digest, vehicle.getUlez().name());
+        update(digest, vehicle.getMotExpiry());
+        update(digest, vehicle.getOwners());
+        update(digest, Integer.toString(vehicle.getSpecs().size()));
+        for (String spec : vehicle.getSpecs()) {
+            update(digest, spec);
+        }
+        DealerDetails dealer = vehicle.getDealer();
+        update(digest, dealer.name());
+        update(digest, dealer.phone());
+        update(digest, dealer.email());
+        update(digest, dealer.website());
+        // Listings without photos keep the keys they had before photos existed
+        if (!vehicle.getPhotos().isEmpty()) {
+            update(digest, "photos-" + vehicle.getPhotos().size());
+            for (String photo : vehicle.getPhotos()) {
+                update(digest, photo);
+                update(digest, PhotoPipeline.fingerprint(photo));
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Feeds one field, length-prefixed so adjacent fields cannot run into each other.
+     */
+    private static void update(MessageDigest digest, String value) {
+        if (value == null) {
+            // A length no string can have, so null differs from every value including ""
+            digest.update(new byte[] {-1, -1, -1, -1});
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update((byte) (bytes.length >>> 24));
+        digest.update((byte) (bytes.length >>> 16));
+        digest.update((byte) (bytes.length >>> 8));
+        digest.update((byte) bytes.length);
+        digest.update(bytes);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Returns the PPTX bytes for a listing if the memory tier holds them, without touching the
+     * disk or rendering. Lets callers answer hits before queueing for a render slot.
+     * The returned array is shared with the cache and must not be modified.
+     *
+     * @param vehicle the vehicle listing
+     * @return the deck bytes, or null if not in memory
+     */
+    public byte[] cached(VehicleListing vehicle) {
+        Objects.requireNonNull(vehicle, "Vehicle cannot be null");
+        byte[] deck = fromMemory(key(vehicle, builder.getRenderMode(), builder.getCompression()));
+        if (deck != null) {
+            memoryHits.incrementAndGet();
+        }
+        return deck;
+    }
+
+    /**
+     * Returns the PPTX bytes for a listing, rendering only when no tier has them.
+     * The returned array is shared with the cache and must not be modified.
+     *
+     * @param vehicle the vehicle listing
+     * @return the deck bytes
+     * @throws IOException if rendering fails
+     */
+    public byte[] render(VehicleListing vehicle) throws IOException {
+        Objects.requireNonNull(vehicle, "Vehicle cannot be null");
+        String key = key(vehicle, builder.getRenderMode(), builder.getCompression());
+
+        byte[] cached = fromMemory(key);
+        if (cached != null) {
+            memoryHits.incrementAndGet();
+            return cached;
+        }
+
+        CompletableFuture<byte[]> pending = new CompletableFuture<>();
+        CompletableFuture<byte[]> existing = inFlight.putIfAbsent(key, pending);
+        if (existing != null) {
+            // Another thread is loading this key; its result counts as a memory hit
+            memoryHits.incrementAndGet();
+            return await(existing);
+        }
+        try {
+            byte[] deck = load(key, vehicle);
+            pending.complete(deck);
+            return deck;
+        } catch (IOException | RuntimeException e) {
+            pending.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key);
+        }
+    }
+
+    /**
+     * Writes the deck for a listing to a file, rendering only on a cache miss.
+     *
+     * @param vehicle the vehicle listing
+     * @param outputPath the PPTX file to write
+     * @throws IOException if rendering or writing fails
+     */
+    public void render(VehicleListing vehicle, Path outputPath) throws IOException {
+        Objects.requireNonNull(outputPath, "Output path cannot be null");
+        AtomicFileWriter.write(outputPath, ByteBuffer.wrap(render(vehicle)));
+    }
+
+    private byte[] load(String key, VehicleListing vehicle) throws IOException {
+        byte[] deck = fromDisk(key);
+        if (deck != null) {
+            diskHits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+            deck = builder.renderToBytes(vehicle);
+            toDisk(key, deck);
+        }
+        toMemory(key, deck);
+        return deck;
+    }
+
+    private static byte[] await(CompletableFuture<byte[]> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw e;
+        }
+    }
+
+    private synchronized byte[] fromMemory(String key) {
+        return memory.get(key);
+    }
+
+    private synchronized void toMemory(String key, byte[] deck) {
+        if (deck.length > maxMemoryBytes) {
+            return;
+        }
+        byte[] previous = memory.put(key, deck);
+        memoryBytes += deck.length - (previous != null ? previous.length : 0);
+        Iterator<byte[]> eldest = memory.values().iterator();
+        while (memoryBytes > maxMemoryBytes) {
+            memoryBytes -= eldest.next().length;
+            eldest.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private Path diskPath(String key) {
+        // Two-character fan-out keeps directories small for large inventories
+        return diskDir.resolve(key.substring(0, 2)).resolve(key + DISK_SUFFIX);
+    }
+
+    private byte[] fromDisk(String key) {
+        if (diskDir == null) {
+            return null;
+        }
+        try {
+            return Files.readAllBytes(diskPath(key));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            diskErrors.incrementAndGet();
+            return null;
+        }
+    }
+
+    /**
+     * Stores a deck on disk through a temporary file and a rename, so a crash never leaves a
+     * truncated entry under a valid key. Failures are counted but do not fail the render.
+     */
+    private void toDisk(String key, byte[] deck) {
+        if (diskDir == null) {
+            return;
+        }
+        Path target = diskPath(key);
+        try {
+            Files.createDirectories(target.getParent());
+            AtomicFileWriter.write(target, ByteBuffer.wrap(deck));
+        } catch (IOException e) {
+            diskErrors.incrementAndGet();
+        }
+    }
+
+    /**
+     * Returns a snapshot of the cache counters.
+     *
+     * @return the current statistics
+     */
+    public synchronized Stats stats() {
+        return new Stats(memoryHits.get(), diskHits.get(), misses.get(), evictions.get(), diskErrors.get(),
+            memory.size(), memoryBytes);
+    }
+
+    /**
+     * Cache counters since creation.
+     *
+     * @param memoryHits lookups answered from memory
+     * @param diskHits lookups answered from the disk tier
+     * @param misses lookups that rendered a new deck
+     * @param evictions decks dropped from memory to stay within the size limit
+     * @param diskErrors disk tier reads or writes that failed and were skipped
+     * @param memoryEntries decks currently held in memory
+     * @param memoryBytes total size of the decks held in memory
+     */
+    public record Stats(long memoryHits, long diskHits, long misses, long evictions, long diskErrors,
+                        int memoryEntries, long memoryBytes) {
+
+        /**
+         * Returns the share of lookups served without rendering.
+         *
+         * @return hit ratio between 0 and 1, or 0 before the first lookup
+         */
+        public double hitRatio() {
+            long lookups = memoryHits + diskHits + misses;
+            return lookups > 0 ? (memoryHits + diskHits) / (double) lookups : 0.0;
+        }
+
+        /**
+         * Prints a human-readable summary.
+         *
+         * @param out the stream to print to
+         */
+        public void printTo(PrintStream out) {
+            out.printf("Render cache: %d memory hits, %d disk hits, %d misses (%.1f%% hit ratio), %d evictions%n",
+                memoryHits, diskHits, misses, hitRatio() * 100, evictions);
+            out.printf("  %d decks (%.1f MB) in memory%s%n", memoryEntries, memoryBytes / 1e6,
+                diskErrors > 0 ? ", " + diskErrors + " disk errors" : "");
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.cardealer;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event spanning one {@code PresentationBuilder.buildPresentation} call.
+ *
+ * <p>Phases that do not apply to the render mode are left at zero. The event thread and time
+ * span let a recording line GC pauses and allocation samples up with the listing being rendered.
+ */
+@Name("com.cardealer.Render")
+@Label("Listing Render")
+@Category({"Car Dealer", "Rendering"})
+@Description("One listing rendered into a PPTX deck")
+@StackTrace(false)
+final class RenderEvent extends Event {
+
+    @Label("Registration")
+    String registration;
+
+    @Label("Render Mode")
+    String renderMode;
+
+    @Label("Succeeded")
+    boolean succeeded;
+
+    @Label("Output Size")
+    @DataAmount
+    long bytesWritten;
+
+    @Label("Title Block")
+    @Timespan
+    long titleBlock;
+
+    @Label("Specification Table")
+    @Timespan
+    long specificationTable;
+
+    @Label("Contact Block")
+    @Timespan
+    long contactBlock;
+
+    @Label("Template Apply")
+    @Timespan
+    long templateApply;
+
+    @Label("Photo Slides")
+    @Timespan
+    long photoSlides;
+
+    @Label("Write")
+    @Timespan
+    long write;
+
+    @Label("Preview")
+    @Timespan
+    long preview;
+}
@@ -0,0 +1,233 @@
+package com.cardealer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide counters and per-phase latency histograms for rendering.
+ *
+ * <p>{@link PresentationBuilder} and {@link ListingJsonReader} record into {@link #global()}
+ * on every call; the CLI dumps it with {@code --metrics-out} and the render server exposes it on
+ * {@code GET /metrics}. Recording costs two {@link System#nanoTime()} calls and a few uncontended
+ * atomic adds per phase, so it is always on.
+ *
+ * <p>Instances are safe to share between threads.
+ */
+public final class RenderMetrics {
+
+    /** Percentiles included in exports. */
+    static final double[] EXPORTED_PERCENTILES = {50.0, 90.0, 99.0, 99.9};
+
+    private static final RenderMetrics GLOBAL = new RenderMetrics();
+
+    private final Map<RenderPhase, LatencyHistogram> phases = new EnumMap<>(RenderPhase.class);
+    private final LongAdder renders = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+
+    /**
+     * Creates an empty registry. Most callers want {@link #global()}.
+     */
+    public RenderMetrics() {
+        for (RenderPhase phase : RenderPhase.values()) {
+            phases.put(phase, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * Returns the registry the rendering code records into.
+     *
+     * @return the process-wide registry
+     */
+    public static RenderMetrics global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Records the time elapsed since {@code startNanos} for a phase.
+     *
+     * @param phase the phase
+     * @param startNanos a {@link System#nanoTime()} reading taken when the phase began
+     * @return the recorded duration in nanoseconds
+     */
+    public long recordSince(RenderPhase phase, long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        phases.get(phase).record(elapsed);
+        return elapsed;
+    }
+
+    /**
+     * Counts a finished {@code buildPresentation} call and records its duration.
+     *
+     * @param startNanos a {@link System#nanoTime()} reading taken when the render began
+     * @param succeeded whether the deck was written
+     */
+    void recordRender(long startNanos, boolean succeeded) {
+        recordSince(RenderPhase.RENDER, startNanos);
+        if (succeeded) {
+            renders.increment();
+        } else {
+            failures.increment();
+        }
+    }
+
+    /**
+     * Wraps a destination stream so every byte written through it is counted.
+     *
+     * @param out the destination stream
+     * @return a counting stream; closing it closes {@code out}
+     */
+    CountingOutputStream countingStream(OutputStream out) {
+        return new CountingOutputStream(out, bytesWritten);
+    }
+
+    /**
+     * Returns the latency histogram of a phase.
+     *
+     * @param phase the phase
+     * @return the live histogram
+     */
+    public LatencyHistogram histogram(RenderPhase phase) {
+        return phases.get(phase);
+    }
+
+    /** @return decks written successfully */
+    public long getRenders() {
+        return renders.sum();
+    }
+
+    /** @return {@code buildPresentation} calls that threw */
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    /** @return PPTX bytes written by {@code buildPresentation} */
+    public long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    /**
+     * Writes every counter and phase as a JSON object. Latencies are in nanoseconds.
+     *
+     * @param out the destination; flushed but not closed
+     * @throws IOException if writing fails
+     */
+    public void writeJson(Writer out) throws IOException {
+        Map<String, Object> phaseJson = new LinkedHashMap<>();
+        for (RenderPhase phase : RenderPhase.values()) {
+            LatencyHistogram.Snapshot snapshot = phases.get(phase).snapshot();
+            Map<String, Object> values = new LinkedHashMap<>();
+            values.put("count", snapshot.getCount());
+            values.put("sum_nanos", snapshot.getSumNanos());
+            values.put("mean_nanos", Math.round(snapshot.getMeanNanos()));
+            values.put("max_nanos", snapshot.getMaxNanos());
+            for (double percentile : EXPORTED_PERCENTILES) {
+                values.put("p" + percentileLabel(percentile).replace(".", "_") + "_nanos",
+                    snapshot.valueAtPercentile(percentile));
+            }
+            phaseJson.put(phase.getMetricName(), values);
+        }
+
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("renders", getRenders());
+        json.put("failures", getFailures());
+        json.put("bytes_written", getBytesWritten());
+        json.put("phases", phaseJson);
+        ListingJsonReader.MAPPER.writerWithDefaultPrettyPrinter()
+            .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+            .writeValue(out, json);
+        out.flush();
+    }
+
+    /**
+     * Writes every counter and phase in the Prometheus text exposition format. Phases are
+     * exported as a summary in seconds with one series per {@link #EXPORTED_PERCENTILES} entry.
+     *
+     * @param out the destination; flushed but not closed
+     * @throws IOException if writing fails
+     */
+    public void writePrometheus(Writer out) throws IOException {
+        writeCounter(out, "cardealer_renders_total", "Decks written successfully", getRenders());
+        writeCounter(out, "cardealer_render_failures_total", "Render calls that failed", getFailures());
+        writeCounter(out, "cardealer_bytes_written_total", "PPTX bytes written", getBytesWritten());
+
+        String name = "cardealer_render_phase_seconds";
+        out.write("# HELP " + name + " Time spent per render phase\n");
+        out.write("# TYPE " + name + " summary\n");
+        for (RenderPhase phase : RenderPhase.values()) {
+            LatencyHistogram.Snapshot snapshot = phases.get(phase).snapshot();
+            String label = "phase=\"" + phase.getMetricName() + "\"";
+            for (double percentile : EXPORTED_PERCENTILES) {
+                out.write(String.format(Locale.ROOT, "%s{%s,quantile=\"%s\"} %s%n", name, label,
+                    quantileLabel(percentile), seconds(snapshot.valueAtPercentile(percentile))));
+            }
+            out.write(String.format(Locale.ROOT, "%s_sum{%s} %s%n", name, label, seconds(snapshot.getSumNanos())));
+            out.write(String.format(Locale.ROOT, "%s_count{%s} %d%n", name, label, snapshot.getCount()));
+        }
+        out.flush();
+    }
+
+    private static void writeCounter(Writer out, String name, String help, long value) throws IOException {
+        out.write("# HELP " + name + " " + help + "\n");
+        out.write("# TYPE " + name + " counter\n");
+        out.write(name + " " + value + "\n");
+    }
+
+    private static String seconds(long nanos) {
+        return Double.toString(nanos / 1e9);
+    }
+
+    private static String percentileLabel(double percentile) {
+        return percentile == Math.rint(percentile)
+            ? Long.toString((long) percentile)
+            : Double.toString(percentile);
+    }
+
+    private static String quantileLabel(double percentile) {
+        // Decimal arithmetic keeps 99.9 as "0.999" rather than "0.9990000000000001"
+        return BigDecimal.valueOf(percentile).movePointLeft(2).stripTrailingZeros().toPlainString();
+    }
+
+    /**
+     * Stream that counts the bytes written through it, both for the one render and into the
+     * registry total.
+     */
+    static final class CountingOutputStream extends FilterOutputStream {
+        private final LongAdder total;
+        private long count;
+
+        CountingOutputStream(OutputStream out, LongAdder total) {
+            super(out);
+            this.total = total;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+            total.increment();
+        }
+
+        @Override
+        public void write(byte[] bytes, int off, int len) throws IOException {
+            out.write(bytes, off, len);
+            count += len;
+            total.add(len);
+        }
+
+        /** @return bytes written through this stream */
+        long getCount() {
+            return count;
+        }
+    }
+}
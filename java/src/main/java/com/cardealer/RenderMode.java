@@ -0,0 +1,13 @@
+package com.cardealer;
+
+/**
+ * Selects how {@link PresentationBuilder} produces the slide for a listing.
+ */
+public enum RenderMode {
+    /** Builds and styles every shape from scratch for each listing. */
+    DIRECT,
+    /** Clones a pre-styled slide skeleton and replaces only the text runs. */
+    TEMPLATE,
+    /** Streams the PPTX package directly, copying invariant parts and writing only the slide XML. */
+    STREAMING
+}
@@ -0,0 +1,40 @@
+package com.cardealer;
+
+/**
+ * Timed phases of producing a deck, as recorded by {@link RenderMetrics}.
+ */
+public enum RenderPhase {
+    /** Listing JSON to {@link VehicleListing} through {@link ListingJsonReader}. */
+    PARSE("parse"),
+    /** Dealer name, price pill and vehicle title shapes (direct mode). */
+    TITLE_BLOCK("title_block"),
+    /** Specification table (direct mode). */
+    SPECIFICATION_TABLE("specification_table"),
+    /** Contact bar (direct mode). */
+    CONTACT_BLOCK("contact_block"),
+    /** Cloning the slide skeleton and filling in its text (template mode). */
+    TEMPLATE_APPLY("template_apply"),
+    /** Waiting for the listing photos to be prepared and placing them on photo slides. */
+    PHOTO_SLIDES("photo_slides"),
+    /** Serializing the package and writing it to the destination stream. */
+    WRITE("write"),
+    /** Rasterizing the slides to PNG and PDF previews. */
+    PREVIEW("preview"),
+    /** A whole {@code buildPresentation} call. */
+    RENDER("render");
+
+    private final String metricName;
+
+    RenderPhase(String metricName) {
+        this.metricName = metricName;
+    }
+
+    /**
+     * Returns the label used for this phase in exported metrics.
+     *
+     * @return the lowercase phase name
+     */
+    public String getMetricName() {
+        return metricName;
+    }
+}
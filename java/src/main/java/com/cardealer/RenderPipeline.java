@@ -0,0 +1,586 @@
+package com.cardealer;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Renders a batch as four overlapping stages, each with its own threads, so that reading,
+ * parsing, rendering and writing of different listings proceed at the same time.
+ *
+ * <p>{@link BatchRenderer} gives each worker one listing at a time from start to finish. Here a
+ * listing instead moves through {@link Stage#READ}, {@link Stage#PARSE}, {@link Stage#RENDER}
+ * and {@link Stage#WRITE}, handed between stages through bounded queues. A stage that gets ahead
+ * blocks on the full queue in front of the next one, so at most the queue capacities plus one
+ * listing per thread are in memory whatever the size of the batch. For a CSV feed the rows are
+ * read in file order by the calling thread, which is then the whole read stage.
+ *
+ * <p>After a run, {@link PipelineSummary} reports each stage's utilization, how long its threads
+ * waited on a full downstream queue and how deep its input queue was. A stage that is busy
+ * nearly all the time while the stages before it block is the one to give more threads.
+ *
+ * <p>Listing failures are collected per listing as in {@link BatchRenderer}; a failing listing
+ * leaves the pipeline at the stage that failed.
+ */
+public final class RenderPipeline {
+
+    /** The stages a listing passes through, in order. */
+    public enum Stage {
+        /** Reading the listing file's bytes (or, for a CSV feed, the row's fields). */
+        READ("read"),
+        /** Building and validating the {@link VehicleListing}, including CLI overrides. */
+        PARSE("parse"),
+        /** Rendering the deck into memory. */
+        RENDER("render"),
+        /** Writing the deck to its output file. */
+        WRITE("write");
+
+        private final String label;
+
+        Stage(String label) {
+            this.label = label;
+        }
+
+        /**
+         * Returns the name used for this stage in thread names, options and reports.
+         *
+         * @return the lowercase stage name
+         */
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    /** Queue capacity used when none is configured. */
+    public static final int DEFAULT_QUEUE_CAPACITY = 16;
+
+    /** Marks the end of a stage's input; one is queued per consuming thread. */
+    private static final Job END = new Job(null, 0);
+
+    private final PresentationBuilder builder;
+    private final Map<Stage, Integer> threads;
+    private final int queueCapacity;
+    private final RenderCache cache;
+    private final SlidePreviewExporter previews;
+    private final BuildManifest manifest;
+
+    /**
+     * Creates a pipeline that renders every listing.
+     *
+     * @param builder the presentation builder shared by the render threads
+     * @param threads threads per stage; stages left out get {@link #defaultThreads(Stage)}
+     * @param queueCapacity listings each queue between stages can hold
+     * @param cache the render cache, or null to always render
+     * @param previews the preview exporter, or null for no previews
+     * @throws IllegalArgumentException if a thread count or the capacity is not positive, or if
+     *         both a cache and previews are given
+     */
+    public RenderPipeline(PresentationBuilder builder, Map<Stage, Integer> threads, int queueCapacity,
+                          RenderCache cache, SlidePreviewExporter previews) {
+        this(builder, threads, queueCapacity, cache, previews, null);
+    }
+
+    /**
+     * Creates a pipeline.
+     *
+     * @param builder the presentation builder shared by the render threads
+     * @param threads threads per stage; stages left out get {@link #defaultThreads(Stage)}
+     * @param queueCapacity listings each queue between stages can hold
+     * @param cache the render cache, or null to always render
+     * @param previews the preview exporter, or null for no previews
+     * @param manifest the build manifest of the output directory, or null to render everything;
+     *        up-to-date listings skip the render and write stages
+     * @throws IllegalArgumentException if a thread count or the capacity is not positive, or if
+     *         both a cache and previews are given
+     */
+    public RenderPipeline(PresentationBuilder builder, Map<Stage, Integer> threads, int queueCapacity,
+                          RenderCache cache, SlidePreviewExporter previews, BuildManifest manifest) {
+        this.builder = Objects.requireNonNull(builder, "Builder cannot be null");
+        Objects.requireNonNull(threads, "Stage threads cannot be null");
+        this.threads = new EnumMap<>(Stage.class);
+        for (Stage stage : Stage.values()) {
+            int count = threads.getOrDefault(stage, defaultThreads(stage));
+            if (count < 1) {
+                throw new IllegalArgumentException("Thread count for stage " + stage.getLabel() + " must be at least 1, got: " + count);
+            }
+            this.threads.put(stage, count);
+        }
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("Queue capacity must be at least 1, got: " + queueCapacity);
+        }
+        if (cache != null && previews != null) {
+            throw new IllegalArgumentException("Slide previews cannot be combined with the render cache");
+        }
+        this.queueCapacity = queueCapacity;
+        this.cache = cache;
+        this.previews = previews;
+        this.manifest = manifest;
+    }
+
+    /**
+     * Returns the threads a stage gets when none are configured: one per processor for
+     * rendering and one for every other stage.
+     *
+     * @param stage the stage
+     * @return the thread count
+     */
+    public static int defaultThreads(Stage stage) {
+        return stage == Stage.RENDER ? Runtime.getRuntime().availableProcessors() : 1;
+    }
+
+    /**
+     * Parses per-stage thread counts from their command-line form, for example
+     * {@code read=1,parse=2,render=6,write=1}. Stage names are case-insensitive and stages left
+     * out keep their default.
+     *
+     * @param spec the comma-separated assignments
+     * @return the thread count per listed stage
+     * @throws IllegalArgumentException if the text is not valid
+     */
+    public static Map<Stage, Integer> parseThreads(String spec) {
+        Objects.requireNonNull(spec, "Stage threads cannot be null");
+        Map<Stage, Integer> parsed = new EnumMap<>(Stage.class);
+        for (String assignment : spec.split(",")) {
+            String[] parts = assignment.trim().split("=", 2);
+            Stage stage = null;
+            for (Stage candidate : Stage.values()) {
+                if (candidate.getLabel().equalsIgnoreCase(parts[0].trim())) {
+                    stage = candidate;
+                }
+            }
+            if (stage == null || parts.length != 2) {
+                throw new IllegalArgumentException("Invalid stage threads '" + assignment.trim()
+                    + "' (expected stage=count with stage read, parse, render or write)");
+            }
+            try {
+                parsed.put(stage, Integer.parseInt(parts[1].trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid thread count in: " + assignment.trim());
+            }
+        }
+        return parsed;
+    }
+
+    public Map<Stage, Integer> getThreads() {
+        return Collections.unmodifiableMap(threads);
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * Renders every listing file, writing one PPTX per listing into the output directory. A
+     * listing whose deck path an earlier input already has fails without entering the pipeline.
+     *
+     * @param inputs listing JSON files
+     * @param outputDir directory for generated decks (created if missing)
+     * @param customizer hook applied to each listing after loading, e.g. CLI overrides
+     * @return a summary of the run
+     * @throws IOException if the output directory cannot be created
+     * @throws InterruptedException if interrupted while waiting for the stages
+     */
+    public PipelineSummary run(List<Path> inputs, Path outputDir, Consumer<VehicleListing> customizer)
+            throws IOException, InterruptedException {
+        Objects.requireNonNull(inputs, "Inputs cannot be null");
+        Objects.requireNonNull(outputDir, "Output directory cannot be null");
+        Objects.requireNonNull(customizer, "Customizer cannot be null");
+        Files.createDirectories(outputDir);
+
+        Run run = new Run(job -> job.json = Files.readAllBytes(job.input), job -> {
+            job.vehicle = ListingJsonReader.read(job.json);
+            job.json = null;
+            ListingJsonReader.resolvePhotos(job.vehicle, job.input.toAbsolutePath().getParent());
+            customizer.accept(job.vehicle);
+        });
+        run.start(threads.get(Stage.READ));
+        try {
+            BatchRenderer.DeckPaths decks = new BatchRenderer.DeckPaths(outputDir);
+            for (Path input : inputs) {
+                Job job = new Job(input, System.nanoTime());
+                try {
+                    job.output = decks.claim(input);
+                } catch (IllegalArgumentException e) {
+                    run.results.add(new BatchRenderer.RenderResult(input, 0, e));
+                    continue;
+                }
+                run.submit(job);
+            }
+            return run.finish();
+        } finally {
+            run.stop();
+        }
+    }
+
+    /**
+     * Renders every row of a CSV stock feed as {@link BatchRenderer#run(ListingCsvReader, Path, Consumer)}
+     * does. Rows are read by the calling thread, so the read stage always has one thread here.
+     *
+     * @param feed the CSV reader, positioned at the first row; not closed
+     * @param outputDir directory for generated decks (created if missing)
+     * @param customizer hook applied to each listing after loading, e.g. CLI overrides
+     * @return a summary of the run
+     * @throws IOException if the output directory cannot be created or the feed cannot be read
+     * @throws InterruptedException if interrupted while waiting for the stages
+     */
+    public PipelineSummary run(ListingCsvReader feed, Path outputDir, Consumer<VehicleListing> customizer)
+            throws IOException, InterruptedException {
+        Objects.requireNonNull(feed, "CSV feed cannot be null");
+        Objects.requireNonNull(outputDir, "Output directory cannot be null");
+        Objects.requireNonNull(customizer, "Customizer cannot be null");
+        Files.createDirectories(outputDir);
+
+        Run run = new Run(null, job -> {
+            job.vehicle = feed.toListing(job.row, job.line);
+            job.row = null;
+            customizer.accept(job.vehicle);
+        });
+        run.start(0);
+        StageStats read = run.stats.get(Stage.READ);
+        read.threads = 1;
+        read.inline = true;
+        try {
+            BatchRenderer.DeckPaths decks = new BatchRenderer.DeckPaths(outputDir);
+            while (true) {
+                long started = System.nanoTime();
+                Job job = new Job(null, started);
+                try {
+                    job.row = feed.nextRow();
+                } catch (IllegalArgumentException e) {
+                    read.busy.add(System.nanoTime() - started);
+                    run.results.add(new BatchRenderer.RenderResult(BatchRenderer.rowPath(feed), System.nanoTime() - started, e));
+                    continue;
+                }
+                read.busy.add(System.nanoTime() - started);
+                if (job.row == null) {
+                    break;
+                }
+                job.input = BatchRenderer.rowPath(feed);
+                job.line = feed.getLineNumber();
+                try {
+                    job.output = decks.claim(feed.registration(job.row), job.line, job.input);
+                } catch (IllegalArgumentException e) {
+                    run.results.add(new BatchRenderer.RenderResult(job.input, System.nanoTime() - started, e));
+                    continue;
+                }
+                read.items.increment();
+                long blocked = System.nanoTime();
+                run.queues.get(Stage.PARSE).put(job);
+                read.blocked.add(System.nanoTime() - blocked);
+            }
+            return run.finish();
+        } finally {
+            run.stop();
+        }
+    }
+
+    /**
+     * A listing on its way through the stages; each stage fills in its part and drops what the
+     * next stages no longer need.
+     */
+    private static final class Job {
+        Path input;
+        final long started;
+        long line;
+        List<String> row;
+        byte[] json;
+        VehicleListing vehicle;
+        Path output;
+        long hash;
+        boolean upToDate;
+        boolean unreadableNumbers;
+        byte[] deck;
+
+        Job(Path input, long started) {
+            this.input = input;
+            this.started = started;
+        }
+    }
+
+    @FunctionalInterface
+    private interface StageWork {
+        void process(Job job) throws Exception;
+    }
+
+    /**
+     * The queues, threads and counters of one {@code run} call.
+     */
+    private final class Run {
+        final Map<Stage, StageWork> work = new EnumMap<>(Stage.class);
+        final Map<Stage, BlockingQueue<Job>> queues = new EnumMap<>(Stage.class);
+        final Map<Stage, StageStats> stats = new EnumMap<>(Stage.class);
+        final Map<Stage, AtomicInteger> running = new EnumMap<>(Stage.class);
+        final List<Thread> workers = new ArrayList<>();
+        final BatchRenderer.ResultCollector results = new BatchRenderer.ResultCollector();
+        final long started = System.nanoTime();
+        Stage first;
+
+        Run(StageWork read, StageWork parse) {
+            work.put(Stage.READ, read);
+            work.put(Stage.PARSE, parse);
+            work.put(Stage.RENDER, this::render);
+            work.put(Stage.WRITE, this::write);
+            for (Stage stage : Stage.values()) {
+                queues.put(stage, new ArrayBlockingQueue<>(queueCapacity));
+                stats.put(stage, new StageStats(stage, threads.get(stage), queueCapacity));
+            }
+        }
+
+        /**
+         * Starts the stage threads, with the given number of read threads. With none, the caller
+         * reads and feeds the parse queue itself.
+         */
+        void start(int readThreads) {
+            first = readThreads > 0 ? Stage.READ : Stage.PARSE;
+            for (Stage stage : Stage.values()) {
+                int count = stage == Stage.READ ? readThreads : threads.get(stage);
+                stats.get(stage).threads = count;
+                running.put(stage, new AtomicInteger(count));
+                for (int i = 1; i <= count; i++) {
+                    Thread thread = new Thread(() -> drain(stage), "pipeline-" + stage.getLabel() + "-" + i);
+                    thread.setDaemon(true);
+                    workers.add(thread);
+                    thread.start();
+                }
+            }
+        }
+
+        void submit(Job job) throws InterruptedException {
+            queues.get(Stage.READ).put(job);
+        }
+
+        /**
+         * Signals the end of the input and waits for every listing to leave the pipeline.
+         */
+        PipelineSummary finish() throws InterruptedException {
+            end(first);
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            long elapsed = System.nanoTime() - started;
+            List<StageStats> stageStats = new ArrayList<>(stats.values());
+            return new PipelineSummary(results.summary(elapsed, threads.get(Stage.RENDER)), stageStats, elapsed);
+        }
+
+        void stop() {
+            for (Thread worker : workers) {
+                worker.interrupt();
+            }
+        }
+
+        private void end(Stage stage) throws InterruptedException {
+            BlockingQueue<Job> queue = queues.get(stage);
+            for (int i = 0; i < stats.get(stage).threads; i++) {
+                queue.put(END);
+            }
+        }
+
+        private void drain(Stage stage) {
+            BlockingQueue<Job> queue = queues.get(stage);
+            StageStats stageStats = stats.get(stage);
+            Stage next = stage.ordinal() + 1 < Stage.values().length ? Stage.values()[stage.ordinal() + 1] : null;
+            try {
+                while (true) {
+                    int depth = queue.size();
+                    Job job = queue.take();
+                    if (job == END) {
+                        break;
+                    }
+                    stageStats.sampleDepth(depth);
+                    long busyStarted = System.nanoTime();
+                    try {
+                        work.get(stage).process(job);
+                    } catch (Exception e) {
+                        stageStats.busy.add(System.nanoTime() - busyStarted);
+                        results.add(new BatchRenderer.RenderResult(job.input, System.nanoTime() - job.started, e));
+                        continue;
+                    }
+                    stageStats.busy.add(System.nanoTime() - busyStarted);
+                    stageStats.items.increment();
+                    if (next != null) {
+                        long blocked = System.nanoTime();
+                        queues.get(next).put(job);
+                        stageStats.blocked.add(System.nanoTime() - blocked);
+                    } else {
+                        results.add(new BatchRenderer.RenderResult(job.input, System.nanoTime() - job.started, null,
+                            job.unreadableNumbers));
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                // The last thread of a stage to finish passes the end on
+                if (running.get(stage).decrementAndGet() == 0 && next != null && !Thread.currentThread().isInterrupted()) {
+                    try {
+                        end(next);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        }
+
+        private void render(Job job) throws IOException {
+            job.unreadableNumbers = ListingNumbers.hasUnreadable(job.vehicle);
+            if (manifest != null) {
+                job.hash = manifest.hash(job.vehicle);
+                if (manifest.skip(job.output, job.hash)) {
+                    // Nothing to write; the job still passes through to be counted
+                    job.upToDate = true;
+                    job.vehicle = null;
+                    return;
+                }
+            }
+            if (cache != null) {
+                // The cache writes the file itself
+                cache.render(job.vehicle, job.output);
+            } else if (previews != null) {
+                // Previews need the slideshow, which only lives during the build
+                builder.buildPresentation(job.vehicle, job.output, previews);
+            } else {
+                job.deck = builder.renderToBytes(job.vehicle);
+            }
+            job.vehicle = null;
+        }
+
+        private void write(Job job) throws IOException {
+            if (job.deck != null) {
+                AtomicFileWriter.write(job.output, ByteBuffer.wrap(job.deck));
+                job.deck = null;
+            }
+            if (manifest != null && !job.upToDate) {
+                manifest.record(job.output, job.hash);
+            }
+        }
+    }
+
+    /**
+     * Counters for one stage over a run.
+     */
+    public static final class StageStats {
+        private final Stage stage;
+        private final int queueCapacity;
+        private int threads;
+        private boolean inline;
+        private final LongAdder items = new LongAdder();
+        private final LongAdder busy = new LongAdder();
+        private final LongAdder blocked = new LongAdder();
+        private final LongAdder depthTotal = new LongAdder();
+        private final LongAdder depthSamples = new LongAdder();
+        private final AtomicInteger maxDepth = new AtomicInteger();
+
+        StageStats(Stage stage, int threads, int queueCapacity) {
+            this.stage = stage;
+            this.threads = threads;
+            this.queueCapacity = queueCapacity;
+        }
+
+        void sampleDepth(int depth) {
+            depthTotal.add(depth);
+            depthSamples.increment();
+            maxDepth.accumulateAndGet(depth, Math::max);
+        }
+
+        public Stage getStage() {
+            return stage;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        /**
+         * Returns the listings the stage passed on.
+         *
+         * @return the count, excluding listings that failed in this stage
+         */
+        public long getItems() {
+            return items.sum();
+        }
+
+        /**
+         * Returns the share of the stage's thread time spent working on listings.
+         *
+         * @param elapsedNanos duration of the run
+         * @return a fraction from 0 to 1
+         */
+        public double utilization(long elapsedNanos) {
+            return share(busy.sum(), elapsedNanos);
+        }
+
+        /**
+         * Returns the share of the stage's thread time spent waiting for room in the next
+         * stage's queue, which is backpressure from downstream.
+         *
+         * @param elapsedNanos duration of the run
+         * @return a fraction from 0 to 1
+         */
+        public double blockedShare(long elapsedNanos) {
+            return share(blocked.sum(), elapsedNanos);
+        }
+
+        /**
+         * Returns the average number of listings waiting in the stage's input queue, as seen
+         * each time a thread took one.
+         *
+         * @return the average depth
+         */
+        public double averageQueueDepth() {
+            long samples = depthSamples.sum();
+            return samples > 0 ? (double) depthTotal.sum() / samples : 0.0;
+        }
+
+        public int getMaxQueueDepth() {
+            return maxDepth.get();
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        private double share(long nanos, long elapsedNanos) {
+            return threads > 0 && elapsedNanos > 0 ? Math.min(1.0, (double) nanos / threads / elapsedNanos) : 0.0;
+        }
+    }
+
+    /**
+     * Outcome of a pipeline run: the usual batch summary plus per-stage counters.
+     *
+     * @param batch listing results, with latencies from entering the pipeline to the deck being written
+     * @param stages counters per stage, in pipeline order
+     * @param elapsedNanos wall-clock duration of the run
+     */
+    public record PipelineSummary(BatchRenderer.BatchSummary batch, List<StageStats> stages, long elapsedNanos) {
+
+        /**
+         * Prints the batch summary followed by one line per stage.
+         *
+         * @param out the stream to print to
+         */
+        public void printTo(PrintStream out) {
+            batch.printTo(out);
+            out.println("Stage    threads  items     busy  blocked  queue avg/max/cap");
+            for (StageStats stage : stages) {
+                String queue = stage.inline ? "-" : String.format(Locale.ROOT, "%.1f/%d/%d",
+                        stage.averageQueueDepth(), stage.getMaxQueueDepth(), stage.getQueueCapacity());
+                out.printf(Locale.ROOT, "%-8s %7d %6d %7.0f%% %7.0f%%  %s%n", stage.getStage().getLabel(),
+                    stage.getThreads(), stage.getItems(), stage.utilization(elapsedNanos) * 100,
+                    stage.blockedShare(elapsedNanos) * 100, queue);
+            }
+        }
+    }
+}
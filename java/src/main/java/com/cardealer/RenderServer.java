@@ -0,0 +1,413 @@
+package com.cardealer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Embedded HTTP server that renders listing JSON into PPTX decks inside a long-running JVM,
+ * avoiding a cold start per deck.
+ *
+ * <p>{@code POST /render} takes a listing JSON body and answers with the PPTX bytes;
+ * {@code GET /health} answers {@code ok}; {@code GET /stats} reports render and cache counters;
+ * {@code GET /metrics} exports {@link RenderMetrics#global()} in the Prometheus text format,
+ * warm-up renders included. Each request is handled on its own virtual thread when the runtime
+ * provides them (Java 21+), otherwise on a cached pool of platform threads. Renders
+ * run on a fixed pool of platform threads, one per allowed concurrent render, so the per-thread
+ * state of the render modes (template skeletons, deflaters) is built once per worker and reused
+ * rather than rebuilt for every request thread. A request that cannot get a render slot within
+ * the queue timeout is rejected with 503. With a {@link RenderCache}, memory hits are answered
+ * straight away without waiting for a render slot.
+ *
+ * <p>{@link #start()} warms every render worker up with throwaway renders before the server
+ * accepts connections, so POI's classes are loaded and the hot paths compiled before the first
+ * real request arrives.
+ */
+public class RenderServer implements AutoCloseable {
+
+    /** Content type of a PPTX package. */
+    static final String PPTX_CONTENT_TYPE =
+        "application/vnd.openxmlformats-officedocument.presentationml.presentation";
+
+    /** Largest listing body accepted, in bytes. */
+    static final int MAX_BODY_BYTES = 1 << 20;
+
+    private static final int STOP_DELAY_SECONDS = 2;
+
+    private final PresentationBuilder builder;
+    private final InetSocketAddress address;
+    private final int maxConcurrentRenders;
+    private final long queueTimeoutMillis;
+    private final int warmupRenders;
+    private final RenderCache cache;
+    private final Semaphore renderSlots;
+    private final AtomicInteger completed = new AtomicInteger();
+    private final AtomicInteger rejected = new AtomicInteger();
+
+    private HttpServer server;
+    private ExecutorService requestExecutor;
+    private ExecutorService renderExecutor;
+    private volatile boolean virtualThreads;
+
+    /**
+     * Creates a server; nothing is bound until {@link #start()}.
+     *
+     * @param builder the presentation builder used for every request
+     * @param address the address to listen on
+     * @param maxConcurrentRenders renders allowed to run at once (must be positive)
+     * @param queueTimeoutMillis how long a request may wait for a render slot (must not be negative)
+     * @param warmupRenders throwaway renders per worker at startup (must not be negative)
+     * @throws IllegalArgumentException if a limit is out of range
+     */
+    public RenderServer(PresentationBuilder builder, InetSocketAddress address, int maxConcurrentRenders,
+                        long queueTimeoutMillis, int warmupRenders) {
+        this(builder, address, maxConcurrentRenders, queueTimeoutMillis, warmupRenders, null);
+    }
+
+    /**
+     * Creates a server that serves repeat listings from a render cache; nothing is bound until
+     * {@link #start()}.
+     *
+     * @param builder the presentation builder used for every request
+     * @param address the address to listen on
+     * @param maxConcurrentRenders renders allowed to run at once (must be positive)
+     * @param queueTimeoutMillis how long a request may wait for a render slot (must not be negative)
+     * @param warmupRenders throwaway renders per worker at startup (must not be negative)
+     * @param cache the render cache, or null to always render
+     * @throws IllegalArgumentException if a limit is out of range
+     */
+    public RenderServer(PresentationBuilder builder, InetSocketAddress address, int maxConcurrentRenders,
+                        long queueTimeoutMillis, int warmupRenders, RenderCache cache) {
+        this.builder = Objects.requireNonNull(builder, "Builder cannot be null");
+        this.address = Objects.requireNonNull(address, "Address cannot be null");
+        if (maxConcurrentRenders < 1) {
+            throw new IllegalArgumentException("Concurrent render limit must be at least 1, got: " + maxConcurrentRenders);
+        }
+        if (queueTimeoutMillis < 0) {
+            throw new IllegalArgumentException("Queue timeout cannot be negative, got: " + queueTimeoutMillis);
+        }
+        if (warmupRenders < 0) {
+            throw new IllegalArgumentException("Warm-up render count cannot be negative, got: " + warmupRenders);
+        }
+        this.maxConcurrentRenders = maxConcurrentRenders;
+        this.queueTimeoutMillis = queueTimeoutMillis;
+        this.warmupRenders = warmupRenders;
+        this.cache = cache;
+        this.renderSlots = new Semaphore(maxConcurrentRenders, true);
+    }
+
+    /**
+     * Warms up the render workers, then binds the socket and starts accepting requests.
+     *
+     * @throws IOException if the socket cannot be bound
+     * @throws InterruptedException if interrupted during warm-up
+     * @throws IllegalStateException if the server was already started
+     */
+    public void start() throws IOException, InterruptedException {
+        if (server != null) {
+            throw new IllegalStateException("Server already started");
+        }
+        renderExecutor = Executors.newFixedThreadPool(maxConcurrentRenders, new NamedThreadFactory("render-worker-"));
+        warmUp();
+
+        requestExecutor = newRequestExecutor();
+        server = HttpServer.create(address, 0);
+        server.createContext("/render", this::handleRender);
+        server.createContext("/health", this::handleHealth);
+        server.createContext("/stats", this::handleStats);
+        server.createContext("/metrics", this::handleMetrics);
+        server.setExecutor(requestExecutor);
+        server.start();
+    }
+
+    /**
+     * Returns the bound address, which carries the actual port when started on port 0.
+     *
+     * @return the listening address
+     * @throws IllegalStateException if the server is not started
+     */
+    public InetSocketAddress getAddress() {
+        if (server == null) {
+            throw new IllegalStateException("Server not started");
+        }
+        return server.getAddress();
+    }
+
+    /**
+     * Returns whether request threads are virtual.
+     *
+     * @return true when running one virtual thread per request; false before {@link #start()}
+     */
+    public boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * Returns the number of decks rendered successfully since start.
+     *
+     * @return completed render count
+     */
+    public int completedRenders() {
+        return completed.get();
+    }
+
+    /**
+     * Returns the number of requests turned away because no render slot became free in time.
+     *
+     * @return rejected request count
+     */
+    public int rejectedRequests() {
+        return rejected.get();
+    }
+
+    /**
+     * Stops accepting requests, lets in-flight exchanges finish briefly and shuts the pools down.
+     */
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(STOP_DELAY_SECONDS);
+        }
+        if (requestExecutor != null) {
+            requestExecutor.shutdownNow();
+        }
+        if (renderExecutor != null) {
+            renderExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs the warm-up renders on every render worker. The barrier keeps each worker busy until
+     * all of them have picked up a warm-up task, so no worker is skipped.
+     */
+    private void warmUp() throws InterruptedException {
+        if (warmupRenders == 0) {
+            return;
+        }
+        byte[] json = "{}".getBytes(StandardCharsets.UTF_8);
+        CyclicBarrier allWorkers = new CyclicBarrier(maxConcurrentRenders);
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int i = 0; i < maxConcurrentRenders; i++) {
+            tasks.add(renderExecutor.submit(() -> {
+                allWorkers.await();
+                for (int n = 0; n < warmupRenders; n++) {
+                    builder.renderToBuffer(ListingJsonReader.read(json));
+                }
+                return null;
+            }));
+        }
+        for (Future<?> task : tasks) {
+            try {
+                task.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Warm-up render failed", e.getCause());
+            }
+        }
+    }
+
+    private void handleHealth(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendText(exchange, 405, "Method not allowed");
+                return;
+            }
+            sendText(exchange, 200, "ok");
+        }
+    }
+
+    private void handleStats(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendText(exchange, 405, "Method not allowed");
+                return;
+            }
+            ByteArrayOutputStream report = new ByteArrayOutputStream();
+            PrintStream out = new PrintStream(report, true, StandardCharsets.UTF_8);
+            out.printf("Rendered %d decks, rejected %d requests%n", completed.get(), rejected.get());
+            if (cache != null) {
+                cache.stats().printTo(out);
+            }
+            sendText(exchange, 200, report.toString(StandardCharsets.UTF_8).stripTrailing());
+        }
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendText(exchange, 405, "Method not allowed");
+                return;
+            }
+            StringWriter text = new StringWriter();
+            RenderMetrics.global().writePrometheus(text);
+            byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    private void handleRender(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            respondToRender(exchange);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void respondToRender(HttpExchange exchange) throws IOException, InterruptedException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            exchange.getResponseHeaders().set("Allow", "POST");
+            sendText(exchange, 405, "Method not allowed");
+            return;
+        }
+
+        byte[] body = readBody(exchange.getRequestBody());
+        if (body == null) {
+            sendText(exchange, 413, "Listing JSON exceeds " + MAX_BODY_BYTES + " bytes");
+            return;
+        }
+
+        VehicleListing vehicle;
+        try {
+            vehicle = ListingJsonReader.read(body);
+        } catch (JsonProcessingException e) {
+            sendText(exchange, 400, "Invalid JSON: " + e.getOriginalMessage());
+            return;
+        } catch (IllegalArgumentException e) {
+            sendText(exchange, 400, e.getMessage());
+            return;
+        }
+        // Photo paths name files on this machine; never let a client choose which ones are read
+        vehicle.setPhotos(null);
+
+        byte[] pptx = cache != null ? cache.cached(vehicle) : null;
+        if (pptx != null) {
+            sendDeck(exchange, pptx);
+            return;
+        }
+
+        if (!renderSlots.tryAcquire(queueTimeoutMillis, TimeUnit.MILLISECONDS)) {
+            rejected.incrementAndGet();
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            sendText(exchange, 503, "All render slots are busy");
+            return;
+        }
+        try {
+            pptx = renderExecutor.submit(() -> render(vehicle)).get();
+        } catch (ExecutionException e) {
+            sendError(exchange, e.getCause());
+            return;
+        } finally {
+            renderSlots.release();
+        }
+
+        completed.incrementAndGet();
+        sendDeck(exchange, pptx);
+    }
+
+    private static void sendDeck(HttpExchange exchange, byte[] pptx) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", PPTX_CONTENT_TYPE);
+        exchange.getResponseHeaders().set("Content-Disposition", "attachment; filename=\"listing.pptx\"");
+        exchange.sendResponseHeaders(200, pptx.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(pptx);
+        }
+    }
+
+    private byte[] render(VehicleListing vehicle) throws IOException {
+        if (cache != null) {
+            return cache.render(vehicle);
+        }
+        return builder.renderToBytes(vehicle);
+    }
+
+    /**
+     * Reads the request body, or returns null once it grows past {@link #MAX_BODY_BYTES}.
+     */
+    private static byte[] readBody(InputStream in) throws IOException {
+        byte[] body = in.readNBytes(MAX_BODY_BYTES + 1);
+        return body.length > MAX_BODY_BYTES ? null : body;
+    }
+
+    private static void sendError(HttpExchange exchange, Throwable error) throws IOException {
+        if (System.getProperty("debug") != null) {
+            error.printStackTrace();
+        }
+        sendText(exchange, 500, "Render failed: " + error.getMessage());
+    }
+
+    private static void sendText(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] bytes = (message + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Creates an executor running each task on a new virtual thread, or null when the runtime
+     * has none. The Java 21 API is looked up reflectively because the project compiles for 17.
+     */
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object threadBuilder = Thread.class.getMethod("ofVirtual").invoke(null);
+            threadBuilder = builderType.getMethod("name", String.class, long.class)
+                .invoke(threadBuilder, "render-request-", 1L);
+            ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(threadBuilder);
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                .invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private ExecutorService newRequestExecutor() {
+        ExecutorService virtual = virtualThreadExecutor();
+        virtualThreads = virtual != null;
+        return virtual != null ? virtual : Executors.newCachedThreadPool(new NamedThreadFactory("render-request-"));
+    }
+
+    /**
+     * Names daemon threads so they are identifiable in thread dumps.
+     */
+    private static final class NamedThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        NamedThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
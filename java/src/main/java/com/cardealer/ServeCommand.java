@@ -0,0 +1,96 @@
+package com.cardealer;
+
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+import java.io.File;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * The {@code serve} subcommand: runs a {@link RenderServer} until the process is stopped.
+ */
+@Command(name = "serve",
+         description = "Run an HTTP server that renders POSTed listing JSON into PPTX",
+         mixinStandardHelpOptions = true)
+public class ServeCommand implements Callable<Integer> {
+
+    @Option(names = "--host", description = "Address to bind (default: ${DEFAULT-VALUE})", defaultValue = "127.0.0.1")
+    private String host;
+
+    @Option(names = "--port", description = "Port to listen on, 0 for any free port (default: ${DEFAULT-VALUE})",
+            defaultValue = "8080")
+    private int port;
+
+    @Option(names = "--max-concurrent", description = "Renders allowed to run at once (default: available processors)")
+    private Integer maxConcurrent;
+
+    @Option(names = "--queue-timeout-ms",
+            description = "How long a request waits for a render slot before a 503 (default: ${DEFAULT-VALUE})",
+            defaultValue = "30000")
+    private long queueTimeoutMillis;
+
+    @Option(names = "--warmup", description = "Throwaway renders per worker before accepting requests (default: ${DEFAULT-VALUE})",
+            defaultValue = "50")
+    private int warmupRenders;
+
+    @Option(names = "--render-mode", description = "Rendering strategy: ${COMPLETION-CANDIDATES} (default: ${DEFAULT-VALUE})",
+            defaultValue = "DIRECT")
+    private RenderMode renderMode;
+
+    @Option(names = "--compression", paramLabel = "<policy>",
+            description = "PPTX compression: poi, stored, deflate[:level] or parallel[:level] (default: ${DEFAULT-VALUE})",
+            defaultValue = "poi")
+    private String compression;
+
+    @Option(names = "--cache-mb", description = "Megabytes of rendered decks cached in memory, 0 to disable (default: ${DEFAULT-VALUE})",
+            defaultValue = "64")
+    private int cacheMegabytes;
+
+    @Option(names = "--cache-dir", description = "Directory for an on-disk render cache that survives restarts")
+    private File cacheDir;
+
+    @Override
+    public Integer call() {
+        int concurrency = maxConcurrent != null ? maxConcurrent : Runtime.getRuntime().availableProcessors();
+        try {
+            PresentationBuilder builder = new PresentationBuilder(renderMode, CompressionPolicy.parse(compression));
+            RenderCache cache = cacheMegabytes > 0 || cacheDir != null
+                ? new RenderCache(builder, cacheMegabytes * 1024L * 1024L, cacheDir != null ? cacheDir.toPath() : null)
+                : null;
+            RenderServer server = new RenderServer(builder, new InetSocketAddress(host, port), concurrency,
+                queueTimeoutMillis, warmupRenders, cache);
+
+            long started = System.nanoTime();
+            server.start();
+            System.out.printf("Warmed up %d render workers in %.2f s%n", concurrency, (System.nanoTime() - started) / 1e9);
+            System.out.printf("Serving on http://%s:%d (POST /render, GET /health, GET /stats, GET /metrics) using %s request threads%n",
+                host, server.getAddress().getPort(), server.usesVirtualThreads() ? "virtual" : "platform");
+
+            CountDownLatch stopped = new CountDownLatch(1);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                server.close();
+                if (cache != null) {
+                    cache.stats().printTo(System.out);
+                }
+                stopped.countDown();
+            }, "render-server-shutdown"));
+            stopped.await();
+            return CommandLine.ExitCode.OK;
+        } catch (IllegalArgumentException e) {
+            System.err.println("Validation error: " + e.getMessage());
+            return CommandLine.ExitCode.USAGE;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CommandLine.ExitCode.SOFTWARE;
+        } catch (Exception e) {
+            System.err.println("Error: " + e.getMessage());
+            if (System.getProperty("debug") != null) {
+                e.printStackTrace();
+            }
+            return CommandLine.ExitCode.SOFTWARE;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.cardealer;
+
+import org.apache.poi.sl.draw.Drawable;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFSlide;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.GraphicsEnvironment;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Rasterizes the slides of a freshly built deck to PNG previews, and optionally to a PDF, using
+ * POI's own Graphics2D rendering.
+ *
+ * <p>The exporter works on the {@link XMLSlideShow} that {@link PresentationBuilder} has just
+ * populated, so the PPTX package is never parsed back. For a deck written to {@code foo.pptx} the
+ * first slide becomes {@code foo.png}, later slides {@code foo-2.png}, {@code foo-3.png} and so
+ * on, and the PDF, if enabled, {@code foo.pdf} with one page per slide. Files are written
+ * atomically like the deck itself.
+ *
+ * <p>Rendering needs no display. Theme fonts that are not installed, such as Calibri on a Linux
+ * server, are mapped to an installed substitute with similar metrics where one exists and to
+ * the JDK's logical fonts otherwise, so previews look the same on every host with the same
+ * fonts. Run with {@code -Djava.awt.headless=true} when embedding; the CLI sets it itself.
+ *
+ * <p>Instances are immutable and safe to share between threads; each call renders on the calling
+ * thread, so batch renders produce previews in parallel across the batch workers.
+ */
+public final class SlidePreviewExporter {
+
+    /** Resolution used when none is configured. */
+    public static final int DEFAULT_DPI = 96;
+
+    /** Highest accepted resolution; a 10x7.5 inch slide is 27 MB of raster at this setting. */
+    public static final int MAX_DPI = 300;
+
+    private static final int POINTS_PER_INCH = 72;
+
+    /**
+     * Substitutes tried in order for fonts that decks commonly reference, ending with the JDK
+     * logical font that always exists.
+     */
+    private static final String[][] FONT_SUBSTITUTES = {
+        {"Calibri", "Carlito", "Liberation Sans", "DejaVu Sans", "SansSerif"},
+        {"Calibri Light", "Carlito", "Liberation Sans", "DejaVu Sans", "SansSerif"},
+        {"Arial", "Liberation Sans", "Arimo", "DejaVu Sans", "SansSerif"},
+        {"Helvetica", "Liberation Sans", "Arimo", "DejaVu Sans", "SansSerif"},
+        {"Segoe UI", "Liberation Sans", "DejaVu Sans", "SansSerif"},
+        {"Cambria", "Caladea", "Liberation Serif", "DejaVu Serif", "Serif"},
+        {"Times New Roman", "Liberation Serif", "Tinos", "DejaVu Serif", "Serif"},
+        {"Courier New", "Liberation Mono", "Cousine", "DejaVu Sans Mono", "Monospaced"}
+    };
+
+    private final int dpi;
+    private final boolean pdf;
+
+    /**
+     * Creates an exporter writing PNG previews only, at the default resolution.
+     */
+    public SlidePreviewExporter() {
+        this(DEFAULT_DPI, false);
+    }
+
+    /**
+     * Creates an exporter.
+     *
+     * @param dpi preview resolution in dots per inch, from 1 to {@link #MAX_DPI}
+     * @param pdf whether to also write a PDF of the slides
+     * @throws IllegalArgumentException if dpi is out of range
+     */
+    public SlidePreviewExporter(int dpi, boolean pdf) {
+        if (dpi < 1 || dpi > MAX_DPI) {
+            throw new IllegalArgumentException("Preview DPI must be between 1 and " + MAX_DPI + ", got: " + dpi);
+        }
+        this.dpi = dpi;
+        this.pdf = pdf;
+    }
+
+    public int getDpi() {
+        return dpi;
+    }
+
+    public boolean isPdf() {
+        return pdf;
+    }
+
+    /**
+     * Renders every slide of a deck and writes the previews next to the deck's path.
+     *
+     * @param pptx the populated slideshow; only read
+     * @param deckPath the path the deck is written to, which names the preview files
+     * @return the files written, slide PNGs in order followed by the PDF if enabled
+     * @throws IOException if a preview cannot be written
+     */
+    List<Path> export(XMLSlideShow pptx, Path deckPath) throws IOException {
+        Dimension pageSize = pptx.getPageSize();
+        String baseName = baseName(deckPath);
+        List<XSLFSlide> slides = pptx.getSlides();
+        ImagePdfWriter pdfWriter = pdf ? new ImagePdfWriter() : null;
+        List<Path> written = new ArrayList<>(slides.size() + 1);
+        for (int i = 0; i < slides.size(); i++) {
+            BufferedImage image = render(slides.get(i), pageSize);
+            Path png = deckPath.resolveSibling(i == 0 ? baseName + ".png" : baseName + "-" + (i + 1) + ".png");
+            AtomicFileWriter.write(png, encodePng(image));
+            written.add(png);
+            if (pdfWriter != null) {
+                pdfWriter.addPage(image, pageSize.getWidth(), pageSize.getHeight());
+            }
+        }
+        if (pdfWriter != null) {
+            Path pdfPath = deckPath.resolveSibling(baseName + ".pdf");
+            AtomicFileWriter.write(pdfPath, pdfWriter.finish());
+            written.add(pdfPath);
+        }
+        return written;
+    }
+
+    /**
+     * Draws one slide onto a white raster at the exporter's resolution.
+     *
+     * @param slide the slide to draw
+     * @param pageSize the slide size in points
+     * @return the image
+     */
+    BufferedImage render(XSLFSlide slide, Dimension pageSize) {
+        double scale = (double) dpi / POINTS_PER_INCH;
+        int width = Math.max(1, (int) Math.round(pageSize.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(pageSize.getHeight() * scale));
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+            graphics.setRenderingHint(Drawable.FONT_MAP, FontMap.INSTANCE);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.scale(scale, scale);
+            slide.draw(graphics);
+        } finally {
+            graphics.dispose();
+        }
+        return image;
+    }
+
+    /**
+     * Lists the preview files present next to a deck, whatever settings wrote them.
+     *
+     * @param deckPath the deck's path
+     * @return the slide PNGs and PDF that exist
+     * @throws IOException if the directory cannot be listed
+     */
+    static List<Path> existingPreviews(Path deckPath) throws IOException {
+        String baseName = baseName(deckPath);
+        List<Path> found = new ArrayList<>();
+        for (String name : new String[] {baseName + ".png", baseName + ".pdf"}) {
+            Path path = deckPath.resolveSibling(name);
+            if (Files.exists(path)) {
+                found.add(path);
+            }
+        }
+        for (int slide = 2; ; slide++) {
+            Path path = deckPath.resolveSibling(baseName + "-" + slide + ".png");
+            if (!Files.exists(path)) {
+                return found;
+            }
+            found.add(path);
+        }
+    }
+
+    private static ByteBuffer encodePng(BufferedImage image) throws IOException {
+        ByteArrayOutputStream png = new ByteArrayOutputStream(image.getWidth() * image.getHeight() / 4);
+        if (!ImageIO.write(image, "png", png)) {
+            throw new IOException("No PNG writer available");
+        }
+        return ByteBuffer.wrap(png.toByteArray());
+    }
+
+    private static String baseName(Path deckPath) {
+        String name = deckPath.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+
+    /**
+     * Maps each font in {@link #FONT_SUBSTITUTES} that is not installed to its first installed
+     * substitute. Built once, as listing the installed fonts is slow.
+     */
+    private static final class FontMap {
+        private static final Map<String, String> INSTANCE = build();
+
+        private static Map<String, String> build() {
+            String[] families = GraphicsEnvironment.getLocalGraphicsEnvironment().getAvailableFontFamilyNames(Locale.ROOT);
+            Set<String> installed = new HashSet<>(Arrays.asList(families));
+            Map<String, String> map = new HashMap<>();
+            for (String[] substitutes : FONT_SUBSTITUTES) {
+                if (installed.contains(substitutes[0])) {
+                    continue;
+                }
+                String substitute = substitutes[substitutes.length - 1];
+                for (int i = 1; i < substitutes.length - 1; i++) {
+                    if (installed.contains(substitutes[i])) {
+                        substitute = substitutes[i];
+                        break;
+                    }
+                }
+                map.put(substitutes[0], substitute);
+            }
+            return Map.copyOf(map);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.cardealer;
+
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFShape;
+import org.apache.poi.xslf.usermodel.XSLFSlide;
+import org.apache.poi.xslf.usermodel.XSLFTable;
+import org.apache.poi.xslf.usermodel.XSLFTextParagraph;
+import org.apache.poi.xslf.usermodel.XSLFTextRun;
+import org.apache.poi.xslf.usermodel.XSLFTextShape;
+import org.openxmlformats.schemas.presentationml.x2006.main.CTGroupShape;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A fully styled slide skeleton built once by {@link PresentationBuilder} and cloned per listing.
+ * Geometry, fills, insets and run properties are copied verbatim from the skeleton, so only the
+ * text of each run needs to change. The shape tree is copied as XML, which skips the per-shape
+ * styling calls the direct path performs for every listing.
+ *
+ * <p>XMLBeans serializes access to a document, so each thread keeps its own skeleton rather than
+ * contending on a shared one.
+ */
+final class SlideTemplate {
+
+    private static final ThreadLocal<SlideTemplate> PER_THREAD = ThreadLocal.withInitial(SlideTemplate::new);
+
+    // Shape order produced by PresentationBuilder.populateSlide
+    private static final int DEALER_NAME_SHAPE = 0;
+    private static final int PRICE_SHAPE = 1;
+    private static final int TITLE_SHAPE = 2;
+    private static final int TABLE_SHAPE = 3;
+    private static final int CONTACT_SHAPE = 4;
+
+    private final CTGroupShape skeleton;
+
+    private SlideTemplate() {
+        // The skeleton slideshow is never written; keeping it open pins the shape tree
+        @SuppressWarnings("resource")
+        XMLSlideShow pptx = new XMLSlideShow();
+        XSLFSlide slide = pptx.createSlide();
+        new PresentationBuilder().populateSlide(slide, VehicleListing.fromMap(Map.of()));
+        this.skeleton = slide.getXmlObject().getCSld().getSpTree();
+    }
+
+    /**
+     * Returns the skeleton owned by the calling thread, building it on first use.
+     *
+     * @return the thread's slide template
+     */
+    static SlideTemplate forCurrentThread() {
+        return PER_THREAD.get();
+    }
+
+    /**
+     * Number of text slots in the skeleton: dealer name, price, title, one value per
+     * specification row and the contact line.
+     */
+    static final int SLOT_COUNT = 4 + PresentationBuilder.SPECIFICATION_LABELS.length;
+
+    /**
+     * Returns the text for every slot of a listing, in skeleton order.
+     *
+     * @param vehicle the vehicle listing
+     * @return slot texts, {@link #SLOT_COUNT} entries long
+     */
+    static String[] slotTexts(VehicleListing vehicle) {
+        String[] values = PresentationBuilder.specificationValues(vehicle);
+        String[] slots = new String[SLOT_COUNT];
+        slots[0] = vehicle.getDealer().name();
+        slots[1] = vehicle.getPrice();
+        slots[2] = vehicle.getTitle();
+        System.arraycopy(values, 0, slots, 3, values.length);
+        slots[SLOT_COUNT - 1] = PresentationBuilder.contactText(vehicle.getDealer());
+        return slots;
+    }
+
+    /**
+     * Replaces the shape tree of an empty slide with a copy of the skeleton and fills in the
+     * listing's text.
+     *
+     * @param slide a newly created slide with no shapes
+     * @param vehicle the vehicle listing
+     */
+    void applyTo(XSLFSlide slide, VehicleListing vehicle) {
+        applyTo(slide, slotTexts(vehicle));
+    }
+
+    /**
+     * Replaces the shape tree of an empty slide with a copy of the skeleton and fills each
+     * text slot.
+     *
+     * @param slide a newly created slide with no shapes
+     * @param slots slot texts in the order returned by {@link #slotTexts(VehicleListing)}
+     */
+    void applyTo(XSLFSlide slide, String[] slots) {
+        if (slots.length != SLOT_COUNT) {
+            throw new IllegalArgumentException("Expected " + SLOT_COUNT + " slot texts, got: " + slots.length);
+        }
+        slide.getXmlObject().getCSld().getSpTree().set(skeleton);
+
+        List<XSLFShape> shapes = slide.getShapes();
+        setText((XSLFTextShape) shapes.get(DEALER_NAME_SHAPE), slots[0]);
+        setText((XSLFTextShape) shapes.get(PRICE_SHAPE), slots[1]);
+        setText((XSLFTextShape) shapes.get(TITLE_SHAPE), slots[2]);
+
+        XSLFTable table = (XSLFTable) shapes.get(TABLE_SHAPE);
+        for (int row = 0; row < SLOT_COUNT - 4; row++) {
+            setText(table.getCell(row, 1), slots[3 + row]);
+        }
+
+        setText((XSLFTextShape) shapes.get(CONTACT_SHAPE), slots[SLOT_COUNT - 1]);
+    }
+
+    /**
+     * Sets the text of the styled run in a skeleton shape. Text boxes start with an empty
+     * default paragraph, so the styled run is the first run of the last paragraph.
+     *
+     * @param shape the text shape or table cell
+     * @param text the replacement text, or null for none
+     */
+    private static void setText(XSLFTextShape shape, String text) {
+        List<XSLFTextParagraph> paragraphs = shape.getTextParagraphs();
+        if (!paragraphs.isEmpty()) {
+            List<XSLFTextRun> runs = paragraphs.get(paragraphs.size() - 1).getTextRuns();
+            if (!runs.isEmpty()) {
+                runs.get(0).setText(Objects.toString(text, ""));
+                return;
+            }
+        }
+        throw new IllegalStateException("Template shape has no text run: " + shape.getShapeName());
+    }
+}
@@ -0,0 +1,320 @@
+package com.cardealer;
+
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFSlide;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Writes the single-slide listing deck as a ZIP package directly, bypassing POI's object model.
+ *
+ * <p>A reference deck is rendered through POI once, with a sentinel string in every text slot.
+ * Every part except the slide (content types, relationships, theme, master, layouts, document
+ * properties) never changes between listings, so those parts are deflated once and copied
+ * verbatim into each output. The slide XML is split at the sentinels into fixed fragments, and
+ * each render streams those fragments interleaved with the escaped listing text. The resulting
+ * slide XML matches the POI output for the same listing.
+ *
+ * <p>Instances are immutable and safe to share between threads.
+ */
+final class StreamingPptxWriter {
+
+    /** Name of the slide part inside the package. */
+    static final String SLIDE_PART = "ppt/slides/slide1.xml";
+
+    private static final String SENTINEL_PREFIX = "__CARDEALER_SLOT_";
+    private static final String SENTINEL_SUFFIX = "__";
+
+    private static final ThreadLocal<Deflater> DEFLATERS =
+        ThreadLocal.withInitial(() -> new Deflater(Deflater.DEFAULT_COMPRESSION, true));
+
+    private final List<ZipPackageWriter.PackedPart> parts;
+    private final Map<String, byte[]> contents;
+    private final int slidePosition;
+    private final byte[][] slideFragments;
+    private final LocalDateTime modified;
+
+    private StreamingPptxWriter(List<ZipPackageWriter.PackedPart> parts, Map<String, byte[]> contents,
+                                int slidePosition, byte[][] slideFragments, LocalDateTime modified) {
+        this.parts = parts;
+        this.contents = contents;
+        this.slidePosition = slidePosition;
+        this.slideFragments = slideFragments;
+        this.modified = modified;
+    }
+
+    /**
+     * Returns the process-wide writer, building the reference package on first use.
+     *
+     * @return the shared writer
+     */
+    static StreamingPptxWriter shared() {
+        return Holder.INSTANCE;
+    }
+
+    private static final class Holder {
+        private static final StreamingPptxWriter INSTANCE = create();
+    }
+
+    /**
+     * Renders the reference deck through POI and splits it into packed invariant parts and
+     * slide fragments.
+     *
+     * @return a new writer
+     * @throws UncheckedIOException if the reference deck cannot be produced
+     */
+    static StreamingPptxWriter create() {
+        String[] sentinels = new String[SlideTemplate.SLOT_COUNT];
+        for (int i = 0; i < sentinels.length; i++) {
+            sentinels[i] = sentinel(i);
+        }
+
+        Map<String, byte[]> contents = renderReferencePackage(
+            slide -> SlideTemplate.forCurrentThread().applyTo(slide, sentinels));
+
+        List<ZipPackageWriter.PackedPart> parts = new ArrayList<>();
+        int slidePosition = -1;
+        byte[][] fragments = null;
+        for (Map.Entry<String, byte[]> entry : contents.entrySet()) {
+            if (SLIDE_PART.equals(entry.getKey())) {
+                slidePosition = parts.size();
+                fragments = splitAtSentinels(new String(entry.getValue(), StandardCharsets.UTF_8), sentinels);
+                parts.add(null);
+            } else {
+                parts.add(ZipPackageWriter.PackedPart.pack(entry.getKey(), entry.getValue(), Deflater.BEST_COMPRESSION));
+            }
+        }
+        if (fragments == null) {
+            throw new IllegalStateException("Reference package has no " + SLIDE_PART);
+        }
+        // The slide position holds null; write() streams the slide there instead
+        return new StreamingPptxWriter(Collections.unmodifiableList(parts), Collections.unmodifiableMap(contents),
+            slidePosition, fragments, LocalDateTime.now());
+    }
+
+    /**
+     * Returns the placeholder text written into slot {@code index} of a reference slide.
+     *
+     * @param index the slot index
+     * @return a sentinel that cannot collide with real listing text
+     */
+    static String sentinel(int index) {
+        return SENTINEL_PREFIX + index + SENTINEL_SUFFIX;
+    }
+
+    /**
+     * Saves a single-slide deck through POI and returns its uncompressed parts.
+     *
+     * @param populate adds the reference content to the blank slide
+     * @return part contents keyed by entry name, in package order
+     * @throws UncheckedIOException if the deck cannot be produced
+     */
+    static Map<String, byte[]> renderReferencePackage(Consumer<XSLFSlide> populate) {
+        ByteArrayOutputStream reference = new ByteArrayOutputStream();
+        try (XMLSlideShow pptx = new XMLSlideShow()) {
+            populate.accept(pptx.createSlide());
+            pptx.write(reference);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to render reference package", e);
+        }
+
+        Map<String, byte[]> contents = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(reference.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                contents.put(entry.getName(), zip.readAllBytes());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read reference package", e);
+        }
+        return contents;
+    }
+
+    /**
+     * Writes a complete PPTX package for the listing, deflating the slide at the default level.
+     *
+     * @param vehicle the vehicle listing
+     * @param out destination stream; flushed but not closed
+     * @throws IOException if writing fails
+     */
+    void write(VehicleListing vehicle, OutputStream out) throws IOException {
+        write(vehicle, out, CompressionPolicy.POI_DEFAULT);
+    }
+
+    /**
+     * Writes a complete PPTX package for the listing. The invariant parts are always copied as
+     * compressed at startup; the policy selects how the slide part is encoded.
+     *
+     * @param vehicle the vehicle listing
+     * @param out destination stream; flushed but not closed
+     * @param compression how the slide part is compressed
+     * @throws IOException if writing fails
+     */
+    void write(VehicleListing vehicle, OutputStream out, CompressionPolicy compression) throws IOException {
+        String[] slots = SlideTemplate.slotTexts(vehicle);
+        ZipPackageWriter zip = new ZipPackageWriter(out, modified);
+        for (int i = 0; i < parts.size(); i++) {
+            if (i != slidePosition) {
+                zip.writePacked(parts.get(i));
+            } else if (compression.getStrategy() == CompressionPolicy.Strategy.STORED) {
+                // Stored entries need their CRC and size in the header, so buffer the slide
+                ByteArrayOutputStream slide = new ByteArrayOutputStream(16 * 1024);
+                writeSlide(slots, slide);
+                zip.writePacked(ZipPackageWriter.PackedPart.stored(SLIDE_PART, slide.toByteArray()));
+            } else {
+                Deflater deflater = threadDeflater();
+                deflater.setLevel(compression.getLevel());
+                try (OutputStream slide = zip.beginDeflated(SLIDE_PART, deflater)) {
+                    writeSlide(slots, slide);
+                }
+            }
+        }
+        zip.finish();
+    }
+
+    /**
+     * Returns the calling thread's reusable raw deflater for streamed entries.
+     *
+     * @return a deflater owned by the current thread
+     */
+    static Deflater threadDeflater() {
+        return DEFLATERS.get();
+    }
+
+    /**
+     * Returns the pre-compressed invariant parts in package order, excluding the slide.
+     *
+     * @return the packed parts
+     */
+    List<ZipPackageWriter.PackedPart> invariantParts() {
+        List<ZipPackageWriter.PackedPart> invariant = new ArrayList<>(parts);
+        invariant.remove(slidePosition);
+        return invariant;
+    }
+
+    /**
+     * Returns the uncompressed content of a reference package part.
+     *
+     * @param name the part name
+     * @return the part content
+     * @throws IllegalArgumentException if the reference package has no such part
+     */
+    byte[] referenceContent(String name) {
+        byte[] content = contents.get(name);
+        if (content == null) {
+            throw new IllegalArgumentException("Reference package has no part: " + name);
+        }
+        return content;
+    }
+
+    /**
+     * Returns the timestamp recorded for the reference package entries.
+     *
+     * @return the modification time
+     */
+    LocalDateTime modified() {
+        return modified;
+    }
+
+    /**
+     * Streams the slide XML for one listing.
+     *
+     * @param slots slot texts in the order returned by {@link SlideTemplate#slotTexts(VehicleListing)}
+     * @param out the slide entry stream
+     * @throws IOException if writing fails
+     */
+    void writeSlide(String[] slots, OutputStream out) throws IOException {
+        writeFragments(slideFragments, slots, out);
+    }
+
+    /**
+     * Interleaves fixed XML fragments with escaped text.
+     *
+     * @param fragments fixed fragments, one more than there are texts
+     * @param texts the raw slot texts
+     * @param out the destination stream
+     * @throws IOException if writing fails
+     */
+    static void writeFragments(byte[][] fragments, String[] texts, OutputStream out) throws IOException {
+        StringBuilder escaped = new StringBuilder(128);
+        for (int i = 0; i < texts.length; i++) {
+            out.write(fragments[i]);
+            escaped.setLength(0);
+            appendEscaped(escaped, texts[i]);
+            out.write(escaped.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        out.write(fragments[texts.length]);
+    }
+
+    /**
+     * Appends text escaped for use as XML character data. Characters that XML 1.0 cannot
+     * represent are dropped so the package always parses.
+     *
+     * @param target the builder to append to
+     * @param text the raw text, or null for empty
+     */
+    static void appendEscaped(StringBuilder target, String text) {
+        if (text == null) {
+            return;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '&' -> target.append("&amp;");
+                case '<' -> target.append("&lt;");
+                case '>' -> target.append("&gt;");
+                default -> {
+                    if (Character.isHighSurrogate(c) && i + 1 < text.length()
+                            && Character.isLowSurrogate(text.charAt(i + 1))) {
+                        target.append(c).append(text.charAt(++i));
+                    } else if (isXmlChar(c)) {
+                        target.append(c);
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean isXmlChar(char c) {
+        return c == '\t' || c == '\n' || c == '\r'
+            || (c >= 0x20 && c <= 0xD7FF)
+            || (c >= 0xE000 && c <= 0xFFFD);
+    }
+
+    /**
+     * Splits reference XML into the fixed fragments around each sentinel.
+     *
+     * @param xml the reference XML
+     * @param sentinels sentinels in document order, each appearing exactly once
+     * @return the fragments, one more than there are sentinels
+     */
+    static byte[][] splitAtSentinels(String xml, String[] sentinels) {
+        byte[][] fragments = new byte[sentinels.length + 1][];
+        int start = 0;
+        for (int i = 0; i < sentinels.length; i++) {
+            int at = xml.indexOf(sentinels[i], start);
+            if (at < 0 || xml.indexOf(sentinels[i], at + sentinels[i].length()) >= 0) {
+                throw new IllegalStateException("Slot " + i + " must appear exactly once in the reference slide");
+            }
+            fragments[i] = xml.substring(start, at).getBytes(StandardCharsets.UTF_8);
+            start = at + sentinels[i].length();
+        }
+        fragments[sentinels.length] = xml.substring(start).getBytes(StandardCharsets.UTF_8);
+        return fragments;
+    }
+}
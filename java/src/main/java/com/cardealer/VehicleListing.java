@@ -13,6 +13,12 @@ import java.util.Objects;
  */
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class VehicleListing {
+
+    /**
+     * Value of {@link #getPricePence()}, {@link #getMileageMiles()}, {@link #getYearValue()} and
+     * {@link #getEngineCc()} when the display string holds no number that can be read as one.
+     */
+    public static final short NO_VALUE = -1;
     
     private String title;
     private String price;
@@ -26,13 +32,20 @@ public class VehicleListing {
     private String motExpiry;
     private String owners;
     private List<String> specs;
+    private List<String> photos;
     private DealerDetails dealer;
+    // Parsed from the display strings whenever they are set
+    private long pricePence = NO_VALUE;
+    private int mileageMiles = NO_VALUE;
+    private short yearValue = NO_VALUE;
+    private int engineCc = NO_VALUE;
 
     /**
      * Default constructor initializes with default values.
      */
     public VehicleListing() {
         this.specs = new ArrayList<>();
+        this.photos = new ArrayList<>();
         this.dealer = DealerDetails.DEFAULT;
         this.gearbox = GearboxType.AUTOMATIC;
         this.fuelType = FuelType.DIESEL;
@@ -61,17 +74,18 @@ public class VehicleListing {
                          UlezStatus ulez, String motExpiry, String owners, List<String> specs,
                          DealerDetails dealer) {
         this.title = title;
-        this.price = price;
+        setPrice(price);
         this.registration = registration;
-        this.year = year;
+        setYear(year);
         this.gearbox = Objects.requireNonNull(gearbox, "Gearbox cannot be null");
-        this.engineSize = engineSize;
+        setEngineSize(engineSize);
         this.fuelType = Objects.requireNonNull(fuelType, "Fuel type cannot be null");
-        this.mileage = mileage;
+        setMileage(mileage);
         this.ulez = Objects.requireNonNull(ulez, "ULEZ status cannot be null");
         this.motExpiry = motExpiry;
         this.owners = owners;
         this.specs = specs != null ? new ArrayList<>(specs) : new ArrayList<>();
+        this.photos = new ArrayList<>();
         this.dealer = dealer != null ? dealer : DealerDetails.DEFAULT;
     }
 
@@ -90,19 +104,19 @@ public class VehicleListing {
         VehicleListing vehicle = new VehicleListing();
         
         vehicle.title = getString(data, "title", PresentationConstants.Defaults.TITLE);
-        vehicle.price = getString(data, "price", PresentationConstants.Defaults.PRICE);
+        vehicle.setPrice(getString(data, "price", PresentationConstants.Defaults.PRICE));
         vehicle.registration = getString(data, "registration", PresentationConstants.Defaults.REGISTRATION);
-        vehicle.year = getString(data, "year", PresentationConstants.Defaults.YEAR);
+        vehicle.setYear(getString(data, "year", PresentationConstants.Defaults.YEAR));
         
         String gearboxStr = getString(data, "gearbox", GearboxType.AUTOMATIC.getDisplayName());
         vehicle.gearbox = GearboxType.fromStringOrDefault(gearboxStr, GearboxType.AUTOMATIC);
         
-        vehicle.engineSize = getString(data, "engine_size", PresentationConstants.Defaults.ENGINE_SIZE);
+        vehicle.setEngineSize(getString(data, "engine_size", PresentationConstants.Defaults.ENGINE_SIZE));
         
         String fuelTypeStr = getString(data, "fuel_type", FuelType.DIESEL.getDisplayName());
         vehicle.fuelType = FuelType.fromStringOrDefault(fuelTypeStr, FuelType.DIESEL);
         
-        vehicle.mileage = getString(data, "mileage", PresentationConstants.Defaults.MILEAGE);
+        vehicle.setMileage(getString(data, "mileage", PresentationConstants.Defaults.MILEAGE));
         
         String ulezStr = getString(data, "ulez", UlezStatus.UNKNOWN.getDisplayName());
         vehicle.ulez = UlezStatus.fromStringOrDefault(ulezStr, UlezStatus.UNKNOWN);
@@ -119,6 +133,15 @@ public class VehicleListing {
                 .collect(java.util.stream.Collectors.toCollection(ArrayList::new));
         }
         
+        @SuppressWarnings("unchecked")
+        List<Object> photosList = (List<Object>) data.get("photos");
+        if (photosList != null) {
+            vehicle.photos = photosList.stream()
+                .filter(Objects::nonNull)
+                .map(Object::toString)
+                .collect(java.util.stream.Collectors.toCollection(ArrayList::new));
+        }
+        
         @SuppressWarnings("unchecked")
         Map<String, Object> dealerMap = (Map<String, Object>) data.get("dealer");
         vehicle.dealer = DealerDetails.fromMap(dealerMap);
@@ -154,6 +177,17 @@ public class VehicleListing {
     
     public void setPrice(String price) { 
         this.price = price; 
+        this.pricePence = ListingNumbers.pence(price);
+    }
+
+    /**
+     * Returns the price in pence, parsed once from the display price, e.g. 1,200,000 for
+     * {@code "£12,000"}.
+     *
+     * @return the price in pence, or {@link #NO_VALUE} if the price has no amount
+     */
+    public long getPricePence() {
+        return pricePence;
     }
 
     public String getRegistration() { 
@@ -170,6 +204,17 @@ public class VehicleListing {
     
     public void setYear(String year) { 
         this.year = year; 
+        this.yearValue = ListingNumbers.year(year);
+    }
+
+    /**
+     * Returns the four-digit year at the start of the display year, e.g. 2016 for
+     * {@code "2016 (16 reg)"}.
+     *
+     * @return the year, or {@link #NO_VALUE} if the display year does not start with one
+     */
+    public short getYearValue() {
+        return yearValue;
     }
 
     public GearboxType getGearbox() { 
@@ -203,6 +248,17 @@ public class VehicleListing {
     
     public void setEngineSize(String engineSize) { 
         this.engineSize = engineSize; 
+        this.engineCc = ListingNumbers.cc(engineSize);
+    }
+
+    /**
+     * Returns the engine size in cc, parsed once from the display engine size, e.g. 2000 for
+     * {@code "2.0 L"} or 1998 for {@code "1998cc"}.
+     *
+     * @return the engine size in cc, or {@link #NO_VALUE} if it has no size in litres or cc
+     */
+    public int getEngineCc() {
+        return engineCc;
     }
 
     public FuelType getFuelType() { 
@@ -236,6 +292,17 @@ public class VehicleListing {
     
     public void setMileage(String mileage) { 
         this.mileage = mileage; 
+        this.mileageMiles = ListingNumbers.miles(mileage);
+    }
+
+    /**
+     * Returns the mileage in miles, parsed once from the display mileage, e.g. 71,980 for
+     * {@code "71,980"}.
+     *
+     * @return the miles, or {@link #NO_VALUE} if the mileage has no number
+     */
+    public int getMileageMiles() {
+        return mileageMiles;
     }
 
     public UlezStatus getUlez() { 
@@ -292,6 +359,19 @@ public class VehicleListing {
         this.specs = specs != null ? new ArrayList<>(specs) : new ArrayList<>(); 
     }
 
+    /**
+     * Returns an unmodifiable view of the photo file paths, in display order.
+     * 
+     * @return unmodifiable list of photo paths
+     */
+    public List<String> getPhotos() { 
+        return Collections.unmodifiableList(photos); 
+    }
+    
+    public void setPhotos(List<String> photos) { 
+        this.photos = photos != null ? new ArrayList<>(photos) : new ArrayList<>(); 
+    }
+
     public DealerDetails getDealer() { 
         return dealer; 
     }
@@ -0,0 +1,67 @@
+package com.cardealer;
+
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+import java.io.File;
+import java.util.concurrent.Callable;
+
+/**
+ * The {@code watch} subcommand: runs a {@link ListingWatcher} until the process is stopped.
+ */
+@Command(name = "watch",
+         description = "Watch a folder of listing JSON files and re-render only the listings that change",
+         mixinStandardHelpOptions = true)
+public class WatchCommand implements Callable<Integer> {
+
+    @Parameters(index = "0", paramLabel = "<dir>", description = "Folder of listing JSON files to watch")
+    private File watchDir;
+
+    @Option(names = "--output-dir", description = "Directory for generated decks (default: ${DEFAULT-VALUE})",
+            defaultValue = ".")
+    private File outputDir;
+
+    @Option(names = "--debounce-ms", description = "Quiet period before changes are processed (default: ${DEFAULT-VALUE})",
+            defaultValue = "500")
+    private long debounceMillis;
+
+    @Option(names = "--render-mode", description = "Rendering strategy: ${COMPLETION-CANDIDATES} (default: ${DEFAULT-VALUE})",
+            defaultValue = "DIRECT")
+    private RenderMode renderMode;
+
+    @Option(names = "--compression", paramLabel = "<policy>",
+            description = "PPTX compression: poi, stored, deflate[:level] or parallel[:level] (default: ${DEFAULT-VALUE})",
+            defaultValue = "poi")
+    private String compression;
+
+    @Option(names = "--photo-heap-mb",
+            description = "Megabytes of heap photos may occupy while being decoded and resized (default: ${DEFAULT-VALUE})",
+            defaultValue = "128")
+    private int photoHeapMegabytes;
+
+    @Override
+    public Integer call() {
+        try {
+            PhotoPipeline photoPipeline = new PhotoPipeline(photoHeapMegabytes * 1024L * 1024L,
+                Runtime.getRuntime().availableProcessors());
+            PresentationBuilder builder = new PresentationBuilder(renderMode, CompressionPolicy.parse(compression),
+                photoPipeline);
+            ListingWatcher watcher = new ListingWatcher(builder, watchDir.toPath(), outputDir.toPath(), debounceMillis,
+                System.out);
+            System.out.println("Watching " + watchDir + " for listing changes; output in " + outputDir);
+            watcher.run();
+            return CommandLine.ExitCode.OK;
+        } catch (IllegalArgumentException e) {
+            System.err.println("Validation error: " + e.getMessage());
+            return CommandLine.ExitCode.USAGE;
+        } catch (Exception e) {
+            System.err.println("Error: " + e.getMessage());
+            if (System.getProperty("debug") != null) {
+                e.printStackTrace();
+            }
+            return CommandLine.ExitCode.SOFTWARE;
+        }
+    }
+}
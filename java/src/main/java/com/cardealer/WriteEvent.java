@@ -0,0 +1,28 @@
+package com.cardealer;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event spanning the serialization of one deck to its destination stream.
+ * In streaming mode this covers the whole slide assembly as well.
+ */
+@Name("com.cardealer.Write")
+@Label("Deck Write")
+@Category({"Car Dealer", "Rendering"})
+@Description("PPTX package serialized and written to the destination")
+@StackTrace(false)
+final class WriteEvent extends Event {
+
+    @Label("Registration")
+    String registration;
+
+    @Label("Bytes Written")
+    @DataAmount
+    long bytesWritten;
+}
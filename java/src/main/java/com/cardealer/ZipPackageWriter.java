@@ -0,0 +1,368 @@
+package com.cardealer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Minimal ZIP writer for OOXML packages. Unlike {@link java.util.zip.ZipOutputStream} it can
+ * copy entries that were compressed ahead of time without inflating and re-deflating them,
+ * which lets invariant package parts be written as a plain byte copy.
+ *
+ * <p>Only the features an OOXML package needs are supported: stored and deflated entries,
+ * UTF-8 names and archives below 4 GB (no ZIP64). An entry that would take the archive past
+ * those limits fails before any of its fields is written, so a package never holds a truncated
+ * offset or size. Instances are not thread-safe.
+ */
+final class ZipPackageWriter implements AutoCloseable {
+
+    static final int METHOD_STORED = 0;
+    static final int METHOD_DEFLATED = 8;
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int DATA_DESCRIPTOR_SIGNATURE = 0x08074b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+    private static final int VERSION = 20;
+    private static final int FLAG_DATA_DESCRIPTOR = 1 << 3;
+    private static final int FLAG_UTF8_NAMES = 1 << 11;
+    private static final int CENTRAL_HEADER_SIZE = 46;
+    private static final long MAX_ZIP32_VALUE = 0xFFFFFFFFL;
+    private static final int MAX_ZIP32_ENTRIES = 0xFFFF;
+
+    private final OutputStream out;
+    private final int dosTime;
+    private final List<CentralEntry> entries = new ArrayList<>();
+    private final byte[] ioBuffer = new byte[8192];
+    private long offset;
+    private boolean finished;
+
+    /**
+     * Creates a writer; the caller keeps ownership of the stream, which is not closed.
+     *
+     * @param out the destination stream
+     * @param modified timestamp recorded for every entry
+     */
+    ZipPackageWriter(OutputStream out, LocalDateTime modified) {
+        this.out = out;
+        this.dosTime = toDosTime(modified);
+    }
+
+    /**
+     * A package part compressed ahead of time, ready to be copied into any archive.
+     *
+     * @param name entry name inside the package
+     * @param method {@link #METHOD_STORED} or {@link #METHOD_DEFLATED}
+     * @param crc CRC-32 of the uncompressed content
+     * @param size uncompressed size in bytes
+     * @param data entry payload exactly as it appears in the archive
+     */
+    record PackedPart(String name, int method, long crc, long size, byte[] data) {
+
+        /**
+         * Compresses a part once so it can be copied verbatim later.
+         *
+         * @param name entry name
+         * @param content uncompressed content
+         * @param level deflate level, or {@link Deflater#NO_COMPRESSION} to store
+         * @return the packed part
+         */
+        static PackedPart pack(String name, byte[] content, int level) {
+            if (level == Deflater.NO_COMPRESSION) {
+                return stored(name, content);
+            }
+            Deflater deflater = new Deflater(level, true);
+            try {
+                return pack(name, content, deflater);
+            } finally {
+                deflater.end();
+            }
+        }
+
+        /**
+         * Deflates a part with a caller-owned deflater, so repeated packing can reuse one.
+         *
+         * @param name entry name
+         * @param content uncompressed content
+         * @param deflater a raw ({@code nowrap}) deflater set to the wanted level; reset before use
+         *     and left open
+         * @return the packed part
+         */
+        static PackedPart pack(String name, byte[] content, Deflater deflater) {
+            CRC32 crc = new CRC32();
+            crc.update(content);
+            deflater.reset();
+            deflater.setInput(content);
+            deflater.finish();
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, content.length / 4));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                compressed.write(buffer, 0, n);
+            }
+            return new PackedPart(name, METHOD_DEFLATED, crc.getValue(), content.length, compressed.toByteArray());
+        }
+
+        /**
+         * Wraps a part that is stored without compression.
+         *
+         * @param name entry name
+         * @param content uncompressed content, used as the payload without copying
+         * @return the packed part
+         */
+        static PackedPart stored(String name, byte[] content) {
+            CRC32 crc = new CRC32();
+            crc.update(content);
+            return new PackedPart(name, METHOD_STORED, crc.getValue(), content.length, content);
+        }
+
+        /**
+         * Returns the same payload stored under another entry name.
+         *
+         * @param otherName the new entry name
+         * @return a packed part sharing this part's data
+         */
+        PackedPart withName(String otherName) {
+            return new PackedPart(otherName, method, crc, size, data);
+        }
+    }
+
+    /**
+     * Copies a pre-compressed part into the archive.
+     *
+     * @param part the packed part
+     * @throws IOException if writing fails
+     */
+    void writePacked(PackedPart part) throws IOException {
+        byte[] name = part.name().getBytes(StandardCharsets.UTF_8);
+        checkCanAdd(part.name(), name);
+        checkSize(part.name(), part.size());
+        long headerOffset = offset;
+        writeLocalHeader(name, FLAG_UTF8_NAMES, part.method(), part.crc(), part.data().length, part.size());
+        write(part.data(), 0, part.data().length);
+        entries.add(new CentralEntry(name, FLAG_UTF8_NAMES, part.method(), part.crc(),
+            part.data().length, part.size(), headerOffset));
+    }
+
+    /**
+     * Starts a deflated entry whose content is streamed by the caller. Sizes and CRC are written
+     * in a trailing data descriptor once the returned stream is closed; closing it does not close
+     * the archive. Only one streamed entry may be open at a time.
+     *
+     * @param name entry name
+     * @param deflater a raw ({@code nowrap}) deflater, reset before use and left open for reuse
+     * @return a stream receiving the uncompressed entry content
+     * @throws IOException if writing the header fails
+     */
+    OutputStream beginDeflated(String name, Deflater deflater) throws IOException {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        checkCanAdd(name, nameBytes);
+        int flags = FLAG_UTF8_NAMES | FLAG_DATA_DESCRIPTOR;
+        long headerOffset = offset;
+        writeLocalHeader(nameBytes, flags, METHOD_DEFLATED, 0, 0, 0);
+        deflater.reset();
+        return new DeflatedEntryStream(nameBytes, flags, headerOffset, deflater);
+    }
+
+    /**
+     * Writes the central directory. No entries can be added afterwards.
+     *
+     * @throws IOException if writing fails
+     */
+    void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        long directoryOffset = offset;
+        long directorySize = 0;
+        for (CentralEntry entry : entries) {
+            directorySize += CENTRAL_HEADER_SIZE + entry.name().length;
+        }
+        if (directoryOffset > MAX_ZIP32_VALUE || directorySize > MAX_ZIP32_VALUE) {
+            throw new IOException("Package exceeds the 4 GB a ZIP32 archive can address");
+        }
+        for (CentralEntry entry : entries) {
+            writeInt(CENTRAL_HEADER_SIGNATURE);
+            writeShort(VERSION);
+            writeShort(VERSION);
+            writeShort(entry.flags());
+            writeShort(entry.method());
+            writeInt(dosTime);
+            writeInt((int) entry.crc());
+            writeInt((int) entry.compressedSize());
+            writeInt((int) entry.size());
+            writeShort(entry.name().length);
+            writeShort(0); // extra field length
+            writeShort(0); // comment length
+            writeShort(0); // disk number start
+            writeShort(0); // internal attributes
+            writeInt(0);   // external attributes
+            writeInt((int) entry.headerOffset());
+            write(entry.name(), 0, entry.name().length);
+        }
+
+        writeInt(END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+        writeShort(0);
+        writeShort(0);
+        writeShort(entries.size());
+        writeShort(entries.size());
+        writeInt((int) directorySize);
+        writeInt((int) directoryOffset);
+        writeShort(0);
+        out.flush();
+    }
+
+    /**
+     * Finishes the archive; the underlying stream is left open.
+     *
+     * @throws IOException if writing the central directory fails
+     */
+    @Override
+    public void close() throws IOException {
+        finish();
+    }
+
+    /**
+     * Fails before an entry whose name length, local header offset or place in the entry count
+     * would not fit the 16- and 32-bit fields of a ZIP32 archive.
+     */
+    private void checkCanAdd(String name, byte[] nameBytes) throws IOException {
+        if (nameBytes.length > 0xFFFF) {
+            throw new IOException("Cannot add an entry whose name is " + nameBytes.length + " bytes long");
+        }
+        if (entries.size() >= MAX_ZIP32_ENTRIES) {
+            throw new IOException("Cannot add " + name + ": a ZIP32 archive holds at most " + MAX_ZIP32_ENTRIES
+                + " entries");
+        }
+        if (offset > MAX_ZIP32_VALUE) {
+            throw new IOException("Cannot add " + name + ": package exceeds the 4 GB a ZIP32 archive can address");
+        }
+    }
+
+    private static void checkSize(String name, long size) throws IOException {
+        if (size > MAX_ZIP32_VALUE) {
+            throw new IOException("Cannot add " + name + ": entry exceeds the 4 GB a ZIP32 archive can record");
+        }
+    }
+
+    private void writeLocalHeader(byte[] name, int flags, int method, long crc, long compressedSize, long size)
+            throws IOException {
+        writeInt(LOCAL_HEADER_SIGNATURE);
+        writeShort(VERSION);
+        writeShort(flags);
+        writeShort(method);
+        writeInt(dosTime);
+        writeInt((int) crc);
+        writeInt((int) compressedSize);
+        writeInt((int) size);
+        writeShort(name.length);
+        writeShort(0);
+        write(name, 0, name.length);
+    }
+
+    private void writeShort(int value) throws IOException {
+        out.write(value & 0xFF);
+        out.write((value >>> 8) & 0xFF);
+        offset += 2;
+    }
+
+    private void writeInt(int value) throws IOException {
+        writeShort(value & 0xFFFF);
+        writeShort((value >>> 16) & 0xFFFF);
+    }
+
+    private void write(byte[] bytes, int off, int len) throws IOException {
+        out.write(bytes, off, len);
+        offset += len;
+    }
+
+    private static int toDosTime(LocalDateTime time) {
+        int year = Math.max(time.getYear(), 1980);
+        return (year - 1980) << 25
+            | time.getMonthValue() << 21
+            | time.getDayOfMonth() << 16
+            | time.getHour() << 11
+            | time.getMinute() << 5
+            | time.getSecond() >> 1;
+    }
+
+    private record CentralEntry(byte[] name, int flags, int method, long crc,
+                                long compressedSize, long size, long headerOffset) {
+    }
+
+    /**
+     * Deflates entry content straight into the archive and records the data descriptor on close.
+     */
+    private final class DeflatedEntryStream extends OutputStream {
+        private final byte[] name;
+        private final int flags;
+        private final long headerOffset;
+        private final Deflater deflater;
+        private final CRC32 crc = new CRC32();
+        private final long dataStart;
+        private long size;
+        private boolean closed;
+
+        DeflatedEntryStream(byte[] name, int flags, long headerOffset, Deflater deflater) {
+            this.name = name;
+            this.flags = flags;
+            this.headerOffset = headerOffset;
+            this.deflater = deflater;
+            this.dataStart = offset;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int off, int len) throws IOException {
+            if (len == 0) {
+                return;
+            }
+            crc.update(bytes, off, len);
+            size += len;
+            deflater.setInput(bytes, off, len);
+            while (!deflater.needsInput()) {
+                drain();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            deflater.finish();
+            while (!deflater.finished()) {
+                drain();
+            }
+            long compressedSize = offset - dataStart;
+            String entryName = new String(name, StandardCharsets.UTF_8);
+            checkSize(entryName, size);
+            checkSize(entryName, compressedSize);
+            writeInt(DATA_DESCRIPTOR_SIGNATURE);
+            writeInt((int) crc.getValue());
+            writeInt((int) compressedSize);
+            writeInt((int) size);
+            entries.add(new CentralEntry(name, flags, METHOD_DEFLATED, crc.getValue(),
+                compressedSize, size, headerOffset));
+        }
+
+        private void drain() throws IOException {
+            int n = deflater.deflate(ioBuffer);
+            if (n > 0) {
+                ZipPackageWriter.this.write(ioBuffer, 0, n);
+            }
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.cardealer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BuildManifestTest {
+
+    @TempDir
+    Path outputDir;
+
+    private final PresentationBuilder builder = new PresentationBuilder();
+
+    private static VehicleListing listing(String registration, String price) {
+        VehicleListing vehicle = new VehicleListing();
+        vehicle.setRegistration(registration);
+        vehicle.setPrice(price);
+        return vehicle;
+    }
+
+    private Path deck(String name) throws IOException {
+        return Files.write(outputDir.resolve(name), new byte[] {1});
+    }
+
+    private BuildManifest open() throws IOException {
+        return BuildManifest.open(outputDir, builder, null);
+    }
+
+    @Test
+    void missingFileGivesEmptyManifest() throws IOException {
+        BuildManifest manifest = open();
+
+        assertEquals(0, manifest.previousSize());
+        assertFalse(manifest.skip(deck("AB12CDE.pptx"), 42));
+    }
+
+    @Test
+    void savedEntriesAreSkippedOnTheNextRun() throws IOException {
+        VehicleListing first = listing("AB12 CDE", "£12,000");
+        VehicleListing second = listing("AB12 CDF", "£9,500");
+        BuildManifest manifest = open();
+        manifest.record(deck("AB12CDE.pptx"), manifest.hash(first));
+        manifest.record(deck("AB12CDF.pptx"), manifest.hash(second));
+        manifest.record(deck("AB12CDE-row-7.pptx"), manifest.hash(second));
+        manifest.save();
+
+        BuildManifest reopened = open();
+        assertEquals(3, reopened.previousSize());
+        assertTrue(reopened.skip(outputDir.resolve("AB12CDE.pptx"), reopened.hash(first)));
+        assertTrue(reopened.skip(outputDir.resolve("AB12CDE-row-7.pptx"), reopened.hash(second)));
+        assertFalse(reopened.skip(outputDir.resolve("AB12CDF.pptx"), reopened.hash(listing("AB12 CDF", "£9,000"))));
+        assertEquals(2, reopened.getUpToDate());
+    }
+
+    @Test
+    void deletedDeckIsNotSkipped() throws IOException {
+        VehicleListing vehicle = listing("AB12 CDE", "£12,000");
+        BuildManifest manifest = open();
+        Path output = deck("AB12CDE.pptx");
+        manifest.record(output, manifest.hash(vehicle));
+        manifest.save();
+        Files.delete(output);
+
+        BuildManifest reopened = open();
+        assertFalse(reopened.skip(output, reopened.hash(vehicle)));
+    }
+
+    @Test
+    void hashDependsOnTheOutputOptions() throws IOException {
+        VehicleListing vehicle = listing("AB12 CDE", "£12,000");
+        long hash = open().hash(vehicle);
+
+        assertEquals(hash, open().hash(listing("AB12 CDE", "£12,000")));
+        assertNotEquals(hash, BuildManifest.open(outputDir,
+            new PresentationBuilder(RenderMode.DIRECT, CompressionPolicy.STORED), null).hash(vehicle));
+        assertNotEquals(hash, BuildManifest.open(outputDir, builder, new SlidePreviewExporter()).hash(vehicle));
+    }
+
+    @Test
+    void orphansAreRemovedAndDroppedFromTheFile() throws IOException {
+        BuildManifest manifest = open();
+        manifest.record(deck("kept.pptx"), 1);
+        manifest.record(deck("gone.pptx"), 2);
+        manifest.save();
+
+        BuildManifest next = open();
+        assertTrue(next.skip(outputDir.resolve("kept.pptx"), 1));
+        List<Path> orphans = next.removeOrphans();
+        next.save();
+
+        assertEquals(List.of(outputDir.resolve("gone.pptx")), orphans);
+        assertFalse(Files.exists(outputDir.resolve("gone.pptx")));
+        assertEquals(1, open().previousSize());
+    }
+
+    @Test
+    void entriesAreKeptWhenOrphansAreNotRemoved() throws IOException {
+        BuildManifest manifest = open();
+        manifest.record(deck("a.pptx"), 1);
+        manifest.record(deck("b.pptx"), 2);
+        manifest.save();
+
+        BuildManifest next = open();
+        next.record(deck("c.pptx"), 3);
+        next.save();
+
+        BuildManifest last = open();
+        assertEquals(3, last.previousSize());
+        assertTrue(last.skip(outputDir.resolve("b.pptx"), 2));
+        assertTrue(last.skip(outputDir.resolve("c.pptx"), 3));
+    }
+
+    @Test
+    void everyTruncationIsReportedAsCorrupt() throws IOException {
+        BuildManifest manifest = open();
+        for (int i = 0; i < 20; i++) {
+            manifest.record(deck("listing-" + i + ".pptx"), i);
+        }
+        manifest.save();
+        Path file = outputDir.resolve(BuildManifest.FILE_NAME);
+        byte[] content = Files.readAllBytes(file);
+
+        for (int length = 0; length < content.length; length++) {
+            Files.write(file, Arrays.copyOf(content, length));
+            assertThrows(IOException.class, this::open, "truncated to " + length + " bytes");
+        }
+    }
+
+    @Test
+    void wrongMagicOrVersionIsRejected() throws IOException {
+        Path file = outputDir.resolve(BuildManifest.FILE_NAME);
+
+        Files.write(file, "not a manifest".getBytes());
+        assertThrows(IOException.class, this::open);
+
+        Files.write(file, ByteBuffer.allocate(9).putInt(0x4344424D).put((byte) 99).putInt(0).array());
+        assertThrows(IOException.class, this::open);
+    }
+
+    @Test
+    void corruptLengthsAreRejectedWithoutHugeAllocations() throws IOException {
+        Path file = outputDir.resolve(BuildManifest.FILE_NAME);
+
+        Files.write(file, ByteBuffer.allocate(9).putInt(0x4344424D).put((byte) 1).putInt(Integer.MAX_VALUE).array());
+        assertThrows(IOException.class, this::open);
+
+        // One entry whose name claims to be about 2 GB long
+        ByteBuffer hugeName = ByteBuffer.allocate(32).putInt(0x4344424D).put((byte) 1).putInt(1)
+            .put((byte) 0).put(new byte[] {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07}).putLong(0);
+        Files.write(file, Arrays.copyOf(hugeName.array(), hugeName.position()));
+        assertThrows(IOException.class, this::open);
+
+        // Second entry sharing more bytes than the first name has
+        ByteBuffer shared = ByteBuffer.allocate(64).putInt(0x4344424D).put((byte) 1).putInt(2)
+            .put((byte) 0).put((byte) 1).put((byte) 'a').putLong(0)
+            .put((byte) 5).put((byte) 0).putLong(0);
+        Files.write(file, Arrays.copyOf(shared.array(), shared.position()));
+        assertThrows(IOException.class, this::open);
+    }
+}
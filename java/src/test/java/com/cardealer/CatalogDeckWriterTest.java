@@ -0,0 +1,122 @@
+package com.cardealer;
+
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CatalogDeckWriterTest {
+
+    @TempDir
+    Path dir;
+
+    private static VehicleListing listing(String title, String price, FuelType fuelType) {
+        return new VehicleListing(title, price, "AB12 CDE", "2019 (69 reg)", GearboxType.MANUAL, "1.6L",
+            fuelType, "45k miles", UlezStatus.YES, "March 2025", "2", List.of("Heated seats", "Sat nav"),
+            new DealerDetails("North Motors", "0161 496 0000", "sales@north.example", "north.example"));
+    }
+
+    private static List<VehicleListing> listings() {
+        return List.of(
+            listing("Ford Focus", "£12,000", FuelType.PETROL),
+            listing("Nissan Leaf", "£9,500", FuelType.ELECTRIC),
+            listing("Ford Fiesta", "£7,995", FuelType.PETROL));
+    }
+
+    private List<Path> files() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.toList();
+        }
+    }
+
+    @Test
+    void catalogIsAReadablePackage() throws IOException {
+        Path output = dir.resolve("catalog.pptx");
+
+        CatalogDeckWriter.CatalogReport report = new CatalogDeckWriter().write(listings().stream(), output);
+
+        assertEquals(3, report.slides());
+        try (ZipFile zip = new ZipFile(output.toFile())) {
+            for (String part : List.of("[Content_Types].xml", "ppt/presentation.xml", "ppt/slides/slide1.xml",
+                    "ppt/slides/slide3.xml", "ppt/slides/_rels/slide3.xml.rels")) {
+                assertNotNull(zip.getEntry(part), part);
+            }
+            for (ZipEntry entry : zip.stream().toList()) {
+                // Reading each entry to the end checks its CRC and size
+                try (InputStream in = zip.getInputStream(entry)) {
+                    assertEquals(entry.getSize(), in.readAllBytes().length, entry.getName());
+                }
+            }
+        }
+        try (XMLSlideShow deck = new XMLSlideShow(Files.newInputStream(output))) {
+            assertEquals(3, deck.getSlides().size());
+        }
+        assertEquals(List.of(output), files());
+    }
+
+    @Test
+    void groupedCatalogCountsDividers() throws IOException {
+        Path output = dir.resolve("catalog.pptx");
+
+        CatalogDeckWriter.CatalogReport report = new CatalogDeckWriter()
+            .groupBy(CatalogGrouping.FUEL_TYPE)
+            .write(listings().stream(), output);
+
+        assertEquals(3, report.listings());
+        assertEquals(2, report.groups());
+        try (XMLSlideShow deck = new XMLSlideShow(Files.newInputStream(output))) {
+            assertEquals(5, deck.getSlides().size());
+        }
+    }
+
+    @Test
+    void failedWriteKeepsThePreviousDeck() throws IOException {
+        Path output = dir.resolve("catalog.pptx");
+        new CatalogDeckWriter().write(listings().stream(), output);
+        byte[] previous = Files.readAllBytes(output);
+
+        Stream<VehicleListing> failing = Stream.of(0, 1, 2).map(i -> {
+            if (i == 2) {
+                throw new IllegalStateException("listing source failed");
+            }
+            return listings().get(i);
+        });
+
+        assertThrows(IllegalStateException.class, () -> new CatalogDeckWriter().write(failing, output));
+        assertArrayEquals(previous, Files.readAllBytes(output));
+        assertEquals(List.of(output), files());
+    }
+
+    @Test
+    void failedFirstWriteLeavesNoFile() throws IOException {
+        Path output = dir.resolve("catalog.pptx");
+        Stream<VehicleListing> failing = Stream.generate(() -> {
+            throw new IllegalStateException("listing source failed");
+        });
+
+        assertThrows(IllegalStateException.class, () -> new CatalogDeckWriter().write(failing, output));
+        assertFalse(Files.exists(output));
+        assertEquals(List.of(), files());
+    }
+
+    @Test
+    void missingDirectoryIsReported() {
+        assertThrows(NoSuchFileException.class,
+            () -> new CatalogDeckWriter().write(listings().stream(), dir.resolve("missing/catalog.pptx")));
+    }
+}
@@ -0,0 +1,164 @@
+package com.cardealer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.cardealer.ListingAssertions.assertSameListing;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InventorySnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    private static final DealerDetails NORTH = new DealerDetails("North Motors", "0161 496 0000",
+        "sales@north.example", "north.example");
+    private static final DealerDetails SOUTH = new DealerDetails("South Cars", "020 7946 0000",
+        "hello@south.example", "south.example");
+
+    private static VehicleListing listing(String title, String registration, DealerDetails dealer) {
+        VehicleListing vehicle = new VehicleListing(title, "£12,000", registration, "2019 (69 reg)",
+            GearboxType.MANUAL, "1.6L", FuelType.PETROL, "45k miles", UlezStatus.YES, "March 2025",
+            "2", List.of("Heated seats", "Sat nav"), dealer);
+        vehicle.setPhotos(List.of("photos/front.jpg", "photos/back.jpg"));
+        return vehicle;
+    }
+
+    private Path write(List<String> names, List<VehicleListing> listings) throws IOException {
+        Path file = dir.resolve("inventory.snap");
+        try (InventorySnapshot.Writer writer = InventorySnapshot.create(file)) {
+            for (int i = 0; i < listings.size(); i++) {
+                writer.add(names.get(i), listings.get(i));
+            }
+        }
+        return file;
+    }
+
+    @Test
+    void listingsRoundTrip() throws IOException {
+        List<VehicleListing> listings = List.of(
+            listing("Ford Focus", "AB12 CDE", NORTH),
+            listing("Citroën C3", "AB12 CDF", SOUTH),
+            listing("Ford Fiesta", "AB12 CDG", NORTH));
+        InventorySnapshot snapshot = InventorySnapshot.open(write(List.of("a", "b", "c"), listings));
+
+        assertEquals(3, snapshot.size());
+        for (int i = 0; i < listings.size(); i++) {
+            assertSameListing(listings.get(i), snapshot.get(i));
+            assertSameListing(listings.get(i), snapshot.listings().get(i));
+            assertEquals(listings.get(i).getRegistration(), snapshot.registration(i));
+            assertEquals(listings.get(i).getTitle(), snapshot.title(i));
+            assertEquals(listings.get(i).getPrice(), snapshot.price(i));
+            assertEquals(listings.get(i).getFuelType(), snapshot.fuelType(i));
+        }
+        assertEquals("b", snapshot.name(1));
+    }
+
+    @Test
+    void nullStringsAndEmptyListsRoundTrip() throws IOException {
+        VehicleListing empty = new VehicleListing();
+        VehicleListing blank = listing("", "", DealerDetails.DEFAULT);
+        blank.setSpecs(List.of());
+        blank.setPhotos(List.of());
+        InventorySnapshot snapshot = InventorySnapshot.open(write(Arrays.asList(null, ""), List.of(empty, blank)));
+
+        VehicleListing first = snapshot.get(0);
+        assertSameListing(empty, first);
+        assertNull(first.getTitle());
+        assertNull(snapshot.name(0));
+        assertTrue(first.getSpecs().isEmpty());
+        assertTrue(first.getPhotos().isEmpty());
+
+        VehicleListing second = snapshot.get(1);
+        assertSameListing(blank, second);
+        assertEquals("", second.getTitle());
+        assertEquals("", snapshot.name(1));
+    }
+
+    @Test
+    void dealersAreStoredOnceAndShared() throws IOException {
+        InventorySnapshot snapshot = InventorySnapshot.open(write(List.of("a", "b", "c"), List.of(
+            listing("One", "A1", NORTH), listing("Two", "A2", SOUTH), listing("Three", "A3", NORTH))));
+
+        assertEquals(2, snapshot.dealerCount());
+        assertEquals(snapshot.dealerIndex(0), snapshot.dealerIndex(2));
+        assertSame(snapshot.dealer(0), snapshot.get(2).getDealer());
+        assertEquals(SOUTH, snapshot.dealer(1));
+    }
+
+    @Test
+    void decodedListingsAreIndependent() throws IOException {
+        InventorySnapshot snapshot = InventorySnapshot.open(write(List.of("a"), List.of(listing("One", "A1", NORTH))));
+
+        VehicleListing first = snapshot.get(0);
+        first.setPrice("£1");
+        assertEquals("£12,000", snapshot.get(0).getPrice());
+    }
+
+    @Test
+    void emptySnapshotRoundTrips() throws IOException {
+        InventorySnapshot snapshot = InventorySnapshot.open(write(List.of(), List.of()));
+
+        assertEquals(0, snapshot.size());
+        assertTrue(snapshot.listings().isEmpty());
+        assertThrows(IndexOutOfBoundsException.class, () -> snapshot.get(0));
+    }
+
+    @Test
+    void abortLeavesNoFile() throws IOException {
+        Path file = dir.resolve("aborted.snap");
+        InventorySnapshot.Writer writer = InventorySnapshot.create(file);
+        writer.add("a", listing("One", "A1", NORTH));
+        writer.abort();
+
+        assertFalse(Files.exists(file));
+        try (var files = Files.list(dir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void badMagicIsRejected() throws IOException {
+        Path file = write(List.of("a"), List.of(listing("One", "A1", NORTH)));
+        byte[] content = Files.readAllBytes(file);
+        content[0] ^= 0x20;
+        Files.write(file, content);
+
+        IOException e = assertThrows(IOException.class, () -> InventorySnapshot.open(file));
+        assertTrue(e.getMessage().contains("not an inventory snapshot"), e.getMessage());
+    }
+
+    @Test
+    void otherVersionIsRejected() throws IOException {
+        Path file = write(List.of("a"), List.of(listing("One", "A1", NORTH)));
+        byte[] content = Files.readAllBytes(file);
+        ByteBuffer.wrap(content).putShort(4, (short) (InventorySnapshot.FORMAT_VERSION + 1));
+        Files.write(file, content);
+
+        IOException e = assertThrows(IOException.class, () -> InventorySnapshot.open(file));
+        assertTrue(e.getMessage().contains("format version"), e.getMessage());
+    }
+
+    @Test
+    void truncatedFileIsRejected() throws IOException {
+        Path file = write(List.of("a", "b"), List.of(listing("One", "A1", NORTH), listing("Two", "A2", SOUTH)));
+        byte[] content = Files.readAllBytes(file);
+
+        for (int length : new int[] {0, 10, 63, 64, 100, content.length / 2, content.length - 1}) {
+            Files.write(file, Arrays.copyOf(content, length));
+            assertThrows(IOException.class, () -> InventorySnapshot.open(file), "truncated to " + length + " bytes");
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.cardealer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks store queries against filtering and sorting the listings directly, over a random
+ * inventory with missing and unreadable values.
+ */
+class InventoryStoreTest {
+
+    private static final String[] TITLES = {"Ford Focus", "ford fiesta", "Audi A3", "BMW 320d", "Nissan Leaf", null};
+    private static final String[] PRICES = {"£12,000", "£9,995.50", "15k", "£14,999.99", "POA", "Call us", null};
+    private static final String[] MILEAGES = {"45,000 miles", "12k", "71980", "Unknown", null};
+    private static final String[] YEARS = {"2019 (69 reg)", "2016", "Reg 2021", "Year", null};
+    private static final DealerDetails[] DEALERS = {
+        new DealerDetails("North Motors", "0161 496 0000", "sales@north.example", "north.example"),
+        new DealerDetails("South Cars", "020 7946 0000", "hello@south.example", "south.example"),
+        new DealerDetails("East Autos", "01632 960000", "cars@east.example", "east.example"),
+    };
+
+    private final Random random = new Random(42);
+
+    private <T> T pick(T[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private List<VehicleListing> inventory(int size) {
+        List<VehicleListing> listings = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String price = pick(PRICES);
+            if (price != null && price.startsWith("£1") && random.nextBoolean()) {
+                price = "£" + (random.nextInt(30_000) + 500);
+            }
+            String mileage = pick(MILEAGES);
+            if ("12k".equals(mileage) && random.nextBoolean()) {
+                mileage = random.nextInt(120_000) + " miles";
+            }
+            listings.add(new VehicleListing(pick(TITLES), price, "AB12 C" + i, pick(YEARS),
+                pick(GearboxType.values()), "1.6L", pick(FuelType.values()), mileage, pick(UlezStatus.values()),
+                "March 2025", "2", List.of(), pick(DEALERS)));
+        }
+        return listings;
+    }
+
+    /** One random query, applied both to the store and to a brute-force filter. */
+    private final class RandomQuery {
+        final Set<FuelType> fuelTypes = random.nextInt(3) == 0 ? subset(FuelType.class) : null;
+        final Set<GearboxType> gearboxes = random.nextInt(3) == 0 ? subset(GearboxType.class) : null;
+        final Set<UlezStatus> ulez = random.nextInt(3) == 0 ? subset(UlezStatus.class) : null;
+        final Set<String> dealers = random.nextInt(3) == 0
+            ? new HashSet<>(List.of(pick(DEALERS).name(), pick(DEALERS).name())) : null;
+        final long[] price = random.nextInt(3) == 0 ? range(0, 32_000) : null;
+        final long[] mileage = random.nextInt(3) == 0 ? range(0, 130_000) : null;
+        final long[] year = random.nextInt(4) == 0 ? range(2014, 2023) : null;
+        final CatalogSort sort = pick(CatalogSort.values());
+        final int limit = random.nextInt(4) == 0 ? random.nextInt(20) + 1 : Integer.MAX_VALUE;
+
+        private <E extends Enum<E>> Set<E> subset(Class<E> type) {
+            Set<E> values = EnumSet.noneOf(type);
+            E[] constants = type.getEnumConstants();
+            values.add(constants[random.nextInt(constants.length)]);
+            values.add(constants[random.nextInt(constants.length)]);
+            return values;
+        }
+
+        private long[] range(int low, int high) {
+            long a = low + random.nextInt(high - low);
+            long b = low + random.nextInt(high - low);
+            return new long[] {Math.min(a, b), Math.max(a, b)};
+        }
+
+        InventoryStore.Query apply(InventoryStore store) {
+            InventoryStore.Query query = store.query().sortBy(sort);
+            if (fuelTypes != null) {
+                query.fuelType(fuelTypes.toArray(new FuelType[0]));
+            }
+            if (gearboxes != null) {
+                query.gearbox(gearboxes.toArray(new GearboxType[0]));
+            }
+            if (ulez != null) {
+                query.ulez(ulez.toArray(new UlezStatus[0]));
+            }
+            if (dealers != null) {
+                query.dealer(dealers.toArray(new String[0]));
+            }
+            if (price != null) {
+                query.price(price[0], price[1]);
+            }
+            if (mileage != null) {
+                query.mileage(mileage[0], mileage[1]);
+            }
+            if (year != null) {
+                query.year(year[0], year[1]);
+            }
+            if (limit != Integer.MAX_VALUE) {
+                query.limit(limit);
+            }
+            return query;
+        }
+
+        private static boolean within(long value, long[] range) {
+            return value != VehicleListing.NO_VALUE && value >= range[0] && value <= range[1];
+        }
+
+        List<Integer> bruteForce(List<VehicleListing> listings, boolean limited) {
+            IntPredicate matches = i -> {
+                VehicleListing v = listings.get(i);
+                return (fuelTypes == null || fuelTypes.contains(v.getFuelType()))
+                    && (gearboxes == null || gearboxes.contains(v.getGearbox()))
+                    && (ulez == null || ulez.contains(v.getUlez()))
+                    && (dealers == null || dealers.contains(v.getDealer().name()))
+                    && (price == null || within(v.getPricePence(), new long[] {price[0] * 100, price[1] * 100 + 99}))
+                    && (mileage == null || within(v.getMileageMiles(), mileage))
+                    && (year == null || within(v.getYearValue(), year));
+            };
+            Comparator<VehicleListing> order = sort.order();
+            // Stream.sorted is stable on an ordered stream, so ties keep inventory order like the store
+            return IntStream.range(0, listings.size()).filter(matches).boxed()
+                .sorted(order == null ? Comparator.comparingInt(i -> 0)
+                    : Comparator.comparing(listings::get, order))
+                .limit(limited ? limit : Long.MAX_VALUE)
+                .toList();
+        }
+    }
+
+    private static int[] toArray(List<Integer> indexes) {
+        return indexes.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    @Test
+    void queriesMatchBruteForce() {
+        List<VehicleListing> listings = inventory(3_000);
+        InventoryStore store = InventoryStore.of(listings);
+
+        for (int q = 0; q < 500; q++) {
+            RandomQuery random = new RandomQuery();
+            int[] expected = toArray(random.bruteForce(listings, true));
+
+            InventoryStore.Query query = random.apply(store);
+            assertArrayEquals(expected, query.indexes(), "query " + q);
+            assertEquals(random.bruteForce(listings, false).size(), query.count(), "query " + q);
+            List<VehicleListing> results = query.list();
+            assertEquals(expected.length, results.size());
+            for (int i = 0; i < expected.length; i++) {
+                assertSame(listings.get(expected[i]), results.get(i));
+            }
+        }
+    }
+
+    @Test
+    void snapshotStoreMatchesListStore(@TempDir Path dir) throws IOException {
+        List<VehicleListing> listings = inventory(1_000);
+        Path file = dir.resolve("inventory.snap");
+        try (InventorySnapshot.Writer writer = InventorySnapshot.create(file)) {
+            for (int i = 0; i < listings.size(); i++) {
+                writer.add("listing-" + i, listings.get(i));
+            }
+        }
+        InventorySnapshot snapshot = InventorySnapshot.open(file);
+        InventoryStore fromList = InventoryStore.of(listings);
+        InventoryStore fromSnapshot = InventoryStore.of(snapshot);
+
+        assertEquals(fromList.dealers(), fromSnapshot.dealers());
+        for (int q = 0; q < 200; q++) {
+            RandomQuery random = new RandomQuery();
+            int[] expected = random.apply(fromList).indexes();
+            assertArrayEquals(expected, random.apply(fromSnapshot).indexes(), "query " + q);
+        }
+        int first = fromList.query().sortBy(CatalogSort.PRICE).indexes()[0];
+        assertEquals(listings.get(first).getRegistration(),
+            fromSnapshot.query().sortBy(CatalogSort.PRICE).list().get(0).getRegistration());
+    }
+
+    @Test
+    void whereMatchesTheBuilderMethods() {
+        List<VehicleListing> listings = inventory(2_000);
+        InventoryStore store = InventoryStore.of(listings);
+
+        int[] parsed = store.query()
+            .where("fuel_type=petrol|hybrid, gearbox=automatic, ulez=yes, price=..£15,000, year=2018..")
+            .sortBy(CatalogSort.PRICE)
+            .indexes();
+        int[] built = store.query()
+            .fuelType(FuelType.PETROL, FuelType.HYBRID)
+            .gearbox(GearboxType.AUTOMATIC)
+            .ulez(UlezStatus.YES)
+            .price(Long.MIN_VALUE, 15_000)
+            .year(2018, Long.MAX_VALUE)
+            .sortBy(CatalogSort.PRICE)
+            .indexes();
+
+        assertArrayEquals(built, parsed);
+        assertArrayEquals(store.query().dealer("North Motors", "East Autos").indexes(),
+            store.query().where("dealer=North Motors|East Autos").indexes());
+        assertArrayEquals(store.query().mileage(12_000, 12_000).indexes(),
+            store.query().where("mileage=12,000").indexes());
+    }
+
+    @Test
+    void emptyInventoryMatchesNothing() {
+        InventoryStore store = InventoryStore.of(List.of());
+
+        assertEquals(0, store.query().count());
+        assertEquals(0, store.query().sortBy(CatalogSort.TITLE).indexes().length);
+        assertEquals(List.of(), store.query().fuelType(FuelType.PETROL).list());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"colour=red", "price", "price=", "price=20000..10000", "year=new", "fuel_type=steam|"})
+    void invalidFilterIsRejected(String spec) {
+        InventoryStore store = InventoryStore.of(inventory(10));
+
+        assertThrows(IllegalArgumentException.class, () -> store.query().where(spec));
+    }
+
+    @Test
+    void invalidLimitOrRangeIsRejected() {
+        InventoryStore store = InventoryStore.of(inventory(10));
+
+        assertThrows(IllegalArgumentException.class, () -> store.query().limit(0));
+        assertThrows(IllegalArgumentException.class, () -> store.query().mileage(10, 9));
+    }
+}
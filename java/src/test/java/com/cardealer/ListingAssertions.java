@@ -0,0 +1,33 @@
+package com.cardealer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Field-by-field comparison of listings, which do not define {@code equals}.
+ */
+final class ListingAssertions {
+
+    private ListingAssertions() {
+    }
+
+    static void assertSameListing(VehicleListing expected, VehicleListing actual) {
+        assertEquals(expected.getTitle(), actual.getTitle(), "title");
+        assertEquals(expected.getPrice(), actual.getPrice(), "price");
+        assertEquals(expected.getPricePence(), actual.getPricePence(), "price pence");
+        assertEquals(expected.getRegistration(), actual.getRegistration(), "registration");
+        assertEquals(expected.getYear(), actual.getYear(), "year");
+        assertEquals(expected.getYearValue(), actual.getYearValue(), "year value");
+        assertEquals(expected.getGearbox(), actual.getGearbox(), "gearbox");
+        assertEquals(expected.getEngineSize(), actual.getEngineSize(), "engine size");
+        assertEquals(expected.getEngineCc(), actual.getEngineCc(), "engine cc");
+        assertEquals(expected.getFuelType(), actual.getFuelType(), "fuel type");
+        assertEquals(expected.getMileage(), actual.getMileage(), "mileage");
+        assertEquals(expected.getMileageMiles(), actual.getMileageMiles(), "mileage miles");
+        assertEquals(expected.getUlez(), actual.getUlez(), "ULEZ");
+        assertEquals(expected.getMotExpiry(), actual.getMotExpiry(), "MOT expiry");
+        assertEquals(expected.getOwners(), actual.getOwners(), "owners");
+        assertEquals(expected.getSpecs(), actual.getSpecs(), "specs");
+        assertEquals(expected.getPhotos(), actual.getPhotos(), "photos");
+        assertEquals(expected.getDealer(), actual.getDealer(), "dealer");
+    }
+}
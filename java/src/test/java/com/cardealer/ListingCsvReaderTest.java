@@ -0,0 +1,112 @@
+package com.cardealer;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ListingCsvReaderTest {
+
+    private static List<VehicleListing> readAll(String csv) throws IOException {
+        try (ListingCsvReader reader = new ListingCsvReader(new StringReader(csv),
+                ListingCsvReader.DEFAULT_DELIMITER, ListingCsvReader.DEFAULT_LIST_DELIMITER)) {
+            List<VehicleListing> listings = new ArrayList<>();
+            for (VehicleListing vehicle = reader.next(); vehicle != null; vehicle = reader.next()) {
+                listings.add(vehicle);
+            }
+            return listings;
+        }
+    }
+
+    @Test
+    void quotedFieldMayContainDelimiter() throws IOException {
+        List<VehicleListing> listings = readAll("title,price\n\"Ford Focus, Titanium\",\"£12,000\"\n");
+
+        assertEquals(1, listings.size());
+        assertEquals("Ford Focus, Titanium", listings.get(0).getTitle());
+        assertEquals("£12,000", listings.get(0).getPrice());
+        assertEquals(1_200_000, listings.get(0).getPricePence());
+    }
+
+    @Test
+    void doubledQuoteIsOneQuote() throws IOException {
+        List<VehicleListing> listings = readAll("title,registration\n\"The \"\"Cat\"\" \",AB12 CDE\n");
+
+        assertEquals("The \"Cat\" ", listings.get(0).getTitle());
+        assertEquals("AB12 CDE", listings.get(0).getRegistration());
+    }
+
+    @Test
+    void quotedFieldMaySpanLines() throws IOException {
+        try (ListingCsvReader reader = new ListingCsvReader(
+                new StringReader("title,specs\n\"Line one\nLine two\",Heated seats;Sat nav\nSecond,\n"),
+                ListingCsvReader.DEFAULT_DELIMITER, ListingCsvReader.DEFAULT_LIST_DELIMITER)) {
+            VehicleListing first = reader.next();
+            assertEquals("Line one\nLine two", first.getTitle());
+            assertEquals(List.of("Heated seats", "Sat nav"), first.getSpecs());
+            assertEquals(2, reader.getLineNumber());
+
+            VehicleListing second = reader.next();
+            assertEquals("Second", second.getTitle());
+            assertEquals(4, reader.getLineNumber());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void crlfLineEndsAreNotPartOfTheLastField() throws IOException {
+        List<VehicleListing> listings = readAll("title,mileage\r\nFirst,\"12,000\"\r\nSecond,45k\r\n");
+
+        assertEquals(2, listings.size());
+        assertEquals(12_000, listings.get(0).getMileageMiles());
+        assertEquals("Second", listings.get(1).getTitle());
+        assertEquals("45k", listings.get(1).getMileage());
+    }
+
+    @Test
+    void crlfInsideQuotesIsKept() throws IOException {
+        List<VehicleListing> listings = readAll("title,year\r\n\"Two\r\nlines\",2019\r\n");
+
+        assertEquals("Two\r\nlines", listings.get(0).getTitle());
+        assertEquals(2019, listings.get(0).getYearValue());
+    }
+
+    @Test
+    void blankAndWhitespaceOnlyLinesAreSkipped() throws IOException {
+        List<VehicleListing> listings = readAll("title,year\n\nFirst,2018\n   \n\t\r\n\r\nSecond,2020\n  ");
+
+        assertEquals(2, listings.size());
+        assertEquals("First", listings.get(0).getTitle());
+        assertEquals("Second", listings.get(1).getTitle());
+    }
+
+    @Test
+    void emptyCellsGiveDefaults() throws IOException {
+        VehicleListing vehicle = readAll("title,price,year,fuel_type\n,,,\n").get(0);
+
+        assertEquals(PresentationConstants.Defaults.TITLE, vehicle.getTitle());
+        assertEquals(PresentationConstants.Defaults.PRICE, vehicle.getPrice());
+        assertEquals(PresentationConstants.Defaults.YEAR, vehicle.getYear());
+        assertEquals(FuelType.DIESEL, vehicle.getFuelType());
+    }
+
+    @Test
+    void unterminatedQuoteIsRejected() throws IOException {
+        try (ListingCsvReader reader = new ListingCsvReader(new StringReader("title\nFirst\n\"Never closed\n"),
+                ListingCsvReader.DEFAULT_DELIMITER, ListingCsvReader.DEFAULT_LIST_DELIMITER)) {
+            assertEquals("First", reader.next().getTitle());
+            assertThrows(IllegalArgumentException.class, reader::next);
+        }
+    }
+
+    @Test
+    void rowWiderThanHeaderIsRejected() throws IOException {
+        assertThrows(IllegalArgumentException.class, () -> readAll("title,price\nA,B,C\n"));
+    }
+}
@@ -0,0 +1,168 @@
+package com.cardealer;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static com.cardealer.ListingAssertions.assertSameListing;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks that the streaming reader builds the same listing as reading the JSON into a map and
+ * calling {@link VehicleListing#fromMap(Map)}.
+ */
+class ListingJsonReaderTest {
+
+    private static final ObjectMapper MAP_READER = new ObjectMapper();
+
+    private static VehicleListing viaMap(String json) throws IOException {
+        Map<String, Object> data = MAP_READER.readValue(json, new TypeReference<Map<String, Object>>() { });
+        return VehicleListing.fromMap(data);
+    }
+
+    private static void assertEquivalent(String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        VehicleListing expected = viaMap(json);
+        assertSameListing(expected, ListingJsonReader.read(bytes));
+        assertSameListing(expected, ListingJsonReader.read(new ByteArrayInputStream(bytes)));
+    }
+
+    @Test
+    void fullListing() throws IOException {
+        assertEquivalent("""
+            {
+              "title": "Ford Focus 1.6 Titanium",
+              "price": "£12,000",
+              "registration": "AB12 CDE",
+              "year": "2019 (69 reg)",
+              "gearbox": "Manual",
+              "engine_size": "1.6L",
+              "fuel_type": "Petrol",
+              "mileage": "45k miles",
+              "ulez": "Yes",
+              "mot_expiry": "March 2025",
+              "owners": "2",
+              "specs": ["Heated seats", "Sat nav"],
+              "photos": ["front.jpg", "back.jpg"],
+              "dealer": {
+                "name": "North Motors",
+                "phone": "0161 496 0000",
+                "email": "sales@north.example",
+                "website": "north.example"
+              }
+            }
+            """);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "null",
+        "{}",
+        "{\"title\": null, \"price\": null, \"specs\": null, \"photos\": null, \"dealer\": null}",
+        "{\"dealer\": {}}",
+        "{\"dealer\": {\"name\": \"  \", \"phone\": null, \"email\": \"sales@north.example\"}}",
+    })
+    void missingAndNullFieldsGiveDefaults(String json) throws IOException {
+        assertEquivalent(json);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "{\"gearbox\": \"semi-auto\", \"fuel_type\": \"LPG\", \"ulez\": \"maybe\"}",
+        "{\"gearbox\": \"manual\", \"fuel_type\": \"ELECTRIC\", \"ulez\": \"no\"}",
+        "{\"gearbox\": \"\", \"fuel_type\": \" hybrid \", \"ulez\": \"\"}",
+    })
+    void enumsFallBackLikeFromMap(String json) throws IOException {
+        assertEquivalent(json);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "{\"price\": 12000, \"year\": 2019, \"mileage\": 45000, \"owners\": 2}",
+        "{\"price\": 12000.50, \"engine_size\": 1.6, \"mileage\": 1e5}",
+        "{\"price\": 123456789012345678901234567890, \"owners\": true}",
+        "{\"mileage\": -5, \"year\": 0}",
+        "{\"title\": [\"a\", 1], \"owners\": {\"count\": 2}, \"dealer\": {\"name\": [\"North\"]}}",
+    })
+    void nonStringValuesAreConvertedLikeToString(String json) throws IOException {
+        assertEquivalent(json);
+    }
+
+    @Test
+    void nullListElementsAreDropped() throws IOException {
+        assertEquivalent("{\"specs\": [\"Sat nav\", null, \"\", 4, true], \"photos\": [null]}");
+    }
+
+    @Test
+    void unknownFieldsAreIgnored() throws IOException {
+        assertEquivalent("""
+            {"id": 7, "extra": {"nested": [1, {"title": "not this"}]}, "title": "Focus",
+             "tags": ["a", ["b"]], "dealer": {"name": "North", "address": {"town": "Leeds"}}}
+            """);
+    }
+
+    @Test
+    void lastDuplicateFieldWins() throws IOException {
+        assertEquivalent("{\"title\": \"First\", \"title\": \"Second\", \"dealer\": {\"name\": \"A\"},"
+            + " \"dealer\": {\"name\": \"B\"}}");
+        assertEquals("Second", ListingJsonReader.read("{\"title\": \"First\", \"title\": \"Second\"}"
+            .getBytes(StandardCharsets.UTF_8)).getTitle());
+    }
+
+    @Test
+    void escapesAndUnicode() throws IOException {
+        assertEquivalent("{\"title\": \"Citro\\u00ebn \\\"C3\\\"\\n\\tline\", \"price\": \"€9,995\","
+            + " \"specs\": [\"🚗 Sat nav\"]}");
+    }
+
+    @Test
+    void photosAreKeptAsGiven() throws IOException {
+        VehicleListing vehicle = ListingJsonReader.read("{\"photos\": [\"a.jpg\", \"dir/b.jpg\"]}"
+            .getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(List.of("a.jpg", "dir/b.jpg"), vehicle.getPhotos());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", " ", "\n\t\r\n"})
+    void emptyInputIsRejected(String json) {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+
+        assertThrows(JsonParseException.class, () -> ListingJsonReader.read(bytes));
+        assertThrows(JsonParseException.class, () -> ListingJsonReader.read(new ByteArrayInputStream(bytes)));
+    }
+
+    @Test
+    void emptyFileIsRejected(@TempDir Path dir) throws IOException {
+        Path file = Files.createFile(dir.resolve("listing.json"));
+
+        assertThrows(JsonParseException.class, () -> ListingJsonReader.read(file.toFile()));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"[]", "\"listing\"", "42"})
+    void nonObjectDocumentIsRejected(String json) {
+        assertThrows(IllegalArgumentException.class,
+            () -> ListingJsonReader.read(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"{\"specs\": \"Sat nav\"}", "{\"photos\": {}}", "{\"dealer\": \"North\"}"})
+    void wrongShapesAreRejected(String json) {
+        assertThrows(IllegalArgumentException.class,
+            () -> ListingJsonReader.read(json.getBytes(StandardCharsets.UTF_8)));
+    }
+}
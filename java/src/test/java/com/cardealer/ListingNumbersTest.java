@@ -0,0 +1,154 @@
+package com.cardealer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.NullAndEmptySource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ListingNumbersTest {
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+        "£12,000             | 1200000",
+        "12000               | 1200000",
+        "12k                 | 1200000",
+        "£12.5k              | 1250000",
+        "£8,995 ONO          | 899500",
+        "£9.99               | 999",
+        "£9.999              | 999",
+        "£0                  | 0",
+        "12,000,             | 1200000",
+        "12 k                | 1200",
+        "12kg                | 1200",
+        "from £7,495.00      | 749500",
+        "POA                 | -1",
+        "Price on enquiry    | -1",
+        "£9223372036854      | 922337203685400",
+        "£9223372036854k     | 922337203685400000",
+        "£9223372036855      | -1",
+        "£9223372036854.999k | -1",
+        "£99999999999999999999 | -1",
+    })
+    void pence(String price, long expected) {
+        assertEquals(expected, ListingNumbers.pence(price));
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+        "71,980       | 71980",
+        "71,980 miles | 71980",
+        "45k miles    | 45000",
+        "1.5k         | 1500",
+        "0            | 0",
+        "Unknown      | -1",
+        "2147483647   | 2147483647",
+        "2147483648   | -1",
+        "2147484k     | -1",
+    })
+    void miles(String mileage, int expected) {
+        assertEquals(expected, ListingNumbers.miles(mileage));
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+        "2016 (16 reg) | 2016",
+        "2019          | 2019",
+        "Reg 2019      | 2019",
+        "2019/69       | 2019",
+        "16 reg        | -1",
+        "Year          | -1",
+        "0999          | -1",
+        "20166         | -1",
+    })
+    void year(String year, short expected) {
+        assertEquals(expected, ListingNumbers.year(year));
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+        "2.0 L        | 2000",
+        "1.6L         | 1600",
+        "2.0 TDI      | 2000",
+        "1998cc       | 1998",
+        "1,998 cc     | 1998",
+        "1598         | 1598",
+        "20           | 20",
+        "19           | 19000",
+        "20.5         | 20500",
+        "60 kWh       | -1",
+        "150kW        | -1",
+        "Electric     | -1",
+        "3000000 cc   | 3000000",
+        "2147483648cc | -1",
+        "3000000 L    | -1",
+    })
+    void cc(String engineSize, int expected) {
+        assertEquals(expected, ListingNumbers.cc(engineSize));
+    }
+
+    @ParameterizedTest
+    @NullAndEmptySource
+    @ValueSource(strings = {" ", "no digits", "£"})
+    void textWithoutDigitsHasNoValue(String text) {
+        assertEquals(VehicleListing.NO_VALUE, ListingNumbers.pence(text));
+        assertEquals(VehicleListing.NO_VALUE, ListingNumbers.miles(text));
+        assertEquals(VehicleListing.NO_VALUE, ListingNumbers.year(text));
+        assertEquals(VehicleListing.NO_VALUE, ListingNumbers.cc(text));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"POA", "poa", " P.O.A. ", "Price on enquiry", "price ON enquiry"})
+    void onApplication(String price) {
+        assertTrue(ListingNumbers.onApplication(price));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"£POA", "Call us", "£12,000", ""})
+    void notOnApplication(String price) {
+        assertFalse(ListingNumbers.onApplication(price));
+    }
+
+    private static VehicleListing readable() {
+        return new VehicleListing("Ford Focus", "£12,000", "AB12 CDE", "2019", GearboxType.MANUAL, "1.6L",
+            FuelType.PETROL, "45,000", UlezStatus.YES, "March 2025", "2", null, null);
+    }
+
+    @Test
+    void readableListingHasNoUnreadableNumbers() {
+        assertFalse(ListingNumbers.hasUnreadable(readable()));
+        assertFalse(ListingNumbers.hasUnreadable(new VehicleListing()));
+    }
+
+    @Test
+    void deliberatelyMissingValuesAreNotUnreadable() {
+        VehicleListing vehicle = readable();
+        vehicle.setPrice("POA");
+        vehicle.setYear(PresentationConstants.Defaults.YEAR);
+        vehicle.setFuelType(FuelType.ELECTRIC);
+        vehicle.setEngineSize("60 kWh");
+
+        assertFalse(ListingNumbers.hasUnreadable(vehicle));
+    }
+
+    @Test
+    void eachUnreadableNumberCounts() {
+        VehicleListing price = readable();
+        price.setPrice("Call us");
+        VehicleListing year = readable();
+        year.setYear("69 reg");
+        VehicleListing engine = readable();
+        engine.setEngineSize("60 kWh");
+        VehicleListing mileage = readable();
+        mileage.setMileage("Unknown");
+
+        assertTrue(ListingNumbers.hasUnreadable(price));
+        assertTrue(ListingNumbers.hasUnreadable(year));
+        assertTrue(ListingNumbers.hasUnreadable(engine));
+        assertTrue(ListingNumbers.hasUnreadable(mileage));
+    }
+}
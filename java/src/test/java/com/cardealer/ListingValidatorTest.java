@@ -0,0 +1,162 @@
+package com.cardealer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ListingValidatorTest {
+
+    @TempDir
+    Path dir;
+
+    private final ListingValidator validator = new ListingValidator(2);
+
+    private Path listing(String name, String json) throws IOException {
+        return Files.writeString(dir.resolve(name), json);
+    }
+
+    private static List<String> fields(ListingValidator.ValidationReport report) {
+        List<String> fields = new ArrayList<>();
+        for (ListingValidator.Issue issue : report.issues()) {
+            fields.add(issue.field());
+        }
+        return fields;
+    }
+
+    @Test
+    void validListingHasNoIssues() throws Exception {
+        Files.write(dir.resolve("front.jpg"), new byte[] {1});
+        Path input = listing("focus.json", """
+            {"title": "Ford Focus", "price": "£12,000", "year": "2019 (69 reg)", "gearbox": "Manual",
+             "engine_size": "1.6L", "fuel_type": "Petrol", "mileage": "45,000 miles", "ulez": "Yes",
+             "photos": ["front.jpg"], "dealer": {"name": "North Motors", "phone": "0161 496 0000"}}
+            """);
+
+        ListingValidator.ValidationReport report = validator.validate(List.of(input));
+
+        assertEquals(1, report.listings());
+        assertEquals(1, report.valid());
+        assertEquals(List.of(), report.issues());
+    }
+
+    @Test
+    void everyProblemInAListingIsReported() throws Exception {
+        Path input = listing("bad.json", """
+            {"price": "Call us", "year": "69 reg", "gearbox": "semi-auto", "engine_size": "60 kWh",
+             "fuel_type": "LPG", "mileage": "Unknown", "ulez": "maybe", "photos": ["missing.jpg"],
+             "dealer": {"name": "  ", "email": "sales@north.example"}}
+            """);
+
+        ListingValidator.ValidationReport report = validator.validate(List.of(input));
+
+        assertEquals(1, report.invalid());
+        assertEquals(Set.of("gearbox", "fuel_type", "ulez", "price", "year", "engine_size", "mileage",
+            "dealer.name", "photos[0]"), Set.copyOf(fields(report)));
+        assertEquals(9, report.issues().size());
+        for (ListingValidator.Issue issue : report.issues()) {
+            assertEquals(input, issue.input());
+            assertEquals(0, issue.line());
+        }
+    }
+
+    @Test
+    void electricEngineSizeAndPoaAreFine() throws Exception {
+        Path input = listing("leaf.json",
+            "{\"price\": \"POA\", \"fuel_type\": \"Electric\", \"engine_size\": \"40 kWh\"}");
+
+        assertEquals(List.of(), validator.validate(List.of(input)).issues());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"{\"title\": \"Foc", "", "[]"})
+    void unreadableListingIsOneIssueWithoutAField(String json) throws Exception {
+        Path input = listing("broken.json", json);
+
+        ListingValidator.ValidationReport report = validator.validate(List.of(input));
+
+        assertEquals(1, report.invalid());
+        assertEquals(1, report.issues().size());
+        assertNull(report.issues().get(0).field());
+    }
+
+    @Test
+    void wrongShapeNamesTheField() throws Exception {
+        Path input = listing("shape.json", "{\"specs\": \"Sat nav\"}");
+
+        assertEquals(List.of("specs"), fields(validator.validate(List.of(input))));
+    }
+
+    @Test
+    void malformedJsonReportsItsPosition() throws Exception {
+        Path input = listing("broken.json", "{\n  \"title\": \"Focus\",\n  \"price\" 12000\n}");
+
+        String message = validator.validate(List.of(input)).issues().get(0).message();
+
+        assertTrue(message.startsWith("Invalid JSON at line 3"), message);
+    }
+
+    @Test
+    void missingFileIsReported() throws Exception {
+        ListingValidator.ValidationReport report = validator.validate(List.of(dir.resolve("gone.json")));
+
+        assertEquals("File does not exist", report.issues().get(0).message());
+    }
+
+    @Test
+    void issuesFollowInputOrder() throws Exception {
+        List<Path> inputs = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            inputs.add(listing("listing-" + i + ".json", i % 3 == 0 ? "{\"ulez\": \"maybe\"}" : "{}"));
+        }
+
+        ListingValidator.ValidationReport report = new ListingValidator(4).validate(inputs);
+
+        assertEquals(50, report.listings());
+        assertEquals(17, report.invalid());
+        for (int i = 0; i < report.issues().size(); i++) {
+            assertEquals(inputs.get(i * 3), report.issues().get(i).input());
+        }
+    }
+
+    @Test
+    void csvRowsAreReportedByLine() throws Exception {
+        StringBuilder csv = new StringBuilder("title,price,gearbox\n");
+        for (int i = 0; i < 1_200; i++) {
+            csv.append(i == 700 ? "Focus,Call us,semi-auto\n" : "Focus,\"£12,000\",Manual\n");
+        }
+        csv.append("\"Unclosed,£1\n");
+
+        ListingValidator.ValidationReport report;
+        try (ListingCsvReader feed = new ListingCsvReader(new StringReader(csv.toString()),
+                ListingCsvReader.DEFAULT_DELIMITER, ListingCsvReader.DEFAULT_LIST_DELIMITER)) {
+            report = validator.validate(feed);
+        }
+
+        assertEquals(1_201, report.listings());
+        assertEquals(2, report.invalid());
+        assertEquals(List.of("gearbox", "price"), fields(report).subList(0, 2).stream().sorted().toList());
+        assertEquals(702, report.issues().get(0).line());
+        assertEquals("csv#702 gearbox", report.issues().stream()
+            .filter(issue -> "gearbox".equals(issue.field())).findFirst().orElseThrow().location());
+        assertNull(report.issues().get(2).field());
+    }
+
+    @Test
+    void workerCountMustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> new ListingValidator(0));
+    }
+}
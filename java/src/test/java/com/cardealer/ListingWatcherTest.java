@@ -0,0 +1,209 @@
+package com.cardealer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ListingWatcherTest {
+
+    @TempDir
+    Path dir;
+
+    private Path listings;
+    private Path decks;
+    private final ByteArrayOutputStream logBytes = new ByteArrayOutputStream();
+    private final PrintStream log = new PrintStream(logBytes, true, StandardCharsets.UTF_8);
+
+    /** Writes each listing's title as its deck and records the render, instead of building slides. */
+    private static final class RecordingBuilder extends PresentationBuilder {
+        final List<String> rendered = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void buildPresentation(VehicleListing vehicle, Path outputPath) throws IOException {
+            rendered.add(outputPath.getFileName().toString());
+            Files.writeString(outputPath, vehicle.getTitle());
+        }
+    }
+
+    private final RecordingBuilder builder = new RecordingBuilder();
+
+    private ListingWatcher watcher(long debounceMillis) throws IOException {
+        listings = Files.createDirectories(dir.resolve("listings"));
+        decks = Files.createDirectories(dir.resolve("decks"));
+        return new ListingWatcher(builder, listings, decks, debounceMillis, log);
+    }
+
+    private Path write(String name, String title) throws IOException {
+        return Files.writeString(listings.resolve(name), "{\"title\": \"" + title + "\", \"price\": \"£12,000\"}");
+    }
+
+    @Test
+    void initialSyncRendersOnlyMissingOrStaleDecks() throws IOException {
+        ListingWatcher watcher = watcher(100);
+        Path current = write("current.json", "Current");
+        Files.setLastModifiedTime(current, FileTime.fromMillis(1_000_000));
+        Files.writeString(decks.resolve("current.pptx"), "Current");
+        Path stale = write("stale.json", "Stale");
+        Files.writeString(decks.resolve("stale.pptx"), "Old");
+        Files.setLastModifiedTime(decks.resolve("stale.pptx"), FileTime.fromMillis(1_000_000));
+        Files.setLastModifiedTime(stale, FileTime.fromMillis(2_000_000));
+        write("missing.json", "Missing");
+        Files.writeString(listings.resolve("notes.txt"), "not a listing");
+
+        ListingWatcher.WatchCycle cycle = watcher.initialSync();
+
+        assertEquals(List.of("missing.pptx", "stale.pptx"), builder.rendered);
+        assertEquals(2, cycle.rendered);
+        assertEquals(1, cycle.unchanged);
+        assertEquals("Stale", Files.readString(decks.resolve("stale.pptx")));
+    }
+
+    @Test
+    void unchangedContentIsNotRenderedAgain() throws IOException {
+        ListingWatcher watcher = watcher(100);
+        Path listing = write("focus.json", "Focus");
+        watcher.initialSync();
+
+        // Same fields, different formatting
+        Files.writeString(listing, "{\n  \"price\": \"£12,000\",\n  \"title\": \"Focus\"\n}\n");
+        ListingWatcher.WatchCycle cycle = watcher.processChanges(Set.of(listing));
+
+        assertEquals(1, cycle.unchanged);
+        assertEquals(0, cycle.rendered);
+        assertEquals(List.of("focus.pptx"), builder.rendered);
+    }
+
+    @Test
+    void changedContentIsRendered() throws IOException {
+        ListingWatcher watcher = watcher(100);
+        Path listing = write("focus.json", "Focus");
+        watcher.initialSync();
+
+        write("focus.json", "Focus ST");
+        ListingWatcher.WatchCycle cycle = watcher.processChanges(Set.of(listing));
+
+        assertEquals(1, cycle.rendered);
+        assertEquals("Focus ST", Files.readString(decks.resolve("focus.pptx")));
+    }
+
+    @Test
+    void deletedListingRemovesItsDeck() throws IOException {
+        ListingWatcher watcher = watcher(100);
+        Path listing = write("focus.json", "Focus");
+        watcher.initialSync();
+        Files.delete(listing);
+
+        ListingWatcher.WatchCycle cycle = watcher.processChanges(Set.of(listing));
+
+        assertEquals(1, cycle.removed);
+        assertFalse(Files.exists(decks.resolve("focus.pptx")));
+
+        // Recreating it with the same content renders it again, as its key was forgotten
+        write("focus.json", "Focus");
+        assertEquals(1, watcher.processChanges(Set.of(listing)).rendered);
+        assertTrue(Files.exists(decks.resolve("focus.pptx")));
+    }
+
+    @Test
+    void deletingAListingWithoutADeckRemovesNothing() throws IOException {
+        ListingWatcher watcher = watcher(100);
+
+        ListingWatcher.WatchCycle cycle = watcher.processChanges(Set.of(listings.resolve("gone.json")));
+
+        assertEquals(0, cycle.removed);
+        assertEquals(0, cycle.failed);
+    }
+
+    @Test
+    void unreadableListingFailsAndIsRetried() throws IOException {
+        ListingWatcher watcher = watcher(100);
+        // Caught mid-write
+        Path listing = Files.writeString(listings.resolve("focus.json"), "{\"title\": \"Foc");
+
+        assertEquals(1, watcher.processChanges(Set.of(listing)).failed);
+        assertTrue(logText().contains("failed focus.json"));
+
+        write("focus.json", "Focus");
+        assertEquals(1, watcher.processChanges(Set.of(listing)).rendered);
+    }
+
+    @Test
+    void invalidArgumentsAreRejected() {
+        assertThrows(IllegalArgumentException.class,
+            () -> new ListingWatcher(builder, dir.resolve("missing"), dir, 100, log));
+        assertThrows(IllegalArgumentException.class, () -> new ListingWatcher(builder, dir, dir, -1, log));
+    }
+
+    private String logText() {
+        return logBytes.toString(StandardCharsets.UTF_8);
+    }
+
+    private static long count(String text, String line) {
+        return text.lines().filter(l -> l.startsWith(line)).count();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(20);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "timed out");
+            Thread.sleep(20);
+        }
+    }
+
+    @Test
+    void burstOfWritesIsOneCycleAndDeleteRemovesTheDeck() throws Exception {
+        ListingWatcher watcher = watcher(500);
+        write("focus.json", "Focus");
+        Thread thread = new Thread(() -> {
+            try {
+                watcher.run();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        thread.start();
+        try {
+            await(() -> logText().contains("Initial sync"));
+            assertEquals(List.of("focus.pptx"), builder.rendered);
+
+            // Writes closer together than the debounce are handled as one cycle with the last content
+            for (int i = 1; i <= 5; i++) {
+                write("focus.json", "Focus " + i);
+                write("fiesta.json", "Fiesta " + i);
+                Thread.sleep(50);
+            }
+            await(() -> count(logText(), "Changes") == 1);
+            assertEquals(List.of("focus.pptx", "fiesta.pptx", "focus.pptx"), builder.rendered);
+            assertEquals("Focus 5", Files.readString(decks.resolve("focus.pptx")));
+            assertEquals("Fiesta 5", Files.readString(decks.resolve("fiesta.pptx")));
+
+            Files.delete(listings.resolve("fiesta.json"));
+            await(() -> count(logText(), "Changes") == 2);
+            assertFalse(Files.exists(decks.resolve("fiesta.pptx")));
+            assertTrue(logText().contains("removed fiesta.pptx"));
+            assertEquals(3, builder.rendered.size());
+        } finally {
+            thread.interrupt();
+            thread.join(10_000);
+        }
+        assertFalse(thread.isAlive());
+    }
+}
@@ -0,0 +1,204 @@
+package com.cardealer;
+
+import org.apache.poi.sl.usermodel.PictureData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PhotoPipelineTest {
+
+    @TempDir
+    Path dir;
+
+    private final PhotoPipeline pipeline = new PhotoPipeline(PhotoPipeline.DEFAULT_MAX_HEAP_BYTES, 2);
+
+    private Path image(String name, int width, int height, boolean alpha, Color color) throws IOException {
+        BufferedImage image = new BufferedImage(width, height,
+            alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setColor(color);
+            graphics.fillRect(0, 0, width / 2, height);
+        } finally {
+            graphics.dispose();
+        }
+        Path file = dir.resolve(name);
+        ImageIO.write(image, alpha ? "png" : "jpeg", file.toFile());
+        return file;
+    }
+
+    private List<PhotoPipeline.Photo> prepare(List<Path> photos, int maxWidth, int maxHeight) throws IOException {
+        List<String> paths = new ArrayList<>();
+        for (Path photo : photos) {
+            paths.add(photo.toString());
+        }
+        return PhotoPipeline.await(pipeline.prepare(paths, maxWidth, maxHeight));
+    }
+
+    private static BufferedImage decode(PhotoPipeline.Photo photo) throws IOException {
+        return ImageIO.read(new ByteArrayInputStream(photo.data()));
+    }
+
+    @Test
+    void largePhotoIsScaledToFit() throws IOException {
+        Path photo = image("camera.jpg", 2000, 1500, false, Color.RED);
+
+        PhotoPipeline.Photo prepared = prepare(List.of(photo), 400, 400).get(0);
+
+        assertEquals(PictureData.PictureType.JPEG, prepared.type());
+        assertEquals(400, prepared.width());
+        assertEquals(300, prepared.height());
+        BufferedImage decoded = decode(prepared);
+        assertEquals(400, decoded.getWidth());
+        assertEquals(300, decoded.getHeight());
+        assertTrue(prepared.data().length < Files.size(photo));
+        // The left half stays red after subsampling and scaling
+        Color left = new Color(decoded.getRGB(50, 150));
+        assertTrue(left.getRed() > 200 && left.getGreen() < 60, left.toString());
+    }
+
+    @Test
+    void smallPhotoIsNotEnlarged() throws IOException {
+        PhotoPipeline.Photo prepared = prepare(List.of(image("small.jpg", 120, 80, false, Color.BLUE)), 400, 300)
+            .get(0);
+
+        assertEquals(120, prepared.width());
+        assertEquals(80, prepared.height());
+    }
+
+    @Test
+    void transparentPhotoStaysPng() throws IOException {
+        PhotoPipeline.Photo prepared = prepare(List.of(image("logo.png", 800, 400, true, Color.GREEN)), 200, 200)
+            .get(0);
+
+        assertEquals(PictureData.PictureType.PNG, prepared.type());
+        assertEquals(200, prepared.width());
+        assertEquals(100, prepared.height());
+        assertTrue(decode(prepared).getColorModel().hasAlpha());
+    }
+
+    @Test
+    void photosKeepTheirOrderAndAreCapped() throws IOException {
+        List<Path> photos = new ArrayList<>();
+        for (int i = 0; i < PhotoPipeline.MAX_PHOTOS + 6; i++) {
+            photos.add(image("photo-" + i + ".jpg", 100 + i, 50, false, new Color(i * 8, 0, 0)));
+        }
+
+        List<PhotoPipeline.Photo> prepared = prepare(photos, 400, 300);
+
+        assertEquals(PhotoPipeline.MAX_PHOTOS, prepared.size());
+        for (int i = 0; i < prepared.size(); i++) {
+            assertEquals(100 + i, prepared.get(i).width());
+        }
+    }
+
+    @Test
+    void duplicatePhotosAreDecodedOnce() throws IOException {
+        Path photo = image("front.jpg", 1000, 800, false, Color.RED);
+        Path copy = Files.copy(photo, dir.resolve("front-copy.jpg"));
+
+        List<PhotoPipeline.Photo> prepared = prepare(List.of(photo, copy, photo), 300, 300);
+
+        assertSame(prepared.get(0), prepared.get(1));
+        assertSame(prepared.get(0), prepared.get(2));
+    }
+
+    @Test
+    void missingPhotoFailsTheListing() throws IOException {
+        Path photo = image("front.jpg", 100, 100, false, Color.RED);
+
+        NoSuchFileException e = assertThrows(NoSuchFileException.class,
+            () -> prepare(List.of(photo, dir.resolve("missing.jpg")), 300, 300));
+        assertTrue(e.getMessage().contains("missing.jpg"), e.getMessage());
+    }
+
+    @Test
+    void unreadablePhotoFailsWithIoException() throws IOException {
+        Path corrupt = Files.write(dir.resolve("corrupt.jpg"), new byte[] {1, 2, 3, 4});
+
+        IOException e = assertThrows(IOException.class, () -> prepare(List.of(corrupt), 300, 300));
+        assertTrue(e.getMessage().contains("corrupt.jpg"), e.getMessage());
+    }
+
+    @Test
+    void reservationsStayWithinTheBudget() throws IOException {
+        PhotoPipeline small = new PhotoPipeline(2L * 1024 * 1024, 4);
+        List<String> photos = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            photos.add(image("photo-" + i + ".jpg", 1600, 1200, false, new Color(0, i * 30, 0)).toString());
+        }
+        // Larger than the whole budget on its own, so it runs alone
+        photos.add(image("huge.jpg", 3000, 3000, false, Color.RED).toString());
+
+        List<PhotoPipeline.Photo> prepared = PhotoPipeline.await(small.prepare(photos, 640, 480));
+
+        assertEquals(9, prepared.size());
+        assertTrue(small.getPeakReservedBytes() > 0);
+        assertTrue(small.getPeakReservedBytes() <= small.getMaxHeapBytes(), "peak " + small.getPeakReservedBytes());
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "4000, 3000, 400, 300, 5",
+        "4000, 3000, 1000, 1000, 2",
+        "800, 600, 400, 300, 1",
+        "100, 100, 400, 300, 1",
+        "6000, 1000, 600, 600, 5",
+    })
+    void subsamplingKeepsTwiceThePlacedSize(int width, int height, int maxWidth, int maxHeight, int expected) {
+        assertEquals(expected, PhotoPipeline.subsampling(width, height, maxWidth, maxHeight));
+    }
+
+    @Test
+    void deckEmbedsEachDistinctPhotoOnce() throws IOException {
+        Path front = image("front.jpg", 1200, 900, false, Color.RED);
+        Path back = image("back.jpg", 1200, 900, false, Color.BLUE);
+        VehicleListing vehicle = new VehicleListing();
+        vehicle.setTitle("Ford Focus");
+        vehicle.setPhotos(List.of(front.toString(), back.toString(), front.toString()));
+
+        byte[] deck = new PresentationBuilder(RenderMode.DIRECT, CompressionPolicy.POI_DEFAULT, pipeline)
+            .renderToBytes(vehicle);
+
+        List<String> media = new ArrayList<>();
+        List<String> slides = new ArrayList<>();
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(deck))) {
+            for (ZipEntry entry = in.getNextEntry(); entry != null; entry = in.getNextEntry()) {
+                if (entry.getName().startsWith("ppt/media/")) {
+                    media.add(entry.getName());
+                } else if (entry.getName().matches("ppt/slides/slide\\d+\\.xml")) {
+                    slides.add(entry.getName());
+                }
+            }
+        }
+        assertEquals(2, media.size(), media.toString());
+        assertFalse(slides.isEmpty());
+    }
+
+    @Test
+    void invalidSettingsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new PhotoPipeline(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new PhotoPipeline(1024, 0));
+    }
+}
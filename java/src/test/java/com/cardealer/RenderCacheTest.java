@@ -0,0 +1,272 @@
+package com.cardealer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RenderCacheTest {
+
+    @TempDir
+    Path dir;
+
+    /** Renders a deck of a fixed size per listing, counting renders, instead of building slides. */
+    private static class CountingBuilder extends PresentationBuilder {
+        final AtomicInteger renders = new AtomicInteger();
+        private final int deckBytes;
+
+        CountingBuilder(int deckBytes) {
+            this.deckBytes = deckBytes;
+        }
+
+        @Override
+        public byte[] renderToBytes(VehicleListing vehicle) throws IOException {
+            renders.incrementAndGet();
+            byte[] deck = new byte[deckBytes];
+            deck[0] = (byte) vehicle.getTitle().hashCode();
+            return deck;
+        }
+    }
+
+    private static VehicleListing listing() {
+        return listing("Ford Focus 1.6 Titanium");
+    }
+
+    private static VehicleListing listing(String title) {
+        return new VehicleListing(title, "£12,000", "AB12 CDE", "2019 (69 reg)", GearboxType.MANUAL, "1.6L",
+            FuelType.PETROL, "45k miles", UlezStatus.YES, "March 2025", "2", List.of("Heated seats", "Sat nav"),
+            new DealerDetails("North Motors", "0161 496 0000", "sales@north.example", "north.example"));
+    }
+
+    private static String key(VehicleListing vehicle) {
+        return RenderCache.key(vehicle, RenderMode.DIRECT, CompressionPolicy.POI_DEFAULT);
+    }
+
+    @Test
+    void keyIsStableAcrossRuns() {
+        // Recorded with LAYOUT_VERSION 2; any other change to it would re-render every cached deck
+        assertEquals("79948c5b8028ec9752550982d5fdd19940328f8947612cd69b5e83ca3922d203", key(listing()));
+        assertEquals(key(listing()), key(listing()));
+    }
+
+    private static Stream<Arguments> changes() {
+        List<Consumer<VehicleListing>> changes = List.of(
+            v -> v.setTitle("Ford Focus 1.5 Titanium"),
+            v -> v.setPrice("£11,995"),
+            v -> v.setRegistration("AB12 CDF"),
+            v -> v.setYear("2020 (70 reg)"),
+            v -> v.setGearbox(GearboxType.AUTOMATIC),
+            v -> v.setEngineSize("1.5L"),
+            v -> v.setFuelType(FuelType.DIESEL),
+            v -> v.setMileage("46k miles"),
+            v -> v.setUlez(UlezStatus.NO),
+            v -> v.setMotExpiry("April 2025"),
+            v -> v.setOwners("3"),
+            v -> v.setSpecs(List.of("Heated seats")),
+            v -> v.setSpecs(List.of("Heated seats", "Sat nav", "")),
+            v -> v.setSpecs(List.of("Heated seatsSat nav")),
+            v -> v.setDealer(new DealerDetails("South Cars", "0161 496 0000", "sales@north.example", "north.example")),
+            v -> v.setDealer(new DealerDetails("North Motors", "0161 496 0001", "sales@north.example", "north.example")),
+            v -> v.setDealer(new DealerDetails("North Motors", "0161 496 0000", "cars@north.example", "north.example")),
+            v -> v.setDealer(new DealerDetails("North Motors", "0161 496 0000", "sales@north.example", "north.test")),
+            v -> v.setPhotos(List.of("missing.jpg")));
+        return IntStream.range(0, changes.size()).mapToObj(i -> Arguments.of(i, changes.get(i)));
+    }
+
+    @ParameterizedTest(name = "change {0}")
+    @MethodSource("changes")
+    void everyFieldChangesTheKey(int index, Consumer<VehicleListing> change) {
+        VehicleListing changed = listing();
+        change.accept(changed);
+
+        assertNotEquals(key(listing()), key(changed));
+    }
+
+    @Test
+    void nullDiffersFromEmpty() {
+        VehicleListing empty = listing();
+        empty.setOwners("");
+        VehicleListing missing = listing();
+        missing.setOwners(null);
+
+        assertNotEquals(key(empty), key(missing));
+    }
+
+    @Test
+    void modeCompressionAndLayoutChangeTheKey() {
+        VehicleListing vehicle = listing();
+        String key = key(vehicle);
+
+        assertNotEquals(key, RenderCache.key(vehicle, RenderMode.TEMPLATE, CompressionPolicy.POI_DEFAULT));
+        assertNotEquals(key, RenderCache.key(vehicle, RenderMode.DIRECT, CompressionPolicy.STORED));
+        assertNotEquals(RenderCache.key(vehicle, RenderMode.DIRECT, CompressionPolicy.deflate(1)),
+            RenderCache.key(vehicle, RenderMode.DIRECT, CompressionPolicy.deflate(6)));
+        assertEquals(key, RenderCache.key(vehicle, RenderMode.DIRECT, CompressionPolicy.POI_DEFAULT,
+            RenderCache.LAYOUT_VERSION));
+        assertNotEquals(key, RenderCache.key(vehicle, RenderMode.DIRECT, CompressionPolicy.POI_DEFAULT,
+            RenderCache.LAYOUT_VERSION + 1));
+    }
+
+    @Test
+    void photoFileChangesTheKey() throws IOException {
+        Path photo = Files.write(dir.resolve("front.jpg"), new byte[] {1, 2, 3});
+        VehicleListing vehicle = listing();
+        vehicle.setPhotos(List.of(photo.toString()));
+        String key = key(vehicle);
+
+        Files.write(photo, new byte[] {1, 2, 3, 4});
+        String resized = key(vehicle);
+        Files.setLastModifiedTime(photo, FileTime.fromMillis(0));
+
+        assertNotEquals(key, resized);
+        assertNotEquals(resized, key(vehicle));
+    }
+
+    @Test
+    void repeatedRenderIsAMemoryHit() throws IOException {
+        CountingBuilder builder = new CountingBuilder(100);
+        RenderCache cache = new RenderCache(builder, 1_000, null);
+
+        byte[] first = cache.render(listing());
+        assertSame(first, cache.render(listing()));
+        assertSame(first, cache.cached(listing()));
+
+        assertEquals(1, builder.renders.get());
+        RenderCache.Stats stats = cache.stats();
+        assertEquals(2, stats.memoryHits());
+        assertEquals(1, stats.misses());
+        assertEquals(100, stats.memoryBytes());
+    }
+
+    @Test
+    void leastRecentlyUsedDecksAreEvictedBySize() throws IOException {
+        CountingBuilder builder = new CountingBuilder(400);
+        RenderCache cache = new RenderCache(builder, 1_000, null);
+
+        cache.render(listing("a"));
+        cache.render(listing("b"));
+        cache.render(listing("a"));
+        cache.render(listing("c"));
+
+        // Two 400-byte decks fit in 1,000 bytes; b was used least recently
+        assertNotNull(cache.cached(listing("a")));
+        assertNull(cache.cached(listing("b")));
+        assertNotNull(cache.cached(listing("c")));
+        RenderCache.Stats stats = cache.stats();
+        assertEquals(1, stats.evictions());
+        assertEquals(2, stats.memoryEntries());
+        assertEquals(800, stats.memoryBytes());
+    }
+
+    @Test
+    void deckLargerThanTheLimitIsNotKeptInMemory() throws IOException {
+        CountingBuilder builder = new CountingBuilder(2_000);
+        RenderCache cache = new RenderCache(builder, 1_000, null);
+
+        cache.render(listing());
+        cache.render(listing());
+
+        assertEquals(2, builder.renders.get());
+        assertEquals(0, cache.stats().memoryEntries());
+    }
+
+    @Test
+    void diskTierIsReusedByTheNextRun() throws IOException {
+        Path cacheDir = dir.resolve("cache");
+        byte[] deck = new RenderCache(new CountingBuilder(100), 0, cacheDir).render(listing());
+
+        CountingBuilder builder = new CountingBuilder(100);
+        RenderCache next = new RenderCache(builder, 0, cacheDir);
+
+        assertArrayEquals(deck, next.render(listing()));
+        assertEquals(0, builder.renders.get());
+        assertEquals(1, next.stats().diskHits());
+        assertTrue(Files.exists(cacheDir.resolve(key(listing()).substring(0, 2)).resolve(key(listing()) + ".pptx")));
+    }
+
+    @Test
+    void concurrentMissesShareOneRender() throws Exception {
+        int threads = 4;
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountingBuilder builder = new CountingBuilder(100) {
+            @Override
+            public byte[] renderToBytes(VehicleListing vehicle) throws IOException {
+                started.countDown();
+                try {
+                    assertTrue(release.await(10, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return super.renderToBytes(vehicle);
+            }
+        };
+        RenderCache cache = new RenderCache(builder, 1_000, null);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<byte[]>> results = new ArrayList<>();
+            results.add(pool.submit(() -> cache.render(listing())));
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            for (int i = 1; i < threads; i++) {
+                results.add(pool.submit(() -> cache.render(listing())));
+            }
+            // The other threads count a hit just before they wait for the render in flight
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (cache.stats().memoryHits() < threads - 1 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            byte[] first = results.get(0).get(10, TimeUnit.SECONDS);
+            for (Future<byte[]> result : results) {
+                assertSame(first, result.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, builder.renders.get());
+        assertEquals(1, cache.stats().misses());
+    }
+
+    @Test
+    void failedRenderIsSharedAndNotCached() throws IOException {
+        PresentationBuilder failing = new PresentationBuilder() {
+            @Override
+            public byte[] renderToBytes(VehicleListing vehicle) throws IOException {
+                throw new IOException("render failed");
+            }
+        };
+        RenderCache cache = new RenderCache(failing, 1_000, null);
+
+        assertThrows(IOException.class, () -> cache.render(listing()));
+        assertNull(cache.cached(listing()));
+        assertThrows(IOException.class, () -> cache.render(listing()));
+        assertEquals(2, cache.stats().misses());
+    }
+}
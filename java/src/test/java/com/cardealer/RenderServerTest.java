@@ -0,0 +1,245 @@
+package com.cardealer;
+
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFShape;
+import org.apache.poi.xslf.usermodel.XSLFSlide;
+import org.apache.poi.xslf.usermodel.XSLFTextShape;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RenderServerTest {
+
+    private static final String LISTING = """
+        {"title": "Ford Focus 1.6 Titanium", "price": "£12,000", "gearbox": "Manual",
+         "dealer": {"name": "North Motors", "phone": "0161 496 0000"}}
+        """;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private RenderServer server;
+
+    /** Records the listings it is asked to render and returns their title as the deck. */
+    private static class RecordingBuilder extends PresentationBuilder {
+        final List<VehicleListing> rendered = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public byte[] renderToBytes(VehicleListing vehicle) throws IOException {
+            rendered.add(vehicle);
+            return String.valueOf(vehicle.getTitle()).getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    private RenderServer start(PresentationBuilder builder, int maxConcurrentRenders, long queueTimeoutMillis,
+                               RenderCache cache) throws Exception {
+        server = new RenderServer(builder, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+            maxConcurrentRenders, queueTimeoutMillis, 0, cache);
+        server.start();
+        return server;
+    }
+
+    @AfterEach
+    void stop() {
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    private URI uri(String path) {
+        InetSocketAddress address = server.getAddress();
+        return URI.create("http://" + address.getHostString() + ":" + address.getPort() + path);
+    }
+
+    private HttpRequest post(String body) {
+        return HttpRequest.newBuilder(uri("/render")).POST(HttpRequest.BodyPublishers.ofString(body)).build();
+    }
+
+    private HttpResponse<byte[]> send(HttpRequest request) throws Exception {
+        return client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return client.send(HttpRequest.newBuilder(uri(path)).GET().build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String text(HttpResponse<byte[]> response) {
+        return new String(response.body(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void postedListingIsRenderedToADeck() throws Exception {
+        start(new PresentationBuilder(), 2, 1_000, null);
+
+        HttpResponse<byte[]> response = send(post(LISTING));
+
+        assertEquals(200, response.statusCode());
+        assertEquals(RenderServer.PPTX_CONTENT_TYPE, response.headers().firstValue("Content-Type").orElseThrow());
+        List<String> text = new ArrayList<>();
+        try (XMLSlideShow pptx = new XMLSlideShow(new ByteArrayInputStream(response.body()))) {
+            for (XSLFSlide slide : pptx.getSlides()) {
+                for (XSLFShape shape : slide.getShapes()) {
+                    if (shape instanceof XSLFTextShape textShape) {
+                        text.add(textShape.getText());
+                    }
+                }
+            }
+        }
+        assertTrue(text.stream().anyMatch(t -> t.contains("Ford Focus 1.6 Titanium")), text.toString());
+        assertEquals(1, server.completedRenders());
+    }
+
+    @Test
+    void clientPhotoPathsAreIgnored() throws Exception {
+        RecordingBuilder builder = new RecordingBuilder();
+        start(builder, 1, 1_000, null);
+
+        HttpResponse<byte[]> response = send(post("{\"title\": \"Focus\", \"photos\": [\"/etc/passwd\"]}"));
+
+        assertEquals(200, response.statusCode());
+        assertEquals("Focus", text(response));
+        assertEquals(List.of(), builder.rendered.get(0).getPhotos());
+    }
+
+    @Test
+    void invalidRequestsAreRejected() throws Exception {
+        RecordingBuilder builder = new RecordingBuilder();
+        start(builder, 1, 1_000, null);
+
+        HttpResponse<byte[]> wrongMethod = send(HttpRequest.newBuilder(uri("/render")).GET().build());
+        assertEquals(405, wrongMethod.statusCode());
+        assertEquals("POST", wrongMethod.headers().firstValue("Allow").orElseThrow());
+
+        HttpResponse<byte[]> invalid = send(post("{\"title\": "));
+        assertEquals(400, invalid.statusCode());
+        assertTrue(text(invalid).startsWith("Invalid JSON"), text(invalid));
+
+        HttpResponse<byte[]> tooLarge = send(post("{\"title\": \"" + "x".repeat(RenderServer.MAX_BODY_BYTES) + "\"}"));
+        assertEquals(413, tooLarge.statusCode());
+
+        assertEquals(List.of(), builder.rendered);
+        assertEquals(0, server.completedRenders());
+    }
+
+    @Test
+    void failedRenderAnswers500() throws Exception {
+        start(new PresentationBuilder() {
+            @Override
+            public byte[] renderToBytes(VehicleListing vehicle) throws IOException {
+                throw new IOException("disk full");
+            }
+        }, 1, 1_000, null);
+
+        HttpResponse<byte[]> response = send(post(LISTING));
+
+        assertEquals(500, response.statusCode());
+        assertEquals("Render failed: disk full\n", text(response));
+        assertEquals(0, server.completedRenders());
+    }
+
+    @Test
+    void requestIsRejectedWhenNoSlotFreesInTime() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        start(new RecordingBuilder() {
+            @Override
+            public byte[] renderToBytes(VehicleListing vehicle) throws IOException {
+                started.countDown();
+                try {
+                    assertTrue(release.await(10, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return super.renderToBytes(vehicle);
+            }
+        }, 1, 100, null);
+
+        CompletableFuture<HttpResponse<byte[]>> first =
+            client.sendAsync(post(LISTING), HttpResponse.BodyHandlers.ofByteArray());
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        HttpResponse<byte[]> busy = send(post(LISTING));
+        release.countDown();
+
+        assertEquals(503, busy.statusCode());
+        assertEquals("1", busy.headers().firstValue("Retry-After").orElseThrow());
+        assertEquals(200, first.get(10, TimeUnit.SECONDS).statusCode());
+        assertEquals(1, server.rejectedRequests());
+        assertEquals(1, server.completedRenders());
+    }
+
+    @Test
+    void cachedListingIsNotRenderedAgain() throws Exception {
+        RecordingBuilder builder = new RecordingBuilder();
+        start(builder, 1, 1_000, new RenderCache(builder, 1 << 20, null));
+
+        byte[] first = send(post(LISTING)).body();
+        HttpResponse<byte[]> second = send(post(LISTING));
+
+        assertEquals(200, second.statusCode());
+        assertArrayEquals(first, second.body());
+        assertEquals(1, builder.rendered.size());
+        assertTrue(get("/stats").body().startsWith("Rendered 1 decks, rejected 0 requests"));
+    }
+
+    @Test
+    void healthAndMetricsAnswerGet() throws Exception {
+        start(new RecordingBuilder(), 1, 1_000, null);
+
+        HttpResponse<String> health = get("/health");
+        assertEquals(200, health.statusCode());
+        assertEquals("ok\n", health.body());
+        HttpResponse<String> metrics = get("/metrics");
+        assertEquals(200, metrics.statusCode());
+        assertTrue(metrics.headers().firstValue("Content-Type").orElseThrow().startsWith("text/plain; version=0.0.4"));
+        assertEquals(405, send(HttpRequest.newBuilder(uri("/health"))
+            .POST(HttpRequest.BodyPublishers.noBody()).build()).statusCode());
+    }
+
+    @Test
+    void warmUpRendersOnEveryWorkerBeforeStarting() throws Exception {
+        AtomicInteger warmups = new AtomicInteger();
+        server = new RenderServer(new PresentationBuilder() {
+            @Override
+            public ByteBuffer renderToBuffer(VehicleListing vehicle) {
+                warmups.incrementAndGet();
+                return ByteBuffer.allocate(0);
+            }
+        }, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 3, 1_000, 2);
+
+        assertThrows(IllegalStateException.class, server::getAddress);
+        server.start();
+
+        assertEquals(6, warmups.get());
+        assertThrows(IllegalStateException.class, server::start);
+    }
+
+    @Test
+    void invalidLimitsAreRejected() {
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+        PresentationBuilder builder = new PresentationBuilder();
+
+        assertThrows(IllegalArgumentException.class, () -> new RenderServer(builder, address, 0, 1_000, 0));
+        assertThrows(IllegalArgumentException.class, () -> new RenderServer(builder, address, 1, -1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new RenderServer(builder, address, 1, 1_000, -1));
+    }
+}
@@ -0,0 +1,181 @@
+package com.cardealer;
+
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFSlide;
+import org.apache.poi.xslf.usermodel.XSLFTextBox;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import javax.imageio.ImageIO;
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlidePreviewExporterTest {
+
+    @TempDir
+    Path dir;
+
+    private static VehicleListing listing() {
+        return new VehicleListing("Ford Focus 1.6 Titanium", "£12,000", "AB12 CDE", "2019 (69 reg)",
+            GearboxType.MANUAL, "1.6L", FuelType.PETROL, "45k miles", UlezStatus.YES, "March 2025", "2",
+            List.of("Heated seats", "Sat nav"),
+            new DealerDetails("North Motors", "0161 496 0000", "sales@north.example", "north.example"));
+    }
+
+    private static XMLSlideShow slideshow(int slides) {
+        XMLSlideShow pptx = new XMLSlideShow();
+        for (int i = 0; i < slides; i++) {
+            XSLFTextBox text = pptx.createSlide().createTextBox();
+            text.setAnchor(new Rectangle(50, 50, 400, 100));
+            text.setText("Slide " + (i + 1));
+        }
+        return pptx;
+    }
+
+    private static boolean hasInk(BufferedImage image) {
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                if ((image.getRGB(x, y) & 0xFFFFFF) != 0xFFFFFF) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static int slideCount(Path deck) throws IOException {
+        try (InputStream in = Files.newInputStream(deck); XMLSlideShow pptx = new XMLSlideShow(in)) {
+            return pptx.getSlides().size();
+        }
+    }
+
+    private static int pdfPages(Path pdf) throws IOException {
+        Matcher pages = Pattern.compile("/Type /Page ")
+            .matcher(new String(Files.readAllBytes(pdf), StandardCharsets.ISO_8859_1));
+        int count = 0;
+        while (pages.find()) {
+            count++;
+        }
+        return count;
+    }
+
+    @Test
+    void slidesAreNamedAfterTheDeck() throws IOException {
+        Path deck = dir.resolve("focus.pptx");
+        try (XMLSlideShow pptx = slideshow(3)) {
+            List<Path> written = new SlidePreviewExporter().export(pptx, deck);
+
+            assertEquals(List.of(dir.resolve("focus.png"), dir.resolve("focus-2.png"), dir.resolve("focus-3.png")),
+                written);
+        }
+        assertEquals(List.of(dir.resolve("focus.png"), dir.resolve("focus-2.png"), dir.resolve("focus-3.png")),
+            SlidePreviewExporter.existingPreviews(deck));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 48, SlidePreviewExporter.DEFAULT_DPI, 150})
+    void previewSizeFollowsTheResolution(int dpi) throws IOException {
+        try (XMLSlideShow pptx = slideshow(1)) {
+            Dimension page = pptx.getPageSize();
+            Path png = new SlidePreviewExporter(dpi, false).export(pptx, dir.resolve("deck.pptx")).get(0);
+
+            BufferedImage image = ImageIO.read(png.toFile());
+            assertEquals(Math.max(1, Math.round(page.getWidth() * dpi / 72)), image.getWidth());
+            assertEquals(Math.max(1, Math.round(page.getHeight() * dpi / 72)), image.getHeight());
+        }
+    }
+
+    @Test
+    void textIsDrawnOnAWhiteBackground() throws IOException {
+        try (XMLSlideShow pptx = slideshow(1)) {
+            XSLFSlide slide = pptx.getSlides().get(0);
+            BufferedImage image = new SlidePreviewExporter().render(slide, pptx.getPageSize());
+
+            assertEquals(0xFFFFFF, image.getRGB(image.getWidth() - 1, image.getHeight() - 1) & 0xFFFFFF);
+            assertTrue(hasInk(image.getSubimage(0, 0, image.getWidth() / 2, image.getHeight() / 3)));
+        }
+    }
+
+    @Test
+    void pdfHasOnePagePerSlide() throws IOException {
+        Path deck = dir.resolve("focus.pptx");
+        try (XMLSlideShow pptx = slideshow(2)) {
+            List<Path> written = new SlidePreviewExporter(48, true).export(pptx, deck);
+
+            assertEquals(dir.resolve("focus.pdf"), written.get(written.size() - 1));
+            assertEquals(3, written.size());
+        }
+        Path pdf = dir.resolve("focus.pdf");
+        String text = new String(Files.readAllBytes(pdf), StandardCharsets.ISO_8859_1);
+        assertTrue(text.startsWith("%PDF-1.4\n"));
+        assertTrue(text.stripTrailing().endsWith("%%EOF"));
+        assertEquals(2, pdfPages(pdf));
+        assertTrue(SlidePreviewExporter.existingPreviews(deck).contains(pdf));
+    }
+
+    @ParameterizedTest
+    @EnumSource(RenderMode.class)
+    void builderWritesAPreviewPerSlide(RenderMode mode) throws IOException {
+        Path deck = dir.resolve("focus.pptx");
+
+        new PresentationBuilder(mode).buildPresentation(listing(), deck, new SlidePreviewExporter(48, true));
+
+        int slides = slideCount(deck);
+        List<Path> previews = SlidePreviewExporter.existingPreviews(deck);
+        assertEquals(slides + 1, previews.size(), previews.toString());
+        assertEquals(slides, pdfPages(dir.resolve("focus.pdf")));
+        for (Path preview : previews) {
+            if (preview.toString().endsWith(".png")) {
+                assertTrue(hasInk(ImageIO.read(preview.toFile())), preview.toString());
+            }
+        }
+    }
+
+    @Test
+    void noPreviewsWithoutAnExporter() throws IOException {
+        Path deck = dir.resolve("focus.pptx");
+
+        new PresentationBuilder().buildPresentation(listing(), deck);
+
+        assertTrue(Files.exists(deck));
+        assertEquals(List.of(), SlidePreviewExporter.existingPreviews(deck));
+    }
+
+    @Test
+    void existingPreviewsStopAtTheFirstGap() throws IOException {
+        Path deck = dir.resolve("focus.pptx");
+        List<Path> expected = new ArrayList<>();
+        for (String name : new String[] {"focus.png", "focus-2.png"}) {
+            expected.add(Files.write(dir.resolve(name), new byte[] {1}));
+        }
+        Files.write(dir.resolve("focus-4.png"), new byte[] {1});
+        Files.write(dir.resolve("focus-st.png"), new byte[] {1});
+
+        assertEquals(expected, SlidePreviewExporter.existingPreviews(deck));
+        assertEquals(List.of(), SlidePreviewExporter.existingPreviews(dir.resolve("fiesta.pptx")));
+    }
+
+    @Test
+    void resolutionOutOfRangeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new SlidePreviewExporter(0, false));
+        assertThrows(IllegalArgumentException.class,
+            () -> new SlidePreviewExporter(SlidePreviewExporter.MAX_DPI + 1, true));
+    }
+}
@@ -0,0 +1,165 @@
+package com.cardealer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ZipPackageWriterTest {
+
+    private static final LocalDateTime MODIFIED = LocalDateTime.of(2024, 3, 1, 12, 30);
+
+    /** Discards its input, counting the bytes. */
+    private static final class CountingStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+
+    private static Map<String, byte[]> unzip(byte[] archive) throws IOException {
+        Map<String, byte[]> parts = new LinkedHashMap<>();
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(archive))) {
+            // ZipInputStream checks each entry's CRC and sizes as it reaches the end of it
+            for (ZipEntry entry = in.getNextEntry(); entry != null; entry = in.getNextEntry()) {
+                parts.put(entry.getName(), in.readAllBytes());
+            }
+        }
+        return parts;
+    }
+
+    private static byte[] content(String text, int copies) {
+        return text.repeat(copies).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void storedPackedAndStreamedEntriesReadBack() throws IOException {
+        byte[] stored = content("<Types/>", 10);
+        byte[] packed = content("<p:sld>slide</p:sld>", 500);
+        byte[] streamed = content("<p:sld>streamed</p:sld>", 5_000);
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+
+        try (ZipPackageWriter zip = new ZipPackageWriter(archive, MODIFIED)) {
+            zip.writePacked(ZipPackageWriter.PackedPart.stored("[Content_Types].xml", stored));
+            zip.writePacked(ZipPackageWriter.PackedPart.pack("ppt/slides/slide1.xml", packed, 6));
+            Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            try (OutputStream out = zip.beginDeflated("ppt/slides/slide2.xml", deflater)) {
+                for (int i = 0; i < streamed.length; i += 1_000) {
+                    out.write(streamed, i, Math.min(1_000, streamed.length - i));
+                }
+            } finally {
+                deflater.end();
+            }
+            zip.writePacked(ZipPackageWriter.PackedPart.stored("docProps/é.xml", new byte[0]));
+        }
+
+        Map<String, byte[]> parts = unzip(archive.toByteArray());
+        assertEquals(List.of("[Content_Types].xml", "ppt/slides/slide1.xml", "ppt/slides/slide2.xml",
+            "docProps/é.xml"), List.copyOf(parts.keySet()));
+        assertArrayEquals(stored, parts.get("[Content_Types].xml"));
+        assertArrayEquals(packed, parts.get("ppt/slides/slide1.xml"));
+        assertArrayEquals(streamed, parts.get("ppt/slides/slide2.xml"));
+        assertEquals(0, parts.get("docProps/é.xml").length);
+    }
+
+    @Test
+    void packedPartsKeepTheirChecksum() {
+        byte[] text = content("<a:t>Ford Focus</a:t>", 100);
+        CRC32 crc = new CRC32();
+        crc.update(text);
+
+        ZipPackageWriter.PackedPart packed = ZipPackageWriter.PackedPart.pack("slide.xml", text, 6);
+
+        assertEquals(crc.getValue(), packed.crc());
+        assertEquals(text.length, packed.size());
+        assertTrue(packed.data().length < text.length);
+    }
+
+    @Test
+    void entryCountIsLimitedToZip32() throws IOException {
+        ZipPackageWriter zip = new ZipPackageWriter(OutputStream.nullOutputStream(), MODIFIED);
+        for (int i = 0; i < 0xFFFF; i++) {
+            zip.writePacked(ZipPackageWriter.PackedPart.stored("part" + i, new byte[0]));
+        }
+
+        assertThrows(IOException.class,
+            () -> zip.writePacked(ZipPackageWriter.PackedPart.stored("one-too-many", new byte[0])));
+        assertThrows(IOException.class, () -> zip.beginDeflated("one-too-many", new Deflater()));
+        zip.finish();
+    }
+
+    @Test
+    void oversizedPartFailsBeforeItsHeader() {
+        CountingStream out = new CountingStream();
+        ZipPackageWriter zip = new ZipPackageWriter(out, MODIFIED);
+        ZipPackageWriter.PackedPart huge = new ZipPackageWriter.PackedPart("huge.xml", ZipPackageWriter.METHOD_DEFLATED,
+            0, 0x1_0000_0000L, new byte[16]);
+
+        assertThrows(IOException.class, () -> zip.writePacked(huge));
+        assertEquals(0, out.count);
+    }
+
+    @Test
+    void entryPastFourGigabytesFailsBeforeItsHeader() throws IOException {
+        CountingStream out = new CountingStream();
+        ZipPackageWriter zip = new ZipPackageWriter(out, MODIFIED);
+        byte[] chunk = new byte[64 << 20];
+        ZipPackageWriter.PackedPart part = ZipPackageWriter.PackedPart.stored("chunk", chunk);
+
+        // 64 full chunks reach exactly 4 GB of data, plus their headers
+        for (int i = 0; i < 64; i++) {
+            zip.writePacked(part);
+        }
+        long written = out.count;
+        assertTrue(written > 0xFFFFFFFFL);
+
+        assertThrows(IOException.class, () -> zip.writePacked(part));
+        assertThrows(IOException.class, zip::finish);
+        assertEquals(written, out.count);
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = RenderMode.class, names = {"TEMPLATE", "STREAMING"})
+    void renderModesProduceTheSameSlide(RenderMode mode) throws IOException {
+        VehicleListing vehicle = new VehicleListing("Ford Focus 1.6 Titanium", "£12,000", "AB12 CDE",
+            "2019 (69 reg)", GearboxType.MANUAL, "1.6L", FuelType.PETROL, "45k miles", UlezStatus.YES,
+            "March 2025", "2", List.of("Heated seats", "Sat nav", "Cruise control"),
+            new DealerDetails("North Motors", "0161 496 0000", "sales@north.example", "north.example"));
+
+        Map<String, byte[]> direct = unzip(new PresentationBuilder(RenderMode.DIRECT).renderToBytes(vehicle));
+        Map<String, byte[]> other = unzip(new PresentationBuilder(mode).renderToBytes(vehicle));
+
+        for (String part : List.of("ppt/slides/slide1.xml", "ppt/slides/_rels/slide1.xml.rels")) {
+            assertTrue(Arrays.equals(direct.get(part), other.get(part)), mode + " " + part);
+        }
+        if (mode == RenderMode.TEMPLATE) {
+            assertEquals(direct.keySet(), other.keySet());
+        }
+    }
+}